@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.artifact;
+
+import java.io.File;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the {@link LocalArtifactStore} used by the admin.
+ */
+@ConfigurationProperties("spring.cloud.dataflow.artifacts")
+public class ArtifactStoreProperties {
+
+	/**
+	 * Whether module archives should be served from a local store. Off by default.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Directory holding the store.
+	 */
+	private File directory = new File(System.getProperty("user.home"), ".spring-cloud-dataflow/artifacts");
+
+	/**
+	 * Maximum total size of the stored archives, in bytes, beyond which least recently used
+	 * archives are evicted.
+	 */
+	private long maxSize = 2L * 1024 * 1024 * 1024;
+
+	/**
+	 * Number of threads used to fetch the archives of newly registered modules in the background.
+	 * Set to 0 to disable prefetching.
+	 */
+	private int prefetchThreads = 4;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(File directory) {
+		this.directory = directory;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public int getPrefetchThreads() {
+		return prefetchThreads;
+	}
+
+	public void setPrefetchThreads(int prefetchThreads) {
+		this.prefetchThreads = prefetchThreads;
+	}
+}
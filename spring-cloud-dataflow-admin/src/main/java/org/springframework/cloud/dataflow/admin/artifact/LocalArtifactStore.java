@@ -0,0 +1,349 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.artifact;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.util.Assert;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * A local, content-addressed store of module artifacts.
+ *
+ * <p>Artifact contents are stored once per distinct SHA-1 checksum, under
+ * {@literal blobs/}, while {@literal refs/} holds one small file per artifact
+ * coordinates, containing the checksum of its contents. Artifacts are evicted in least
+ * recently used order when the total size of stored contents exceeds a configurable
+ * maximum. The state of the store is entirely held on disk, so that it survives restarts,
+ * including the access order (recorded as the last modification time of the refs).</p>
+ *
+ * <p>Artifacts that are in use, <i>e.g.</i> by running modules, can be {@link #pin(String)
+ * pinned}, which protects them from eviction until they are {@link #unpin(String) unpinned}.
+ * The store may then temporarily exceed its maximum size. When the contents of pinned
+ * coordinates are replaced (<i>e.g.</i> by a newer build of a snapshot), the previous
+ * contents are also kept until the coordinates are unpinned.</p>
+ */
+public class LocalArtifactStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(LocalArtifactStore.class);
+
+	private static final String BLOB_SUFFIX = ".jar";
+
+	private final File blobs;
+
+	private final File refs;
+
+	private final long maxSize;
+
+	/**
+	 * Checksum of the artifact contents, by coordinates, in access order.
+	 */
+	private final LinkedHashMap<String, String> index = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Number of pins held, by coordinates.
+	 */
+	private final Map<String, Integer> pins = new HashMap<>();
+
+	/**
+	 * Checksums of replaced contents of pinned coordinates, by coordinates, which are
+	 * released once the coordinates are unpinned.
+	 */
+	private final Map<String, List<String>> retained = new HashMap<>();
+
+	private long size;
+
+	/**
+	 * Create a store rooted at the given directory, which is created if needed, and
+	 * whose contents should not exceed the given size, in bytes.
+	 */
+	public LocalArtifactStore(File directory, long maxSize) {
+		Assert.isTrue(maxSize > 0, "maxSize must be strictly positive");
+		this.blobs = new File(directory, "blobs");
+		this.refs = new File(directory, "refs");
+		this.maxSize = maxSize;
+		Assert.state((blobs.isDirectory() || blobs.mkdirs()) && (refs.isDirectory() || refs.mkdirs()),
+				"Could not create artifact store in " + directory);
+		load();
+	}
+
+	/**
+	 * Return the stored file for the given coordinates, or {@code null} if not stored.
+	 */
+	public synchronized File find(String coordinates) {
+		String checksum = index.get(coordinates);
+		if (checksum == null) {
+			return null;
+		}
+		File blob = blob(checksum);
+		if (!blob.isFile()) {
+			// Removed from under us
+			remove(coordinates);
+			return null;
+		}
+		ref(coordinates).setLastModified(System.currentTimeMillis());
+		return blob;
+	}
+
+	/**
+	 * Copy the given contents to the store, for the given coordinates, and return the
+	 * stored file. Contents already stored for other coordinates are shared.
+	 */
+	public File store(String coordinates, InputStream contents) throws IOException {
+		File temp = File.createTempFile("artifact", ".tmp", blobs);
+		String checksum;
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			try (OutputStream out = new FileOutputStream(temp)) {
+				FileCopyUtils.copy(new DigestInputStream(contents, digest), out);
+			}
+			checksum = toHex(digest.digest());
+			synchronized (this) {
+				File blob = blob(checksum);
+				String previous = index.put(coordinates, checksum);
+				if (!checksum.equals(previous)) {
+					if (!blob.isFile()) {
+						Files.move(temp.toPath(), blob.toPath(), StandardCopyOption.ATOMIC_MOVE);
+					}
+					if (Collections.frequency(index.values(), checksum) == 1 && !isRetained(checksum)) {
+						size += blob.length();
+					}
+					writeRef(coordinates, checksum);
+					if (previous != null && pins.containsKey(coordinates)) {
+						// Still in use by whoever pinned the coordinates
+						List<String> checksums = retained.get(coordinates);
+						if (checksums == null) {
+							checksums = new LinkedList<>();
+							retained.put(coordinates, checksums);
+						}
+						checksums.add(previous);
+					}
+					else if (previous != null) {
+						releaseContents(previous);
+					}
+				}
+				evict();
+				return blob;
+			}
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Protect the artifact for the given coordinates from eviction, whether it is already
+	 * stored or not. Each call must be balanced with a call to {@link #unpin(String)}.
+	 */
+	public synchronized void pin(String coordinates) {
+		Integer count = pins.get(coordinates);
+		pins.put(coordinates, count == null ? 1 : count + 1);
+	}
+
+	/**
+	 * Release a pin taken with {@link #pin(String)}. Once no pins are held anymore, the
+	 * artifact may be evicted again.
+	 */
+	public synchronized void unpin(String coordinates) {
+		Integer count = pins.get(coordinates);
+		if (count == null) {
+			return;
+		}
+		if (count > 1) {
+			pins.put(coordinates, count - 1);
+		}
+		else {
+			pins.remove(coordinates);
+			List<String> checksums = retained.remove(coordinates);
+			if (checksums != null) {
+				for (String checksum : checksums) {
+					releaseContents(checksum);
+				}
+			}
+			evict();
+		}
+	}
+
+	/**
+	 * Return the total size, in bytes, of the stored contents.
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Evict least recently used artifacts until the size of the store is within bounds,
+	 * but never evict pinned artifacts nor the most recent one.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, String>> iterator = index.entrySet().iterator();
+		while (size > maxSize && iterator.hasNext()) {
+			Map.Entry<String, String> eldest = iterator.next();
+			if (!iterator.hasNext()) {
+				break;
+			}
+			if (pins.containsKey(eldest.getKey())) {
+				continue;
+			}
+			logger.info("Evicting {} from local artifact store", eldest.getKey());
+			iterator.remove();
+			ref(eldest.getKey()).delete();
+			releaseContents(eldest.getValue());
+		}
+		if (size > maxSize) {
+			logger.debug("Local artifact store exceeds its maximum size, as {} artifacts are pinned", pins.size());
+		}
+	}
+
+	private void remove(String coordinates) {
+		String checksum = index.remove(coordinates);
+		if (checksum != null) {
+			ref(coordinates).delete();
+			releaseContents(checksum);
+		}
+	}
+
+	/**
+	 * Delete the given contents if they are not referenced anymore.
+	 */
+	private void releaseContents(String checksum) {
+		if (!index.containsValue(checksum) && !isRetained(checksum)) {
+			File blob = blob(checksum);
+			size -= blob.length();
+			blob.delete();
+		}
+	}
+
+	private boolean isRetained(String checksum) {
+		for (List<String> checksums : retained.values()) {
+			if (checksums.contains(checksum)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void load() {
+		File[] files = refs.listFiles();
+		Arrays.sort(files, new Comparator<File>() {
+
+			@Override
+			public int compare(File o1, File o2) {
+				return Long.compare(o1.lastModified(), o2.lastModified());
+			}
+		});
+		for (File ref : files) {
+			String checksum = readRef(ref);
+			if (checksum != null && blob(checksum).isFile()) {
+				index.put(decode(ref.getName()), checksum);
+			}
+			else {
+				ref.delete();
+			}
+		}
+		for (String checksum : new HashSet<>(index.values())) {
+			size += blob(checksum).length();
+		}
+		for (File blob : blobs.listFiles()) {
+			// Leftovers of interrupted copies, or of interrupted evictions
+			String name = blob.getName();
+			if (!name.endsWith(BLOB_SUFFIX) || !index.containsValue(name.substring(0, name.length() - BLOB_SUFFIX.length()))) {
+				blob.delete();
+			}
+		}
+	}
+
+	private File blob(String checksum) {
+		return new File(blobs, checksum + BLOB_SUFFIX);
+	}
+
+	private File ref(String coordinates) {
+		return new File(refs, encode(coordinates));
+	}
+
+	private String readRef(File ref) {
+		try {
+			return new String(Files.readAllBytes(ref.toPath()), StandardCharsets.UTF_8).trim();
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	private void writeRef(String coordinates, String checksum) throws IOException {
+		File temp = File.createTempFile("ref", ".tmp", refs.getParentFile());
+		Files.write(temp.toPath(), checksum.getBytes(StandardCharsets.UTF_8));
+		Files.move(temp.toPath(), ref(coordinates).toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static String encode(String coordinates) {
+		try {
+			return URLEncoder.encode(coordinates, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String decode(String fileName) {
+		try {
+			return URLDecoder.decode(fileName, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(String.format("%02x", b));
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.artifact;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.stream.module.resolver.Coordinates;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+
+/**
+ * Resolves module archives in the background, so that they are already available locally
+ * by the time the modules get deployed.
+ */
+public class ModuleArtifactPrefetcher implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(ModuleArtifactPrefetcher.class);
+
+	private final ModuleResolver moduleResolver;
+
+	private final ExecutorService executorService;
+
+	/**
+	 * Create a prefetcher that uses the given resolver (which is expected to keep resolved
+	 * archives around, see {@link StoreBackedModuleResolver}) from the given number of threads.
+	 * If that number is 0, prefetching is disabled.
+	 */
+	public ModuleArtifactPrefetcher(ModuleResolver moduleResolver, int threads) {
+		this.moduleResolver = moduleResolver;
+		this.executorService = threads <= 0 ? null : Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "artifact-prefetch-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Schedule the resolution of the archives with the given coordinates. Failures are
+	 * logged, and will happen again at deployment time.
+	 */
+	public void prefetch(Collection<ArtifactCoordinates> coordinates) {
+		if (executorService == null) {
+			return;
+		}
+		for (final ArtifactCoordinates artifact : coordinates) {
+			executorService.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						moduleResolver.resolve(new Coordinates(artifact.getGroupId(), artifact.getArtifactId(),
+								artifact.getExtension(), artifact.getClassifier(), artifact.getVersion()));
+						logger.debug("Prefetched {}", artifact);
+					}
+					catch (Exception e) {
+						logger.warn("Could not prefetch {}: {}", artifact, e.getMessage());
+					}
+				}
+			});
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (executorService != null) {
+			executorService.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.artifact;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.module.deployer.local.ModuleLaunchReleaser;
+import org.springframework.cloud.dataflow.module.deployer.local.ModuleLaunchTerminator;
+import org.springframework.cloud.stream.module.launcher.ModuleLaunchRequest;
+import org.springframework.cloud.stream.module.launcher.ModuleLauncher;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+
+/**
+ * A {@link ModuleLauncher} that pins the archives of the modules it launches in a
+ * {@link LocalArtifactStore}, so that they are not evicted while modules run from them,
+ * and unpins them when the launched instances are released. Only the archives pinned for
+ * launches that succeeded are unpinned on release, so that releasing a failed launch
+ * twice does not take away the pins of other running instances.
+ */
+public class PinningModuleLauncher extends ModuleLauncher
+		implements ModuleLaunchReleaser, ModuleLaunchTerminator {
+
+	private final ModuleLauncher delegate;
+
+	private final LocalArtifactStore store;
+
+	/**
+	 * The store keys pinned for each successful launch, by the request the launched
+	 * instance is released with (the first one, for an aggregate).
+	 */
+	private final Map<ModuleLaunchRequest, List<String>> pinned = new IdentityHashMap<>();
+
+	public PinningModuleLauncher(ModuleLauncher delegate, ModuleResolver moduleResolver, LocalArtifactStore store) {
+		super(moduleResolver);
+		this.delegate = delegate;
+		this.store = store;
+	}
+
+	@Override
+	public void launch(List<ModuleLaunchRequest> requests) {
+		List<String> keys = pin(requests);
+		try {
+			delegate.launch(requests);
+		}
+		catch (RuntimeException e) {
+			unpin(keys);
+			throw e;
+		}
+		synchronized (pinned) {
+			for (int i = 0; i < requests.size(); i++) {
+				pinned.put(requests.get(i), Collections.singletonList(keys.get(i)));
+			}
+		}
+	}
+
+	/**
+	 * Pins the archives of all the modules of an aggregate, which are unpinned when the
+	 * aggregate is released through its first request.
+	 */
+	@Override
+	public void launch(List<ModuleLaunchRequest> requests, boolean aggregate, Map<String, String> aggregateArgs) {
+		List<String> keys = pin(requests);
+		try {
+			delegate.launch(requests, aggregate, aggregateArgs);
+		}
+		catch (RuntimeException e) {
+			unpin(keys);
+			throw e;
+		}
+		synchronized (pinned) {
+			if (aggregate) {
+				pinned.put(requests.get(0), keys);
+			}
+			else {
+				for (int i = 0; i < requests.size(); i++) {
+					pinned.put(requests.get(i), Collections.singletonList(keys.get(i)));
+				}
+			}
+		}
+	}
+
+	@Override
+	public void release(ModuleLaunchRequest request) {
+		List<String> keys;
+		synchronized (pinned) {
+			keys = pinned.remove(request);
+		}
+		try {
+			if (delegate instanceof ModuleLaunchReleaser) {
+				((ModuleLaunchReleaser) delegate).release(request);
+			}
+		}
+		finally {
+			if (keys != null) {
+				unpin(keys);
+			}
+		}
+	}
+
+	@Override
+	public boolean terminate(ModuleLaunchRequest request) {
+		return delegate instanceof ModuleLaunchTerminator
+				&& ((ModuleLaunchTerminator) delegate).terminate(request);
+	}
+
+	private List<String> pin(List<ModuleLaunchRequest> requests) {
+		List<String> keys = new ArrayList<>(requests.size());
+		for (ModuleLaunchRequest request : requests) {
+			String key = key(request);
+			store.pin(key);
+			keys.add(key);
+		}
+		return keys;
+	}
+
+	private void unpin(List<String> keys) {
+		for (String key : keys) {
+			store.unpin(key);
+		}
+	}
+
+	/**
+	 * Return the coordinates of the requested module, in the form used as a key by the
+	 * store (see {@link StoreBackedModuleResolver}).
+	 */
+	private static String key(ModuleLaunchRequest request) {
+		return ArtifactCoordinates.parse(request.getModule()).toString();
+	}
+
+}
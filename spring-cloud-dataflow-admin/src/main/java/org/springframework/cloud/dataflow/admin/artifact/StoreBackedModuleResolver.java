@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.artifact;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.stream.module.resolver.Coordinates;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * A {@link ModuleResolver} that serves module archives from a {@link LocalArtifactStore},
+ * and only falls back to another resolver (typically backed by Maven) for archives that are
+ * not in the store yet, which are then added to it.
+ *
+ * <p>Snapshots are resolved again each time, following the update policy of the other
+ * resolver, and stored again if their contents changed. The stored snapshot is only
+ * served if they cannot be resolved (<i>e.g.</i> when offline).</p>
+ *
+ * <p>Concurrent requests for the same coordinates (<i>e.g.</i> a deployment and a prefetch)
+ * share a single resolution.</p>
+ */
+public class StoreBackedModuleResolver implements ModuleResolver {
+
+	private static final Logger logger = LoggerFactory.getLogger(StoreBackedModuleResolver.class);
+
+	private final ModuleResolver delegate;
+
+	private final LocalArtifactStore store;
+
+	private final ConcurrentMap<String, FutureTask<Resource>> inFlight = new ConcurrentHashMap<>();
+
+	public StoreBackedModuleResolver(ModuleResolver delegate, LocalArtifactStore store) {
+		Assert.notNull(delegate, "delegate must not be null");
+		Assert.notNull(store, "store must not be null");
+		this.delegate = delegate;
+		this.store = store;
+	}
+
+	@Override
+	public Resource resolve(final Coordinates coordinates) {
+		final String key = toString(coordinates);
+		File stored = store.find(key);
+		boolean snapshot = coordinates.getVersion().endsWith("-SNAPSHOT");
+		if (stored != null && !snapshot) {
+			return new FileSystemResource(stored);
+		}
+		FutureTask<Resource> task = new FutureTask<>(new Callable<Resource>() {
+
+			@Override
+			public Resource call() throws IOException {
+				Resource resolved = delegate.resolve(coordinates);
+				try (InputStream contents = resolved.getInputStream()) {
+					return new FileSystemResource(store.store(key, contents));
+				}
+			}
+		});
+		FutureTask<Resource> existing = inFlight.putIfAbsent(key, task);
+		if (existing == null) {
+			try {
+				task.run();
+			}
+			finally {
+				inFlight.remove(key, task);
+			}
+		}
+		else {
+			task = existing;
+		}
+		try {
+			return task.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while resolving " + key, e);
+		}
+		catch (ExecutionException e) {
+			if (stored != null) {
+				logger.warn("Could not resolve {} again, using the stored archive", key, e.getCause());
+				return new FileSystemResource(stored);
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Exception resolving " + key, e.getCause());
+		}
+	}
+
+	/**
+	 * Archives resolved with their dependencies are not stored.
+	 */
+	@Override
+	public Resource[] resolve(Coordinates root, Coordinates[] includes, String[] excludePatterns) {
+		return delegate.resolve(root, includes, excludePatterns);
+	}
+
+	/**
+	 * Return the coordinates in the form used by
+	 * {@link org.springframework.cloud.dataflow.core.ArtifactCoordinates#toString()}.
+	 */
+	private static String toString(Coordinates coordinates) {
+		return StringUtils.hasLength(coordinates.getClassifier()) ?
+				String.format("%s:%s:%s:%s:%s", coordinates.getGroupId(), coordinates.getArtifactId(),
+						coordinates.getExtension(), coordinates.getClassifier(), coordinates.getVersion()) :
+				String.format("%s:%s:%s:%s", coordinates.getGroupId(), coordinates.getArtifactId(),
+						coordinates.getExtension(), coordinates.getVersion());
+	}
+
+}
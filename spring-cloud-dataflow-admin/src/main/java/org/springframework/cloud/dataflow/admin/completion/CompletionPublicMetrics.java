@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.completion;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.cloud.dataflow.completion.CompletionMetrics;
+import org.springframework.cloud.dataflow.completion.LatencyHistogram;
+
+/**
+ * Exposes the statistics gathered by {@link CompletionMetrics} on the {@literal /metrics}
+ * endpoint, under the {@literal completion.} prefix.
+ *
+ * <p>Values are computed on demand from the live statistics and are not written to the
+ * {@link org.springframework.boot.actuate.metrics.repository.MetricRepository}, which
+ * backs the counters listed by the REST API.</p>
+ */
+public class CompletionPublicMetrics implements PublicMetrics {
+
+	private static final String PREFIX = "completion.";
+
+	private final CompletionMetrics completionMetrics;
+
+	public CompletionPublicMetrics(CompletionMetrics completionMetrics) {
+		this.completionMetrics = completionMetrics;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		List<Metric<?>> result = new ArrayList<>();
+		for (Map.Entry<CompletionMetrics.Phase, LatencyHistogram> entry : completionMetrics.getPhaseStatistics().entrySet()) {
+			addLatency(result, PREFIX + "phase." + entry.getKey().getName(), entry.getValue());
+		}
+		for (Map.Entry<String, CompletionMetrics.StrategyStatistics> entry : completionMetrics.getStrategyStatistics().entrySet()) {
+			String name = PREFIX + "strategy." + entry.getKey();
+			CompletionMetrics.StrategyStatistics statistics = entry.getValue();
+			result.add(new Metric<Number>(name + ".triggerChecks", statistics.getTriggerChecks()));
+			result.add(new Metric<Number>(name + ".invocations", statistics.getInvocations()));
+			result.add(new Metric<Number>(name + ".proposals", statistics.getProposals()));
+			addLatency(result, name + ".latency", statistics.getLatency());
+		}
+		return result;
+	}
+
+	private void addLatency(List<Metric<?>> result, String name, LatencyHistogram histogram) {
+		result.add(new Metric<Number>(name + ".count", histogram.getCount()));
+		result.add(new Metric<Number>(name + ".total", histogram.getTotalMillis()));
+		result.add(new Metric<Number>(name + ".mean", histogram.getMeanMillis()));
+		result.add(new Metric<Number>(name + ".max", histogram.getMaxMillis()));
+		long[] bounds = LatencyHistogram.BUCKET_BOUNDS_MILLIS;
+		for (int i = 0; i < bounds.length; i++) {
+			result.add(new Metric<Number>(name + ".le" + bounds[i] + "ms", histogram.getBucketCount(i)));
+		}
+		result.add(new Metric<Number>(name + ".gt" + bounds[bounds.length - 1] + "ms",
+				histogram.getBucketCount(bounds.length)));
+	}
+
+}
@@ -22,19 +22,25 @@ import java.util.List;
 
 import org.springframework.boot.actuate.metrics.repository.MetricRepository;
 import org.springframework.boot.actuate.metrics.repository.redis.RedisMetricRepository;
+import org.springframework.cloud.dataflow.admin.completion.CompletionPublicMetrics;
 import org.springframework.cloud.dataflow.admin.completion.TapOnChannelExpansionStrategy;
 import org.springframework.cloud.dataflow.admin.repository.InMemoryStreamDefinitionRepository;
 import org.springframework.cloud.dataflow.admin.repository.InMemoryTaskDefinitionRepository;
 import org.springframework.cloud.dataflow.admin.repository.StreamDefinitionRepository;
 import org.springframework.cloud.dataflow.admin.repository.TaskDefinitionRepository;
 import org.springframework.cloud.dataflow.completion.CompletionConfiguration;
+import org.springframework.cloud.dataflow.completion.CompletionMetrics;
 import org.springframework.cloud.dataflow.completion.RecoveryStrategy;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistryChangeListener;
+import org.springframework.cloud.dataflow.artifact.registry.CachingArtifactRegistry;
 import org.springframework.cloud.dataflow.artifact.registry.RedisArtifactRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
 import org.springframework.hateoas.config.EnableHypermediaSupport;
 import org.springframework.http.converter.HttpMessageConverter;
@@ -75,7 +81,36 @@ public class AdminConfiguration {
 
 	@Bean
 	public ArtifactRegistry artifactRegistry(RedisConnectionFactory redisConnectionFactory) {
-		return new RedisArtifactRegistry(redisConnectionFactory);
+		return new CachingArtifactRegistry(new RedisArtifactRegistry(redisConnectionFactory));
+	}
+
+	@Bean
+	public RedisMessageListenerContainer artifactRegistryChangeListenerContainer(
+			RedisConnectionFactory redisConnectionFactory, final ArtifactRegistry artifactRegistry) {
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+
+			@Override
+			protected void handleSubscriptionException(Throwable ex) {
+				// re-subscribes if the connection was lost
+				super.handleSubscriptionException(ex);
+				if (isRunning() && artifactRegistry instanceof CachingArtifactRegistry) {
+					// changes published while not subscribed have been missed
+					try {
+						((CachingArtifactRegistry) artifactRegistry).refresh();
+					}
+					catch (RuntimeException e) {
+						logger.warn("Could not reload the artifact registry after re-subscribing to its changes", e);
+					}
+				}
+			}
+		};
+		container.setConnectionFactory(redisConnectionFactory);
+		// the registry may have been overridden with a non caching one, which needs no notifications
+		if (artifactRegistry instanceof CachingArtifactRegistry) {
+			container.addMessageListener(new ArtifactRegistryChangeListener((CachingArtifactRegistry) artifactRegistry),
+					new ChannelTopic(RedisArtifactRegistry.CHANGES_CHANNEL));
+		}
+		return container;
 	}
 
 	@Bean
@@ -101,4 +136,9 @@ public class AdminConfiguration {
 		return new TapOnChannelExpansionStrategy();
 	}
 
+	@Bean
+	public CompletionPublicMetrics completionPublicMetrics(CompletionMetrics completionMetrics) {
+		return new CompletionPublicMetrics(completionMetrics);
+	}
+
 }
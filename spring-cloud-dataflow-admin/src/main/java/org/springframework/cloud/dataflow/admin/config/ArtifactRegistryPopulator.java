@@ -21,12 +21,21 @@ import static org.springframework.cloud.dataflow.core.ArtifactType.sink;
 import static org.springframework.cloud.dataflow.core.ArtifactType.source;
 import static org.springframework.cloud.dataflow.core.ArtifactType.task;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.annotation.PostConstruct;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.dataflow.admin.artifact.ModuleArtifactPrefetcher;
 import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
 import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactKey;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
+import org.springframework.cloud.dataflow.artifact.registry.CachingArtifactRegistry;
 import org.springframework.util.Assert;
 
 /**
@@ -67,6 +76,12 @@ public class ArtifactRegistryPopulator {
 	 */
 	private final ArtifactRegistry artifactRegistry;
 
+	/**
+	 * Fetches the archives of default modules in the background, if available.
+	 */
+	@Autowired(required = false)
+	private ModuleArtifactPrefetcher moduleArtifactPrefetcher;
+
 	/**
 	 * Construct a {@code ArtifactRegistryPopulator} with the provided {@link ArtifactRegistry}.
 	 *
@@ -80,42 +95,61 @@ public class ArtifactRegistryPopulator {
 	/**
 	 * Populate the registry with default module coordinates;
 	 * will not overwrite existing values.
+	 *
+	 * <p>Existing registrations are looked up, and missing ones saved, in bulk. Lookups
+	 * bypass the local copy of a {@link CachingArtifactRegistry}, which may have been
+	 * restored from a snapshot that does not match the backing store. The archives of all
+	 * default modules are then prefetched.</p>
 	 */
 	@PostConstruct
 	public void populateDefaults() {
-		populateDefault("ftp", source);
-		populateDefault("http", source);
-		populateDefault("sftp", source);
-		populateDefault("time", source);
-		populateDefault("twitterstream", source);
-		populateDefault("filter", processor);
-		populateDefault("groovy-filter", processor);
-		populateDefault("groovy-transform", processor);
-		populateDefault("transform", processor);
-		populateDefault("counter", sink);
-		populateDefault("file", sink);
-		populateDefault("ftp", sink);
-		populateDefault("gemfire", sink);
-		populateDefault("hdfs", sink);
-		populateDefault("log", sink);
-		populateDefault("redis", sink);
-		populateDefault("timestamp", task);
+		Map<ArtifactKey, ArtifactRegistration> defaults = new LinkedHashMap<>();
+		addDefault(defaults, "ftp", source);
+		addDefault(defaults, "http", source);
+		addDefault(defaults, "sftp", source);
+		addDefault(defaults, "time", source);
+		addDefault(defaults, "twitterstream", source);
+		addDefault(defaults, "filter", processor);
+		addDefault(defaults, "groovy-filter", processor);
+		addDefault(defaults, "groovy-transform", processor);
+		addDefault(defaults, "transform", processor);
+		addDefault(defaults, "counter", sink);
+		addDefault(defaults, "file", sink);
+		addDefault(defaults, "ftp", sink);
+		addDefault(defaults, "gemfire", sink);
+		addDefault(defaults, "hdfs", sink);
+		addDefault(defaults, "log", sink);
+		addDefault(defaults, "redis", sink);
+		addDefault(defaults, "timestamp", task);
+
+		List<ArtifactCoordinates> coordinates = new ArrayList<>(defaults.size());
+		for (ArtifactRegistration existing : CachingArtifactRegistry.authoritative(this.artifactRegistry).findAll(defaults.keySet())) {
+			defaults.remove(new ArtifactKey(existing.getName(), existing.getType()));
+			coordinates.add(existing.getCoordinates());
+		}
+		if (!defaults.isEmpty()) {
+			this.artifactRegistry.saveAll(defaults.values());
+			for (ArtifactRegistration registration : defaults.values()) {
+				coordinates.add(registration.getCoordinates());
+			}
+		}
+		if (this.moduleArtifactPrefetcher != null) {
+			this.moduleArtifactPrefetcher.prefetch(coordinates);
+		}
 	}
 
 	/**
-	 * Populate the registry with default values for the provided
-	 * module name and type; will not overwrite existing values.
+	 * Add the default registration for the provided module name and type.
 	 *
+	 * @param defaults registrations to add to
 	 * @param name module name
 	 * @param type module type
 	 */
-	private void populateDefault(String name, ArtifactType type) {
-		if (this.artifactRegistry.find(name, type) == null) {
-			this.artifactRegistry.save(new ArtifactRegistration(name, type,
+	private void addDefault(Map<ArtifactKey, ArtifactRegistration> defaults, String name, ArtifactType type) {
+		defaults.put(new ArtifactKey(name, type), new ArtifactRegistration(name, type,
 				(type == task) ?
 					defaultTaskCoordinatesFor(name + '-' + type) :
 					defaultStreamCoordinatesFor(name + '-' + type)));
-		}
 	}
 
 	/**
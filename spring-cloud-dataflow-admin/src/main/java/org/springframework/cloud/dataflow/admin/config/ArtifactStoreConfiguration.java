@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.dataflow.admin.artifact.ArtifactStoreProperties;
+import org.springframework.cloud.dataflow.admin.artifact.LocalArtifactStore;
+import org.springframework.cloud.dataflow.admin.artifact.ModuleArtifactPrefetcher;
+import org.springframework.cloud.dataflow.admin.artifact.StoreBackedModuleResolver;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Serves module archives from a {@link LocalArtifactStore}, by decorating every
+ * {@link ModuleResolver} of the context (including the one used by the module launcher of
+ * in-process deployers), and prefetches the archives of registered modules. Only active
+ * when {@literal spring.cloud.dataflow.artifacts.enabled} is set.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.cloud.dataflow.artifacts", name = "enabled")
+@EnableConfigurationProperties(ArtifactStoreProperties.class)
+public class ArtifactStoreConfiguration {
+
+	@Bean
+	public LocalArtifactStore localArtifactStore(ArtifactStoreProperties properties) {
+		return new LocalArtifactStore(properties.getDirectory(), properties.getMaxSize());
+	}
+
+	@Bean
+	public ModuleArtifactPrefetcher moduleArtifactPrefetcher(ModuleResolver moduleResolver,
+			ArtifactStoreProperties properties) {
+		return new ModuleArtifactPrefetcher(moduleResolver, properties.getPrefetchThreads());
+	}
+
+	@Bean
+	public static BeanPostProcessor storeBackedModuleResolverPostProcessor() {
+		return new StoreBackedModuleResolverPostProcessor();
+	}
+
+	/**
+	 * Wraps {@link ModuleResolver} beans in a {@link StoreBackedModuleResolver}.
+	 */
+	private static class StoreBackedModuleResolverPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+		private BeanFactory beanFactory;
+
+		@Override
+		public void setBeanFactory(BeanFactory beanFactory) {
+			this.beanFactory = beanFactory;
+		}
+
+		@Override
+		public Object postProcessBeforeInitialization(Object bean, String beanName) {
+			return bean;
+		}
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+			if (bean instanceof ModuleResolver && !(bean instanceof StoreBackedModuleResolver)) {
+				return new StoreBackedModuleResolver((ModuleResolver) bean, beanFactory.getBean(LocalArtifactStore.class));
+			}
+			return bean;
+		}
+	}
+
+}
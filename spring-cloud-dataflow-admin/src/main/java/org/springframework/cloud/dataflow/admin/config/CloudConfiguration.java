@@ -24,7 +24,9 @@ import org.springframework.cloud.Cloud;
 import org.springframework.cloud.CloudConnector;
 import org.springframework.cloud.CloudFactory;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
+import org.springframework.cloud.dataflow.module.deployer.lattice.HttpReceptorEventSource;
 import org.springframework.cloud.dataflow.module.deployer.lattice.LrpModuleDeployer;
+import org.springframework.cloud.dataflow.module.deployer.lattice.ReceptorStateTracker;
 import org.springframework.cloud.dataflow.module.deployer.lattice.TaskModuleDeployer;
 import org.springframework.cloud.lattice.LatticeProperties;
 import org.springframework.cloud.lattice.connector.LatticeConnector;
@@ -73,12 +75,22 @@ public class CloudConfiguration {
 
 		@Bean
 		public ModuleDeployer processModuleDeployer() {
-			return new LrpModuleDeployer(receptorClient(), latticeProperties.getReceptor().getHost());
+			LrpModuleDeployer deployer = new LrpModuleDeployer(receptorClient(), latticeProperties.getReceptor().getHost());
+			deployer.setStateTracker(receptorStateTracker());
+			return deployer;
 		}
 
 		@Bean
 		public ModuleDeployer taskModuleDeployer() {
-			return new TaskModuleDeployer();
+			TaskModuleDeployer deployer = new TaskModuleDeployer(receptorClient());
+			deployer.setStateTracker(receptorStateTracker());
+			return deployer;
+		}
+
+		@Bean
+		public ReceptorStateTracker receptorStateTracker() {
+			return new ReceptorStateTracker(receptorClient(),
+					new HttpReceptorEventSource(latticeProperties.getReceptor().getHost()));
 		}
 
 		@Bean
@@ -16,8 +16,17 @@
 
 package org.springframework.cloud.dataflow.admin.config;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.dataflow.module.deployer.cloudfoundry.CloudFoundryModuleDeployerConfiguration;
+import org.springframework.cloud.dataflow.module.deployer.cloudfoundry.DeployStepStatistics;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
@@ -32,4 +41,23 @@ import org.springframework.context.annotation.Import;
 @Import(CloudFoundryModuleDeployerConfiguration.class)
 class CloudFoundryConfiguration {
 
+	@Bean
+	public PublicMetrics cloudFoundryModuleDeployerPublicMetrics(final DeployStepStatistics deployStepStatistics) {
+		return new PublicMetrics() {
+
+			@Override
+			public Collection<Metric<?>> metrics() {
+				List<Metric<?>> metrics = new ArrayList<>();
+				for (Map.Entry<String, DeployStepStatistics.StepStatistics> entry : deployStepStatistics.getSteps().entrySet()) {
+					String prefix = "deployer.cloudfoundry.deploy." + entry.getKey() + ".";
+					DeployStepStatistics.StepStatistics statistics = entry.getValue();
+					metrics.add(new Metric<Number>(prefix + "count", statistics.getCount()));
+					metrics.add(new Metric<Number>(prefix + "mean", statistics.getMeanMillis()));
+					metrics.add(new Metric<Number>(prefix + "max", statistics.getMaxMillis()));
+				}
+				return metrics;
+			}
+		};
+	}
+
 }
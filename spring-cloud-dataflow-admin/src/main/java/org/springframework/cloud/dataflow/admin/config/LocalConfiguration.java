@@ -18,17 +18,36 @@ package org.springframework.cloud.dataflow.admin.config;
 
 import static org.springframework.context.annotation.ConfigurationCondition.ConfigurationPhase.*;
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.cloud.dataflow.admin.artifact.LocalArtifactStore;
+import org.springframework.cloud.dataflow.admin.artifact.PinningModuleLauncher;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
+import org.springframework.cloud.dataflow.module.deployer.local.ClassLoaderSharingModuleLauncher;
 import org.springframework.cloud.dataflow.module.deployer.local.LocalModuleDeployer;
+import org.springframework.cloud.dataflow.module.deployer.local.LocalModuleStatusMonitor;
+import org.springframework.cloud.dataflow.module.deployer.local.ModuleClassLoaderCache;
+import org.springframework.cloud.dataflow.module.deployer.local.PortAllocator;
+import org.springframework.cloud.dataflow.module.deployer.local.UndeployStatistics;
+import org.springframework.cloud.dataflow.module.deployer.local.WarmJvmModuleLauncher;
+import org.springframework.cloud.dataflow.module.deployer.local.WarmJvmPool;
 import org.springframework.cloud.stream.module.launcher.ModuleLauncher;
 import org.springframework.cloud.stream.module.launcher.ModuleLauncherConfiguration;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Profile;
+import org.springframework.util.StringUtils;
 
 /**
  * Configuration used when no other special case activates. Creates deployers that
@@ -41,14 +60,129 @@ import org.springframework.context.annotation.Profile;
 @Import(ModuleLauncherConfiguration.class)
 public class LocalConfiguration {
 
+	@Value("${spring.cloud.dataflow.deployer.local.shutdownTimeout:5000}")
+	private int shutdownTimeout;
+
+	@Value("${spring.cloud.dataflow.deployer.local.shutdownGracePeriod:10000}")
+	private long shutdownGracePeriod;
+
+	/**
+	 * Whether instances of modules launched from the same archive share the class loader
+	 * of the module libraries. Off by default.
+	 */
+	@Value("${spring.cloud.dataflow.deployer.local.shareClassLoaders:false}")
+	private boolean shareClassLoaders;
+
+	@Autowired
+	private ModuleLauncher moduleLauncher;
+
+	@Autowired
+	private ModuleResolver moduleResolver;
+
+	@Autowired(required = false)
+	private WarmJvmPool warmJvmPool;
+
+	@Autowired(required = false)
+	private LocalArtifactStore localArtifactStore;
+
+	@Bean
+	public ModuleDeployer processModuleDeployer(PortAllocator portAllocator, LocalModuleStatusMonitor statusMonitor,
+			UndeployStatistics undeployStatistics) {
+		return localModuleDeployer(portAllocator, statusMonitor, undeployStatistics);
+	}
+
+	@Bean
+	public ModuleDeployer taskModuleDeployer(PortAllocator portAllocator, LocalModuleStatusMonitor statusMonitor,
+			UndeployStatistics undeployStatistics) {
+		return localModuleDeployer(portAllocator, statusMonitor, undeployStatistics);
+	}
+
+	@Bean
+	public ModuleClassLoaderCache moduleClassLoaderCache() {
+		return new ModuleClassLoaderCache();
+	}
+
+	private LocalModuleDeployer localModuleDeployer(PortAllocator portAllocator, LocalModuleStatusMonitor statusMonitor,
+			UndeployStatistics undeployStatistics) {
+		ModuleLauncher launcher;
+		if (warmJvmPool != null) {
+			launcher = new WarmJvmModuleLauncher(moduleResolver, warmJvmPool);
+		}
+		else if (shareClassLoaders) {
+			launcher = new ClassLoaderSharingModuleLauncher(moduleResolver, moduleClassLoaderCache());
+		}
+		else {
+			launcher = moduleLauncher;
+		}
+		if (localArtifactStore != null) {
+			launcher = new PinningModuleLauncher(launcher, moduleResolver, localArtifactStore);
+		}
+		LocalModuleDeployer deployer = new LocalModuleDeployer(launcher, portAllocator, statusMonitor);
+		deployer.setShutdownTimeout(shutdownTimeout);
+		deployer.setGracePeriod(shutdownGracePeriod);
+		deployer.setUndeployStatistics(undeployStatistics);
+		return deployer;
+	}
+
+	/**
+	 * Ports given to the modules launched by both deployers.
+	 */
 	@Bean
-	public ModuleDeployer processModuleDeployer(ModuleLauncher moduleLauncher) {
-		return new LocalModuleDeployer(moduleLauncher);
+	public PortAllocator localModulePortAllocator(
+			@Value("${spring.cloud.dataflow.deployer.local.minPort:" + ModuleDeployer.DEFAULT_SERVER_PORT + "}") int minPort,
+			@Value("${spring.cloud.dataflow.deployer.local.maxPort:65535}") int maxPort) {
+		return new PortAllocator(minPort, maxPort);
 	}
 
 	@Bean
-	public ModuleDeployer taskModuleDeployer(ModuleLauncher moduleLauncher) {
-		return new LocalModuleDeployer(moduleLauncher);
+	public LocalModuleStatusMonitor localModuleStatusMonitor(
+			@Value("${spring.cloud.dataflow.deployer.local.healthCheckInterval:5000}") long interval,
+			@Value("${spring.cloud.dataflow.deployer.local.healthCheckTimeout:2000}") int timeout) {
+		return new LocalModuleStatusMonitor(interval, timeout);
+	}
+
+	@Bean
+	public UndeployStatistics localModuleUndeployStatistics() {
+		return new UndeployStatistics();
+	}
+
+	/**
+	 * Exposes {@link UndeployStatistics} on the {@literal /metrics} endpoint, under the
+	 * {@literal deployer.local.undeploy.} prefix.
+	 */
+	@Bean
+	public PublicMetrics localModuleDeployerPublicMetrics(final UndeployStatistics undeployStatistics) {
+		return new PublicMetrics() {
+
+			@Override
+			public Collection<Metric<?>> metrics() {
+				String prefix = "deployer.local.undeploy.";
+				return Arrays.<Metric<?>>asList(
+						new Metric<Number>(prefix + "count", undeployStatistics.getCount()),
+						new Metric<Number>(prefix + "total", undeployStatistics.getTotalMillis()),
+						new Metric<Number>(prefix + "mean", undeployStatistics.getMeanMillis()),
+						new Metric<Number>(prefix + "max", undeployStatistics.getMaxMillis()),
+						new Metric<Number>(prefix + "forced", undeployStatistics.getForcedInstances()));
+			}
+		};
+	}
+
+	/**
+	 * Launches each module in a process of its own, taken from a pool of started JVMs,
+	 * rather than in-process. Active when
+	 * {@literal spring.cloud.dataflow.deployer.local.jvmPoolSize} is set.
+	 */
+	@Configuration
+	@ConditionalOnProperty(prefix = "spring.cloud.dataflow.deployer.local", name = "jvmPoolSize")
+	protected static class WarmJvmPoolConfiguration {
+
+		@Bean(destroyMethod = "close")
+		public WarmJvmPool warmJvmPool(
+				@Value("${spring.cloud.dataflow.deployer.local.jvmPoolSize}") int size,
+				@Value("${spring.cloud.dataflow.deployer.local.javaOpts:}") String javaOpts,
+				@Value("${spring.cloud.dataflow.deployer.local.logDirectory:${java.io.tmpdir}/spring-cloud-dataflow}") File logDirectory) {
+			return new WarmJvmPool(size, Arrays.asList(StringUtils.tokenizeToStringArray(javaOpts, " ")), logDirectory);
+		}
 	}
 
 	/**
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.config;
+
+import java.io.File;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.dataflow.admin.repository.StreamDefinitionRepository;
+import org.springframework.cloud.dataflow.admin.repository.TaskDefinitionRepository;
+import org.springframework.cloud.dataflow.admin.snapshot.SnapshotProperties;
+import org.springframework.cloud.dataflow.admin.snapshot.SnapshotRestorer;
+import org.springframework.cloud.dataflow.admin.snapshot.SnapshotWriter;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Restores the artifact registry and the definition repositories from a snapshot at
+ * startup, and keeps that snapshot up to date. Only active when
+ * {@literal spring.cloud.dataflow.snapshot.location} is set.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = SnapshotProperties.PREFIX, name = "location")
+@EnableConfigurationProperties(SnapshotProperties.class)
+public class SnapshotConfiguration {
+
+	@Bean
+	public static SnapshotRestorer snapshotRestorer(Environment environment) {
+		// Post processors are created before configuration properties can be bound
+		return new SnapshotRestorer(new File(environment.getProperty(SnapshotProperties.PREFIX + ".location")));
+	}
+
+	@Bean
+	public SnapshotWriter snapshotWriter(SnapshotProperties properties, ArtifactRegistry artifactRegistry,
+			StreamDefinitionRepository streamDefinitionRepository, TaskDefinitionRepository taskDefinitionRepository) {
+		return new SnapshotWriter(properties.getLocation(), properties.getInterval(), artifactRegistry,
+				streamDefinitionRepository, taskDefinitionRepository);
+	}
+
+}
@@ -16,12 +16,20 @@
 
 package org.springframework.cloud.dataflow.admin.config;
 
+import java.io.IOException;
+
+import org.apache.hadoop.fs.FileSystem;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
 import org.springframework.cloud.dataflow.module.deployer.yarn.DefaultYarnCloudAppService;
+import org.springframework.cloud.dataflow.module.deployer.yarn.ModuleArtifactStager;
+import org.springframework.cloud.dataflow.module.deployer.yarn.RestYarnCloudAppService;
 import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppService;
 import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppStateMachine;
 import org.springframework.cloud.dataflow.module.deployer.yarn.YarnModuleDeployer;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -42,9 +50,27 @@ public class YarnConfiguration {
 	@Value("${spring.cloud.bootstrap.name:admin}")
 	private String bootstrapName;
 
+	@Value("${spring.hadoop.fsUri}")
+	private String fsUri;
+
+	@Value("${spring.hadoop.resourceManagerHost}")
+	private String resourceManagerHost;
+
+	@Value("${spring.yarn.applicationBaseDir:/app/}")
+	private String applicationBaseDir;
+
+	@Value("${spring.yarn.appType:DATAFLOW}")
+	private String appType;
+
+	@Value("${spring.cloud.dataflow.yarn.artifactsDir:/dataflow/artifacts/}")
+	private String artifactsDir;
+
+	@Autowired
+	private ModuleResolver moduleResolver;
+
 	@Bean
 	public ModuleDeployer processModuleDeployer() throws Exception {
-		return new YarnModuleDeployer(yarnCloudAppService(), yarnCloudAppStateMachine().buildStateMachine());
+		return new YarnModuleDeployer(yarnCloudAppService(), yarnCloudAppStateMachine());
 	}
 
 	@Bean
@@ -59,14 +85,23 @@ public class YarnConfiguration {
 	}
 
 	@Bean
-	public YarnCloudAppService yarnCloudAppService() {
-		return new DefaultYarnCloudAppService(bootstrapName);
+	public YarnCloudAppService yarnCloudAppService() throws IOException {
+		org.apache.hadoop.conf.Configuration configuration = new org.apache.hadoop.yarn.conf.YarnConfiguration();
+		configuration.set("fs.defaultFS", fsUri);
+		configuration.set("yarn.resourcemanager.hostname", resourceManagerHost);
+		RestYarnCloudAppService service = new RestYarnCloudAppService(configuration,
+				new DefaultYarnCloudAppService(bootstrapName));
+		service.setApplicationBaseDir(applicationBaseDir);
+		service.setApplicationType(appType);
+		service.setArtifactStager(new ModuleArtifactStager(FileSystem.get(configuration), moduleResolver, artifactsDir));
+		return service;
 	}
 
 	@Bean
 	public TaskExecutor yarnModuleDeployerTaskExecutor() {
 		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
-		taskExecutor.setCorePoolSize(1);
+		// one thread per concurrently deployed container cluster
+		taskExecutor.setCorePoolSize(8);
 		return taskExecutor;
 	}
 
@@ -19,7 +19,10 @@ package org.springframework.cloud.dataflow.admin.controller;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.dataflow.completion.CompletionMetrics;
 import org.springframework.cloud.dataflow.completion.CompletionProposal;
 import org.springframework.cloud.dataflow.completion.StreamCompletionProvider;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
@@ -27,6 +30,7 @@ import org.springframework.cloud.dataflow.rest.resource.CompletionProposalsResou
 import org.springframework.cloud.dataflow.rest.resource.StreamDefinitionResource;
 import org.springframework.hateoas.ExposesResourceFor;
 import org.springframework.hateoas.mvc.ResourceAssemblerSupport;
+import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -41,13 +45,21 @@ import org.springframework.web.bind.annotation.RestController;
 @ExposesResourceFor(CompletionProposalsResource.class)
 public class CompletionController {
 
+	/**
+	 * Name of the response header that summarizes where time was spent, when requested.
+	 */
+	public static final String DEBUG_HEADER = "X-Completion-Timings";
+
 	private final StreamCompletionProvider completionProvider;
 
+	private final CompletionMetrics completionMetrics;
+
 	private Assembler assembler = new Assembler();
 
 	@Autowired
-	public CompletionController(StreamCompletionProvider completionProvider) {
+	public CompletionController(StreamCompletionProvider completionProvider, CompletionMetrics completionMetrics) {
 		this.completionProvider = completionProvider;
+		this.completionMetrics = completionMetrics;
 	}
 
 	/**
@@ -55,12 +67,28 @@ public class CompletionController {
 	 *  @param start the amount of text written so far
 	 * @param detailLevel the level of detail the user wants in completions, starting at 1.
 	 * Higher values request more detail, with values typically in the range [1..5]
+	 * @param limit the maximum number of proposals to return, the first ones being kept
+	 * (see {@link StreamCompletionProvider#complete(String, int, int)})
+	 * @param debug whether to add a {@value #DEBUG_HEADER} header to the response, detailing
+	 * the time spent in each completion strategy and phase
 	 */
 	@RequestMapping(value = "/stream")
 	public CompletionProposalsResource completions(
 			@RequestParam("start") String start,
-			@RequestParam(value = "detailLevel", defaultValue = "1") int detailLevel) {
-		return assembler.toResource(completionProvider.complete(start, detailLevel));
+			@RequestParam(value = "detailLevel", defaultValue = "1") int detailLevel,
+			@RequestParam(value = "limit", defaultValue = "" + Integer.MAX_VALUE) int limit,
+			@RequestParam(value = "debug", defaultValue = "false") boolean debug,
+			HttpServletResponse response) throws ServletRequestBindingException {
+		if (limit <= 0) {
+			throw new ServletRequestBindingException("Parameter 'limit' must be positive, was " + limit);
+		}
+		try (CompletionMetrics.Trace trace = completionMetrics.startTrace()) {
+			List<CompletionProposal> proposals = completionProvider.complete(start, detailLevel, limit);
+			if (debug) {
+				response.setHeader(DEBUG_HEADER, trace.summary());
+			}
+			return assembler.toResource(proposals);
+		}
 	}
 
 	/**
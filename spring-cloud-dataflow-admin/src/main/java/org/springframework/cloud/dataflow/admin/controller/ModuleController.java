@@ -16,20 +16,29 @@
 
 package org.springframework.cloud.dataflow.admin.controller;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.cloud.dataflow.admin.artifact.ModuleArtifactPrefetcher;
+import org.springframework.cloud.dataflow.completion.ModuleConfigurationMetadataReader;
 import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
 import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactKey;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
+import org.springframework.cloud.dataflow.artifact.registry.CachingArtifactRegistry;
 import org.springframework.cloud.dataflow.rest.resource.DetailedModuleRegistrationResource;
 import org.springframework.cloud.dataflow.rest.resource.ModuleRegistrationResource;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
 import org.springframework.cloud.stream.module.resolver.Coordinates;
 import org.springframework.cloud.stream.module.resolver.ModuleResolver;
 import org.springframework.core.io.Resource;
@@ -39,6 +48,7 @@ import org.springframework.hateoas.ExposesResourceFor;
 import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.mvc.ResourceAssemblerSupport;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -69,7 +79,10 @@ public class ModuleController {
 	private ModuleResolver moduleResolver;
 
 	@Autowired
-	private ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+	private ModuleConfigurationMetadataReader moduleConfigurationMetadataReader;
+
+	@Autowired(required = false)
+	private ModuleArtifactPrefetcher moduleArtifactPrefetcher;
 
 	@Autowired
 	public ModuleController(ArtifactRegistry registry) {
@@ -117,7 +130,7 @@ public class ModuleController {
 		DetailedModuleRegistrationResource result = new DetailedModuleRegistrationResource(moduleAssembler.toResource(registration));
 		Resource resource = moduleResolver.resolve(adapt(registration.getCoordinates()));
 
-		List<ConfigurationMetadataProperty> properties = moduleConfigurationMetadataResolver.listProperties(resource);
+		List<ConfigurationMetadataProperty> properties = moduleConfigurationMetadataReader.listProperties(resource);
 		for (ConfigurationMetadataProperty property : properties) {
 			result.addOption(property);
 		}
@@ -143,10 +156,82 @@ public class ModuleController {
 			@PathVariable("name") String name,
 			@RequestParam("coordinates") String coordinates,
 			@RequestParam(value = "force", defaultValue = "false") boolean force) {
-		if (!force && registry.find(name, type) != null) {
+		if (!force && CachingArtifactRegistry.authoritative(registry).find(name, type) != null) {
 			return;
 		}
-		registry.save(new ArtifactRegistration(name, type, ArtifactCoordinates.parse(coordinates)));
+		ArtifactCoordinates artifactCoordinates = ArtifactCoordinates.parse(coordinates);
+		registry.save(new ArtifactRegistration(name, type, artifactCoordinates));
+		prefetch(Collections.singletonList(artifactCoordinates));
+	}
+
+	/**
+	 * Register several modules at once. Registrations are provided in the
+	 * {@link Properties} format, with one {@literal <type>.<name>=<coordinates>}
+	 * entry per module.
+	 *
+	 * @param modules module registrations, in {@link Properties} format
+	 * @param force if {@code true}, overwrites pre-existing registrations
+	 * @return the registrations that have been created or overwritten
+	 */
+	@RequestMapping(method = RequestMethod.POST)
+	@ResponseStatus(HttpStatus.CREATED)
+	public PagedResources<? extends ModuleRegistrationResource> registerAll(
+			PagedResourcesAssembler<ArtifactRegistration> assembler,
+			@RequestParam("modules") String modules,
+			@RequestParam(value = "force", defaultValue = "false") boolean force)
+			throws IOException, ServletRequestBindingException {
+		Properties properties = new Properties();
+		properties.load(new StringReader(modules));
+		Map<ArtifactKey, ArtifactRegistration> registrations = new LinkedHashMap<>();
+		for (String key : properties.stringPropertyNames()) {
+			ArtifactRegistration registration = parseRegistration(key, properties.getProperty(key));
+			registrations.put(new ArtifactKey(registration.getName(), registration.getType()), registration);
+		}
+		if (!force) {
+			for (ArtifactRegistration existing : CachingArtifactRegistry.authoritative(registry).findAll(registrations.keySet())) {
+				registrations.remove(new ArtifactKey(existing.getName(), existing.getType()));
+			}
+		}
+		List<ArtifactRegistration> saved = new ArrayList<>(registrations.values());
+		if (!saved.isEmpty()) {
+			registry.saveAll(saved);
+			List<ArtifactCoordinates> coordinates = new ArrayList<>(saved.size());
+			for (ArtifactRegistration registration : saved) {
+				coordinates.add(registration.getCoordinates());
+			}
+			prefetch(coordinates);
+		}
+		Collections.sort(saved);
+		return assembler.toResource(new PageImpl<>(saved), moduleAssembler);
+	}
+
+	/**
+	 * Parse a {@literal <type>.<name>=<coordinates>} entry, rejecting unknown module
+	 * types and malformed coordinates as a client error.
+	 */
+	private ArtifactRegistration parseRegistration(String key, String coordinates)
+			throws ServletRequestBindingException {
+		int dot = key.indexOf('.');
+		if (dot < 0) {
+			throw new ServletRequestBindingException(
+					String.format("Expected format of '<type>.<name>' for module registration key %s", key));
+		}
+		ArtifactType type;
+		try {
+			type = ArtifactType.valueOf(key.substring(0, dot));
+		}
+		catch (IllegalArgumentException e) {
+			throw new ServletRequestBindingException(String.format("Unknown module type '%s' for key %s; expected one of %s",
+					key.substring(0, dot), key, Arrays.toString(ArtifactType.values())));
+		}
+		String name = key.substring(dot + 1);
+		try {
+			return new ArtifactRegistration(name, type, ArtifactCoordinates.parse(coordinates));
+		}
+		catch (IllegalArgumentException e) {
+			throw new ServletRequestBindingException(
+					String.format("Invalid module registration %s: %s", key, e.getMessage()));
+		}
 	}
 
 	/**
@@ -161,6 +246,15 @@ public class ModuleController {
 		registry.delete(name, type);
 	}
 
+	/**
+	 * Start fetching the archives of newly registered modules, if supported.
+	 */
+	private void prefetch(List<ArtifactCoordinates> coordinates) {
+		if (moduleArtifactPrefetcher != null) {
+			moduleArtifactPrefetcher.prefetch(coordinates);
+		}
+	}
+
 	class Assembler extends ResourceAssemblerSupport<ArtifactRegistration, ModuleRegistrationResource> {
 
 		public Assembler() {
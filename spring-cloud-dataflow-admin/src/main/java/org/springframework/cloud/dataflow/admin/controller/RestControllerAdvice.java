@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.VndErrors;
 import org.springframework.http.HttpStatus;
 import org.springframework.util.StringUtils;
+import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -51,6 +52,31 @@ public class RestControllerAdvice {
 		return new VndErrors(logref, msg);
 	}
 
+	/**
+	 * Handles requests with missing or invalid parameters. Report client-side error.
+	 */
+	@ExceptionHandler(ServletRequestBindingException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	@ResponseBody
+	public VndErrors onServletRequestBindingException(ServletRequestBindingException e) {
+		String logref = e.getClass().getSimpleName();
+		logger.warn("Rejected request: {}", e.getMessage());
+		return new VndErrors(logref, e.getMessage());
+	}
+
+	/**
+	 * Handles requests for operations the server does not support in its current
+	 * configuration, <i>e.g.</i> scaling with a deployer that cannot. Report client-side error.
+	 */
+	@ExceptionHandler(UnsupportedOperationException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	@ResponseBody
+	public VndErrors onUnsupportedOperationException(UnsupportedOperationException e) {
+		String logref = e.getClass().getSimpleName();
+		logger.warn("Rejected request: {}", e.getMessage());
+		return new VndErrors(logref, e.getMessage());
+	}
+
 	private String logError(Throwable t) {
 		logger.error("Caught exception while handling a request", t);
 		return t.getClass().getSimpleName();
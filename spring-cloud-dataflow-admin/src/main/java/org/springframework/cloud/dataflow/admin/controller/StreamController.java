@@ -16,10 +16,12 @@
 
 package org.springframework.cloud.dataflow.admin.controller;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -38,7 +40,10 @@ import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
 import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
 import org.springframework.cloud.dataflow.module.ModuleStatus;
+import org.springframework.cloud.dataflow.module.deployer.BatchingModuleDeployer;
+import org.springframework.cloud.dataflow.module.deployer.ColocatingModuleDeployer;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
+import org.springframework.cloud.dataflow.module.deployer.ScalableModuleDeployer;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
 import org.springframework.cloud.dataflow.rest.resource.StreamDefinitionResource;
@@ -219,11 +224,47 @@ public class StreamController {
 		deployStream(stream, DeploymentPropertiesUtils.parse(properties));
 	}
 
+	/**
+	 * Request a change of the number of instances of a module of a deployed stream, without
+	 * un-deploying it. Only supported by {@link ScalableModuleDeployer}s. Partitioned modules
+	 * should not be scaled this way, as their producers are not told about the new count.
+	 * Scaling is asynchronous: the request is accepted once the deployer has been asked for
+	 * the new count, and the module status tells when the instances are running.
+	 *
+	 * @param name the name of an existing stream (required)
+	 * @param label the label of the module in the stream (required)
+	 * @param count the new number of instances of the module
+	 */
+	@RequestMapping(value = "/deployments/{name}/{label}", method = RequestMethod.PUT)
+	@ResponseStatus(HttpStatus.ACCEPTED)
+	public void scale(@PathVariable("name") String name, @PathVariable("label") String label,
+			@RequestParam("count") int count) throws Exception {
+		StreamDefinition stream = this.repository.findOne(name);
+		Assert.notNull(stream, String.format("no stream defined: %s", name));
+		Assert.isTrue(count > 0, "count must be positive");
+		ModuleDeploymentId id = null;
+		for (ModuleDefinition module : stream.getModuleDefinitions()) {
+			if (module.getLabel().equals(label)) {
+				id = ModuleDeploymentId.fromModuleDefinition(module);
+			}
+		}
+		Assert.notNull(id, String.format("no module %s in stream %s", label, name));
+		if (!(this.deployer instanceof ScalableModuleDeployer)) {
+			throw new UnsupportedOperationException("The module deployer does not support scaling modules");
+		}
+		// todo: change from 'unknown' to 'undeployed' when status() does the same
+		Assert.state(!ModuleStatus.State.unknown.equals(this.deployer.status(id).getState()),
+				String.format("stream %s is not deployed", name));
+		((ScalableModuleDeployer) this.deployer).scale(id, count);
+	}
+
 	private void deployStream(StreamDefinition stream, Map<String, String> cumulatedDeploymentProperties) {
 		if (cumulatedDeploymentProperties == null) {
 			cumulatedDeploymentProperties = Collections.emptyMap();
 		}
 		Iterator<ModuleDefinition> iterator = stream.getDeploymentOrderIterator();
+		List<ModuleDeploymentRequest> requests = new ArrayList<>();
+		List<Boolean> colocatable = new ArrayList<>();
 		int nextModuleCount = 0;
 		boolean isDownStreamModulePartitioned = false;
 		for (int i = 0; iterator.hasNext(); i++) {
@@ -247,13 +288,85 @@ public class StreamController {
 			if (isDownStreamModulePartitioned) {
 				updateProducerPartitionProperties(moduleDeploymentProperties, nextModuleCount);
 			}
+			boolean isPartitioned = isDownStreamModulePartitioned;
 			nextModuleCount = getNextModuleCount(moduleDeploymentProperties);
 			isDownStreamModulePartitioned = isPartitionedConsumer(currentModule, moduleDeploymentProperties,
 					upstreamModuleSupportsPartition);
+			isPartitioned |= isDownStreamModulePartitioned;
 
 			currentModule = postProcessLibraryProperties(currentModule);
 
-			this.deployer.deploy(new ModuleDeploymentRequest(currentModule, coordinates, moduleDeploymentProperties));
+			// Tells how to deploy the module, and is never passed on to the module itself
+			String colocate = moduleDeploymentProperties.remove(ColocatingModuleDeployer.COLOCATE_PROPERTY);
+			requests.add(new ModuleDeploymentRequest(currentModule, coordinates, moduleDeploymentProperties));
+			colocatable.add(!isPartitioned && nextModuleCount == 1 && "true".equalsIgnoreCase(colocate));
+		}
+		// Adjacent modules that asked to be co-located are deployed together, if the deployer supports it,
+		// and the other modules in between groups are deployed at once if the deployer supports it,
+		// keeping the deployment order
+		List<ModuleDeploymentRequest> batch = this.deployer instanceof BatchingModuleDeployer ?
+				new ArrayList<ModuleDeploymentRequest>() : null;
+		List<ModuleDeploymentRequest> group = new ArrayList<>();
+		for (int i = 0; i < requests.size(); i++) {
+			if (colocatable.get(i)) {
+				group.add(requests.get(i));
+			}
+			else {
+				deployColocated(group, batch);
+				group.clear();
+				deployOrBatch(requests.get(i), batch);
+			}
+		}
+		deployColocated(group, batch);
+		deployBatch(batch);
+	}
+
+	/**
+	 * Deploy the given modules, given in deployment order, together if there are several of
+	 * them and the deployer is a {@link ColocatingModuleDeployer}, or one by one otherwise.
+	 * The modules batched so far, which come before in deployment order, are deployed first.
+	 */
+	private void deployColocated(List<ModuleDeploymentRequest> group, List<ModuleDeploymentRequest> batch) {
+		if (group.size() > 1 && this.deployer instanceof ColocatingModuleDeployer) {
+			deployBatch(batch);
+			List<ModuleDeploymentRequest> streamOrder = new ArrayList<>(group);
+			Collections.reverse(streamOrder);
+			logger.debug("deploying co-located modules: {}", streamOrder);
+			((ColocatingModuleDeployer) this.deployer).deploy(streamOrder);
+		}
+		else {
+			for (ModuleDeploymentRequest request : group) {
+				deployOrBatch(request, batch);
+			}
+		}
+	}
+
+	/**
+	 * Deploy the modules of the given batch, if there is one, at once, and empty it.
+	 */
+	private void deployBatch(List<ModuleDeploymentRequest> batch) {
+		if (batch != null && batch.size() > 1) {
+			logger.debug("deploying modules at once: {}", batch);
+			((BatchingModuleDeployer) this.deployer).deployAll(new ArrayList<>(batch));
+		}
+		else if (batch != null && batch.size() == 1) {
+			this.deployer.deploy(batch.get(0));
+		}
+		if (batch != null) {
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Deploy the given module now, or add it to the given batch of modules to be deployed at
+	 * once if there is one.
+	 */
+	private void deployOrBatch(ModuleDeploymentRequest request, List<ModuleDeploymentRequest> batch) {
+		if (batch != null) {
+			batch.add(request);
+		}
+		else {
+			this.deployer.deploy(request);
 		}
 	}
 
@@ -17,11 +17,9 @@
 package org.springframework.cloud.dataflow.admin.repository;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.cloud.dataflow.core.StreamDefinition;
 import org.springframework.data.domain.Page;
@@ -37,7 +35,13 @@ import org.springframework.data.domain.Sort;
  */
 public class InMemoryStreamDefinitionRepository implements StreamDefinitionRepository {
 
-	private final Map<String, StreamDefinition> definitions = new ConcurrentHashMap<>();
+	private final LazilyParsedDefinitions<StreamDefinition> definitions = new LazilyParsedDefinitions<StreamDefinition>() {
+
+		@Override
+		protected StreamDefinition parse(String name, String dslText) {
+			return new StreamDefinition(name, dslText);
+		}
+	};
 
 	@Override
 	public Iterable<StreamDefinition> findAll(Sort sort) {
@@ -73,20 +77,21 @@ public class InMemoryStreamDefinitionRepository implements StreamDefinitionRepos
 
 	@Override
 	public boolean exists(String name) {
-		return definitions.containsKey(name);
+		return definitions.contains(name);
 	}
 
 	@Override
 	public Iterable<StreamDefinition> findAll() {
-		return Collections.unmodifiableCollection(definitions.values());
+		return definitions.values();
 	}
 
 	@Override
 	public Iterable<StreamDefinition> findAll(Iterable<String> names) {
 		List<StreamDefinition> results = new ArrayList<>();
 		for (String s : names) {
-			if (definitions.containsKey(s)){
-				results.add(definitions.get(s));
+			StreamDefinition definition = findOne(s);
+			if (definition != null) {
+				results.add(definition);
 			}
 		}
 		return results;
@@ -119,4 +124,22 @@ public class InMemoryStreamDefinitionRepository implements StreamDefinitionRepos
 		definitions.clear();
 	}
 
+	/**
+	 * Add definitions known by their name and DSL text only (<i>e.g.</i> read from a
+	 * snapshot) without parsing them: each one is parsed when first accessed, or when
+	 * {@link #parseAll()} is invoked. Definitions that already exist are left untouched.
+	 *
+	 * @param dslTextByName the DSL text of the definitions, by name
+	 */
+	public void restore(Map<String, String> dslTextByName) {
+		definitions.restore(dslTextByName);
+	}
+
+	/**
+	 * Parse all the definitions that have been restored but not accessed yet.
+	 */
+	public void parseAll() {
+		definitions.parseAll();
+	}
+
 }
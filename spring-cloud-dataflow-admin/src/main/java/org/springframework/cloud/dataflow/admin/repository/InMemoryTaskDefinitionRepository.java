@@ -17,10 +17,8 @@
 package org.springframework.cloud.dataflow.admin.repository;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.cloud.dataflow.core.TaskDefinition;
 import org.springframework.data.domain.Page;
@@ -37,7 +35,13 @@ import org.springframework.data.domain.Sort;
  */
 public class InMemoryTaskDefinitionRepository implements TaskDefinitionRepository {
 
-	private final Map<String, TaskDefinition> definitions = new ConcurrentHashMap<>();
+	private final LazilyParsedDefinitions<TaskDefinition> definitions = new LazilyParsedDefinitions<TaskDefinition>() {
+
+		@Override
+		protected TaskDefinition parse(String name, String dslText) {
+			return new TaskDefinition(name, dslText);
+		}
+	};
 
 	@Override
 	public Iterable<TaskDefinition> findAll(Sort sort) {
@@ -60,7 +64,7 @@ public class InMemoryTaskDefinitionRepository implements TaskDefinitionRepositor
 
 	@Override
 	public <S extends TaskDefinition> S save(S definition) {
-		if(definitions.containsKey(definition.getName())) {
+		if(exists(definition.getName())) {
 			throw new DuplicateTaskException(
 					String.format("Cannot register task %s because another one has already " +
 							"been registered with the same name",
@@ -68,7 +72,6 @@ public class InMemoryTaskDefinitionRepository implements TaskDefinitionRepositor
 		}
 
 		definitions.put(definition.getName(), definition);
-
 		return definition;
 	}
 
@@ -79,20 +82,21 @@ public class InMemoryTaskDefinitionRepository implements TaskDefinitionRepositor
 
 	@Override
 	public boolean exists(String name) {
-		return definitions.containsKey(name);
+		return definitions.contains(name);
 	}
 
 	@Override
 	public Iterable<TaskDefinition> findAll() {
-		return Collections.unmodifiableCollection(definitions.values());
+		return definitions.values();
 	}
 
 	@Override
 	public Iterable<TaskDefinition> findAll(Iterable<String> names) {
 		List<TaskDefinition> results = new ArrayList<>();
 		for (String s : names) {
-			if (definitions.containsKey(s)){
-				results.add(definitions.get(s));
+			TaskDefinition definition = findOne(s);
+			if (definition != null) {
+				results.add(definition);
 			}
 		}
 		return results;
@@ -125,4 +129,22 @@ public class InMemoryTaskDefinitionRepository implements TaskDefinitionRepositor
 		definitions.clear();
 	}
 
+	/**
+	 * Add definitions known by their name and DSL text only (<i>e.g.</i> read from a
+	 * snapshot) without parsing them: each one is parsed when first accessed, or when
+	 * {@link #parseAll()} is invoked. Definitions that already exist are left untouched.
+	 *
+	 * @param dslTextByName the DSL text of the definitions, by name
+	 */
+	public void restore(Map<String, String> dslTextByName) {
+		definitions.restore(dslTextByName);
+	}
+
+	/**
+	 * Parse all the definitions that have been restored but not accessed yet.
+	 */
+	public void parseAll() {
+		definitions.parseAll();
+	}
+
 }
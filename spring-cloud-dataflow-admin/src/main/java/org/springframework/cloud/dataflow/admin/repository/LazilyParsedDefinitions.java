@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Definitions held in memory by name, some of which may only be known by their DSL text
+ * (<i>e.g.</i> when {@link #restore(Map) restored} from a snapshot) and are parsed when
+ * first accessed. Backs the in-memory definition repositories.
+ *
+ * @param <D> the type of definitions
+ */
+abstract class LazilyParsedDefinitions<D> {
+
+	private final ConcurrentMap<String, D> definitions = new ConcurrentHashMap<>();
+
+	/**
+	 * DSL text of the definitions that have been restored but not parsed yet, by name.
+	 */
+	private final ConcurrentMap<String, String> unparsed = new ConcurrentHashMap<>();
+
+	/**
+	 * Create the definition with the given name from its DSL text.
+	 */
+	protected abstract D parse(String name, String dslText);
+
+	/**
+	 * Return the definition with the given name, parsing it if needed, or {@code null}.
+	 */
+	public D get(String name) {
+		D definition = definitions.get(name);
+		return definition != null ? definition : parseRestored(name);
+	}
+
+	public boolean contains(String name) {
+		return definitions.containsKey(name) || unparsed.containsKey(name);
+	}
+
+	/**
+	 * Return all the definitions, parsing the ones that have not been accessed yet.
+	 */
+	public Collection<D> values() {
+		parseAll();
+		return Collections.unmodifiableCollection(definitions.values());
+	}
+
+	public int size() {
+		return definitions.size() + unparsed.size();
+	}
+
+	public void put(String name, D definition) {
+		definitions.put(name, definition);
+		unparsed.remove(name);
+	}
+
+	public void putAll(Map<String, ? extends D> definitionsByName) {
+		definitions.putAll(definitionsByName);
+		unparsed.keySet().removeAll(definitionsByName.keySet());
+	}
+
+	public synchronized void remove(String name) {
+		definitions.remove(name);
+		unparsed.remove(name);
+	}
+
+	public void clear() {
+		definitions.clear();
+		unparsed.clear();
+	}
+
+	/**
+	 * Add definitions known by their name and DSL text only, without parsing them: each
+	 * one is parsed when first accessed, or when {@link #parseAll()} is invoked.
+	 * Definitions that already exist are left untouched.
+	 *
+	 * @param dslTextByName the DSL text of the definitions, by name
+	 */
+	public void restore(Map<String, String> dslTextByName) {
+		for (Map.Entry<String, String> entry : dslTextByName.entrySet()) {
+			if (!definitions.containsKey(entry.getKey())) {
+				unparsed.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Parse all the definitions that have been restored but not accessed yet.
+	 */
+	public void parseAll() {
+		for (String name : unparsed.keySet()) {
+			parseRestored(name);
+		}
+	}
+
+	private synchronized D parseRestored(String name) {
+		String dslText = unparsed.get(name);
+		if (dslText != null) {
+			D definition = parse(name, dslText);
+			// Unless deleted or replaced meanwhile
+			if (unparsed.remove(name, dslText)) {
+				definitions.putIfAbsent(name, definition);
+			}
+		}
+		return definitions.get(name);
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.cloud.dataflow.core.StreamDefinition;
+import org.springframework.cloud.dataflow.core.TaskDefinition;
+
+/**
+ * A point in time copy of the artifact registrations and of the stream and task
+ * definitions known to the admin, that can be read back quickly at startup.
+ *
+ * <p>The binary format is made of a header ({@link #MAGIC} and {@link #VERSION}), then
+ * three sections (registrations, streams and tasks), each made of an entry count followed
+ * by the entries, and finally a CRC32 of everything that precedes it. Registrations are
+ * written as name, type and coordinates, definitions as name and DSL text. Strings are
+ * written as their UTF-8 byte count followed by the bytes.</p>
+ *
+ * <p>Snapshots are read through a memory-mapped buffer, and definitions are only kept as
+ * DSL text: parsing them is left to the repositories, which do it lazily.</p>
+ */
+public class AdminSnapshot {
+
+	static final int MAGIC = 0x53434446;
+
+	static final int VERSION = 1;
+
+	private final List<ArtifactRegistration> registrations;
+
+	private final Map<String, String> streams;
+
+	private final Map<String, String> tasks;
+
+	private AdminSnapshot(List<ArtifactRegistration> registrations, Map<String, String> streams,
+			Map<String, String> tasks) {
+		this.registrations = registrations;
+		this.streams = streams;
+		this.tasks = tasks;
+	}
+
+	public List<ArtifactRegistration> getRegistrations() {
+		return registrations;
+	}
+
+	/**
+	 * Return the DSL text of the stream definitions, by name.
+	 */
+	public Map<String, String> getStreams() {
+		return streams;
+	}
+
+	/**
+	 * Return the DSL text of the task definitions, by name.
+	 */
+	public Map<String, String> getTasks() {
+		return tasks;
+	}
+
+	/**
+	 * Read the snapshot held in the given file.
+	 *
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalStateException if the file is not a valid snapshot
+	 */
+	public static AdminSnapshot read(File file) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.limit() < 12 || buffer.getInt() != MAGIC) {
+			throw new IllegalStateException(file + " is not a snapshot");
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IllegalStateException(String.format("Unsupported snapshot version %d in %s", version, file));
+		}
+		CRC32 crc = new CRC32();
+		ByteBuffer body = buffer.duplicate();
+		body.position(0).limit(buffer.limit() - 4);
+		byte[] chunk = new byte[8192];
+		while (body.hasRemaining()) {
+			int length = Math.min(chunk.length, body.remaining());
+			body.get(chunk, 0, length);
+			crc.update(chunk, 0, length);
+		}
+		if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+			throw new IllegalStateException(file + " is corrupted");
+		}
+
+		int count = buffer.getInt();
+		List<ArtifactRegistration> registrations = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String name = readString(buffer);
+			ArtifactType type = ArtifactType.valueOf(readString(buffer));
+			registrations.add(new ArtifactRegistration(name, type, ArtifactCoordinates.parse(readString(buffer))));
+		}
+		Map<String, String> streams = readDefinitions(buffer);
+		Map<String, String> tasks = readDefinitions(buffer);
+		return new AdminSnapshot(Collections.unmodifiableList(registrations), Collections.unmodifiableMap(streams),
+				Collections.unmodifiableMap(tasks));
+	}
+
+	/**
+	 * Return the binary representation of a snapshot of the given registrations and definitions.
+	 */
+	public static byte[] serialize(Iterable<ArtifactRegistration> registrations, Iterable<StreamDefinition> streams,
+			Iterable<TaskDefinition> tasks) throws IOException {
+		List<String[]> entries = new ArrayList<>();
+		for (ArtifactRegistration registration : registrations) {
+			entries.add(new String[] {registration.getName(), registration.getType().name(),
+					registration.getCoordinates().toString()});
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		writeEntries(out, entries);
+		entries.clear();
+		for (StreamDefinition stream : streams) {
+			entries.add(new String[] {stream.getName(), stream.getDslText()});
+		}
+		writeEntries(out, entries);
+		entries.clear();
+		for (TaskDefinition task : tasks) {
+			entries.add(new String[] {task.getName(), task.getDslText()});
+		}
+		writeEntries(out, entries);
+		out.flush();
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeInt((int) crc.getValue());
+		return bytes.toByteArray();
+	}
+
+	private static void writeEntries(DataOutputStream out, List<String[]> entries) throws IOException {
+		out.writeInt(entries.size());
+		for (String[] entry : entries) {
+			for (String string : entry) {
+				byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(utf8.length);
+				out.write(utf8);
+			}
+		}
+	}
+
+	private static Map<String, String> readDefinitions(ByteBuffer buffer) {
+		int count = buffer.getInt();
+		Map<String, String> definitions = new LinkedHashMap<>(count * 4 / 3 + 1);
+		for (int i = 0; i < count; i++) {
+			definitions.put(readString(buffer), readString(buffer));
+		}
+		return definitions;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		ByteBuffer utf8 = buffer.slice();
+		utf8.limit(length);
+		buffer.position(buffer.position() + length);
+		return StandardCharsets.UTF_8.decode(utf8).toString();
+	}
+
+}
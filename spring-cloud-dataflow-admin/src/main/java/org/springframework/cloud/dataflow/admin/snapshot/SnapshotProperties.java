@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.snapshot;
+
+import java.io.File;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the snapshots that the admin writes and restores at startup.
+ */
+@ConfigurationProperties(SnapshotProperties.PREFIX)
+public class SnapshotProperties {
+
+	public static final String PREFIX = "spring.cloud.dataflow.snapshot";
+
+	/**
+	 * File holding the snapshot. Snapshots are disabled if not set.
+	 */
+	private File location;
+
+	/**
+	 * Delay between two snapshots, in milliseconds. Set to 0 to only write a snapshot on shutdown.
+	 */
+	private long interval = 60000L;
+
+	public File getLocation() {
+		return location;
+	}
+
+	public void setLocation(File location) {
+		this.location = location;
+	}
+
+	public long getInterval() {
+		return interval;
+	}
+
+	public void setInterval(long interval) {
+		this.interval = interval;
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.snapshot;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.dataflow.admin.repository.InMemoryStreamDefinitionRepository;
+import org.springframework.cloud.dataflow.admin.repository.InMemoryTaskDefinitionRepository;
+import org.springframework.cloud.dataflow.artifact.registry.CachingArtifactRegistry;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * Seeds the artifact registry cache and the definition repositories with the contents of
+ * an {@link AdminSnapshot} as soon as they are created, so that they can serve requests
+ * without waiting for the backing store or parsing every definition. Once the context is
+ * refreshed, the registry cache is reloaded from the backing store and the definitions are
+ * parsed in the background.
+ *
+ * <p>A missing or invalid snapshot is simply ignored.</p>
+ */
+public class SnapshotRestorer implements BeanPostProcessor, ApplicationListener<ContextRefreshedEvent> {
+
+	private static final Logger logger = LoggerFactory.getLogger(SnapshotRestorer.class);
+
+	private final File location;
+
+	private final List<Runnable> reconciliations = new ArrayList<>();
+
+	private final AtomicBoolean reconciling = new AtomicBoolean();
+
+	private volatile AdminSnapshot snapshot;
+
+	private boolean read;
+
+	public SnapshotRestorer(File location) {
+		this.location = location;
+	}
+
+	@Override
+	public Object postProcessBeforeInitialization(Object bean, String beanName) {
+		return bean;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(final Object bean, String beanName) throws BeansException {
+		if (bean instanceof CachingArtifactRegistry && snapshot() != null) {
+			((CachingArtifactRegistry) bean).restore(snapshot().getRegistrations());
+			reconcileWith(new Runnable() {
+
+				@Override
+				public void run() {
+					((CachingArtifactRegistry) bean).refresh();
+				}
+			});
+		}
+		else if (bean instanceof InMemoryStreamDefinitionRepository && snapshot() != null) {
+			((InMemoryStreamDefinitionRepository) bean).restore(snapshot().getStreams());
+			reconcileWith(new Runnable() {
+
+				@Override
+				public void run() {
+					((InMemoryStreamDefinitionRepository) bean).parseAll();
+				}
+			});
+		}
+		else if (bean instanceof InMemoryTaskDefinitionRepository && snapshot() != null) {
+			((InMemoryTaskDefinitionRepository) bean).restore(snapshot().getTasks());
+			reconcileWith(new Runnable() {
+
+				@Override
+				public void run() {
+					((InMemoryTaskDefinitionRepository) bean).parseAll();
+				}
+			});
+		}
+		return bean;
+	}
+
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		if (reconciliations.isEmpty() || !reconciling.compareAndSet(false, true)) {
+			return;
+		}
+		Thread thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				long start = System.nanoTime();
+				for (Runnable reconciliation : reconciliations) {
+					try {
+						reconciliation.run();
+					}
+					catch (RuntimeException e) {
+						logger.warn("Exception reconciling state restored from snapshot " + location, e);
+					}
+				}
+				logger.info("Reconciled state restored from snapshot {} in {}ms", location,
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+				// Release the snapshot contents
+				snapshot = null;
+			}
+		}, "snapshot-reconciliation");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private synchronized void reconcileWith(Runnable reconciliation) {
+		reconciliations.add(reconciliation);
+	}
+
+	private synchronized AdminSnapshot snapshot() {
+		if (!read) {
+			read = true;
+			if (location.isFile()) {
+				long start = System.nanoTime();
+				try {
+					snapshot = AdminSnapshot.read(location);
+					logger.info("Read snapshot {} ({} registrations, {} streams, {} tasks) in {}ms", location,
+							snapshot.getRegistrations().size(), snapshot.getStreams().size(),
+							snapshot.getTasks().size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+				}
+				catch (Exception e) {
+					logger.warn("Ignoring snapshot " + location + " that could not be read", e);
+				}
+			}
+		}
+		return snapshot;
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cloud.dataflow.admin.repository.StreamDefinitionRepository;
+import org.springframework.cloud.dataflow.admin.repository.TaskDefinitionRepository;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
+
+/**
+ * Periodically writes an {@link AdminSnapshot} of the artifact registry and of the
+ * definition repositories, and a last one on shutdown. A snapshot is only written if its
+ * contents changed, and replaces the previous one atomically.
+ */
+public class SnapshotWriter implements InitializingBean, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(SnapshotWriter.class);
+
+	private final File location;
+
+	private final long intervalMillis;
+
+	private final ArtifactRegistry artifactRegistry;
+
+	private final StreamDefinitionRepository streamDefinitionRepository;
+
+	private final TaskDefinitionRepository taskDefinitionRepository;
+
+	private ScheduledExecutorService executor;
+
+	private long lastChecksum = -1L;
+
+	/**
+	 * @param location the file to write snapshots to
+	 * @param intervalMillis the delay between two snapshots, or 0 to only write one on shutdown
+	 */
+	public SnapshotWriter(File location, long intervalMillis, ArtifactRegistry artifactRegistry,
+			StreamDefinitionRepository streamDefinitionRepository, TaskDefinitionRepository taskDefinitionRepository) {
+		this.location = location;
+		this.intervalMillis = intervalMillis;
+		this.artifactRegistry = artifactRegistry;
+		this.streamDefinitionRepository = streamDefinitionRepository;
+		this.taskDefinitionRepository = taskDefinitionRepository;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (intervalMillis <= 0) {
+			return;
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "snapshot-writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					write();
+				}
+				catch (Exception e) {
+					logger.warn("Exception writing snapshot " + location, e);
+				}
+			}
+		}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Write a snapshot of the current state, unless it is the same as the last one written.
+	 *
+	 * @return whether a snapshot has been written
+	 */
+	public synchronized boolean write() throws IOException {
+		byte[] contents = AdminSnapshot.serialize(artifactRegistry.findAll(), streamDefinitionRepository.findAll(),
+				taskDefinitionRepository.findAll());
+		CRC32 crc = new CRC32();
+		crc.update(contents);
+		if (crc.getValue() == lastChecksum && location.isFile()) {
+			return false;
+		}
+		Path target = location.getAbsoluteFile().toPath();
+		Files.createDirectories(target.getParent());
+		Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			Files.write(temp, contents);
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+		lastChecksum = crc.getValue();
+		return true;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		write();
+	}
+
+}
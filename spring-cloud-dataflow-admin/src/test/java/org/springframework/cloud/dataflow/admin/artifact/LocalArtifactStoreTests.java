@@ -0,0 +1,228 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.artifact;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cloud.stream.module.resolver.AetherModuleResolver;
+import org.springframework.cloud.stream.module.resolver.Coordinates;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Tests for {@link LocalArtifactStore} and {@link StoreBackedModuleResolver}, resolving
+ * through Aether from a local, file based Maven repository that stands in for remote
+ * repositories.
+ */
+public class LocalArtifactStoreTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File storeDirectory;
+
+	private File remoteRepository;
+
+	private File localRepository;
+
+	private CountingModuleResolver resolver;
+
+	@Before
+	public void setUp() throws IOException {
+		storeDirectory = folder.newFolder("store");
+		remoteRepository = folder.newFolder("remote");
+		localRepository = folder.newFolder("local");
+		resolver = new CountingModuleResolver(new AetherModuleResolver(localRepository,
+				Collections.singletonMap("test", remoteRepository.toURI().toString())));
+	}
+
+	@Test
+	public void testResolvedArchivesAreServedFromTheStore() throws IOException {
+		Coordinates coordinates = new Coordinates("com.acme", "foo-source", "jar", "exec", "1.0");
+		install(coordinates, "foo");
+		StoreBackedModuleResolver storeBacked = new StoreBackedModuleResolver(resolver,
+				new LocalArtifactStore(storeDirectory, 1024));
+
+		Resource first = storeBacked.resolve(coordinates);
+		Resource second = storeBacked.resolve(coordinates);
+		assertThat(resolver.resolutions.get(), is(1));
+		assertThat(first.getFile(), equalTo(second.getFile()));
+		assertThat(first.getFile().getCanonicalPath(), startsWith(storeDirectory.getCanonicalPath()));
+		assertThat(new String(Files.readAllBytes(first.getFile().toPath())), is("foo"));
+
+		// Survives restarts, and works offline
+		FileSystemUtils.deleteRecursively(remoteRepository);
+		FileSystemUtils.deleteRecursively(localRepository);
+		storeBacked = new StoreBackedModuleResolver(resolver, new LocalArtifactStore(storeDirectory, 1024));
+		assertThat(storeBacked.resolve(coordinates).getFile(), equalTo(first.getFile()));
+		assertThat(resolver.resolutions.get(), is(1));
+	}
+
+	@Test
+	public void testIdenticalContentsAreStoredOnce() throws IOException {
+		LocalArtifactStore store = new LocalArtifactStore(storeDirectory, 1024);
+		File first = store.store("com.acme:foo:jar:1.0", contents("same"));
+		File second = store.store("com.acme:bar:jar:1.0", contents("same"));
+		assertThat(first, equalTo(second));
+		assertThat(store.getSize(), is(4L));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedArchivesAreEvicted() throws IOException {
+		LocalArtifactStore store = new LocalArtifactStore(storeDirectory, 10);
+		store.store("com.acme:foo:jar:1.0", contents("0123"));
+		store.store("com.acme:bar:jar:1.0", contents("4567"));
+		assertThat(store.find("com.acme:foo:jar:1.0"), notNullValue());
+
+		store.store("com.acme:baz:jar:1.0", contents("89ab"));
+		assertThat(store.find("com.acme:bar:jar:1.0"), nullValue());
+		assertThat(store.find("com.acme:foo:jar:1.0"), notNullValue());
+		assertThat(store.find("com.acme:baz:jar:1.0"), notNullValue());
+		assertThat(store.getSize(), is(8L));
+
+		// Access order is preserved across restarts
+		store = new LocalArtifactStore(storeDirectory, 10);
+		assertThat(store.getSize(), is(8L));
+		store.find("com.acme:foo:jar:1.0");
+		store.store("com.acme:bar:jar:1.0", contents("4567"));
+		assertThat(store.find("com.acme:baz:jar:1.0"), nullValue());
+		assertThat(store.find("com.acme:foo:jar:1.0"), notNullValue());
+	}
+
+	@Test
+	public void testPinnedArchivesAreNotEvicted() throws IOException {
+		LocalArtifactStore store = new LocalArtifactStore(storeDirectory, 10);
+		store.pin("com.acme:foo:jar:1.0");
+		store.store("com.acme:foo:jar:1.0", contents("0123"));
+		store.store("com.acme:bar:jar:1.0", contents("4567"));
+
+		store.store("com.acme:baz:jar:1.0", contents("89ab"));
+		assertThat(store.find("com.acme:bar:jar:1.0"), nullValue());
+		store.store("com.acme:qux:jar:1.0", contents("cdef"));
+		assertThat(store.find("com.acme:baz:jar:1.0"), nullValue());
+		assertThat(store.find("com.acme:foo:jar:1.0"), notNullValue());
+
+		// Pinned artifacts may take the store over its maximum size, until unpinned
+		store.pin("com.acme:qux:jar:1.0");
+		store.store("com.acme:bar:jar:1.0", contents("4567"));
+		assertThat(store.getSize(), is(12L));
+
+		store.unpin("com.acme:qux:jar:1.0");
+		assertThat(store.find("com.acme:qux:jar:1.0"), nullValue());
+		assertThat(store.find("com.acme:foo:jar:1.0"), notNullValue());
+		assertThat(store.getSize(), is(8L));
+	}
+
+	@Test
+	public void testSnapshotsAreResolvedAgain() throws IOException {
+		Coordinates coordinates = new Coordinates("com.acme", "foo-source", "jar", "exec", "1.0-SNAPSHOT");
+		final File build = folder.newFile("foo-source.jar");
+		Files.write(build.toPath(), "foo".getBytes());
+		CountingModuleResolver builds = new CountingModuleResolver(new ModuleResolver() {
+
+			@Override
+			public Resource resolve(Coordinates coordinates) {
+				return new FileSystemResource(build);
+			}
+
+			@Override
+			public Resource[] resolve(Coordinates root, Coordinates[] includes, String[] excludePatterns) {
+				throw new UnsupportedOperationException();
+			}
+		});
+		LocalArtifactStore store = new LocalArtifactStore(storeDirectory, 1024);
+		StoreBackedModuleResolver storeBacked = new StoreBackedModuleResolver(builds, store);
+
+		File first = storeBacked.resolve(coordinates).getFile();
+		assertThat(storeBacked.resolve(coordinates).getFile(), equalTo(first));
+		assertThat(builds.resolutions.get(), is(2));
+
+		// A newer build replaces the stored one, which is kept while in use
+		store.pin("com.acme:foo-source:jar:exec:1.0-SNAPSHOT");
+		Files.write(build.toPath(), "foo2".getBytes());
+		File second = storeBacked.resolve(coordinates).getFile();
+		assertThat(new String(Files.readAllBytes(second.toPath())), is("foo2"));
+		assertThat(first.isFile(), is(true));
+		assertThat(store.getSize(), is(7L));
+
+		store.unpin("com.acme:foo-source:jar:exec:1.0-SNAPSHOT");
+		assertThat(first.isFile(), is(false));
+		assertThat(store.getSize(), is(4L));
+
+		// The stored build is used when no build can be resolved
+		build.delete();
+		assertThat(storeBacked.resolve(coordinates).getFile(), equalTo(second));
+	}
+
+	private ByteArrayInputStream contents(String contents) {
+		return new ByteArrayInputStream(contents.getBytes());
+	}
+
+	/**
+	 * Deploy an archive to the stand-in remote repository, following the Maven layout.
+	 */
+	private void install(Coordinates coordinates, String contents) throws IOException {
+		String directory = String.format("%s/%s/%s", coordinates.getGroupId().replace('.', '/'),
+				coordinates.getArtifactId(), coordinates.getVersion());
+		String name = String.format("%s-%s-%s.%s", coordinates.getArtifactId(), coordinates.getVersion(),
+				coordinates.getClassifier(), coordinates.getExtension());
+		File file = new File(remoteRepository, directory + "/" + name);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), contents.getBytes());
+	}
+
+	/**
+	 * Counts the resolutions that reach Aether.
+	 */
+	private static class CountingModuleResolver implements ModuleResolver {
+
+		private final ModuleResolver delegate;
+
+		private final AtomicInteger resolutions = new AtomicInteger();
+
+		private CountingModuleResolver(ModuleResolver delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Resource resolve(Coordinates coordinates) {
+			resolutions.incrementAndGet();
+			return delegate.resolve(coordinates);
+		}
+
+		@Override
+		public Resource[] resolve(Coordinates root, Coordinates[] includes, String[] excludePatterns) {
+			return delegate.resolve(root, includes, excludePatterns);
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.dataflow.admin.artifact;
+
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.stream.module.launcher.ModuleLaunchRequest;
+import org.springframework.cloud.stream.module.launcher.ModuleLauncher;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+
+/**
+ * Tests for {@link PinningModuleLauncher}.
+ */
+public class PinningModuleLauncherTests {
+
+	private static final String TIME = "org.example:time-source:1.0.0";
+
+	private static final String LOG = "org.example:log-sink:1.0.0";
+
+	private final ModuleLauncher delegate = mock(ModuleLauncher.class);
+
+	private final LocalArtifactStore store = mock(LocalArtifactStore.class);
+
+	private final PinningModuleLauncher launcher = new PinningModuleLauncher(delegate, mock(ModuleResolver.class),
+			store);
+
+	@Test
+	public void failedLaunchIsUnpinnedOnce() {
+		ModuleLaunchRequest request = request(TIME);
+		doThrow(new IllegalStateException("failed")).when(delegate).launch(anyListOf(ModuleLaunchRequest.class));
+		try {
+			launcher.launch(Collections.singletonList(request));
+		}
+		catch (IllegalStateException e) {
+			// expected
+		}
+		// the deployer releases what it tried to launch
+		launcher.release(request);
+
+		verify(store, times(1)).pin(key(TIME));
+		verify(store, times(1)).unpin(key(TIME));
+	}
+
+	@Test
+	public void aggregateIsPinnedAndReleasedAsAWhole() {
+		List<ModuleLaunchRequest> requests = Arrays.asList(request(LOG), request(TIME));
+		launcher.launch(requests, true, Collections.<String, String>emptyMap());
+		verify(delegate).launch(requests, true, Collections.<String, String>emptyMap());
+		verify(store).pin(key(LOG));
+		verify(store).pin(key(TIME));
+		verify(store, never()).unpin(key(LOG));
+
+		launcher.release(requests.get(0));
+		InOrder inOrder = inOrder(store);
+		inOrder.verify(store).unpin(key(LOG));
+		inOrder.verify(store).unpin(key(TIME));
+		launcher.release(requests.get(0));
+		verify(store, times(1)).unpin(key(LOG));
+		verify(store, times(1)).unpin(key(TIME));
+	}
+
+	@Test
+	public void unknownRequestIsNotUnpinned() {
+		launcher.launch(Collections.singletonList(request(TIME)));
+		launcher.release(request(TIME));
+		verify(store, never()).unpin(key(TIME));
+		verify(delegate, never()).launch(anyListOf(ModuleLaunchRequest.class), anyBoolean(),
+				anyMapOf(String.class, String.class));
+	}
+
+	private static ModuleLaunchRequest request(String module) {
+		return new ModuleLaunchRequest(module, Collections.<String, String>emptyMap());
+	}
+
+	private static String key(String module) {
+		return ArtifactCoordinates.parse(module).toString();
+	}
+
+}
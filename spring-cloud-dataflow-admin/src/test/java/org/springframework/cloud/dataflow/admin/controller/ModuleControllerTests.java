@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.cloud.dataflow.admin.AdminApplication;
+import org.springframework.cloud.dataflow.admin.configuration.TestDependencies;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Tests for {@link ModuleController}.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = {AdminApplication.class, TestDependencies.class})
+@WebAppConfiguration
+public class ModuleControllerTests {
+
+	private MockMvc mockMvc;
+
+	@Autowired
+	private WebApplicationContext wac;
+
+	@Autowired
+	private ArtifactRegistry registry;
+
+	@Before
+	public void setupMockMVC() {
+		this.mockMvc = MockMvcBuilders.webAppContextSetup(wac).defaultRequest(
+				get("/").accept(MediaType.APPLICATION_JSON)).build();
+	}
+
+	@Test
+	public void testRegisterAll() throws Exception {
+		registry.save(new ArtifactRegistration("registerall-existing", ArtifactType.sink,
+				ArtifactCoordinates.parse("org.example:existing:1.0.0")));
+
+		mockMvc.perform(post("/modules").param("modules",
+				"source.registerall-new=org.example:new-source:1.0.0\n"
+						+ "sink.registerall-existing=org.example:other:2.0.0\n"))
+				.andDo(print()).andExpect(status().isCreated())
+				.andExpect(content().string(containsString("registerall-new")))
+				.andExpect(content().string(not(containsString("registerall-existing"))));
+
+		assertEquals("org.example:new-source:jar:1.0.0",
+				registry.find("registerall-new", ArtifactType.source).getCoordinates().toString());
+		assertEquals("org.example:existing:jar:1.0.0",
+				registry.find("registerall-existing", ArtifactType.sink).getCoordinates().toString());
+	}
+
+	@Test
+	public void testRegisterAllWithForce() throws Exception {
+		registry.save(new ArtifactRegistration("registerall-forced", ArtifactType.processor,
+				ArtifactCoordinates.parse("org.example:forced:1.0.0")));
+
+		mockMvc.perform(post("/modules").param("force", "true")
+				.param("modules", "processor.registerall-forced=org.example:forced:2.0.0"))
+				.andDo(print()).andExpect(status().isCreated())
+				.andExpect(content().string(containsString("registerall-forced")));
+
+		assertEquals("org.example:forced:jar:2.0.0",
+				registry.find("registerall-forced", ArtifactType.processor).getCoordinates().toString());
+	}
+
+	@Test
+	public void testRegisterAllRejectsUnknownType() throws Exception {
+		mockMvc.perform(post("/modules").param("modules",
+				"source.registerall-valid=org.example:valid:1.0.0\n"
+						+ "bogus.registerall-invalid=org.example:invalid:1.0.0\n"))
+				.andDo(print()).andExpect(status().isBadRequest());
+
+		assertNull(registry.find("registerall-valid", ArtifactType.source));
+	}
+
+	@Test
+	public void testRegisterAllRejectsBadCoordinates() throws Exception {
+		mockMvc.perform(post("/modules").param("modules", "sink.registerall-bad=not-coordinates"))
+				.andDo(print()).andExpect(status().isBadRequest());
+	}
+
+}
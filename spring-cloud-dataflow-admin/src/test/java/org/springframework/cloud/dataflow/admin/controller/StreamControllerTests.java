@@ -18,14 +18,21 @@ package org.springframework.cloud.dataflow.admin.controller;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -36,6 +43,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -44,13 +52,17 @@ import org.springframework.cloud.dataflow.admin.AdminApplication;
 import org.springframework.cloud.dataflow.admin.configuration.TestDependencies;
 import org.springframework.cloud.dataflow.admin.repository.InMemoryStreamDefinitionRepository;
 import org.springframework.cloud.dataflow.admin.repository.StreamDefinitionRepository;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
 import org.springframework.cloud.dataflow.core.BindingProperties;
 import org.springframework.cloud.dataflow.core.ModuleDefinition;
 import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
 import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
 import org.springframework.cloud.dataflow.module.ModuleStatus;
+import org.springframework.cloud.dataflow.module.deployer.BatchingModuleDeployer;
+import org.springframework.cloud.dataflow.module.deployer.ColocatingModuleDeployer;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
+import org.springframework.cloud.dataflow.module.deployer.ScalableModuleDeployer;
 import org.springframework.cloud.dataflow.artifact.registry.InMemoryArtifactRegistry;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
@@ -78,6 +90,9 @@ public class StreamControllerTests {
 	@Autowired
 	private WebApplicationContext wac;
 
+	@Autowired
+	private ArtifactRegistry registry;
+
 	@Autowired
 	@Qualifier("processModuleDeployer")
 	private ModuleDeployer moduleDeployer;
@@ -303,4 +318,138 @@ public class StreamControllerTests {
 		ModuleDeploymentRequest timeRequest = requests.get(1);
 		assertThat(timeRequest.getDefinition().getName(), is("time"));
 	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testDeployColocated() throws Exception {
+		repository.save(new StreamDefinition("myStream", "time | filter | log"));
+		ColocatingModuleDeployer deployer = mock(ColocatingModuleDeployer.class);
+		StreamController controller = new StreamController(repository, registry, deployer);
+		controller.deploy("myStream", "module.time.colocate=true,module.filter.colocate=true");
+
+		ArgumentCaptor<List> groupCaptor = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<ModuleDeploymentRequest> captor = ArgumentCaptor.forClass(ModuleDeploymentRequest.class);
+		InOrder inOrder = inOrder(deployer);
+		inOrder.verify(deployer).deploy(captor.capture());
+		inOrder.verify(deployer).deploy(groupCaptor.capture());
+		assertThat(captor.getValue().getDefinition().getName(), is("log"));
+		List<ModuleDeploymentRequest> group = groupCaptor.getValue();
+		assertEquals(2, group.size());
+		assertThat(group.get(0).getDefinition().getName(), is("time"));
+		assertThat(group.get(1).getDefinition().getName(), is("filter"));
+	}
+
+	@Test
+	public void testColocateIgnoredForPartitionedModules() throws Exception {
+		repository.save(new StreamDefinition("myStream", "time | log"));
+		ColocatingModuleDeployer deployer = mock(ColocatingModuleDeployer.class);
+		StreamController controller = new StreamController(repository, registry, deployer);
+		controller.deploy("myStream", "module.*.colocate=true,module.log.count=2,module.log.partitioned=true");
+
+		verify(deployer, never()).deploy(anyListOf(ModuleDeploymentRequest.class));
+		ArgumentCaptor<ModuleDeploymentRequest> captor = ArgumentCaptor.forClass(ModuleDeploymentRequest.class);
+		verify(deployer, times(2)).deploy(captor.capture());
+		for (ModuleDeploymentRequest request : captor.getAllValues()) {
+			assertFalse(request.getDeploymentProperties().containsKey(ColocatingModuleDeployer.COLOCATE_PROPERTY));
+		}
+	}
+
+	@Test
+	public void testColocateIgnoredByOtherDeployers() throws Exception {
+		repository.save(new StreamDefinition("myStream", "time | log"));
+		mockMvc.perform(
+				post("/streams/deployments/myStream").param("properties", "module.*.colocate=true")
+						.accept(MediaType.APPLICATION_JSON)).andDo(print())
+				.andExpect(status().isCreated());
+		verify(moduleDeployer, times(2)).deploy(any(ModuleDeploymentRequest.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testDeployBatched() throws Exception {
+		repository.save(new StreamDefinition("myStream", "time | filter | log"));
+		BatchingModuleDeployer deployer = mock(BatchingModuleDeployer.class);
+		StreamController controller = new StreamController(repository, registry, deployer);
+		controller.deploy("myStream", null);
+
+		ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(deployer).deployAll(captor.capture());
+		verify(deployer, never()).deploy(any(ModuleDeploymentRequest.class));
+		List<ModuleDeploymentRequest> batch = captor.getValue();
+		assertEquals(3, batch.size());
+		assertThat(batch.get(0).getDefinition().getName(), is("log"));
+		assertThat(batch.get(1).getDefinition().getName(), is("filter"));
+		assertThat(batch.get(2).getDefinition().getName(), is("time"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testDeployBatchedAndColocated() throws Exception {
+		repository.save(new StreamDefinition("myStream", "time | transform | filter | groovy-filter | log"));
+		ColocatingModuleDeployer deployer = mock(ColocatingModuleDeployer.class,
+				withSettings().extraInterfaces(BatchingModuleDeployer.class));
+		StreamController controller = new StreamController(repository, registry, deployer);
+		controller.deploy("myStream", "module.transform.colocate=true,module.filter.colocate=true");
+
+		// Downstream modules first, batched up to the group, which comes before upstream modules
+		ArgumentCaptor<List> batchCaptor = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<List> groupCaptor = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<ModuleDeploymentRequest> captor = ArgumentCaptor.forClass(ModuleDeploymentRequest.class);
+		InOrder inOrder = inOrder(deployer);
+		inOrder.verify((BatchingModuleDeployer) deployer).deployAll(batchCaptor.capture());
+		inOrder.verify(deployer).deploy(groupCaptor.capture());
+		inOrder.verify(deployer).deploy(captor.capture());
+		List<ModuleDeploymentRequest> batch = batchCaptor.getValue();
+		assertEquals(2, batch.size());
+		assertThat(batch.get(0).getDefinition().getName(), is("log"));
+		assertThat(batch.get(1).getDefinition().getName(), is("groovy-filter"));
+		List<ModuleDeploymentRequest> group = groupCaptor.getValue();
+		assertEquals(2, group.size());
+		assertThat(group.get(0).getDefinition().getName(), is("transform"));
+		assertThat(group.get(1).getDefinition().getName(), is("filter"));
+		assertThat(captor.getValue().getDefinition().getName(), is("time"));
+	}
+
+	@Test
+	public void testScale() throws Exception {
+		repository.save(new StreamDefinition("myStream", "time | filter | log"));
+		ScalableModuleDeployer deployer = mock(ScalableModuleDeployer.class);
+		ModuleStatus status = mock(ModuleStatus.class);
+		when(status.getState()).thenReturn(ModuleStatus.State.deployed);
+		when(deployer.status(new ModuleDeploymentId("myStream", "filter"))).thenReturn(status);
+		StreamController controller = new StreamController(repository, registry, deployer);
+		controller.scale("myStream", "filter", 3);
+
+		verify(deployer).scale(new ModuleDeploymentId("myStream", "filter"), 3);
+		verify(deployer, never()).undeploy(any(ModuleDeploymentId.class));
+		verify(deployer, never()).deploy(any(ModuleDeploymentRequest.class));
+	}
+
+	@Test
+	public void testScaleUnsupported() throws Exception {
+		repository.save(new StreamDefinition("myStream", "time | filter | log"));
+		mockMvc.perform(
+				put("/streams/deployments/myStream/filter").param("count", "3").accept(MediaType.APPLICATION_JSON))
+				.andDo(print()).andExpect(status().isBadRequest());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testScaleUndeployedStream() throws Exception {
+		repository.save(new StreamDefinition("myStream", "time | filter | log"));
+		ScalableModuleDeployer deployer = mock(ScalableModuleDeployer.class);
+		ModuleStatus status = mock(ModuleStatus.class);
+		when(status.getState()).thenReturn(ModuleStatus.State.unknown);
+		when(deployer.status(new ModuleDeploymentId("myStream", "filter"))).thenReturn(status);
+		StreamController controller = new StreamController(repository, registry, deployer);
+		controller.scale("myStream", "filter", 3);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testScaleUnknownModule() throws Exception {
+		repository.save(new StreamDefinition("myStream", "time | filter | log"));
+		StreamController controller = new StreamController(repository, registry,
+				mock(ScalableModuleDeployer.class));
+		controller.scale("myStream", "transform", 3);
+	}
+
 }
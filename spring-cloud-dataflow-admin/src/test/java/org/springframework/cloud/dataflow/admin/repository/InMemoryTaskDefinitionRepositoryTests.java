@@ -24,7 +24,9 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -216,6 +218,25 @@ public class InMemoryTaskDefinitionRepositoryTests {
 		assertEquals(0, repository.count());
 	}
 
+	@Test
+	public void testRestore() {
+		repository.save(new TaskDefinition("task1", "myTask"));
+		Map<String, String> restored = new LinkedHashMap<>();
+		restored.put("task1", "otherTask");
+		restored.put("task2", "myTask --foo=bar");
+		restored.put("task3", "myTask");
+		repository.restore(restored);
+
+		assertEquals(3, repository.count());
+		assertTrue(repository.exists("task3"));
+		assertEquals("myTask", repository.findOne("task1").getDslText());
+		assertEquals("bar", repository.findOne("task2").getParameters().get("foo"));
+
+		repository.delete("task3");
+		assertEquals(2, repository.count());
+		assertNull(repository.findOne("task3"));
+	}
+
 	private void initializeRepository() {
 		repository.save(new TaskDefinition("task1", "myTask"));
 		repository.save(new TaskDefinition("task2", "myTask"));
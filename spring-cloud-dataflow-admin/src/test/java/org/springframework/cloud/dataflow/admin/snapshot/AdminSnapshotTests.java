@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.snapshot;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.cloud.dataflow.core.StreamDefinition;
+import org.springframework.cloud.dataflow.core.TaskDefinition;
+
+/**
+ * Tests for {@link AdminSnapshot}.
+ */
+public class AdminSnapshotTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		File file = folder.newFile("snapshot");
+		Files.write(file.toPath(), AdminSnapshot.serialize(
+				Arrays.asList(new ArtifactRegistration("time", ArtifactType.source,
+						ArtifactCoordinates.parse("org.springframework.cloud.stream.module:time-source:1.0.0"))),
+				Arrays.asList(new StreamDefinition("ticktock", "time | log"),
+						new StreamDefinition("caf\u00e9", "time --format='\u00e9t\u00e9' | log")),
+				Collections.singletonList(new TaskDefinition("timestamp", "timestamp"))));
+
+		AdminSnapshot snapshot = AdminSnapshot.read(file);
+		assertThat(snapshot.getRegistrations(), hasSize(1));
+		ArtifactRegistration registration = snapshot.getRegistrations().get(0);
+		assertEquals("time", registration.getName());
+		assertEquals(ArtifactType.source, registration.getType());
+		assertEquals("org.springframework.cloud.stream.module:time-source:jar:1.0.0",
+				registration.getCoordinates().toString());
+		assertThat(snapshot.getStreams(), hasEntry("ticktock", "time | log"));
+		assertThat(snapshot.getStreams(), hasEntry("caf\u00e9", "time --format='\u00e9t\u00e9' | log"));
+		assertThat(snapshot.getTasks(), hasEntry("timestamp", "timestamp"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCorruptedSnapshot() throws IOException {
+		File file = folder.newFile("snapshot");
+		byte[] contents = AdminSnapshot.serialize(Collections.<ArtifactRegistration>emptyList(),
+				Collections.singletonList(new StreamDefinition("ticktock", "time | log")),
+				Collections.<TaskDefinition>emptyList());
+		contents[contents.length / 2]++;
+		Files.write(file.toPath(), contents);
+		AdminSnapshot.read(file);
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.artifact.registry;
+
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.util.Assert;
+
+/**
+ * Identifies an artifact registration, by name and type.
+ *
+ * @see ArtifactRegistry#findAll(java.util.Collection)
+ */
+public class ArtifactKey {
+
+	/**
+	 * Module/Library symbolic name.
+	 */
+	private final String name;
+
+	/**
+	 * Artifact type.
+	 */
+	private final ArtifactType type;
+
+	/**
+	 * Construct a {@code ArtifactKey} object.
+	 *
+	 * @param name artifact name
+	 * @param type artifact type
+	 */
+	public ArtifactKey(String name, ArtifactType type) {
+		Assert.notNull(name, "name must not be null");
+		Assert.notNull(type, "type must not be null");
+		this.name = name;
+		this.type = type;
+	}
+
+	/**
+	 * @see #name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @see #type
+	 */
+	public ArtifactType getType() {
+		return type;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		ArtifactKey that = (ArtifactKey) o;
+		return this.getName().equals(that.getName()) && this.getType() == that.getType();
+	}
+
+	@Override
+	public int hashCode() {
+		int result = name.hashCode();
+		result = 31 * result + type.hashCode();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "ArtifactKey{" +
+				"name='" + name + '\'' +
+				", type=" + type +
+				'}';
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.cloud.dataflow.artifact.registry;
 
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.cloud.dataflow.core.ArtifactType;
@@ -52,6 +53,17 @@ public interface ArtifactRegistry {
 	 */
 	List<ArtifactRegistration> findAll();
 
+	/**
+	 * Look up the registrations for several artifacts at once. Artifacts that
+	 * are not registered are omitted from the result, which is otherwise in the
+	 * same order as the provided keys.
+	 *
+	 * @param keys name and type of the artifacts to look up
+	 *
+	 * @return registrations for the artifacts that are registered
+	 */
+	List<ArtifactRegistration> findAll(Collection<ArtifactKey> keys);
+
 	/**
 	 * Save a new artifact registration. Pre-existing registrations
 	 * with a given name and type will be overwritten.
@@ -60,6 +72,14 @@ public interface ArtifactRegistry {
 	 */
 	void save(ArtifactRegistration registration);
 
+	/**
+	 * Save several artifact registrations at once. Pre-existing
+	 * registrations with the same name and type will be overwritten.
+	 *
+	 * @param registrations module/library registrations to save
+	 */
+	void saveAll(Collection<ArtifactRegistration> registrations);
+
 	/**
 	 * Unregister an artifact by name and type.
 	 *
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.artifact.registry;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.util.Assert;
+
+/**
+ * Listens to the changes published by {@link RedisArtifactRegistry} on its
+ * {@link RedisArtifactRegistry#CHANGES_CHANNEL change channel} and invalidates the
+ * corresponding entries of a {@link CachingArtifactRegistry}.
+ *
+ * <p>Each message identifies a single registration, in the form {@literal type:name},
+ * or is {@value #REFRESH_MESSAGE} if all registrations should be reloaded.</p>
+ */
+public class ArtifactRegistryChangeListener implements MessageListener {
+
+	/**
+	 * Message published when many registrations have changed at once.
+	 */
+	static final String REFRESH_MESSAGE = "*";
+
+	private final CachingArtifactRegistry cachingArtifactRegistry;
+
+	/**
+	 * Construct a {@code ArtifactRegistryChangeListener} that invalidates entries of the
+	 * provided registry.
+	 *
+	 * @param cachingArtifactRegistry the registry to keep up to date
+	 */
+	public ArtifactRegistryChangeListener(CachingArtifactRegistry cachingArtifactRegistry) {
+		Assert.notNull(cachingArtifactRegistry, "cachingArtifactRegistry must not be null");
+		this.cachingArtifactRegistry = cachingArtifactRegistry;
+	}
+
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		String body = new String(message.getBody(), StandardCharsets.UTF_8);
+		int colon = body.indexOf(':');
+		if (colon < 0) {
+			this.cachingArtifactRegistry.refresh();
+			return;
+		}
+		ArtifactType type = ArtifactType.valueOf(body.substring(0, colon));
+		this.cachingArtifactRegistry.invalidate(body.substring(colon + 1), type);
+	}
+
+	/**
+	 * Return the message that describes a change to the registration with the given
+	 * name and type.
+	 */
+	static String changeMessage(String name, ArtifactType type) {
+		return type + ":" + name;
+	}
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.artifact.registry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link ArtifactRegistry} that keeps a full local copy of the registrations held by
+ * another (typically remote) registry, so that reads never leave the current process.
+ *
+ * <p>Writes go through to the delegate and are applied locally. Changes made by other
+ * processes are picked up when {@link #invalidate(String, ArtifactType)} is invoked, typically
+ * by an {@link ArtifactRegistryChangeListener} subscribed to the change feed of a
+ * {@link RedisArtifactRegistry}. The local copy is loaded on first access and can be
+ * reloaded at any time using {@link #refresh()}, <i>e.g.</i> after the change feed has been
+ * interrupted.</p>
+ *
+ * <p>Writes, invalidations and reloads are serialized, so that a registration read from
+ * the delegate never overwrites a more recent one applied meanwhile.</p>
+ */
+public class CachingArtifactRegistry implements ArtifactRegistry {
+
+	/**
+	 * The registry holding the authoritative copy of registrations.
+	 */
+	private final ArtifactRegistry delegate;
+
+	/**
+	 * Local copy of the registrations, by type then name, or {@code null} if not loaded yet.
+	 */
+	private volatile Map<ArtifactType, ConcurrentMap<String, ArtifactRegistration>> registrations;
+
+	/**
+	 * Number of invalidations seen so far, used to detect changes racing with a reload.
+	 */
+	private final AtomicLong invalidations = new AtomicLong();
+
+	/**
+	 * Construct a {@code CachingArtifactRegistry} in front of the provided registry.
+	 *
+	 * @param delegate the registry to read from and write to
+	 */
+	public CachingArtifactRegistry(ArtifactRegistry delegate) {
+		Assert.notNull(delegate, "delegate must not be null");
+		this.delegate = delegate;
+	}
+
+	@Override
+	public ArtifactRegistration find(String name, ArtifactType type) {
+		return registrations().get(type).get(name);
+	}
+
+	@Override
+	public List<ArtifactRegistration> findAll() {
+		List<ArtifactRegistration> list = new ArrayList<>();
+		for (Map<String, ArtifactRegistration> byName : registrations().values()) {
+			list.addAll(byName.values());
+		}
+		return list;
+	}
+
+	@Override
+	public List<ArtifactRegistration> findAll(Collection<ArtifactKey> keys) {
+		Map<ArtifactType, ConcurrentMap<String, ArtifactRegistration>> current = registrations();
+		List<ArtifactRegistration> list = new ArrayList<>(keys.size());
+		for (ArtifactKey key : keys) {
+			ArtifactRegistration registration = current.get(key.getType()).get(key.getName());
+			if (registration != null) {
+				list.add(registration);
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public synchronized void save(ArtifactRegistration registration) {
+		this.delegate.save(registration);
+		invalidations.incrementAndGet();
+		Map<ArtifactType, ConcurrentMap<String, ArtifactRegistration>> current = this.registrations;
+		if (current != null) {
+			current.get(registration.getType()).put(registration.getName(), registration);
+		}
+	}
+
+	@Override
+	public synchronized void saveAll(Collection<ArtifactRegistration> registrations) {
+		this.delegate.saveAll(registrations);
+		invalidations.incrementAndGet();
+		Map<ArtifactType, ConcurrentMap<String, ArtifactRegistration>> current = this.registrations;
+		if (current != null) {
+			for (ArtifactRegistration registration : registrations) {
+				current.get(registration.getType()).put(registration.getName(), registration);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void delete(String name, ArtifactType type) {
+		this.delegate.delete(name, type);
+		invalidations.incrementAndGet();
+		Map<ArtifactType, ConcurrentMap<String, ArtifactRegistration>> current = this.registrations;
+		if (current != null) {
+			current.get(type).remove(name);
+		}
+	}
+
+	/**
+	 * Discard the local copy of a single registration, which has been changed (saved or
+	 * deleted) elsewhere, and read it again from the delegate.
+	 *
+	 * @param name the artifact name
+	 * @param type the artifact type
+	 */
+	public synchronized void invalidate(String name, ArtifactType type) {
+		invalidations.incrementAndGet();
+		Map<ArtifactType, ConcurrentMap<String, ArtifactRegistration>> current = this.registrations;
+		if (current == null) {
+			// Not loaded yet, will be read in full on first access
+			return;
+		}
+		ArtifactRegistration registration = this.delegate.find(name, type);
+		if (registration == null) {
+			current.get(type).remove(name);
+		}
+		else {
+			current.get(type).put(name, registration);
+		}
+	}
+
+	/**
+	 * Use the given registrations (<i>e.g.</i> read from a snapshot) as the local copy,
+	 * unless it has already been loaded. This allows serving reads without accessing the
+	 * delegate, which should then be caught up with using {@link #refresh()}.
+	 *
+	 * @param registrations the registrations to use
+	 */
+	public synchronized void restore(Collection<ArtifactRegistration> registrations) {
+		if (this.registrations == null) {
+			this.registrations = index(registrations);
+		}
+	}
+
+	/**
+	 * Reload all registrations from the delegate.
+	 */
+	public synchronized void refresh() {
+		long seen;
+		do {
+			seen = invalidations.get();
+			this.registrations = index(this.delegate.findAll());
+		}
+		// A change that happened meanwhile may or may not be part of what was read
+		while (invalidations.get() != seen);
+	}
+
+	/**
+	 * Return the registry holding the authoritative copy of the registrations of the given
+	 * one: its delegate if it is a {@code CachingArtifactRegistry}, whose local copy may have
+	 * been {@link #restore(Collection) restored} from stale contents, or the given registry
+	 * itself. Lookups that decide whether to write (<i>e.g.</i> to only register artifacts
+	 * that are not registered yet) should be made against it.
+	 *
+	 * @param registry a registry
+	 * @return the registry to check before writing to the given one
+	 */
+	public static ArtifactRegistry authoritative(ArtifactRegistry registry) {
+		return registry instanceof CachingArtifactRegistry ? ((CachingArtifactRegistry) registry).delegate : registry;
+	}
+
+	private Map<ArtifactType, ConcurrentMap<String, ArtifactRegistration>> index(
+			Collection<ArtifactRegistration> registrations) {
+		Map<ArtifactType, ConcurrentMap<String, ArtifactRegistration>> index = new EnumMap<>(ArtifactType.class);
+		for (ArtifactType type : ArtifactType.values()) {
+			index.put(type, new ConcurrentHashMap<String, ArtifactRegistration>());
+		}
+		for (ArtifactRegistration registration : registrations) {
+			index.get(registration.getType()).put(registration.getName(), registration);
+		}
+		return index;
+	}
+
+	private Map<ArtifactType, ConcurrentMap<String, ArtifactRegistration>> registrations() {
+		Map<ArtifactType, ConcurrentMap<String, ArtifactRegistration>> current = this.registrations;
+		if (current == null) {
+			synchronized (this) {
+				if (this.registrations == null) {
+					refresh();
+				}
+				current = this.registrations;
+			}
+		}
+		return current;
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.cloud.dataflow.artifact.registry;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -32,86 +33,55 @@ import org.springframework.cloud.dataflow.core.ArtifactType;
  */
 public class InMemoryArtifactRegistry implements ArtifactRegistry {
 
-	private final Map<Key, ArtifactCoordinates> map = new ConcurrentHashMap<>();
+	private final Map<ArtifactKey, ArtifactCoordinates> map = new ConcurrentHashMap<>();
 
 	@Override
 	public ArtifactRegistration find(String name, ArtifactType type) {
-		ArtifactCoordinates coordinates = this.map.get(new Key(name, type));
+		ArtifactCoordinates coordinates = this.map.get(new ArtifactKey(name, type));
 		return (coordinates == null ? null : new ArtifactRegistration(name, type, coordinates));
 	}
 
 	@Override
 	public List<ArtifactRegistration> findAll() {
 		List<ArtifactRegistration> list = new ArrayList<>(this.map.size());
-		for (Map.Entry<Key, ArtifactCoordinates> entry : this.map.entrySet()) {
+		for (Map.Entry<ArtifactKey, ArtifactCoordinates> entry : this.map.entrySet()) {
 			list.add(new ArtifactRegistration(entry.getKey().getName(),
 					entry.getKey().getType(), entry.getValue()));
 		}
 		return list;
 	}
 
+	@Override
+	public List<ArtifactRegistration> findAll(Collection<ArtifactKey> keys) {
+		List<ArtifactRegistration> list = new ArrayList<>(keys.size());
+		for (ArtifactKey key : keys) {
+			ArtifactCoordinates coordinates = this.map.get(key);
+			if (coordinates != null) {
+				list.add(new ArtifactRegistration(key.getName(), key.getType(), coordinates));
+			}
+		}
+		return list;
+	}
+
 	@Override
 	public void save(ArtifactRegistration registration) {
 		String name = registration.getName();
 		ArtifactType type = registration.getType();
 		ArtifactCoordinates coordinates = registration.getCoordinates();
 
-		this.map.put(new Key(name, type), coordinates);
+		this.map.put(new ArtifactKey(name, type), coordinates);
 	}
 
 	@Override
-	public void delete(String name, ArtifactType type) {
-		this.map.remove(new Key(name, type));
-	}
-
-	/**
-	 * Key class for module registration.
-	 */
-	private static class Key {
-
-		private String name;
-
-		private ArtifactType type;
-
-		public Key(String name, ArtifactType type) {
-			this.name = name;
-			this.type = type;
-		}
-
-		public String getName() {
-			return name;
-		}
-
-		public ArtifactType getType() {
-			return type;
-		}
-
-		@Override
-		public boolean equals(Object o) {
-			if (this == o) {
-				return true;
-			}
-			if (o == null || getClass() != o.getClass()) {
-				return false;
-			}
-			Key that = (Key) o;
-			return this.getName().equals(that.getName()) && this.getType() == that.getType();
-		}
-
-		@Override
-		public int hashCode() {
-			int result = name.hashCode();
-			result = 31 * result + type.hashCode();
-			return result;
+	public void saveAll(Collection<ArtifactRegistration> registrations) {
+		for (ArtifactRegistration registration : registrations) {
+			save(registration);
 		}
+	}
 
-		@Override
-		public String toString() {
-			return "Key{" +
-					"name='" + name + '\'' +
-					", type=" + type +
-					'}';
-		}
+	@Override
+	public void delete(String name, ArtifactType type) {
+		this.map.remove(new ArtifactKey(name, type));
 	}
 
 }
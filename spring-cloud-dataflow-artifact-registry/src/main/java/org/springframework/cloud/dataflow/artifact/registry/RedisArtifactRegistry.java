@@ -16,19 +16,32 @@
 
 package org.springframework.cloud.dataflow.artifact.registry;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
 import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
 /**
  * {@link ArtifactRegistry} implementation backed by Redis.
  *
+ * <p>Every change is also published on {@link #CHANGES_CHANNEL}, which allows other
+ * processes to keep a local copy of the registry up to date (see
+ * {@link CachingArtifactRegistry} and {@link ArtifactRegistryChangeListener}).</p>
+ *
+ * <p>Operations that deal with several registrations are pipelined, so that they cost
+ * a single round-trip to Redis.</p>
+ *
  * @author Patrick Peralta
  * @author Mark Fisher
  */
@@ -39,6 +52,11 @@ public class RedisArtifactRegistry implements ArtifactRegistry {
 	 */
 	public static final String KEY_PREFIX = "spring.cloud.artifact.";
 
+	/**
+	 * Name of the channel that changes to registrations are published to.
+	 */
+	public static final String CHANGES_CHANNEL = KEY_PREFIX + "changes";
+
 	/**
 	 * Redis operations template.
 	 */
@@ -63,13 +81,23 @@ public class RedisArtifactRegistry implements ArtifactRegistry {
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public List<ArtifactRegistration> findAll() {
-		List<ArtifactRegistration> list = new ArrayList<>();
+		List<Object> results = redisOperations.executePipelined(new RedisCallback<Object>() {
+
+			@Override
+			public Object doInRedis(RedisConnection connection) throws DataAccessException {
+				for (ArtifactType type : ArtifactType.values()) {
+					connection.hGetAll(bytes(KEY_PREFIX + type));
+				}
+				return null;
+			}
+		});
 
+		List<ArtifactRegistration> list = new ArrayList<>();
+		Iterator<Object> iterator = results.iterator();
 		for (ArtifactType type : ArtifactType.values()) {
-			for (Map.Entry<String, String> entry :
-					redisOperations.<String, String>boundHashOps(KEY_PREFIX + type)
-							.entries().entrySet()) {
+			for (Map.Entry<String, String> entry : ((Map<String, String>) iterator.next()).entrySet()) {
 				list.add(new ArtifactRegistration(entry.getKey(), type,
 						ArtifactCoordinates.parse(entry.getValue())));
 			}
@@ -78,15 +106,76 @@ public class RedisArtifactRegistry implements ArtifactRegistry {
 		return list;
 	}
 
+	@Override
+	public List<ArtifactRegistration> findAll(final Collection<ArtifactKey> keys) {
+		List<Object> results = redisOperations.executePipelined(new RedisCallback<Object>() {
+
+			@Override
+			public Object doInRedis(RedisConnection connection) throws DataAccessException {
+				for (ArtifactKey key : keys) {
+					connection.hGet(bytes(KEY_PREFIX + key.getType()), bytes(key.getName()));
+				}
+				return null;
+			}
+		});
+
+		List<ArtifactRegistration> list = new ArrayList<>(keys.size());
+		Iterator<Object> iterator = results.iterator();
+		for (ArtifactKey key : keys) {
+			String coordinates = (String) iterator.next();
+			if (coordinates != null) {
+				list.add(new ArtifactRegistration(key.getName(), key.getType(),
+						ArtifactCoordinates.parse(coordinates)));
+			}
+		}
+
+		return list;
+	}
+
 	@Override
 	public void save(ArtifactRegistration registration) {
 		redisOperations.boundHashOps(KEY_PREFIX + registration.getType())
 				.put(registration.getName(), registration.getCoordinates().toString());
+		publishChange(registration.getName(), registration.getType());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>A single change notification, asking listeners to reload all registrations,
+	 * is published for the whole batch.</p>
+	 */
+	@Override
+	public void saveAll(final Collection<ArtifactRegistration> registrations) {
+		redisOperations.executePipelined(new RedisCallback<Object>() {
+
+			@Override
+			public Object doInRedis(RedisConnection connection) throws DataAccessException {
+				for (ArtifactRegistration registration : registrations) {
+					connection.hSet(bytes(KEY_PREFIX + registration.getType()), bytes(registration.getName()),
+							bytes(registration.getCoordinates().toString()));
+				}
+				connection.publish(bytes(CHANGES_CHANNEL), bytes(ArtifactRegistryChangeListener.REFRESH_MESSAGE));
+				return null;
+			}
+		});
 	}
 
 	@Override
 	public void delete(String name, ArtifactType type) {
 		redisOperations.boundHashOps(KEY_PREFIX + type).delete(name);
+		publishChange(name, type);
+	}
+
+	private void publishChange(String name, ArtifactType type) {
+		redisOperations.convertAndSend(CHANGES_CHANNEL, ArtifactRegistryChangeListener.changeMessage(name, type));
+	}
+
+	/**
+	 * Serialize a key or value the way the {@link StringRedisTemplate} does.
+	 */
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
 	}
 
 }
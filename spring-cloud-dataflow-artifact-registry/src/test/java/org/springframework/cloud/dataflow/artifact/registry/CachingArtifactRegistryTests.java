@@ -0,0 +1,184 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.artifact.registry;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+
+/**
+ * Tests for {@link CachingArtifactRegistry} and {@link ArtifactRegistryChangeListener}, where
+ * several caching registries share a stand-in for Redis: an in-memory store that publishes
+ * every change to the subscribed listeners, as {@link RedisArtifactRegistry} does.
+ */
+public class CachingArtifactRegistryTests {
+
+	private StandInRedis redis = new StandInRedis();
+
+	private CachingArtifactRegistry first;
+
+	private CachingArtifactRegistry second;
+
+	@Before
+	public void setUp() {
+		first = new CachingArtifactRegistry(redis);
+		second = new CachingArtifactRegistry(redis);
+		redis.listeners.add(new ArtifactRegistryChangeListener(first));
+		redis.listeners.add(new ArtifactRegistryChangeListener(second));
+	}
+
+	@Test
+	public void testReadsAreServedLocally() {
+		redis.save(registration("time", ArtifactType.source, "1.0"));
+
+		assertThat(first.find("time", ArtifactType.source).getCoordinates().getVersion(), is("1.0"));
+		assertThat(first.findAll(), hasSize(1));
+		assertThat(first.find("time", ArtifactType.sink), nullValue());
+		int reads = redis.reads;
+		first.find("time", ArtifactType.source);
+		first.findAll();
+		assertThat(redis.reads, is(reads));
+	}
+
+	@Test
+	public void testChangesArePropagatedToOtherInstances() {
+		first.findAll();
+		second.findAll();
+
+		first.save(registration("log", ArtifactType.sink, "1.0"));
+		assertThat(second.find("log", ArtifactType.sink).getCoordinates().getVersion(), is("1.0"));
+
+		first.save(registration("log", ArtifactType.sink, "2.0"));
+		assertThat(second.find("log", ArtifactType.sink).getCoordinates().getVersion(), is("2.0"));
+
+		second.delete("log", ArtifactType.sink);
+		assertThat(first.find("log", ArtifactType.sink), nullValue());
+		assertThat(first.findAll(), empty());
+	}
+
+	@Test
+	public void testBulkOperations() {
+		second.findAll();
+		first.saveAll(Arrays.asList(registration("time", ArtifactType.source, "1.0"),
+				registration("log", ArtifactType.sink, "1.0")));
+
+		List<ArtifactRegistration> found = second.findAll(Arrays.asList(new ArtifactKey("log", ArtifactType.sink),
+				new ArtifactKey("time", ArtifactType.sink), new ArtifactKey("time", ArtifactType.source)));
+		assertThat(found, hasSize(2));
+		assertThat(found.get(0).getName(), is("log"));
+		assertThat(found.get(1).getName(), is("time"));
+	}
+
+	@Test
+	public void testChangesMissedWhileUnsubscribedAreRecoveredOnRefresh() {
+		second.findAll();
+		redis.listeners.clear();
+		first.save(registration("time", ArtifactType.source, "1.0"));
+		assertThat(second.find("time", ArtifactType.source), nullValue());
+
+		second.refresh();
+		assertThat(second.find("time", ArtifactType.source), notNullValue());
+	}
+
+	@Test
+	public void testRestoredRegistrationsDoNotHideTheBackingStore() {
+		first.restore(Arrays.asList(registration("time", ArtifactType.source, "1.0")));
+		assertThat(first.find("time", ArtifactType.source), notNullValue());
+
+		ArtifactRegistry authoritative = CachingArtifactRegistry.authoritative(first);
+		assertThat(authoritative.find("time", ArtifactType.source), nullValue());
+		assertThat(authoritative.findAll(Arrays.asList(new ArtifactKey("time", ArtifactType.source))), empty());
+		assertThat(CachingArtifactRegistry.authoritative(redis), sameInstance((ArtifactRegistry) redis));
+	}
+
+	private ArtifactRegistration registration(String name, ArtifactType type, String version) {
+		return new ArtifactRegistration(name, type,
+				ArtifactCoordinates.parse(String.format("org.example:%s-%s:%s", name, type, version)));
+	}
+
+	/**
+	 * Stands in for a Redis server: holds registrations and publishes changes, as
+	 * {@link RedisArtifactRegistry} does, to subscribed listeners.
+	 */
+	private static class StandInRedis implements ArtifactRegistry {
+
+		private final ArtifactRegistry store = new InMemoryArtifactRegistry();
+
+		private final List<MessageListener> listeners = new ArrayList<>();
+
+		private int reads;
+
+		@Override
+		public ArtifactRegistration find(String name, ArtifactType type) {
+			reads++;
+			return store.find(name, type);
+		}
+
+		@Override
+		public List<ArtifactRegistration> findAll() {
+			reads++;
+			return store.findAll();
+		}
+
+		@Override
+		public List<ArtifactRegistration> findAll(Collection<ArtifactKey> keys) {
+			reads++;
+			return store.findAll(keys);
+		}
+
+		@Override
+		public void save(ArtifactRegistration registration) {
+			store.save(registration);
+			publish(ArtifactRegistryChangeListener.changeMessage(registration.getName(), registration.getType()));
+		}
+
+		@Override
+		public void saveAll(Collection<ArtifactRegistration> registrations) {
+			store.saveAll(registrations);
+			publish(ArtifactRegistryChangeListener.REFRESH_MESSAGE);
+		}
+
+		@Override
+		public void delete(String name, ArtifactType type) {
+			store.delete(name, type);
+			publish(ArtifactRegistryChangeListener.changeMessage(name, type));
+		}
+
+		private void publish(String body) {
+			DefaultMessage message = new DefaultMessage(
+					RedisArtifactRegistry.CHANGES_CHANNEL.getBytes(StandardCharsets.UTF_8),
+					body.getBytes(StandardCharsets.UTF_8));
+			for (MessageListener listener : listeners) {
+				listener.onMessage(message, null);
+			}
+		}
+	}
+
+}
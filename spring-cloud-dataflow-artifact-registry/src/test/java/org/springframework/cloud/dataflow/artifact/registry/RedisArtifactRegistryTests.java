@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.artifact.registry;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+
+/**
+ * Tests for the pipelined operations of {@link RedisArtifactRegistry}, that connect to an
+ * actual redis instance and are skipped when none is available.
+ */
+public class RedisArtifactRegistryTests {
+
+	private JedisConnectionFactory cf;
+
+	private RedisArtifactRegistry registry;
+
+	private String prefix;
+
+	private List<ArtifactRegistration> saved = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		cf = new JedisConnectionFactory();
+		cf.afterPropertiesSet();
+		try {
+			cf.getConnection().close();
+		}
+		catch (Exception e) {
+			Assume.assumeNoException(e);
+		}
+		registry = new RedisArtifactRegistry(cf);
+		prefix = "redis-test-" + Math.abs(new Random().nextLong()) + "-";
+	}
+
+	@After
+	public void tearDown() {
+		if (registry != null) {
+			for (ArtifactRegistration registration : saved) {
+				registry.delete(registration.getName(), registration.getType());
+			}
+		}
+		cf.destroy();
+	}
+
+	@Test
+	public void testSaveAllAndFindAll() {
+		ArtifactRegistration time = registration("time", ArtifactType.source, "1.0");
+		ArtifactRegistration transform = registration("transform", ArtifactType.processor, "1.0");
+		ArtifactRegistration log = registration("log", ArtifactType.sink, "1.0");
+		registry.saveAll(Arrays.asList(time, transform, log));
+
+		List<String> names = new ArrayList<>();
+		for (ArtifactRegistration registration : registry.findAll()) {
+			names.add(registration.getType() + ":" + registration.getName());
+		}
+		assertThat(names, hasItems("source:" + prefix + "time", "processor:" + prefix + "transform",
+				"sink:" + prefix + "log"));
+		assertThat(registry.find(prefix + "log", ArtifactType.sink).getCoordinates().getVersion(), is("1.0"));
+	}
+
+	@Test
+	public void testFindAllByKeysSkipsMissingRegistrations() {
+		registry.saveAll(Arrays.asList(registration("time", ArtifactType.source, "1.0"),
+				registration("log", ArtifactType.sink, "2.0")));
+
+		List<ArtifactRegistration> found = registry.findAll(Arrays.asList(
+				new ArtifactKey(prefix + "log", ArtifactType.sink),
+				new ArtifactKey(prefix + "missing", ArtifactType.source),
+				new ArtifactKey(prefix + "time", ArtifactType.sink),
+				new ArtifactKey(prefix + "time", ArtifactType.source)));
+
+		assertThat(found, hasSize(2));
+		assertThat(found.get(0).getName(), is(prefix + "log"));
+		assertThat(found.get(0).getCoordinates().getVersion(), is("2.0"));
+		assertThat(found.get(1).getName(), is(prefix + "time"));
+		assertThat(found.get(1).getType(), is(ArtifactType.source));
+	}
+
+	@Test
+	public void testSaveAllOverwritesExistingRegistrations() {
+		registry.save(registration("log", ArtifactType.sink, "1.0"));
+		registry.saveAll(Arrays.asList(registration("log", ArtifactType.sink, "2.0")));
+
+		assertThat(registry.find(prefix + "log", ArtifactType.sink).getCoordinates().getVersion(), is("2.0"));
+	}
+
+	private ArtifactRegistration registration(String name, ArtifactType type, String version) {
+		ArtifactRegistration registration = new ArtifactRegistration(prefix + name, type,
+				ArtifactCoordinates.parse("org.example:" + name + ":" + version));
+		saved.add(registration);
+		return registration;
+	}
+
+}
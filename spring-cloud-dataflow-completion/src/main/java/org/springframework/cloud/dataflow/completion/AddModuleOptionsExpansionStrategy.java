@@ -28,7 +28,6 @@ import org.springframework.cloud.dataflow.core.ModuleDefinition;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
 import org.springframework.cloud.stream.module.resolver.ModuleResolver;
 import org.springframework.core.io.Resource;
 
@@ -41,15 +40,15 @@ class AddModuleOptionsExpansionStrategy implements ExpansionStrategy {
 
 	private final ArtifactRegistry artifactRegistry;
 
-	private final ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+	private final ConfigurationPropertyIndexCache configurationPropertyIndexCache;
 
 	private final ModuleResolver moduleResolver;
 
 	public AddModuleOptionsExpansionStrategy(ArtifactRegistry artifactRegistry,
-			ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver,
+			ConfigurationPropertyIndexCache configurationPropertyIndexCache,
 			ModuleResolver moduleResolver) {
 		this.artifactRegistry = artifactRegistry;
-		this.moduleConfigurationMetadataResolver = moduleConfigurationMetadataResolver;
+		this.configurationPropertyIndexCache = configurationPropertyIndexCache;
 		this.moduleResolver = moduleResolver;
 	}
 
@@ -76,10 +75,9 @@ class AddModuleOptionsExpansionStrategy implements ExpansionStrategy {
 
 		CompletionProposal.Factory proposals = expanding(text);
 
-		for (ConfigurationMetadataProperty property : moduleConfigurationMetadataResolver.listProperties(jarFile)) {
-			if (!alreadyPresentOptions.contains(property.getId())) {
-				collector.add(proposals.withSeparateTokens("--" + property.getId() + "=", property.getShortDescription()));
-			}
+		for (ConfigurationMetadataProperty property : configurationPropertyIndexCache.indexFor(jarFile)
+				.search("", alreadyPresentOptions)) {
+			collector.add(proposals.withSeparateTokens("--" + property.getId() + "=", property.getShortDescription()));
 		}
 		return false;
 
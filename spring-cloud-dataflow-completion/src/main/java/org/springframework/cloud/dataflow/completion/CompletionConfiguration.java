@@ -19,7 +19,6 @@ package org.springframework.cloud.dataflow.completion;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
 import org.springframework.cloud.stream.module.resolver.ModuleResolver;
 import org.springframework.cloud.stream.module.resolver.ModuleResolverConfiguration;
 import org.springframework.context.annotation.Bean;
@@ -35,24 +34,47 @@ import org.springframework.context.annotation.Import;
 @Import(ModuleResolverConfiguration.class)
 public class CompletionConfiguration {
 
-	@Autowired
 	private ArtifactRegistry artifactRegistry;
 
-	@Autowired
-	private ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+	private ModuleResolver moduleResolver;
 
+	/*
+	 * Strategies are handed decorated collaborators, so that time spent in registry access
+	 * and module resolution is accounted for in the completion metrics.
+	 */
 	@Autowired
-	private ModuleResolver moduleResolver;
+	public void setArtifactRegistry(ArtifactRegistry artifactRegistry) {
+		this.artifactRegistry = new InstrumentedArtifactRegistry(artifactRegistry, completionMetrics());
+	}
 
+	@Autowired
+	public void setModuleResolver(ModuleResolver moduleResolver) {
+		this.moduleResolver = new InstrumentedModuleResolver(moduleResolver, completionMetrics());
+	}
 
 	@Bean
 	public StreamCompletionProvider streamCompletionProvider() {
 		return new StreamCompletionProvider();
 	}
 
+	@Bean
+	public CompletionMetrics completionMetrics() {
+		return new CompletionMetrics();
+	}
+
+	@Bean
+	public ModuleConfigurationMetadataReader moduleConfigurationMetadataReader() {
+		return new InstrumentedModuleConfigurationMetadataReader(completionMetrics());
+	}
+
+	@Bean
+	public ConfigurationPropertyIndexCache configurationPropertyIndexCache() {
+		return new ConfigurationPropertyIndexCache(moduleConfigurationMetadataReader());
+	}
+
 	@Bean
 	public ExpansionStrategy addModuleOptionsExpansionStrategy() {
-		return new AddModuleOptionsExpansionStrategy(artifactRegistry, moduleConfigurationMetadataResolver, moduleResolver);
+		return new AddModuleOptionsExpansionStrategy(artifactRegistry, configurationPropertyIndexCache(), moduleResolver);
 	}
 
 	@Bean
@@ -68,13 +90,13 @@ public class CompletionConfiguration {
 	@Bean
 	public RecoveryStrategy configurationPropertyNameAfterDashDashRecoveryStrategy() {
 		return new ConfigurationPropertyNameAfterDashDashRecoveryStrategy(artifactRegistry,
-				moduleResolver, moduleConfigurationMetadataResolver);
+				moduleResolver, configurationPropertyIndexCache());
 	}
 
 	@Bean
 	public RecoveryStrategy unfinishedConfigurationPropertyNameRecoveryStrategy() {
 		return new UnfinishedConfigurationPropertyNameRecoveryStrategy(artifactRegistry,
-				moduleResolver, moduleConfigurationMetadataResolver);
+				moduleResolver, configurationPropertyIndexCache());
 	}
 
 	@Bean
@@ -100,13 +122,13 @@ public class CompletionConfiguration {
 	@Bean
 	public RecoveryStrategy configurationPropertyValueHintRecoveryStrategy() {
 		return new ConfigurationPropertyValueHintRecoveryStrategy(artifactRegistry,
-				moduleResolver, moduleConfigurationMetadataResolver);
+				moduleResolver, moduleConfigurationMetadataReader());
 	}
 
 	@Bean
 	public ExpansionStrategy configurationPropertyValueHintExpansionStrategy() {
 		return new ConfigurationPropertyValueHintExpansionStrategy(artifactRegistry,
-				moduleResolver, moduleConfigurationMetadataResolver);
+				moduleResolver, moduleConfigurationMetadataReader());
 	}
 
 	@Bean
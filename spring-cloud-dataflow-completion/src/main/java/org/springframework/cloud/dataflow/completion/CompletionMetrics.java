@@ -0,0 +1,226 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records where time is spent while computing completions: for each recovery or expansion
+ * strategy, how many times it was considered, invoked, how many proposals it produced and
+ * how long it took; and, across strategies, the time spent in a few well known phases
+ * (see {@link Phase}).
+ *
+ * <p>On top of these cumulative statistics, the measurements made on the current thread
+ * between {@link #startTrace()} and {@link Trace#close()} are also collected in a
+ * {@link Trace}, so that the cost of an individual request can be reported.</p>
+ */
+public class CompletionMetrics {
+
+	/**
+	 * Well known activities that happen during completion, independently of the strategy
+	 * that triggers them.
+	 */
+	public enum Phase {
+
+		/**
+		 * Parsing of the DSL text typed so far.
+		 */
+		PARSING,
+
+		/**
+		 * Access to the {@link org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry}.
+		 */
+		REGISTRY,
+
+		/**
+		 * Resolution of module archives and extraction of their configuration metadata.
+		 */
+		RESOLUTION;
+
+		public String getName() {
+			return name().toLowerCase(Locale.ENGLISH);
+		}
+	}
+
+	private final ConcurrentMap<String, StrategyStatistics> strategies = new ConcurrentHashMap<>();
+
+	private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+
+	private final ThreadLocal<Trace> currentTrace = new ThreadLocal<>();
+
+	public CompletionMetrics() {
+		for (Phase phase : Phase.values()) {
+			phases.put(phase, new LatencyHistogram());
+		}
+	}
+
+	/**
+	 * Start collecting the measurements made on the current thread. If a trace is already
+	 * in progress (<i>e.g.</i> because completion is invoked recursively), it is joined.
+	 */
+	public Trace startTrace() {
+		Trace trace = currentTrace.get();
+		if (trace == null) {
+			trace = new Trace();
+			currentTrace.set(trace);
+		}
+		trace.depth++;
+		return trace;
+	}
+
+	/**
+	 * Record that a recovery strategy has been asked whether it should trigger.
+	 */
+	public void recordTriggerCheck(Object strategy) {
+		statisticsFor(nameOf(strategy)).triggerChecks.incrementAndGet();
+	}
+
+	/**
+	 * Record an invocation of a strategy, that took the given amount of time and added the given
+	 * number of proposals.
+	 */
+	public void recordInvocation(Object strategy, long nanos, int proposals) {
+		String name = nameOf(strategy);
+		StrategyStatistics statistics = statisticsFor(name);
+		statistics.proposals.addAndGet(proposals);
+		statistics.latency.record(nanos);
+		Trace trace = currentTrace.get();
+		if (trace != null) {
+			trace.add(name, nanos);
+		}
+	}
+
+	public void record(Phase phase, long nanos) {
+		phases.get(phase).record(nanos);
+		Trace trace = currentTrace.get();
+		if (trace != null) {
+			trace.add(phase.getName(), nanos);
+		}
+	}
+
+	/**
+	 * Return cumulative statistics for each strategy that has been seen so far, by name.
+	 */
+	public Map<String, StrategyStatistics> getStrategyStatistics() {
+		return Collections.unmodifiableMap(strategies);
+	}
+
+	public Map<Phase, LatencyHistogram> getPhaseStatistics() {
+		return Collections.unmodifiableMap(phases);
+	}
+
+	private StrategyStatistics statisticsFor(String name) {
+		StrategyStatistics statistics = strategies.get(name);
+		if (statistics == null) {
+			strategies.putIfAbsent(name, new StrategyStatistics());
+			statistics = strategies.get(name);
+		}
+		return statistics;
+	}
+
+	private static String nameOf(Object strategy) {
+		String simpleName = strategy.getClass().getSimpleName();
+		return simpleName.isEmpty() ? strategy.getClass().getName() : simpleName;
+	}
+
+	/**
+	 * Cumulative statistics about a single strategy.
+	 */
+	public static class StrategyStatistics {
+
+		private final AtomicLong triggerChecks = new AtomicLong();
+
+		private final AtomicLong proposals = new AtomicLong();
+
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		public long getTriggerChecks() {
+			return triggerChecks.get();
+		}
+
+		public long getInvocations() {
+			return latency.getCount();
+		}
+
+		public long getProposals() {
+			return proposals.get();
+		}
+
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+	}
+
+	/**
+	 * The time spent in each phase and each strategy for a single completion request.
+	 */
+	public class Trace implements AutoCloseable {
+
+		private final Map<String, long[]> timings = new LinkedHashMap<>();
+
+		private final long start = System.nanoTime();
+
+		private long elapsed = -1L;
+
+		private int depth;
+
+		private void add(String name, long nanos) {
+			long[] timing = timings.get(name);
+			if (timing == null) {
+				timing = new long[2];
+				timings.put(name, timing);
+			}
+			timing[0] += nanos;
+			timing[1]++;
+		}
+
+		/**
+		 * Return a one line summary of this trace, in the form
+		 * {@literal total=12.30ms, parsing=0.21ms(1), SomeStrategy=11.90ms(1), ...}.
+		 */
+		public String summary() {
+			long total = elapsed >= 0 ? elapsed : System.nanoTime() - start;
+			StringBuilder builder = new StringBuilder(String.format(Locale.ENGLISH, "total=%.2fms", total / 1e6d));
+			for (Map.Entry<String, long[]> entry : timings.entrySet()) {
+				builder.append(String.format(Locale.ENGLISH, ", %s=%.2fms(%d)", entry.getKey(),
+						entry.getValue()[0] / 1e6d, entry.getValue()[1]));
+			}
+			return builder.toString();
+		}
+
+		@Override
+		public void close() {
+			if (--depth == 0) {
+				elapsed = System.nanoTime() - start;
+				currentTrace.remove();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return summary();
+		}
+	}
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+
+/**
+ * A trigram index over the configuration properties of a single module, used to rank
+ * properties against a (partial, maybe misspelled) name typed by the user.
+ *
+ * <p>Candidates are gathered from the posting lists of the trigrams of the query, so
+ * that only properties sharing at least one trigram with it are ever scored. Matches are
+ * then ranked as follows:</p>
+ * <ol>
+ *     <li>properties whose id starts with the query,</li>
+ *     <li>properties whose id contains the query,</li>
+ *     <li>properties whose id is similar to the query (typos),</li>
+ *     <li>properties whose short description mentions the query.</li>
+ * </ol>
+ * Within each category, shorter ids (closer to what has been typed) come first.
+ */
+class ConfigurationPropertyIndex {
+
+	/**
+	 * Minimum Dice coefficient between the trigrams of the query and those of a property id
+	 * for the latter to be considered a fuzzy match.
+	 */
+	static final double MIN_ID_SIMILARITY = 0.4d;
+
+	/**
+	 * Minimum fraction of the query trigrams that must appear in a short description
+	 * for the property to be considered a match.
+	 */
+	static final double MIN_DESCRIPTION_CONTAINMENT = 0.8d;
+
+	private static final int N = 3;
+
+	private final List<ConfigurationMetadataProperty> properties;
+
+	private final List<String> normalizedIds;
+
+	private final List<Set<String>> idTrigrams;
+
+	private final List<Set<String>> descriptionTrigrams;
+
+	private final Map<String, BitSet> postings = new HashMap<>();
+
+	ConfigurationPropertyIndex(Collection<ConfigurationMetadataProperty> properties) {
+		this.properties = new ArrayList<>(properties);
+		this.normalizedIds = new ArrayList<>(this.properties.size());
+		this.idTrigrams = new ArrayList<>(this.properties.size());
+		this.descriptionTrigrams = new ArrayList<>(this.properties.size());
+		for (int i = 0; i < this.properties.size(); i++) {
+			ConfigurationMetadataProperty property = this.properties.get(i);
+			String id = normalize(property.getId());
+			normalizedIds.add(id);
+
+			Set<String> idGrams = trigrams(id);
+			idTrigrams.add(idGrams);
+			Set<String> descriptionGrams = trigrams(normalize(property.getShortDescription()));
+			descriptionTrigrams.add(descriptionGrams);
+
+			post(idGrams, i);
+			post(descriptionGrams, i);
+		}
+	}
+
+	/**
+	 * Return the properties that match the given query, best matches first. An empty query
+	 * matches all properties, in alphabetical order of their id.
+	 *
+	 * @param query the (partial) property name typed so far
+	 * @param excludedIds ids of properties that should not be returned (<i>e.g.</i> because
+	 * they are already present in the definition)
+	 * @return matching properties, ranked
+	 */
+	public List<ConfigurationMetadataProperty> search(String query, Set<String> excludedIds) {
+		String normalizedQuery = normalize(query);
+		Set<String> queryGrams = trigrams(normalizedQuery);
+
+		List<Match> matches = new ArrayList<>();
+		for (int i : candidates(queryGrams)) {
+			ConfigurationMetadataProperty property = properties.get(i);
+			if (excludedIds.contains(property.getId())) {
+				continue;
+			}
+			double score = score(i, normalizedQuery, queryGrams);
+			if (score > 0d) {
+				matches.add(new Match(property, score));
+			}
+		}
+		Collections.sort(matches, Match.BEST_FIRST);
+
+		List<ConfigurationMetadataProperty> result = new ArrayList<>(matches.size());
+		for (Match match : matches) {
+			result.add(match.property);
+		}
+		return result;
+	}
+
+	/**
+	 * Return the indices of properties worth scoring. Queries too short to yield a trigram
+	 * can only match as a prefix or a substring, and require a full scan.
+	 */
+	private List<Integer> candidates(Set<String> queryGrams) {
+		List<Integer> result = new ArrayList<>();
+		if (queryGrams.isEmpty()) {
+			for (int i = 0; i < properties.size(); i++) {
+				result.add(i);
+			}
+			return result;
+		}
+		BitSet union = new BitSet(properties.size());
+		for (String gram : queryGrams) {
+			BitSet posting = postings.get(gram);
+			if (posting != null) {
+				union.or(posting);
+			}
+		}
+		for (int i = union.nextSetBit(0); i >= 0; i = union.nextSetBit(i + 1)) {
+			result.add(i);
+		}
+		return result;
+	}
+
+	private double score(int i, String query, Set<String> queryGrams) {
+		String id = normalizedIds.get(i);
+		double lengthBonus = id.isEmpty() ? 0d : (double) query.length() / id.length();
+		if (id.startsWith(query)) {
+			return 3d + lengthBonus;
+		}
+		if (id.contains(query)) {
+			return 2d + lengthBonus;
+		}
+		if (queryGrams.isEmpty()) {
+			return 0d;
+		}
+		Set<String> grams = idTrigrams.get(i);
+		int shared = intersectionSize(queryGrams, grams);
+		double dice = 2d * shared / (queryGrams.size() + grams.size());
+		if (dice >= MIN_ID_SIMILARITY) {
+			return 1d + dice;
+		}
+		double containment = (double) intersectionSize(queryGrams, descriptionTrigrams.get(i)) / queryGrams.size();
+		if (containment >= MIN_DESCRIPTION_CONTAINMENT) {
+			return containment * 0.9d;
+		}
+		return 0d;
+	}
+
+	private void post(Set<String> grams, int i) {
+		for (String gram : grams) {
+			BitSet posting = postings.get(gram);
+			if (posting == null) {
+				posting = new BitSet();
+				postings.put(gram, posting);
+			}
+			posting.set(i);
+		}
+	}
+
+	private static int intersectionSize(Set<String> small, Set<String> large) {
+		int result = 0;
+		for (String gram : small) {
+			if (large.contains(gram)) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	private static String normalize(String text) {
+		return text == null ? "" : text.toLowerCase(Locale.ENGLISH);
+	}
+
+	static Set<String> trigrams(String text) {
+		Set<String> result = new LinkedHashSet<>();
+		for (int i = 0; i + N <= text.length(); i++) {
+			String gram = text.substring(i, i + N);
+			if (gram.indexOf(' ') == -1) {
+				result.add(gram);
+			}
+		}
+		return result;
+	}
+
+	private static class Match {
+
+		private static final Comparator<Match> BEST_FIRST = new Comparator<Match>() {
+			@Override
+			public int compare(Match o1, Match o2) {
+				int result = Double.compare(o2.score, o1.score);
+				return result != 0 ? result : o1.property.getId().compareTo(o2.property.getId());
+			}
+		};
+
+		private final ConfigurationMetadataProperty property;
+
+		private final double score;
+
+		private Match(ConfigurationMetadataProperty property, double score) {
+			this.property = property;
+			this.score = score;
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Holds one {@link ConfigurationPropertyIndex} per module archive, so that the (costly)
+ * extraction of configuration metadata and indexing only happen once per module rather
+ * than on every completion request. An index is rebuilt if the archive it was created
+ * from has been modified since.
+ *
+ * <p>Concurrent requests for the same archive share a single indexing, and only the most
+ * recently used indexes are kept, up to a maximum number.</p>
+ */
+class ConfigurationPropertyIndexCache {
+
+	static final int DEFAULT_MAX_SIZE = 64;
+
+	private final ModuleConfigurationMetadataReader moduleConfigurationMetadataReader;
+
+	private final Map<Resource, FutureTask<Entry>> entries;
+
+	ConfigurationPropertyIndexCache(ModuleConfigurationMetadataReader moduleConfigurationMetadataReader) {
+		this(moduleConfigurationMetadataReader, DEFAULT_MAX_SIZE);
+	}
+
+	ConfigurationPropertyIndexCache(ModuleConfigurationMetadataReader moduleConfigurationMetadataReader,
+			final int maxSize) {
+		this.moduleConfigurationMetadataReader = moduleConfigurationMetadataReader;
+		this.entries = new LinkedHashMap<Resource, FutureTask<Entry>>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Resource, FutureTask<Entry>> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Return the index of configuration properties for the given module archive.
+	 */
+	public ConfigurationPropertyIndex indexFor(final Resource moduleResource) {
+		final long lastModified = lastModified(moduleResource);
+		FutureTask<Entry> task;
+		boolean created = false;
+		synchronized (entries) {
+			task = entries.get(moduleResource);
+			if (task == null || (task.isDone() && getQuietly(task).lastModified != lastModified)) {
+				task = new FutureTask<>(new Callable<Entry>() {
+
+					@Override
+					public Entry call() {
+						return new Entry(new ConfigurationPropertyIndex(
+								moduleConfigurationMetadataReader.listProperties(moduleResource)), lastModified);
+					}
+				});
+				entries.put(moduleResource, task);
+				created = true;
+			}
+		}
+		if (created) {
+			task.run();
+		}
+		try {
+			return task.get().index;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while indexing " + moduleResource, e);
+		}
+		catch (ExecutionException e) {
+			synchronized (entries) {
+				if (entries.get(moduleResource) == task) {
+					entries.remove(moduleResource);
+				}
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Exception indexing " + moduleResource, e.getCause());
+		}
+	}
+
+	/**
+	 * Return the result of a completed indexing, or a stale entry if it failed.
+	 */
+	private static Entry getQuietly(FutureTask<Entry> task) {
+		try {
+			return task.get();
+		}
+		catch (InterruptedException | ExecutionException e) {
+			return new Entry(null, Long.MIN_VALUE);
+		}
+	}
+
+	private long lastModified(Resource resource) {
+		try {
+			return resource.lastModified();
+		}
+		catch (IOException e) {
+			return -1L;
+		}
+	}
+
+	private static class Entry {
+
+		private final ConfigurationPropertyIndex index;
+
+		private final long lastModified;
+
+		private Entry(ConfigurationPropertyIndex index, long lastModified) {
+			this.index = index;
+			this.lastModified = lastModified;
+		}
+	}
+
+}
@@ -29,7 +29,6 @@ import org.springframework.cloud.dataflow.core.StreamDefinition;
 import org.springframework.cloud.dataflow.core.dsl.CheckPointedParseException;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
 import org.springframework.cloud.stream.module.resolver.ModuleResolver;
 import org.springframework.core.io.Resource;
 
@@ -46,14 +45,14 @@ class ConfigurationPropertyNameAfterDashDashRecoveryStrategy
 
 	private final ModuleResolver moduleResolver;
 
-	private final ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+	private final ConfigurationPropertyIndexCache configurationPropertyIndexCache;
 
 	ConfigurationPropertyNameAfterDashDashRecoveryStrategy(ArtifactRegistry artifactRegistry,
-			ModuleResolver moduleResolver, ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver) {
+			ModuleResolver moduleResolver, ConfigurationPropertyIndexCache configurationPropertyIndexCache) {
 		super(CheckPointedParseException.class, "file --", "file | foo --");
 		this.artifactRegistry = artifactRegistry;
 		this.moduleResolver = moduleResolver;
-		this.moduleConfigurationMetadataResolver = moduleConfigurationMetadataResolver;
+		this.configurationPropertyIndexCache = configurationPropertyIndexCache;
 	}
 
 	@Override
@@ -83,10 +82,9 @@ class ConfigurationPropertyNameAfterDashDashRecoveryStrategy
 
 		CompletionProposal.Factory proposals = expanding(dsl);
 
-		for (ConfigurationMetadataProperty property : moduleConfigurationMetadataResolver.listProperties(jarFile)) {
-			if (!alreadyPresentOptions.contains(property.getId())) {
-				collector.add(proposals.withSuffix(property.getId() + "=", property.getShortDescription()));
-			}
+		for (ConfigurationMetadataProperty property : configurationPropertyIndexCache.indexFor(jarFile)
+				.search("", alreadyPresentOptions)) {
+			collector.add(proposals.withSuffix(property.getId() + "=", property.getShortDescription()));
 		}
 
 	}
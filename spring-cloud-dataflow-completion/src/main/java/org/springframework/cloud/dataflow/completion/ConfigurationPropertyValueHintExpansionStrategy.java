@@ -18,8 +18,6 @@ package org.springframework.cloud.dataflow.completion;
 
 import static org.springframework.cloud.dataflow.completion.CompletionProposal.*;
 
-import java.io.Closeable;
-import java.io.File;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
@@ -28,9 +26,6 @@ import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
 import org.springframework.boot.configurationmetadata.ValueHint;
-import org.springframework.boot.loader.archive.Archive;
-import org.springframework.boot.loader.archive.ExplodedArchive;
-import org.springframework.boot.loader.archive.JarFileArchive;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
 import org.springframework.cloud.dataflow.core.ArtifactType;
@@ -39,7 +34,6 @@ import org.springframework.cloud.dataflow.core.StreamDefinition;
 import org.springframework.cloud.dataflow.core.dsl.CheckPointedParseException;
 import org.springframework.cloud.dataflow.core.dsl.Token;
 import org.springframework.cloud.dataflow.core.dsl.TokenKind;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
 import org.springframework.cloud.stream.module.resolver.ModuleResolver;
 import org.springframework.core.io.Resource;
 
@@ -55,17 +49,17 @@ public class ConfigurationPropertyValueHintExpansionStrategy implements Expansio
 
 	private final ModuleResolver moduleResolver;
 
-	private final ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+	private final ModuleConfigurationMetadataReader moduleConfigurationMetadataReader;
 
 	@Autowired
 	private ValueHintProvider[] valueHintProviders = new ValueHintProvider[0];
 
 	ConfigurationPropertyValueHintExpansionStrategy(ArtifactRegistry artifactRegistry,
 			ModuleResolver moduleResolver,
-			ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver) {
+			ModuleConfigurationMetadataReader moduleConfigurationMetadataReader) {
 		this.artifactRegistry = artifactRegistry;
 		this.moduleResolver = moduleResolver;
-		this.moduleConfigurationMetadataResolver = moduleConfigurationMetadataResolver;
+		this.moduleConfigurationMetadataReader = moduleConfigurationMetadataReader;
 	}
 
 	@Override
@@ -101,16 +95,11 @@ public class ConfigurationPropertyValueHintExpansionStrategy implements Expansio
 
 		CompletionProposal.Factory proposals = expanding(text);
 
-		for (ConfigurationMetadataProperty property : moduleConfigurationMetadataResolver
+		for (ConfigurationMetadataProperty property : moduleConfigurationMetadataReader
 				.listProperties(moduleResource)) {
 			if (property.getId().equals(propertyName)) {
-				ClassLoader classLoader = null;
+				LazyModuleClassLoader classLoader = new LazyModuleClassLoader(moduleResource);
 				try {
-
-					File file = moduleResource.getFile();
-					Archive jarFileArchive = file.isDirectory() ? new ExplodedArchive(file) : new JarFileArchive(file);
-					classLoader = new ClassLoaderExposingJarLauncher(jarFileArchive).createClassLoader();
-
 					for (ValueHintProvider valueHintProvider : valueHintProviders) {
 						List<ValueHint> valueHints = valueHintProvider.generateValueHints(property, classLoader);
 						if (!valueHints.isEmpty() && valueHintProvider.isExclusive(property)) {
@@ -132,13 +121,11 @@ public class ConfigurationPropertyValueHintExpansionStrategy implements Expansio
 					throw new RuntimeException(e);
 				}
 				finally {
-					if (classLoader instanceof Closeable) {
-						try {
-							((Closeable) classLoader).close();
-						}
-						catch (IOException e) {
-							// ignore
-						}
+					try {
+						classLoader.close();
+					}
+					catch (IOException e) {
+						// ignore
 					}
 				}
 			}
@@ -18,17 +18,12 @@ package org.springframework.cloud.dataflow.completion;
 
 import static org.springframework.cloud.dataflow.completion.CompletionProposal.*;
 
-import java.io.Closeable;
-import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
 import org.springframework.boot.configurationmetadata.ValueHint;
-import org.springframework.boot.loader.archive.Archive;
-import org.springframework.boot.loader.archive.ExplodedArchive;
-import org.springframework.boot.loader.archive.JarFileArchive;
 import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.core.ModuleDefinition;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
@@ -37,7 +32,6 @@ import org.springframework.cloud.dataflow.core.dsl.Token;
 import org.springframework.cloud.dataflow.core.dsl.TokenKind;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
 import org.springframework.cloud.stream.module.resolver.ModuleResolver;
 import org.springframework.core.io.Resource;
 
@@ -52,16 +46,16 @@ public class ConfigurationPropertyValueHintRecoveryStrategy extends StacktraceFi
 
 	private final ModuleResolver moduleResolver;
 
-	private final ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+	private final ModuleConfigurationMetadataReader moduleConfigurationMetadataReader;
 
 	@Autowired
 	private ValueHintProvider[] valueHintProviders = new ValueHintProvider[0];
 
-	ConfigurationPropertyValueHintRecoveryStrategy(ArtifactRegistry artifactRegistry, ModuleResolver moduleResolver, ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver) {
+	ConfigurationPropertyValueHintRecoveryStrategy(ArtifactRegistry artifactRegistry, ModuleResolver moduleResolver, ModuleConfigurationMetadataReader moduleConfigurationMetadataReader) {
 		super(CheckPointedParseException.class, "foo --bar=", "foo | wizz --bar=");
 		this.artifactRegistry = artifactRegistry;
 		this.moduleResolver = moduleResolver;
-		this.moduleConfigurationMetadataResolver = moduleConfigurationMetadataResolver;
+		this.moduleConfigurationMetadataReader = moduleConfigurationMetadataReader;
 	}
 
 	@Override
@@ -79,15 +73,10 @@ public class ConfigurationPropertyValueHintRecoveryStrategy extends StacktraceFi
 
 		CompletionProposal.Factory proposals = expanding(dsl);
 
-		for (ConfigurationMetadataProperty property : moduleConfigurationMetadataResolver.listProperties(moduleResource)) {
+		for (ConfigurationMetadataProperty property : moduleConfigurationMetadataReader.listProperties(moduleResource)) {
 			if (property.getId().equals(propertyName)) {
-				ClassLoader classLoader = null;
+				LazyModuleClassLoader classLoader = new LazyModuleClassLoader(moduleResource);
 				try {
-
-					File moduleFile = moduleResource.getFile();
-					Archive jarFileArchive = moduleFile.isDirectory() ? new ExplodedArchive(moduleFile) : new JarFileArchive(moduleFile);
-					classLoader = new ClassLoaderExposingJarLauncher(jarFileArchive).createClassLoader();
-
 					for (ValueHintProvider valueHintProvider : valueHintProviders) {
 						for (ValueHint valueHint : valueHintProvider.generateValueHints(property, classLoader)) {
 							collector.add(proposals.withSuffix(String.valueOf(valueHint.getValue()), valueHint.getShortDescription()));
@@ -97,13 +86,11 @@ public class ConfigurationPropertyValueHintRecoveryStrategy extends StacktraceFi
 				catch (Exception e) {
 					throw new RuntimeException(e);
 				} finally {
-					if (classLoader instanceof Closeable) {
-						try {
-							((Closeable)classLoader).close();
-						}
-						catch (IOException e) {
-							// ignore
-						}
+					try {
+						classLoader.close();
+					}
+					catch (IOException e) {
+						// ignore
 					}
 				}
 			}
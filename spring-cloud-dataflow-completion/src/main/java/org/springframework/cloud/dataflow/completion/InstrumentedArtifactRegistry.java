@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactKey;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
+import org.springframework.cloud.dataflow.core.ArtifactType;
+
+/**
+ * An {@link ArtifactRegistry} decorator that records the time spent in lookups as the
+ * {@link CompletionMetrics.Phase#REGISTRY} phase.
+ */
+class InstrumentedArtifactRegistry implements ArtifactRegistry {
+
+	private final ArtifactRegistry delegate;
+
+	private final CompletionMetrics completionMetrics;
+
+	InstrumentedArtifactRegistry(ArtifactRegistry delegate, CompletionMetrics completionMetrics) {
+		this.delegate = delegate;
+		this.completionMetrics = completionMetrics;
+	}
+
+	@Override
+	public ArtifactRegistration find(String name, ArtifactType type) {
+		long start = System.nanoTime();
+		try {
+			return delegate.find(name, type);
+		}
+		finally {
+			completionMetrics.record(CompletionMetrics.Phase.REGISTRY, System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public List<ArtifactRegistration> findAll() {
+		long start = System.nanoTime();
+		try {
+			return delegate.findAll();
+		}
+		finally {
+			completionMetrics.record(CompletionMetrics.Phase.REGISTRY, System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public List<ArtifactRegistration> findAll(Collection<ArtifactKey> keys) {
+		long start = System.nanoTime();
+		try {
+			return delegate.findAll(keys);
+		}
+		finally {
+			completionMetrics.record(CompletionMetrics.Phase.REGISTRY, System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void save(ArtifactRegistration registration) {
+		delegate.save(registration);
+	}
+
+	@Override
+	public void saveAll(Collection<ArtifactRegistration> registrations) {
+		delegate.saveAll(registrations);
+	}
+
+	@Override
+	public void delete(String name, ArtifactType type) {
+		delegate.delete(name, type);
+	}
+
+}
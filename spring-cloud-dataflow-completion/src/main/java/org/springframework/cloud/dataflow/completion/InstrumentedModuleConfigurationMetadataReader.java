@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.util.List;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.core.io.Resource;
+
+/**
+ * A {@link ModuleConfigurationMetadataReader} that records the time spent reading metadata
+ * as the {@link CompletionMetrics.Phase#RESOLUTION} phase.
+ */
+class InstrumentedModuleConfigurationMetadataReader extends ModuleConfigurationMetadataReader {
+
+	private final CompletionMetrics completionMetrics;
+
+	InstrumentedModuleConfigurationMetadataReader(CompletionMetrics completionMetrics) {
+		this.completionMetrics = completionMetrics;
+	}
+
+	@Override
+	public List<ConfigurationMetadataProperty> listProperties(Resource module) {
+		long start = System.nanoTime();
+		try {
+			return super.listProperties(module);
+		}
+		finally {
+			completionMetrics.record(CompletionMetrics.Phase.RESOLUTION, System.nanoTime() - start);
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import org.springframework.cloud.stream.module.resolver.Coordinates;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+import org.springframework.core.io.Resource;
+
+/**
+ * A {@link ModuleResolver} decorator that records the time spent resolving module archives
+ * as the {@link CompletionMetrics.Phase#RESOLUTION} phase.
+ */
+class InstrumentedModuleResolver implements ModuleResolver {
+
+	private final ModuleResolver delegate;
+
+	private final CompletionMetrics completionMetrics;
+
+	InstrumentedModuleResolver(ModuleResolver delegate, CompletionMetrics completionMetrics) {
+		this.delegate = delegate;
+		this.completionMetrics = completionMetrics;
+	}
+
+	@Override
+	public Resource resolve(Coordinates coordinates) {
+		long start = System.nanoTime();
+		try {
+			return delegate.resolve(coordinates);
+		}
+		finally {
+			completionMetrics.record(CompletionMetrics.Phase.RESOLUTION, System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public Resource[] resolve(Coordinates root, Coordinates[] includes, String[] excludePatterns) {
+		long start = System.nanoTime();
+		try {
+			return delegate.resolve(root, includes, excludePatterns);
+		}
+		finally {
+			completionMetrics.record(CompletionMetrics.Phase.RESOLUTION, System.nanoTime() - start);
+		}
+	}
+
+}
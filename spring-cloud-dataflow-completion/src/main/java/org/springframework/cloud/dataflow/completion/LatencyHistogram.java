@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies, using fixed, roughly exponential buckets.
+ *
+ * @see CompletionMetrics
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Inclusive upper bounds of the buckets, in milliseconds. An additional, last bucket
+	 * holds all the values greater than the last bound.
+	 */
+	public static final long[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong totalNanos = new AtomicLong();
+
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public void record(long nanos) {
+		long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+		int bucket = 0;
+		while (bucket < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[bucket]) {
+			bucket++;
+		}
+		buckets.incrementAndGet(bucket);
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Return the number of recorded values that fell in the given bucket, which is an index
+	 * into {@link #BUCKET_BOUNDS_MILLIS} (or its length, for the overflow bucket).
+	 */
+	public long getBucketCount(int bucket) {
+		return buckets.get(bucket);
+	}
+
+	public double getTotalMillis() {
+		return totalNanos.get() / 1e6d;
+	}
+
+	public double getMeanMillis() {
+		long n = count.get();
+		return n == 0 ? 0d : getTotalMillis() / n;
+	}
+
+	public double getMaxMillis() {
+		return maxNanos.get() / 1e6d;
+	}
+
+}
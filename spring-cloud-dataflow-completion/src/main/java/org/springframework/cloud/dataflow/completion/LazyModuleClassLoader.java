@@ -0,0 +1,249 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.loader.archive.Archive;
+import org.springframework.boot.loader.archive.ExplodedArchive;
+import org.springframework.boot.loader.archive.JarFileArchive;
+import org.springframework.core.io.Resource;
+
+/**
+ * A {@link ClassLoader} for the enum types of a module, which are the only module classes
+ * that {@link ValueHintProvider}s need. Whether a class is an enum is found out by reading
+ * its class file header directly from the module archive (see {@link MappedZipArchive}),
+ * and the actual module class loader (over all the nested archives of the module) is only
+ * created the first time an enum is requested. Other module classes, and resources, are
+ * never served.
+ *
+ * <p>The module archive and its nested archives are mapped once, on the first lookup, and
+ * shared by all further lookups until this class loader is {@link #close() closed}.</p>
+ */
+class LazyModuleClassLoader extends ClassLoader implements Closeable {
+
+	private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+
+	private static final int ACC_ENUM = 0x4000;
+
+	private static final String NESTED_ARCHIVES_PREFIX = "lib/";
+
+	private static final String NESTED_ARCHIVES_SUFFIX = ".jar";
+
+	private final Resource moduleResource;
+
+	private final Map<String, Boolean> enums = new ConcurrentHashMap<>();
+
+	private ClassLoader delegate;
+
+	/**
+	 * The mapped module archive, if not exploded, followed by its nested archives.
+	 */
+	private List<MappedZipArchive> archives;
+
+	LazyModuleClassLoader(Resource moduleResource) {
+		super(null);
+		this.moduleResource = moduleResource;
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		if (name.startsWith("java.")) {
+			// Bootstrap class loader, as this has no parent
+			return super.loadClass(name, resolve);
+		}
+		if (!isEnum(name)) {
+			throw new ClassNotFoundException(name + " is not an enum of " + moduleResource);
+		}
+		return getDelegate().loadClass(name);
+	}
+
+	@Override
+	public URL getResource(String name) {
+		return null;
+	}
+
+	@Override
+	public Enumeration<URL> getResources(String name) throws IOException {
+		return Collections.emptyEnumeration();
+	}
+
+	/**
+	 * Whether the module class loader has actually been created.
+	 */
+	synchronized boolean isInitialized() {
+		return delegate != null;
+	}
+
+	private synchronized ClassLoader getDelegate() {
+		if (delegate == null) {
+			try {
+				File file = moduleResource.getFile();
+				Archive archive = file.isDirectory() ? new ExplodedArchive(file) : new JarFileArchive(file);
+				delegate = new ClassLoaderExposingJarLauncher(archive).createClassLoader();
+			}
+			catch (Exception e) {
+				throw new IllegalStateException("Exception creating class loader for " + moduleResource, e);
+			}
+		}
+		return delegate;
+	}
+
+	private boolean isEnum(String className) {
+		Boolean result = enums.get(className);
+		if (result == null) {
+			String path = className.replace('.', '/') + ".class";
+			try {
+				File file = moduleResource.getFile();
+				File classFile = new File(file, path);
+				if (file.isDirectory() && classFile.isFile()) {
+					try (InputStream inputStream = new FileInputStream(classFile)) {
+						result = isEnum(inputStream);
+					}
+				}
+				else {
+					result = isEnumInArchives(file, path);
+				}
+			}
+			catch (IOException e) {
+				throw new IllegalStateException("Exception reading " + path + " from " + moduleResource, e);
+			}
+			enums.put(className, result);
+		}
+		return result;
+	}
+
+	private synchronized boolean isEnumInArchives(File file, String path) throws IOException {
+		for (MappedZipArchive archive : getArchives(file)) {
+			for (MappedZipArchive.Entry entry : archive.getEntries()) {
+				if (entry.getName().equals(path)) {
+					try (InputStream inputStream = archive.getInputStream(entry)) {
+						return isEnum(inputStream);
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Map the module archive and its nested archives, the first time only. Nested archives
+	 * that are compressed, which Spring Boot does not do, are not looked into.
+	 */
+	private List<MappedZipArchive> getArchives(File file) throws IOException {
+		if (archives == null) {
+			List<MappedZipArchive> result = new ArrayList<>();
+			if (file.isDirectory()) {
+				File[] nestedArchives = new File(file, NESTED_ARCHIVES_PREFIX).listFiles();
+				if (nestedArchives != null) {
+					for (File nested : nestedArchives) {
+						if (nested.isFile() && nested.getName().endsWith(NESTED_ARCHIVES_SUFFIX)) {
+							result.add(MappedZipArchive.map(nested));
+						}
+					}
+				}
+			}
+			else {
+				MappedZipArchive archive = MappedZipArchive.map(file);
+				result.add(archive);
+				for (MappedZipArchive.Entry entry : archive.getEntries()) {
+					String name = entry.getName();
+					if (name.startsWith(NESTED_ARCHIVES_PREFIX) && name.endsWith(NESTED_ARCHIVES_SUFFIX)) {
+						MappedZipArchive nested = archive.getNestedArchive(entry);
+						if (nested != null) {
+							result.add(nested);
+						}
+					}
+				}
+			}
+			archives = result;
+		}
+		return archives;
+	}
+
+	/**
+	 * Read the access flags of a class file, which come right after its constant pool.
+	 */
+	private static boolean isEnum(InputStream classFile) throws IOException {
+		DataInputStream input = new DataInputStream(classFile);
+		if (input.readInt() != CLASS_FILE_MAGIC) {
+			return false;
+		}
+		input.readUnsignedShort(); // minor version
+		input.readUnsignedShort(); // major version
+		int constantPoolCount = input.readUnsignedShort();
+		for (int i = 1; i < constantPoolCount; i++) {
+			int tag = input.readUnsignedByte();
+			switch (tag) {
+				case 1: // Utf8
+					input.skipBytes(input.readUnsignedShort());
+					break;
+				case 7: // Class
+				case 8: // String
+				case 16: // MethodType
+					input.skipBytes(2);
+					break;
+				case 15: // MethodHandle
+					input.skipBytes(3);
+					break;
+				case 3: // Integer
+				case 4: // Float
+				case 9: // Fieldref
+				case 10: // Methodref
+				case 11: // InterfaceMethodref
+				case 12: // NameAndType
+				case 18: // InvokeDynamic
+					input.skipBytes(4);
+					break;
+				case 5: // Long
+				case 6: // Double
+					input.skipBytes(8);
+					i++;
+					break;
+				default:
+					throw new IOException("Unknown constant pool tag " + tag);
+			}
+		}
+		return (input.readUnsignedShort() & ACC_ENUM) != 0;
+	}
+
+	/**
+	 * Close the module class loader, if created, and let go of the mapped archives, which
+	 * are unmapped once garbage collected.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (delegate instanceof Closeable) {
+			((Closeable) delegate).close();
+		}
+		delegate = null;
+		archives = null;
+	}
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A minimal, read-only view of a zip (jar) archive held in a {@link ByteBuffer}, typically
+ * obtained by memory-mapping a file.
+ *
+ * <p>Only the central directory is parsed, and entry contents are never copied: a
+ * {@link java.util.zip.ZipEntry#STORED stored} entry (such as the nested jars of a Spring Boot
+ * executable archive) can be exposed as a {@link MappedZipArchive} of its own, sharing the
+ * same underlying buffer.</p>
+ */
+class MappedZipArchive {
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+	private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+
+	private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+
+	private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+
+	private static final int LOCAL_FILE_HEADER_SIZE = 30;
+
+	private static final int STORED = 0;
+
+	private static final int DEFLATED = 8;
+
+	private final ByteBuffer buffer;
+
+	private final List<Entry> entries;
+
+	MappedZipArchive(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		this.entries = readCentralDirectory();
+	}
+
+	/**
+	 * Memory-map the given file and return a view of it as a zip archive.
+	 */
+	public static MappedZipArchive map(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+			FileChannel channel = raf.getChannel()) {
+			// The mapping stays valid after the channel has been closed
+			return new MappedZipArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Return a stream over the (uncompressed) contents of the given entry.
+	 */
+	public InputStream getInputStream(Entry entry) throws IOException {
+		InputStream raw = new ByteBufferInputStream(rawContents(entry));
+		switch (entry.method) {
+			case STORED:
+				return raw;
+			case DEFLATED:
+				// An extra dummy byte is required by the inflater when using the nowrap option
+				return new InflaterInputStream(new SequenceInputStream(raw, new ByteArrayInputStream(new byte[1])),
+						new Inflater(true));
+			default:
+				throw new ZipException("Unsupported compression method " + entry.method + " for " + entry.getName());
+		}
+	}
+
+	/**
+	 * Return the given entry, which must be stored uncompressed, as a zip archive of its own.
+	 * Return {@code null} if the entry is compressed, in which case it can only be read
+	 * through {@link #getInputStream(Entry)}.
+	 */
+	public MappedZipArchive getNestedArchive(Entry entry) throws IOException {
+		return entry.method == STORED ? new MappedZipArchive(rawContents(entry)) : null;
+	}
+
+	private ByteBuffer rawContents(Entry entry) throws IOException {
+		int header = entry.localHeaderOffset;
+		if (buffer.getInt(header) != LOCAL_FILE_HEADER_SIGNATURE) {
+			throw new ZipException("Invalid local header for " + entry.getName());
+		}
+		int start = header + LOCAL_FILE_HEADER_SIZE + unsignedShort(header + 26) + unsignedShort(header + 28);
+		return slice(start, entry.compressedSize);
+	}
+
+	private List<Entry> readCentralDirectory() throws IOException {
+		int eocd = findEndOfCentralDirectory();
+		int count = unsignedShort(eocd + 10);
+		int offset = buffer.getInt(eocd + 16);
+		if (offset < 0 || count == 0xFFFF) {
+			throw new ZipException("Zip64 archives are not supported");
+		}
+		List<Entry> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			if (buffer.getInt(offset) != CENTRAL_DIRECTORY_SIGNATURE) {
+				throw new ZipException("Invalid central directory header at offset " + offset);
+			}
+			int nameLength = unsignedShort(offset + 28);
+			byte[] name = new byte[nameLength];
+			ByteBuffer nameBuffer = slice(offset + CENTRAL_DIRECTORY_HEADER_SIZE, nameLength);
+			nameBuffer.get(name);
+			result.add(new Entry(new String(name, "UTF-8"), unsignedShort(offset + 10),
+					buffer.getInt(offset + 20), buffer.getInt(offset + 42)));
+			offset += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + unsignedShort(offset + 30)
+					+ unsignedShort(offset + 32);
+		}
+		return result;
+	}
+
+	private int findEndOfCentralDirectory() throws IOException {
+		int lowest = Math.max(0, buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE - 0xFFFF);
+		for (int i = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; i >= lowest; i--) {
+			if (buffer.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+				return i;
+			}
+		}
+		throw new ZipException("Not a zip archive: no end of central directory record");
+	}
+
+	private ByteBuffer slice(int start, int length) {
+		ByteBuffer duplicate = buffer.duplicate();
+		duplicate.position(start);
+		duplicate.limit(start + length);
+		return duplicate.slice();
+	}
+
+	private int unsignedShort(int index) {
+		return buffer.getShort(index) & 0xFFFF;
+	}
+
+	/**
+	 * An entry of the central directory.
+	 */
+	static class Entry {
+
+		private final String name;
+
+		private final int method;
+
+		private final int compressedSize;
+
+		private final int localHeaderOffset;
+
+		private Entry(String name, int method, int compressedSize, int localHeaderOffset) {
+			this.name = name;
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.localHeaderOffset = localHeaderOffset;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * Exposes the remaining bytes of a {@link ByteBuffer} as an {@link InputStream}.
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			int count = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+
+}
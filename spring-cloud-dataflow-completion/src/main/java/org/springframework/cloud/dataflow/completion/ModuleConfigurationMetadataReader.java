@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.core.io.Resource;
+
+/**
+ * Lists the configuration properties exposed by a module, reading the
+ * {@literal META-INF/spring-configuration-metadata.json} files of the module archive and of
+ * its nested library jars directly, <em>without</em> creating a class loader for the module.
+ *
+ * <p>Module archives are memory-mapped, and nested jars (which Spring Boot stores
+ * uncompressed) are read in place, so that only the metadata files themselves are ever
+ * inflated. Both executable jars and their exploded (directory) form are supported.</p>
+ *
+ * @see LazyModuleClassLoader
+ */
+public class ModuleConfigurationMetadataReader {
+
+	static final String CONFIGURATION_METADATA_PATH = "META-INF/spring-configuration-metadata.json";
+
+	private static final String NESTED_ARCHIVES_PREFIX = "lib/";
+
+	private static final String NESTED_ARCHIVES_SUFFIX = ".jar";
+
+	/**
+	 * Return the configuration properties of the given module archive.
+	 */
+	public List<ConfigurationMetadataProperty> listProperties(Resource module) {
+		ConfigurationMetadataRepositoryJsonBuilder builder = ConfigurationMetadataRepositoryJsonBuilder.create();
+		try {
+			File file = module.getFile();
+			if (file.isDirectory()) {
+				readDirectory(file, builder);
+			}
+			else {
+				readArchive(MappedZipArchive.map(file), builder, true);
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Exception reading configuration metadata from " + module, e);
+		}
+		return new ArrayList<>(builder.build().getAllProperties().values());
+	}
+
+	private void readDirectory(File directory, ConfigurationMetadataRepositoryJsonBuilder builder) throws IOException {
+		File metadata = new File(directory, CONFIGURATION_METADATA_PATH);
+		if (metadata.isFile()) {
+			try (InputStream inputStream = new FileInputStream(metadata)) {
+				builder.withJsonResource(inputStream);
+			}
+		}
+		File[] nestedArchives = new File(directory, NESTED_ARCHIVES_PREFIX).listFiles();
+		if (nestedArchives != null) {
+			for (File nested : nestedArchives) {
+				if (nested.isFile() && nested.getName().endsWith(NESTED_ARCHIVES_SUFFIX)) {
+					readArchive(MappedZipArchive.map(nested), builder, false);
+				}
+			}
+		}
+	}
+
+	private void readArchive(MappedZipArchive archive, ConfigurationMetadataRepositoryJsonBuilder builder,
+			boolean lookIntoNestedArchives) throws IOException {
+		for (MappedZipArchive.Entry entry : archive.getEntries()) {
+			String name = entry.getName();
+			if (name.equals(CONFIGURATION_METADATA_PATH)) {
+				try (InputStream inputStream = archive.getInputStream(entry)) {
+					builder.withJsonResource(inputStream);
+				}
+			}
+			else if (lookIntoNestedArchives && name.startsWith(NESTED_ARCHIVES_PREFIX)
+					&& name.endsWith(NESTED_ARCHIVES_SUFFIX)) {
+				MappedZipArchive nested = archive.getNestedArchive(entry);
+				if (nested != null) {
+					readArchive(nested, builder, false);
+				}
+				else {
+					readCompressedArchive(archive.getInputStream(entry), builder);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fallback for nested jars that have been compressed (which Spring Boot does not do),
+	 * where the only option is to scan the entries sequentially.
+	 */
+	private void readCompressedArchive(InputStream inputStream, ConfigurationMetadataRepositoryJsonBuilder builder)
+			throws IOException {
+		try (ZipInputStream zipInputStream = new ZipInputStream(inputStream)) {
+			for (ZipEntry entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry()) {
+				if (entry.getName().equals(CONFIGURATION_METADATA_PATH)) {
+					builder.withJsonResource(zipInputStream);
+					return;
+				}
+			}
+		}
+	}
+
+}
@@ -21,6 +21,7 @@ import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
+import org.springframework.util.Assert;
 
 /**
  * Provides code completion on a (maybe ill-formed) stream definition.
@@ -35,31 +36,68 @@ public class StreamCompletionProvider {
 	@Autowired
 	private List<? extends ExpansionStrategy> completionExpansionStrategies = new ArrayList<>();
 
+	@Autowired
+	private CompletionMetrics completionMetrics = new CompletionMetrics();
+
+	/**
+	 * Return all the proposals that apply to the given (maybe ill-formed) DSL text.
+	 */
+	public List<CompletionProposal> complete(String dslStart, int detailLevel) {
+		return complete(dslStart, detailLevel, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Same as {@link #complete(String, int)}, but only return the first {@code limit}
+	 * proposals, in the order the strategies added them. Proposals are not ranked across
+	 * strategies: only the option name strategies rank theirs (best first, see
+	 * {@link ConfigurationPropertyIndex}), so when several strategies apply, the proposals of
+	 * the strategies consulted first are kept over the ones of the others.
+	 */
+	public List<CompletionProposal> complete(String dslStart, int detailLevel, int limit) {
+		Assert.isTrue(limit > 0, "limit must be strictly positive");
+		try (CompletionMetrics.Trace trace = completionMetrics.startTrace()) {
+			List<CompletionProposal> collector = collect(dslStart, detailLevel);
+			return collector.size() > limit ? new ArrayList<>(collector.subList(0, limit)) : collector;
+		}
+	}
+
 	/*
 	 * Attempt to parse the text the user has already typed in. This either succeeds,
 	 * in which case we may propose to expand what she has typed, or it fails
 	 * (most likely because this is not well formed), in which case we try to
 	 * recover from the parsing failure and still add proposals.
 	 */
-	public List<CompletionProposal> complete(String dslStart, int detailLevel) {
+	private List<CompletionProposal> collect(String dslStart, int detailLevel) {
 		List<CompletionProposal> collector = new ArrayList<>();
 
 		StreamDefinition parsed;
+		long start = System.nanoTime();
 		try {
 			parsed = new StreamDefinition("__dummy", dslStart);
 		}
 		catch (Exception recoverable) {
+			completionMetrics.record(CompletionMetrics.Phase.PARSING, System.nanoTime() - start);
 			for (RecoveryStrategy<Exception> strategy : completionRecoveryStrategies) {
+				completionMetrics.recordTriggerCheck(strategy);
 				if (strategy.shouldTrigger(dslStart, recoverable)) {
+					int before = collector.size();
+					start = System.nanoTime();
 					strategy.addProposals(dslStart, recoverable, detailLevel, collector);
+					completionMetrics.recordInvocation(strategy, System.nanoTime() - start,
+							Math.max(0, collector.size() - before));
 				}
 			}
 
 			return collector;
 		}
+		completionMetrics.record(CompletionMetrics.Phase.PARSING, System.nanoTime() - start);
 
 		for (ExpansionStrategy strategy : completionExpansionStrategies) {
+			int before = collector.size();
+			start = System.nanoTime();
 			strategy.addProposals(dslStart, parsed, detailLevel, collector);
+			completionMetrics.recordInvocation(strategy, System.nanoTime() - start,
+					Math.max(0, collector.size() - before));
 		}
 		return collector;
 	}
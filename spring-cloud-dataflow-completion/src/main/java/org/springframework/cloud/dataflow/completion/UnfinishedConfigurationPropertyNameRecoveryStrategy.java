@@ -31,13 +31,14 @@ import org.springframework.cloud.dataflow.core.dsl.Token;
 import org.springframework.cloud.dataflow.core.dsl.TokenKind;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
 import org.springframework.cloud.stream.module.resolver.ModuleResolver;
 import org.springframework.core.io.Resource;
 
 /**
  * Provides completions for the case where the user has started to type a
  * module configuration property name but it is not typed in full yet.
+ * Candidate properties are ranked, and include properties whose name merely
+ * contains, or resembles, what has been typed so far.
  *
  * @author Eric Bottard
  */
@@ -48,14 +49,14 @@ public class UnfinishedConfigurationPropertyNameRecoveryStrategy
 
 	private final ModuleResolver moduleResolver;
 
-	private final ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+	private final ConfigurationPropertyIndexCache configurationPropertyIndexCache;
 
 	UnfinishedConfigurationPropertyNameRecoveryStrategy(ArtifactRegistry artifactRegistry,
-			ModuleResolver moduleResolver, ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver) {
+			ModuleResolver moduleResolver, ConfigurationPropertyIndexCache configurationPropertyIndexCache) {
 		super(CheckPointedParseException.class, "file --foo", "file | bar --quick");
 		this.artifactRegistry = artifactRegistry;
 		this.moduleResolver = moduleResolver;
-		this.moduleConfigurationMetadataResolver = moduleConfigurationMetadataResolver;
+		this.configurationPropertyIndexCache = configurationPropertyIndexCache;
 	}
 
 	@Override
@@ -103,11 +104,10 @@ public class UnfinishedConfigurationPropertyNameRecoveryStrategy
 
 		CompletionProposal.Factory proposals = expanding(safe);
 
-		for (ConfigurationMetadataProperty property : moduleConfigurationMetadataResolver.listProperties(jarFile)) {
-			if (!alreadyPresentOptions.contains(property.getId()) && property.getId().startsWith(prefix)) {
-				collector.add(proposals.withSeparateTokens("--" + property.getId()
-						+ "=", property.getShortDescription()));
-			}
+		for (ConfigurationMetadataProperty property : configurationPropertyIndexCache.indexFor(jarFile)
+				.search(prefix, alreadyPresentOptions)) {
+			collector.add(proposals.withSeparateTokens("--" + property.getId()
+					+ "=", property.getShortDescription()));
 		}
 	}
 }
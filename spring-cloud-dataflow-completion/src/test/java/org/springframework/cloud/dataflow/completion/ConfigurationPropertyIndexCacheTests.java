@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Tests for {@link ConfigurationPropertyIndexCache}.
+ */
+public class ConfigurationPropertyIndexCacheTests {
+
+	private final AtomicInteger reads = new AtomicInteger();
+
+	private final ModuleConfigurationMetadataReader reader = new ModuleConfigurationMetadataReader() {
+
+		@Override
+		public List<ConfigurationMetadataProperty> listProperties(Resource module) {
+			reads.incrementAndGet();
+			try {
+				Thread.sleep(50);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return Collections.emptyList();
+		}
+	};
+
+	@Test
+	public void testConcurrentRequestsShareIndexing() throws Exception {
+		final ConfigurationPropertyIndexCache cache = new ConfigurationPropertyIndexCache(reader);
+		final Resource module = new ByteArrayResource(new byte[0]);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Callable<ConfigurationPropertyIndex> indexing = new Callable<ConfigurationPropertyIndex>() {
+
+				@Override
+				public ConfigurationPropertyIndex call() {
+					return cache.indexFor(module);
+				}
+			};
+			Future<ConfigurationPropertyIndex> first = executor.submit(indexing);
+			for (int i = 0; i < 3; i++) {
+				assertThat(executor.submit(indexing).get(), sameInstance(first.get()));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(reads.get(), is(1));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIndexesAreEvicted() {
+		ConfigurationPropertyIndexCache cache = new ConfigurationPropertyIndexCache(reader, 2);
+		Resource first = new ByteArrayResource(new byte[] {1});
+		Resource second = new ByteArrayResource(new byte[] {2});
+		Resource third = new ByteArrayResource(new byte[] {3});
+		cache.indexFor(first);
+		cache.indexFor(second);
+		cache.indexFor(first);
+		cache.indexFor(third);
+		assertThat(reads.get(), is(3));
+		cache.indexFor(first);
+		assertThat(reads.get(), is(3));
+		cache.indexFor(second);
+		assertThat(reads.get(), is(4));
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * Tests for {@link ModuleConfigurationMetadataReader}.
+ */
+public class ModuleConfigurationMetadataReaderTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ModuleConfigurationMetadataReader reader = new ModuleConfigurationMetadataReader();
+
+	@Test
+	public void testExplodedModule() {
+		File module = new File("src/test/resources", getClass().getPackage().getName().replace('.', '/')
+				+ "/modules/http-source");
+		assertThat(ids(reader.listProperties(new FileSystemResource(module))), containsInAnyOrder("port", "use.ssl"));
+	}
+
+	@Test
+	public void testExecutableJarWithStoredAndCompressedNestedJars() throws IOException {
+		byte[] stored = jar(ZipEntry.DEFLATED, entry(ModuleConfigurationMetadataReader.CONFIGURATION_METADATA_PATH,
+				metadata("stored.property")));
+		byte[] compressed = jar(ZipEntry.DEFLATED, entry(ModuleConfigurationMetadataReader.CONFIGURATION_METADATA_PATH,
+				metadata("compressed.property")));
+		byte[] noMetadata = jar(ZipEntry.DEFLATED, entry("foo/Bar.class", new byte[] {1, 2, 3}));
+
+		File module = folder.newFile("module.jar");
+		try (FileOutputStream out = new FileOutputStream(module)) {
+			ZipOutputStream zip = new ZipOutputStream(out);
+			write(zip, ZipEntry.DEFLATED, ModuleConfigurationMetadataReader.CONFIGURATION_METADATA_PATH,
+					metadata("root.property"));
+			write(zip, ZipEntry.STORED, "lib/stored.jar", stored);
+			write(zip, ZipEntry.DEFLATED, "lib/compressed.jar", compressed);
+			write(zip, ZipEntry.STORED, "lib/no-metadata.jar", noMetadata);
+			write(zip, ZipEntry.STORED, "other/ignored.jar", stored);
+			zip.close();
+		}
+
+		assertThat(ids(reader.listProperties(new FileSystemResource(module))),
+				containsInAnyOrder("root.property", "stored.property", "compressed.property"));
+	}
+
+	private List<String> ids(List<ConfigurationMetadataProperty> properties) {
+		List<String> result = new ArrayList<>();
+		for (ConfigurationMetadataProperty property : properties) {
+			result.add(property.getId());
+		}
+		return result;
+	}
+
+	private byte[] metadata(String propertyName) {
+		return String.format("{\"properties\": [{\"name\": \"%s\", \"type\": \"java.lang.String\"}]}",
+				propertyName).getBytes();
+	}
+
+	private Object[] entry(String name, byte[] contents) {
+		return new Object[] {name, contents};
+	}
+
+	private byte[] jar(int method, Object[]... entries) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ZipOutputStream zip = new ZipOutputStream(out);
+		for (Object[] entry : entries) {
+			write(zip, method, (String) entry[0], (byte[]) entry[1]);
+		}
+		zip.close();
+		return out.toByteArray();
+	}
+
+	private void write(ZipOutputStream zip, int method, String name, byte[] contents) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(method);
+		if (method == ZipEntry.STORED) {
+			CRC32 crc = new CRC32();
+			crc.update(contents);
+			entry.setSize(contents.length);
+			entry.setCompressedSize(contents.length);
+			entry.setCrc(crc.getValue());
+		}
+		zip.putNextEntry(entry);
+		zip.write(contents);
+		zip.closeEntry();
+	}
+
+}
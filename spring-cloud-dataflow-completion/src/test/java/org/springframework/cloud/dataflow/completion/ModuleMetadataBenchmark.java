@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.InputStream;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataRepositoryJsonBuilder;
+import org.springframework.boot.loader.archive.Archive;
+import org.springframework.boot.loader.archive.ExplodedArchive;
+import org.springframework.boot.loader.archive.JarFileArchive;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * Compares the latency and memory cost of listing module configuration properties through
+ * a module class loader (as done before {@link ModuleConfigurationMetadataReader}) and with
+ * {@link ModuleConfigurationMetadataReader}. Not run as part of the build: run its main
+ * method with {@code classloader} or {@code reader} followed by the module archives (exec
+ * jars or exploded directories) to measure, each approach in a fresh JVM for the memory
+ * figures to be meaningful, e.g.
+ * {@code ModuleMetadataBenchmark classloader log-sink.jar time-source.jar}.
+ */
+public class ModuleMetadataBenchmark {
+
+	private static final int ITERATIONS = 20;
+
+	public static void main(String[] args) throws Exception {
+		boolean classLoader = args.length > 0 && args[0].equals("classloader");
+		List<File> modules = new ArrayList<>();
+		for (int i = 1; i < args.length; i++) {
+			modules.add(new File(args[i]));
+		}
+		if (modules.isEmpty()) {
+			File[] exploded = new File("src/test/resources",
+					ModuleMetadataBenchmark.class.getPackage().getName().replace('.', '/') + "/modules").listFiles();
+			for (File module : exploded) {
+				modules.add(module);
+			}
+		}
+
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+		// Warm up the code paths shared by both approaches
+		read(modules.get(0), classLoader);
+		System.gc();
+		long heapBefore = memory.getHeapMemoryUsage().getUsed();
+		long metaspaceBefore = metaspaceUsed();
+		long classesBefore = classLoading.getLoadedClassCount();
+		long start = System.nanoTime();
+		List<Object> retained = new ArrayList<>();
+		for (int i = 0; i < ITERATIONS; i++) {
+			for (File module : modules) {
+				retained.add(read(module, classLoader));
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		System.gc();
+		System.out.printf("%s: %.1f ms per module, heap %+d KB, metaspace %+d KB, %+d classes loaded%n",
+				classLoader ? "class loader" : "metadata reader",
+				elapsed / 1e6 / (ITERATIONS * modules.size()),
+				(memory.getHeapMemoryUsage().getUsed() - heapBefore) / 1024,
+				(metaspaceUsed() - metaspaceBefore) / 1024,
+				classLoading.getLoadedClassCount() - classesBefore);
+		System.out.println(retained.size() + " modules read");
+	}
+
+	/**
+	 * Return what the completion providers keep of the module, to account for its memory.
+	 */
+	private static Object read(File module, boolean classLoader) throws Exception {
+		if (!classLoader) {
+			return new ModuleConfigurationMetadataReader().listProperties(new FileSystemResource(module));
+		}
+		Archive archive = module.isDirectory() ? new ExplodedArchive(module) : new JarFileArchive(module);
+		ClassLoader loader = new ClassLoaderExposingJarLauncher(archive).createClassLoader();
+		ConfigurationMetadataRepositoryJsonBuilder builder = ConfigurationMetadataRepositoryJsonBuilder.create();
+		Enumeration<URL> resources = loader.getResources(ModuleConfigurationMetadataReader.CONFIGURATION_METADATA_PATH);
+		while (resources.hasMoreElements()) {
+			try (InputStream inputStream = resources.nextElement().openStream()) {
+				builder.withJsonResource(inputStream);
+			}
+		}
+		if (loader instanceof Closeable) {
+			((Closeable) loader).close();
+		}
+		return new ArrayList<>(builder.build().getAllProperties().values());
+	}
+
+	private static long metaspaceUsed() {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getName().equals("Metaspace")) {
+				return pool.getUsage().getUsed();
+			}
+		}
+		return 0L;
+	}
+
+}
@@ -21,8 +21,8 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.FileFilter;
-import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -32,13 +32,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.loader.LaunchedURLClassLoader;
-import org.springframework.boot.loader.archive.Archive;
 import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactKey;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
 import org.springframework.cloud.stream.module.resolver.Coordinates;
 import org.springframework.cloud.stream.module.resolver.ModuleResolver;
 import org.springframework.context.annotation.Bean;
@@ -54,9 +52,8 @@ import org.springframework.util.Assert;
 /**
  * Integration tests for StreamCompletionProvider.
  *
- * <p>These tests work hand in hand with custom ModuleResolver, ModuleRegistry and
- * ModuleConfigurationMetadataResolver to provide completions for a fictional
- * set of well known modules.</p>
+ * <p>These tests work hand in hand with custom ModuleResolver and ModuleRegistry
+ * to provide completions for a fictional set of well known modules.</p>
  *
  * @author Eric Bottard
  */
@@ -67,6 +64,9 @@ public class StreamCompletionProviderTests {
 	@Autowired
 	private StreamCompletionProvider completionProvider;
 
+	@Autowired
+	private CompletionMetrics completionMetrics;
+
 	@Test
 	// <TAB> => file,http,etc
 	public void testEmptyStartShouldProposeSourceModules() {
@@ -157,6 +157,38 @@ public class StreamCompletionProviderTests {
 		));
 	}
 
+	@Test
+	// http | filter --expresion<TAB> => http | filter --expression= first, then http | filter --expresso=
+	public void testMisspelledOptionNameShouldCompleteRanked() {
+		List<CompletionProposal> proposals = completionProvider.complete("http | filter --expresion", 1);
+		assertThat(proposals, contains(
+				proposalThat(is("http | filter --expression=")),
+				proposalThat(is("http | filter --expresso="))
+		));
+	}
+
+	@Test
+	// http --ssl<TAB> => http --use.ssl=
+	// http --encryption<TAB> => http --use.ssl= (matches description)
+	public void testOptionNameSubstringOrDescriptionShouldComplete() {
+		assertThat(completionProvider.complete("http --ssl", 1), contains(
+				proposalThat(is("http --use.ssl="))
+		));
+		assertThat(completionProvider.complete("http --encryption", 1), contains(
+				proposalThat(is("http --use.ssl="))
+		));
+	}
+
+	@Test
+	public void testLimitRetainsBestProposals() {
+		assertThat(completionProvider.complete("http | filter --", 1, 1), contains(
+				proposalThat(is("http | filter --expression="))
+		));
+		assertThat(completionProvider.complete("http | filter --expresion", 1, 1), contains(
+				proposalThat(is("http | filter --expression="))
+		));
+	}
+
 	@Test
 	// file | counter --name=foo --inputType=bar<TAB> => we're done
 	public void testSinkWithAllOptionsSetCantGoFurther() {
@@ -242,6 +274,24 @@ public class StreamCompletionProviderTests {
 
 	}
 
+	@Test
+	public void testTimingsAreRecordedPerStrategyAndPhase() {
+		long parsings = completionMetrics.getPhaseStatistics().get(CompletionMetrics.Phase.PARSING).getCount();
+		String summary;
+		try (CompletionMetrics.Trace trace = completionMetrics.startTrace()) {
+			completionProvider.complete("http --use.ssl=", 1);
+			summary = trace.summary();
+		}
+		assertThat(summary, allOf(startsWith("total="), containsString("parsing="),
+				containsString("ConfigurationPropertyValueHintRecoveryStrategy=")));
+		assertThat(completionMetrics.getPhaseStatistics().get(CompletionMetrics.Phase.PARSING).getCount(),
+				greaterThan(parsings));
+		CompletionMetrics.StrategyStatistics statistics = completionMetrics.getStrategyStatistics()
+				.get("ConfigurationPropertyValueHintRecoveryStrategy");
+		assertThat(statistics.getInvocations(), greaterThan(0L));
+		assertThat(statistics.getTriggerChecks(), greaterThanOrEqualTo(statistics.getInvocations()));
+	}
+
 
 	private static org.hamcrest.Matcher<CompletionProposal> proposalThat(org.hamcrest.Matcher<String> matcher) {
 		return new FeatureMatcher<CompletionProposal, String>(matcher, "a proposal whose text", "text") {
@@ -295,11 +345,28 @@ public class StreamCompletionProviderTests {
 					return result;
 				}
 
+				@Override
+				public List<ArtifactRegistration> findAll(Collection<ArtifactKey> keys) {
+					List<ArtifactRegistration> result = new ArrayList<>();
+					for (ArtifactKey key : keys) {
+						ArtifactRegistration registration = find(key.getName(), key.getType());
+						if (registration != null) {
+							result.add(registration);
+						}
+					}
+					return result;
+				}
+
 				@Override
 				public void save(ArtifactRegistration registration) {
 					throw new UnsupportedOperationException();
 				}
 
+				@Override
+				public void saveAll(Collection<ArtifactRegistration> registrations) {
+					throw new UnsupportedOperationException();
+				}
+
 				@Override
 				public void delete(String name, ArtifactType type) {
 					throw new UnsupportedOperationException();
@@ -331,23 +398,6 @@ public class StreamCompletionProviderTests {
 			};
 		}
 
-		@Bean
-		public ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver() {
-			return new ModuleConfigurationMetadataResolver() {
-				// Narrow ClassLoader visibility for tests
-				@Override
-				protected ClassLoader createClassLoader(Archive archive) throws Exception {
-					ClassLoaderExposingJarLauncher moduleJarLauncher = new ClassLoaderExposingJarLauncher(archive) {
-						@Override
-						protected ClassLoader createClassLoader(URL[] urls) throws Exception {
-							return new LaunchedURLClassLoader(urls, null);
-						}
-					};
-					return moduleJarLauncher.createClassLoader();
-				}
-			};
-		}
-
 	}
 
 }
@@ -38,6 +38,8 @@ public class BindingProperties {
 
 	public static final String INSTANCE_COUNT = ROOT_PREFIX + "instanceCount";
 
+	public static final String INSTANCE_INDEX = ROOT_PREFIX + "instanceIndex";
+
 	public static final String BINDING_KEY_PREFIX = ROOT_PREFIX + "bindings.";
 
 	public static final String INPUT_BINDING_KEY_PREFIX = BINDING_KEY_PREFIX + "input.";
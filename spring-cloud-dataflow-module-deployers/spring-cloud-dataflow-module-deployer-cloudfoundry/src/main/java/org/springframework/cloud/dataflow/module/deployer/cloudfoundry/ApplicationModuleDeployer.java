@@ -25,11 +25,22 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cloudfoundry.client.lib.CloudCredentials;
 import org.cloudfoundry.client.lib.CloudFoundryClient;
 import org.cloudfoundry.client.lib.CloudFoundryException;
 import org.cloudfoundry.client.lib.UploadStatusCallback;
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
 import org.cloudfoundry.client.lib.domain.CloudApplication;
 import org.cloudfoundry.client.lib.domain.InstanceInfo;
 import org.cloudfoundry.client.lib.domain.InstanceStats;
@@ -41,17 +52,33 @@ import org.yaml.snakeyaml.Yaml;
 
 import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
 import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
+import org.springframework.cloud.dataflow.module.ModuleInstanceStatus;
 import org.springframework.cloud.dataflow.module.ModuleStatus;
 import org.springframework.cloud.dataflow.module.deployer.ModuleArgumentQualifier;
+import org.springframework.cloud.dataflow.module.deployer.BatchingModuleDeployer;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
 import org.springframework.core.io.Resource;
 
 /**
  * A {@link ModuleDeployer} which deploys modules as applications running in a space in CloudFoundry.
  *
+ * <p>When computing the status of modules, the instances information and statistics of
+ * applications are fetched concurrently, using a bounded number of threads, and the
+ * result is cached for a short while.</p>
+ *
+ * <p>The module launcher is copied and hashed once, and then reused for every module, so
+ * that uploads only send the files the cloud controller does not already know of.</p>
+ *
+ * <p>Deployments are asynchronous: up to a configured number of modules are deployed at
+ * the same time, and the time taken by each step is recorded in
+ * {@link DeployStepStatistics}. A module whose deployment failed is reported as
+ * {@link ModuleStatus.State#failed failed} until it is deployed again or un-deployed.
+ * The modules given to {@link #deployAll(List)} are rolled back together: if any of them
+ * fails to deploy, the applications of all of them are deleted.</p>
+ *
  * @author Eric Bottard
  */
-class ApplicationModuleDeployer implements ModuleDeployer {
+class ApplicationModuleDeployer implements BatchingModuleDeployer {
 
 	public static final String MARKER_ENVIRONMENT_VAR_NAME = "SPRING_CLOUD_DATAFLOW_MODULE";
 
@@ -61,7 +88,61 @@ class ApplicationModuleDeployer implements ModuleDeployer {
 
 	private final CloudFoundryModuleDeployerProperties properties;
 
+	private final ExecutorService statusExecutor;
+
+	private final ExecutorService deployExecutor;
+
+	private final ExecutorService stepExecutor = Executors.newCachedThreadPool(daemonThreads("cloudfoundry-deploy-step-"));
+
+	private final ConcurrentMap<ModuleDeploymentId, Future<Void>> pendingDeployments = new ConcurrentHashMap<>();
+
+	/**
+	 * Status of the modules whose last deployment failed, or was rolled back.
+	 */
+	private final ConcurrentMap<ModuleDeploymentId, ModuleStatus> failedDeployments = new ConcurrentHashMap<>();
+
+	private DeployStepStatistics deployStepStatistics = new DeployStepStatistics();
+
+	private final ConcurrentMap<ModuleDeploymentId, CachedStatus> statusCache = new ConcurrentHashMap<>();
+
+	private LauncherArchive launcherArchive;
+
 	public ApplicationModuleDeployer(CloudFoundryModuleDeployerProperties properties) {
+		this(properties, login(properties));
+	}
+
+	ApplicationModuleDeployer(CloudFoundryModuleDeployerProperties properties, CloudFoundryClient cloudFoundryClient) {
+		this.properties = properties;
+		this.cloudFoundryClient = cloudFoundryClient;
+		this.statusExecutor = Executors.newFixedThreadPool(properties.getStatusConcurrency(),
+				daemonThreads("cloudfoundry-status-"));
+		this.deployExecutor = Executors.newFixedThreadPool(properties.getDeployConcurrency(),
+				daemonThreads("cloudfoundry-deploy-"));
+	}
+
+	private static ThreadFactory daemonThreads(final String prefix) {
+		return new ThreadFactory() {
+
+			private final AtomicInteger threadCount = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	public void setDeployStepStatistics(DeployStepStatistics deployStepStatistics) {
+		this.deployStepStatistics = deployStepStatistics;
+	}
+
+	public DeployStepStatistics getDeployStepStatistics() {
+		return deployStepStatistics;
+	}
+
+	private static CloudFoundryClient login(CloudFoundryModuleDeployerProperties properties) {
 		CloudCredentials credentials = new CloudCredentials(properties.getUsername(), properties.getPassword());
 		CloudFoundryClient cloudFoundryClient = new CloudFoundryClient(credentials,
 				properties.getApiEndpoint(),
@@ -69,92 +150,170 @@ class ApplicationModuleDeployer implements ModuleDeployer {
 				properties.getSpace(),
 				properties.isSkipSslValidation());
 		cloudFoundryClient.login();
-
-		this.properties = properties;
-		this.cloudFoundryClient = cloudFoundryClient;
+		return cloudFoundryClient;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>This returns as soon as the deployment is scheduled. Once the application is created,
+	 * setting its environment, uploading the launcher and scaling it run concurrently, and
+	 * the application is started when they all succeeded. If any step fails, the application
+	 * is deleted.</p>
+	 */
 	@Override
 	public ModuleDeploymentId deploy(ModuleDeploymentRequest request) {
+		return schedule(request, new Undoer(stepExecutor));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Each module is deployed as if by {@link #deploy(ModuleDeploymentRequest)}, but if
+	 * any of them fails, the applications created for all of them are deleted (in parallel),
+	 * and the deployments still in progress are abandoned.</p>
+	 */
+	@Override
+	public List<ModuleDeploymentId> deployAll(List<ModuleDeploymentRequest> requests) {
+		Undoer undoer = new Undoer(stepExecutor);
+		List<ModuleDeploymentId> ids = new ArrayList<>(requests.size());
+		try {
+			for (ModuleDeploymentRequest request : requests) {
+				ids.add(schedule(request, undoer));
+			}
+		}
+		catch (RuntimeException e) {
+			// Have the modules already scheduled roll back
+			undoer.undo();
+			throw e;
+		}
+		return ids;
+	}
+
+	/**
+	 * Schedule the deployment of the given module, whose steps are attempted through the
+	 * given {@link Undoer}, which may be shared with the deployments of other modules.
+	 */
+	private ModuleDeploymentId schedule(ModuleDeploymentRequest request, final Undoer undoer) {
 
 		final ModuleDeploymentId moduleDeploymentId = ModuleDeploymentId.fromModuleDefinition(request.getDefinition());
+		this.statusCache.remove(moduleDeploymentId);
 
 		final String appName = this.deduceAppName(moduleDeploymentId);
 
 		final CloudFoundryClient cloudFoundryClient = this.cloudFoundryClient;
 		final Logger logger = this.logger;
 
-		Undoer undoer = new Undoer();
+		final Staging staging = this.getStagingSettings();
+		final int disk = 1024;
+		final int memory = 1024;
+		final List<String> uris = this.deduceUris(appName);
+		final List<String> serviceNames = new ArrayList<>(this.properties.getServices());
+		final Map<String, String> env = createModuleLauncherEnvironment(request);
+		final int instances = request.getCount();
 
-		{
-			final Staging staging = this.getStagingSettings();
-			final int disk = 1024;
-			final int memory = 1024;
-			final List<String> uris = this.deduceUris(appName);
-			final List<String> serviceNames = new ArrayList<>(this.properties.getServices());
+		Runnable pipeline = new Runnable() {
 
-			undoer.attempt(new Runnable() {
-				@Override
-				public void run() {
-					logger.debug("Creating app {} using disk[{}], mem[{}]\n\tservices={}, uris={}\n\t{}", appName, disk, memory, serviceNames, uris, staging);
-					cloudFoundryClient.createApplication(appName, staging, disk, memory, uris, serviceNames);
-				}
-			}).andUndoBy(new Runnable() {
-				@Override
-				public void run() {
-					logger.error("Rollback: deleting app {}", appName);
-					cloudFoundryClient.deleteApplication(appName);
-				}
-			});
-		}
+			@Override
+			public void run() {
+				try {
+					undoer.attempt(timed("create", new Callable<Void>() {
+						@Override
+						public Void call() {
+							logger.debug("Creating app {} using disk[{}], mem[{}]\n\tservices={}, uris={}\n\t{}", appName, disk, memory, serviceNames, uris, staging);
+							cloudFoundryClient.createApplication(appName, staging, disk, memory, uris, serviceNames);
+							return null;
+						}
+					})).andUndoBy(new Runnable() {
+						@Override
+						public void run() {
+							logger.error("Rollback: deleting app {}", appName);
+							failedDeployments.put(moduleDeploymentId, failedStatus(moduleDeploymentId, "rolled back"));
+							statusCache.remove(moduleDeploymentId);
+							try {
+								timed("rollback", new Callable<Void>() {
+									@Override
+									public Void call() {
+										cloudFoundryClient.deleteApplication(appName);
+										return null;
+									}
+								}).call();
+							}
+							catch (Exception e) {
+								throw new IllegalStateException(e);
+							}
+						}
+					});
 
-		{
-			final Map<String, String> env = createModuleLauncherEnvironment(request);
+					// These only depend on the application existing
+					final List<Future<Void>> steps = new ArrayList<>();
+					steps.add(stepExecutor.submit(timed("env", new Callable<Void>() {
+						@Override
+						public Void call() {
+							logger.trace("Setting env for app {} as {}", appName, env);
+							cloudFoundryClient.updateApplicationEnv(appName, env);
+							return null;
+						}
+					})));
+					steps.add(stepExecutor.submit(timed("upload", new Callable<Void>() {
+						@Override
+						public Void call() throws IOException {
+							LauncherArchive archive = getLauncherArchive();
+							try {
+								logger.trace("Uploading launcher {} for app {}", archive.getChecksum(), appName);
+								cloudFoundryClient.uploadApplication(appName, archive, new LoggingUploadStatusCallback(appName));
+							}
+							finally {
+								archive.release();
+							}
+							return null;
+						}
+					})));
+					if (instances > 1) { // spare a network call if instances == 1
+						steps.add(stepExecutor.submit(timed("instances", new Callable<Void>() {
+							@Override
+							public Void call() {
+								logger.trace("Setting number of instances for {} to {}", appName, instances);
+								cloudFoundryClient.updateApplicationInstances(appName, instances);
+								return null;
+							}
+						})));
+					}
+					undoer.attempt(new Callable<Void>() {
+						@Override
+						public Void call() {
+							awaitAll(steps);
+							return null;
+						}
+					}).withNoParticularUndo();
 
-			undoer.attempt(new Runnable() {
-				@Override
-				public void run() {
-					logger.trace("Setting env for app {} as {}", appName, env);
-					cloudFoundryClient.updateApplicationEnv(appName, env);
+					undoer.attempt(timed("start", new Callable<Void>() {
+						@Override
+						public Void call() {
+							logger.debug("Starting application {}", appName);
+							cloudFoundryClient.startApplication(appName);
+							return null;
+						}
+					})).withNoParticularUndo();
 				}
-			}).withNoParticularUndo();
-		}
-
-		{
-			final Resource launcher = ApplicationModuleDeployer.this.properties.getModuleLauncherLocation();
-
-			undoer.attempt(new Callable<Void>() {
-				@Override
-				public Void call() throws IOException {
-					cloudFoundryClient.uploadApplication(appName, launcher.getFilename(), launcher.getInputStream(), new LoggingUploadStatusCallback(appName));
-					return null;
+				catch (RuntimeException e) {
+					logger.error(String.format("Deployment of app %s failed and has been rolled back", appName), e);
+					failedDeployments.put(moduleDeploymentId, failedStatus(moduleDeploymentId, String.valueOf(e.getMessage())));
+					statusCache.remove(moduleDeploymentId);
 				}
-			}).withNoParticularUndo();
-		}
+			}
+		};
 
-		{
-			final int instances = request.getCount();
+		FutureTask<Void> deployment = new FutureTask<Void>(pipeline, null) {
 
-			if (instances > 1) { // spare a network call if instances == 1
-				undoer.attempt(new Runnable() {
-					@Override
-					public void run() {
-						logger.trace("Setting number of instances for {} to {}", appName, instances);
-						cloudFoundryClient.updateApplicationInstances(appName, instances);
-					}
-				}).withNoParticularUndo();
+			@Override
+			protected void done() {
+				pendingDeployments.remove(moduleDeploymentId, this);
 			}
+		};
+		if (this.pendingDeployments.putIfAbsent(moduleDeploymentId, deployment) != null) {
+			throw new IllegalStateException(String.format("Module %s is already being deployed", moduleDeploymentId));
 		}
-
-		{
-			undoer.attempt(new Runnable() {
-				@Override
-				public void run() {
-					ApplicationModuleDeployer.this.logger.debug("Starting application {}", appName);
-					cloudFoundryClient.startApplication(appName);
-				}
-			}).withNoParticularUndo();
-		}
+		this.failedDeployments.remove(moduleDeploymentId);
+		this.deployExecutor.execute(deployment);
 
 		return moduleDeploymentId;
 	}
@@ -162,6 +321,8 @@ class ApplicationModuleDeployer implements ModuleDeployer {
 	@Override
 	public Map<ModuleDeploymentId, ModuleStatus> status() {
 		Map<ModuleDeploymentId, ModuleStatus> result = new HashMap<>();
+		// All the requests for the applications that are not cached are sent before waiting for any of them
+		Map<ModuleDeploymentId, StatusRequest> requests = new HashMap<>();
 		for (CloudApplication cloudApplication : this.cloudFoundryClient.getApplications()) {
 			String moduleMarker = cloudApplication.getEnvAsMap().get(MARKER_ENVIRONMENT_VAR_NAME);
 			if (moduleMarker != null) {
@@ -169,8 +330,22 @@ class ApplicationModuleDeployer implements ModuleDeployer {
 				String group = moduleMarker.substring(0, colon);
 				String label = moduleMarker.substring(colon + 1);
 				ModuleDeploymentId id = new ModuleDeploymentId(group, label);
-				ModuleStatus status = buildModuleStatus(id, cloudApplication);
-				result.put(id, status);
+				ModuleStatus status = cachedStatus(id);
+				if (status != null) {
+					result.put(id, status);
+				}
+				else {
+					requests.put(id, new StatusRequest(id, cloudApplication));
+				}
+			}
+		}
+		for (Map.Entry<ModuleDeploymentId, StatusRequest> entry : requests.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().getStatus());
+		}
+		// Failed deployments have had their application deleted
+		for (Map.Entry<ModuleDeploymentId, ModuleStatus> entry : this.failedDeployments.entrySet()) {
+			if (!result.containsKey(entry.getKey())) {
+				result.put(entry.getKey(), entry.getValue());
 			}
 		}
 		return result;
@@ -178,18 +353,39 @@ class ApplicationModuleDeployer implements ModuleDeployer {
 
 	@Override
 	public ModuleStatus status(ModuleDeploymentId moduleId) {
+		ModuleStatus status = cachedStatus(moduleId);
+		if (status != null) {
+			return status;
+		}
 		String appName = this.deduceAppName(moduleId);
 		try {
 			CloudApplication cloudApplication = this.cloudFoundryClient.getApplication(appName);
-			return buildModuleStatus(moduleId, cloudApplication);
+			return new StatusRequest(moduleId, cloudApplication).getStatus();
 		}
 		catch (CloudFoundryException e) {
-			return buildModuleStatus(moduleId, null);
+			ModuleStatus failed = this.failedDeployments.get(moduleId);
+			return failed != null ? failed : buildModuleStatus(moduleId, null, null, null);
 		}
 	}
 
 	@Override
 	public void undeploy(ModuleDeploymentId moduleId) {
+		Future<Void> deployment = this.pendingDeployments.get(moduleId);
+		if (deployment != null) {
+			// Let the deployment complete (or roll back), so as not to race with it
+			try {
+				deployment.get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for deployment of " + moduleId, e);
+			}
+			catch (ExecutionException e) {
+				// failures are handled by the deployment itself
+			}
+		}
+		this.statusCache.remove(moduleId);
+		this.failedDeployments.remove(moduleId);
 		String appName = this.deduceAppName(moduleId);
 		this.logger.debug("Undeploy: requesting deletion of app {}", appName);
 
@@ -201,14 +397,41 @@ class ApplicationModuleDeployer implements ModuleDeployer {
 		}
 	}
 
-	private ModuleStatus buildModuleStatus(ModuleDeploymentId id, CloudApplication cloudApplication) {
+	/**
+	 * Return the archive of the module launcher, which is only prepared (copied and hashed)
+	 * again if the launcher has changed. The archive is acquired for the caller, who must
+	 * release it.
+	 */
+	synchronized LauncherArchive getLauncherArchive() throws IOException {
+		Resource launcher = this.properties.getModuleLauncherLocation();
+		LauncherArchive previous = this.launcherArchive;
+		this.launcherArchive = LauncherArchive.prepare(launcher, previous);
+		if (this.launcherArchive != previous) {
+			this.logger.info("Prepared module launcher {} with checksum {}", launcher, this.launcherArchive.getChecksum());
+		}
+		return this.launcherArchive.acquire();
+	}
+
+	private ModuleStatus cachedStatus(ModuleDeploymentId id) {
+		CachedStatus cached = this.statusCache.get(id);
+		if (cached != null && System.nanoTime() - cached.timestamp < TimeUnit.MILLISECONDS.toNanos(this.properties.getStatusCacheTtl())) {
+			return cached.status;
+		}
+		return null;
+	}
+
+	/**
+	 * Build the status of a module from the instances information and statistics of its
+	 * application, the latter only being used if there are instances.
+	 */
+	private ModuleStatus buildModuleStatus(ModuleDeploymentId id, CloudApplication cloudApplication,
+			InstancesInfo applicationInstances, Future<ApplicationStats> applicationStats) {
 		ModuleStatus.Builder statusBuilder = ModuleStatus.of(id);
 		String appName = this.deduceAppName(id);
 		if (cloudApplication != null) {
-			InstancesInfo applicationInstances = this.cloudFoundryClient.getApplicationInstances(cloudApplication);
 			if (applicationInstances != null) {
 				if (applicationInstances.getInstances() != null) { // null can happen despite the STARTED check above
-					List<InstanceStats> instanceStats = new ArrayList<>(this.cloudFoundryClient.getApplicationStats(appName).getRecords());
+					List<InstanceStats> instanceStats = new ArrayList<>(getResult(applicationStats).getRecords());
 					List<InstanceInfo> instanceInfos = new ArrayList<>(applicationInstances.getInstances());
 					if (instanceStats.size() != instanceInfos.size()) {
 						return notRunningInstancesStatus(id, cloudApplication);
@@ -240,6 +463,60 @@ class ApplicationModuleDeployer implements ModuleDeployer {
 		return notRunningInstancesStatus(id, cloudApplication);
 	}
 
+	/**
+	 * Return a callable that runs the given step of a deployment, recording how long it took.
+	 */
+	private <T> Callable<T> timed(final String step, final Callable<T> callable) {
+		return new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				long start = System.nanoTime();
+				try {
+					return callable.call();
+				}
+				finally {
+					deployStepStatistics.record(step, System.nanoTime() - start);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Wait for all the given futures to complete, then throw the first failure, if any.
+	 */
+	private static void awaitAll(List<? extends Future<?>> futures) {
+		RuntimeException failure = null;
+		for (Future<?> future : futures) {
+			try {
+				getResult(future);
+			}
+			catch (RuntimeException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private static <T> T getResult(Future<T> future) {
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while fetching module status", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
 	private Map<String, String> createModuleLauncherEnvironment(ModuleDeploymentRequest request) {
 		HashMap<String, String> args = new HashMap<>();
 		args.put("modules", request.getCoordinates().toString());
@@ -296,6 +573,10 @@ class ApplicationModuleDeployer implements ModuleDeployer {
 		return statusBuilder.build();
 	}
 
+	private ModuleStatus failedStatus(ModuleDeploymentId id, String reason) {
+		return ModuleStatus.of(id).with(new DeploymentFailure(this.deduceAppName(id), reason)).build();
+	}
+
 	private Map<String, String> toEnvironmentVariables(HashMap<String, String> args) {
 
 		Map<String, String> env = new HashMap<>(args.size());
@@ -315,6 +596,89 @@ class ApplicationModuleDeployer implements ModuleDeployer {
 		return original.replaceAll("([^A-Za-z0-9_\\-.,:\\/@\\n])", "\\\\$1").replaceAll("\n", "'\\\\n'");
 	}
 
+	/**
+	 * The (concurrent) requests for the instances information and statistics of the
+	 * application of a module, whose results are turned into a {@link ModuleStatus}.
+	 */
+	private class StatusRequest {
+
+		private final ModuleDeploymentId id;
+
+		private final CloudApplication cloudApplication;
+
+		private final Future<InstancesInfo> applicationInstances;
+
+		private final Future<ApplicationStats> applicationStats;
+
+		private StatusRequest(ModuleDeploymentId id, final CloudApplication cloudApplication) {
+			this.id = id;
+			this.cloudApplication = cloudApplication;
+			final String appName = deduceAppName(id);
+			this.applicationInstances = statusExecutor.submit(new Callable<InstancesInfo>() {
+
+				@Override
+				public InstancesInfo call() {
+					return cloudFoundryClient.getApplicationInstances(cloudApplication);
+				}
+			});
+			this.applicationStats = statusExecutor.submit(new Callable<ApplicationStats>() {
+
+				@Override
+				public ApplicationStats call() {
+					return cloudFoundryClient.getApplicationStats(appName);
+				}
+			});
+		}
+
+		private ModuleStatus getStatus() {
+			ModuleStatus status = buildModuleStatus(id, cloudApplication, getResult(applicationInstances),
+					applicationStats);
+			statusCache.put(id, new CachedStatus(status));
+			return status;
+		}
+	}
+
+	/**
+	 * The status of a module whose deployment failed, and whose application was deleted.
+	 */
+	private static class DeploymentFailure implements ModuleInstanceStatus {
+
+		private final String applicationName;
+
+		private final String reason;
+
+		private DeploymentFailure(String applicationName, String reason) {
+			this.applicationName = applicationName;
+			this.reason = reason;
+		}
+
+		@Override
+		public String getId() {
+			return applicationName;
+		}
+
+		@Override
+		public ModuleStatus.State getState() {
+			return ModuleStatus.State.failed;
+		}
+
+		@Override
+		public Map<String, String> getAttributes() {
+			return Collections.singletonMap("failure", reason);
+		}
+	}
+
+	private static class CachedStatus {
+
+		private final ModuleStatus status;
+
+		private final long timestamp = System.nanoTime();
+
+		private CachedStatus(ModuleStatus status) {
+			this.status = status;
+		}
+	}
+
 	/**
 	 * Status callback that prints debug information using the outer class logger.
 	 *
@@ -37,7 +37,14 @@ public class CloudFoundryModuleDeployerConfiguration {
 
 	@Bean
 	public ModuleDeployer processModuleDeployer() {
-		return new ApplicationModuleDeployer(properties);
+		ApplicationModuleDeployer deployer = new ApplicationModuleDeployer(properties);
+		deployer.setDeployStepStatistics(cloudFoundryDeployStepStatistics());
+		return deployer;
+	}
+
+	@Bean
+	public DeployStepStatistics cloudFoundryDeployStepStatistics() {
+		return new DeployStepStatistics();
 	}
 
 	@Bean
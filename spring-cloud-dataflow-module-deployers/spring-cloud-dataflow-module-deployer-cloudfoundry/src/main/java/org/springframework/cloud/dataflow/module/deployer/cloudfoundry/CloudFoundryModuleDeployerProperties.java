@@ -77,6 +77,21 @@ class CloudFoundryModuleDeployerProperties {
 	 */
 	private boolean skipSslValidation = false;
 
+	/**
+	 * Maximum number of concurrent requests made to the Cloud Foundry API when gathering the status of modules.
+	 */
+	private int statusConcurrency = 8;
+
+	/**
+	 * How long (in milliseconds) the status of a module is cached before being fetched again.
+	 */
+	private long statusCacheTtl = 2000L;
+
+	/**
+	 * Maximum number of modules being deployed at the same time.
+	 */
+	private int deployConcurrency = 4;
+
 	public String getPassword() {
 		return password;
 	}
@@ -141,6 +156,30 @@ class CloudFoundryModuleDeployerProperties {
 		this.skipSslValidation = skipSslValidation;
 	}
 
+	public int getStatusConcurrency() {
+		return statusConcurrency;
+	}
+
+	public void setStatusConcurrency(int statusConcurrency) {
+		this.statusConcurrency = statusConcurrency;
+	}
+
+	public long getStatusCacheTtl() {
+		return statusCacheTtl;
+	}
+
+	public void setStatusCacheTtl(long statusCacheTtl) {
+		this.statusCacheTtl = statusCacheTtl;
+	}
+
+	public int getDeployConcurrency() {
+		return deployConcurrency;
+	}
+
+	public void setDeployConcurrency(int deployConcurrency) {
+		this.deployConcurrency = deployConcurrency;
+	}
+
 	public Resource getModuleLauncherLocation() {
 		return moduleLauncherLocation;
 	}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.cloudfoundry;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cumulative statistics about the steps of module deployments to Cloud Foundry
+ * ({@literal create}, {@literal env}, {@literal upload}, {@literal instances},
+ * {@literal start} and {@literal rollback}): how many times each one ran, and how long
+ * it took.
+ */
+public class DeployStepStatistics {
+
+	private final ConcurrentMap<String, StepStatistics> steps = new ConcurrentHashMap<>();
+
+	public void record(String step, long nanos) {
+		StepStatistics statistics = steps.get(step);
+		if (statistics == null) {
+			steps.putIfAbsent(step, new StepStatistics());
+			statistics = steps.get(step);
+		}
+		statistics.record(nanos);
+	}
+
+	/**
+	 * Return the statistics of each step that ran so far, by name.
+	 */
+	public Map<String, StepStatistics> getSteps() {
+		return Collections.unmodifiableMap(steps);
+	}
+
+	/**
+	 * Cumulative statistics about a single step.
+	 */
+	public static class StepStatistics {
+
+		private final AtomicLong count = new AtomicLong();
+
+		private final AtomicLong totalNanos = new AtomicLong();
+
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		private void record(long nanos) {
+			count.incrementAndGet();
+			totalNanos.addAndGet(nanos);
+			long max = maxNanos.get();
+			while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+				max = maxNanos.get();
+			}
+		}
+
+		public long getCount() {
+			return count.get();
+		}
+
+		public double getTotalMillis() {
+			return totalNanos.get() / 1e6d;
+		}
+
+		public double getMeanMillis() {
+			long n = count.get();
+			return n == 0 ? 0d : getTotalMillis() / n;
+		}
+
+		public double getMaxMillis() {
+			return maxNanos.get() / 1e6d;
+		}
+	}
+
+}
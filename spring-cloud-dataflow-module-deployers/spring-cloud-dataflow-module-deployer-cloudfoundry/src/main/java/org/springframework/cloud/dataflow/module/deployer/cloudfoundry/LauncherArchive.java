@@ -0,0 +1,303 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.cloudfoundry;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.cloudfoundry.client.lib.archive.ApplicationArchive;
+
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
+/**
+ * An {@link ApplicationArchive} over a local copy of the module launcher, whose entries
+ * are hashed once, when the archive is created, rather than on every upload. As the
+ * Cloud Foundry client only sends the entries the cloud controller does not already know
+ * of (by digest), uploading the same launcher for another module then only costs the
+ * resource matching request.
+ *
+ * <p>Instances are obtained through {@link #prepare(Resource, LauncherArchive)}, which
+ * reuses the previous archive if the launcher has not changed, and retires it otherwise.
+ * Uploads {@link #acquire() acquire} the archive and {@link #release() release} it when
+ * done, and a retired archive is closed and its local copy deleted once it is not used
+ * anymore.</p>
+ */
+class LauncherArchive implements ApplicationArchive {
+
+	private final Resource launcher;
+
+	private final String checksum;
+
+	/**
+	 * Last modification time of the launcher when last prepared, only updated by
+	 * {@link #prepare(Resource, LauncherArchive)}, which callers serialize.
+	 */
+	private long lastModified;
+
+	private long contentLength;
+
+	private final File file;
+
+	private final ZipFile zipFile;
+
+	private final List<Entry> entries;
+
+	/**
+	 * Number of uploads currently using this archive.
+	 */
+	private int users;
+
+	private boolean retired;
+
+	private LauncherArchive(Resource launcher, String checksum, long lastModified, long contentLength, File file)
+			throws IOException {
+		this.launcher = launcher;
+		this.checksum = checksum;
+		this.lastModified = lastModified;
+		this.contentLength = contentLength;
+		this.file = file;
+		this.zipFile = new ZipFile(file);
+		List<Entry> entries = new ArrayList<>();
+		try {
+			Enumeration<? extends ZipEntry> zipEntries = this.zipFile.entries();
+			while (zipEntries.hasMoreElements()) {
+				entries.add(new HashedEntry(zipEntries.nextElement()));
+			}
+		}
+		catch (IOException e) {
+			this.zipFile.close();
+			throw e;
+		}
+		this.entries = Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * Return an archive for the given launcher, which is the {@code current} one if the
+	 * launcher has not changed since, as told by its last modification time and length or,
+	 * if those differ, its SHA-1 checksum. Otherwise, the {@code current} archive is retired.
+	 *
+	 * <p>A launcher that does not tell its last modification time or length is only read
+	 * once: it is assumed not to change as long as the same resource is given.</p>
+	 */
+	static LauncherArchive prepare(Resource launcher, LauncherArchive current) throws IOException {
+		long lastModified = lastModified(launcher);
+		long contentLength = contentLength(launcher);
+		boolean metadataAvailable = lastModified > 0 && contentLength >= 0;
+		if (current != null) {
+			if (metadataAvailable
+					? lastModified == current.lastModified && contentLength == current.contentLength
+					: launcher.equals(current.launcher)) {
+				return current;
+			}
+		}
+		File file = File.createTempFile("module-launcher", ".jar");
+		file.deleteOnExit();
+		LauncherArchive archive;
+		try {
+			String checksum;
+			try (InputStream in = launcher.getInputStream(); OutputStream out = new FileOutputStream(file)) {
+				DigestInputStream digestIn = new DigestInputStream(in, sha1());
+				StreamUtils.copy(digestIn, out);
+				checksum = toHex(digestIn.getMessageDigest().digest());
+			}
+			if (current != null && checksum.equals(current.checksum)) {
+				// Touched but not changed, only hash it again when modified anew
+				file.delete();
+				current.lastModified = lastModified;
+				current.contentLength = contentLength;
+				return current;
+			}
+			archive = new LauncherArchive(launcher, checksum, lastModified, contentLength, file);
+		}
+		catch (IOException e) {
+			file.delete();
+			throw e;
+		}
+		if (current != null) {
+			current.retire();
+		}
+		return archive;
+	}
+
+	/**
+	 * Take hold of this archive for an upload, which must be balanced with a call to
+	 * {@link #release()}.
+	 *
+	 * @throws IllegalStateException if this archive has been retired
+	 */
+	synchronized LauncherArchive acquire() {
+		Assert.state(!retired, "Launcher archive has been retired");
+		users++;
+		return this;
+	}
+
+	/**
+	 * Let go of this archive, which is closed if it has been retired and is not used by
+	 * any other upload.
+	 */
+	synchronized void release() {
+		users--;
+		closeIfUnused();
+	}
+
+	/**
+	 * Mark this archive as replaced by a newer one, so that it is closed as soon as it is
+	 * not used by any upload.
+	 */
+	synchronized void retire() {
+		retired = true;
+		closeIfUnused();
+	}
+
+	private void closeIfUnused() {
+		if (retired && users == 0) {
+			try {
+				zipFile.close();
+			}
+			catch (IOException e) {
+				// Nothing more can be done with it, the file is deleted anyway
+			}
+			file.delete();
+		}
+	}
+
+	/**
+	 * Return the SHA-1 checksum of the whole launcher, as an hexadecimal string.
+	 */
+	public String getChecksum() {
+		return checksum;
+	}
+
+	@Override
+	public String getFilename() {
+		return launcher.getFilename();
+	}
+
+	@Override
+	public Iterable<Entry> getEntries() {
+		return entries;
+	}
+
+	private static long lastModified(Resource resource) {
+		try {
+			return resource.lastModified();
+		}
+		catch (IOException e) {
+			return -1L;
+		}
+	}
+
+	private static long contentLength(Resource resource) {
+		try {
+			return resource.contentLength();
+		}
+		catch (IOException e) {
+			return -1L;
+		}
+	}
+
+	private static MessageDigest sha1() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(String.format("%02x", b));
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * An entry whose size and digest are computed once, eagerly.
+	 */
+	private class HashedEntry implements Entry {
+
+		private final ZipEntry zipEntry;
+
+		private final long size;
+
+		private final byte[] sha1Digest;
+
+		private HashedEntry(ZipEntry zipEntry) throws IOException {
+			this.zipEntry = zipEntry;
+			if (zipEntry.isDirectory()) {
+				this.size = 0L;
+				this.sha1Digest = null;
+			}
+			else {
+				MessageDigest digest = sha1();
+				long size = 0L;
+				try (InputStream in = zipFile.getInputStream(zipEntry)) {
+					byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+					int read;
+					while ((read = in.read(buffer)) != -1) {
+						digest.update(buffer, 0, read);
+						size += read;
+					}
+				}
+				this.size = size;
+				this.sha1Digest = digest.digest();
+			}
+		}
+
+		@Override
+		public boolean isDirectory() {
+			return zipEntry.isDirectory();
+		}
+
+		@Override
+		public String getName() {
+			return zipEntry.getName();
+		}
+
+		@Override
+		public long getSize() {
+			return size;
+		}
+
+		@Override
+		public byte[] getSha1Digest() {
+			return sha1Digest;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return zipEntry.isDirectory() ? null : zipFile.getInputStream(zipEntry);
+		}
+	}
+
+}
@@ -20,15 +20,35 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Helper class to run (several) closures that may fail, needing to be undone.
+ * Attempts may be made from several threads. When given an {@link ExecutorService},
+ * undo operations run in parallel rather than in reverse order.
+ *
+ * <p>Once operations have been undone, any further attempt is rejected, and an attempt
+ * that succeeds concurrently with the undo is undone right away.</p>
  *
  * @author Eric Bottard
  */
 class Undoer {
 
-	private List<Runnable> undos = new ArrayList<>();
+	private final List<Runnable> undos = Collections.synchronizedList(new ArrayList<Runnable>());
+
+	private final ExecutorService executor;
+
+	private volatile boolean undone;
+
+	public Undoer() {
+		this(null);
+	}
+
+	public Undoer(ExecutorService executor) {
+		this.executor = executor;
+	}
 
 	public <T> UndoerRunner<T> attempt(Callable<T> task) {
 		return this.new UndoerRunner<T>(task);
@@ -52,12 +72,12 @@ class Undoer {
 		}
 
 		public T andUndoBy(Runnable undoRunner) {
+			if (undone) {
+				throw new IllegalStateException("Not attempting, as previous operations have been undone");
+			}
+			T result;
 			try {
-				T result = action.call();
-				if (undoRunner != null) {
-					undos.add(undoRunner);
-				}
-				return result;
+				result = action.call();
 			}
 			catch (RuntimeException e) {
 				undo();
@@ -67,6 +87,20 @@ class Undoer {
 				undo();
 				throw new RuntimeException(e);
 			}
+			if (undoRunner != null) {
+				boolean late;
+				synchronized (undos) {
+					late = undone;
+					if (!late) {
+						undos.add(undoRunner);
+					}
+				}
+				if (late) {
+					undoRunner.run();
+					throw new IllegalStateException("Undone, as previous operations have been undone meanwhile");
+				}
+			}
+			return result;
 		}
 
 		public T withNoParticularUndo() {
@@ -79,12 +113,37 @@ class Undoer {
 	 * if an operation wrapped in an {@link #attempt(Callable)} fails, but can also be called externally.
 	 */
 	public void undo() {
-		Collections.reverse(undos);
-		for (Runnable undo : undos) {
+		List<Runnable> toUndo;
+		synchronized (undos) {
+			undone = true;
+			toUndo = new ArrayList<>(undos);
+			undos.clear();
+		}
+		Collections.reverse(toUndo);
+		if (executor == null) {
+			for (Runnable undo : toUndo) {
+				try {
+					undo.run();
+				}
+				catch (Exception e) {
+					// ignored
+				}
+			}
+			return;
+		}
+		List<Future<?>> futures = new ArrayList<>();
+		for (Runnable undo : toUndo) {
+			futures.add(executor.submit(undo));
+		}
+		for (Future<?> future : futures) {
 			try {
-				undo.run();
+				future.get();
 			}
-			catch (Exception e) {
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (ExecutionException e) {
 				// ignored
 			}
 		}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.cloudfoundry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.cloudfoundry.client.lib.CloudFoundryClient;
+import org.cloudfoundry.client.lib.CloudFoundryException;
+import org.cloudfoundry.client.lib.UploadStatusCallback;
+import org.cloudfoundry.client.lib.archive.ApplicationArchive;
+import org.cloudfoundry.client.lib.domain.ApplicationStats;
+import org.cloudfoundry.client.lib.domain.CloudApplication;
+import org.cloudfoundry.client.lib.domain.InstanceInfo;
+import org.cloudfoundry.client.lib.domain.InstanceState;
+import org.cloudfoundry.client.lib.domain.InstanceStats;
+import org.cloudfoundry.client.lib.domain.InstancesInfo;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ModuleDefinition;
+import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
+import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
+import org.springframework.cloud.dataflow.module.ModuleStatus;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Tests for the status operations of {@link ApplicationModuleDeployer}, against a stubbed
+ * {@link CloudFoundryClient}.
+ */
+public class ApplicationModuleDeployerTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private CloudFoundryClient client = mock(CloudFoundryClient.class);
+
+	private CloudFoundryModuleDeployerProperties properties = new CloudFoundryModuleDeployerProperties();
+
+	private ApplicationModuleDeployer deployer;
+
+	private List<CloudApplication> applications = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		properties.setStatusConcurrency(4);
+		properties.setStatusCacheTtl(60000L);
+		deployer = new ApplicationModuleDeployer(properties, client);
+		for (int i = 0; i < 10; i++) {
+			applications.add(runningApplication("ticktock", "log" + i));
+		}
+		applications.add(stoppedApplication("ticktock", "time"));
+		when(client.getApplications()).thenReturn(applications);
+	}
+
+	@Test
+	public void bulkStatusListsApplicationsOnceAndIsCached() {
+		Map<ModuleDeploymentId, ModuleStatus> statuses = deployer.status();
+		assertEquals(11, statuses.size());
+		assertEquals(ModuleStatus.State.deployed, statuses.get(new ModuleDeploymentId("ticktock", "log3")).getState());
+		assertEquals(0, statuses.get(new ModuleDeploymentId("ticktock", "time")).getInstances().size());
+
+		deployer.status();
+		deployer.status(new ModuleDeploymentId("ticktock", "log5"));
+		verify(client, times(2)).getApplications();
+		verify(client, times(11)).getApplicationInstances(any(CloudApplication.class));
+		verify(client, times(0)).getApplication(any(String.class));
+	}
+
+	@Test
+	public void undeployInvalidatesCachedStatus() {
+		ModuleDeploymentId id = new ModuleDeploymentId("ticktock", "log1");
+		when(client.getApplication("ticktock-log1")).thenReturn(applications.get(1));
+		assertEquals(ModuleStatus.State.deployed, deployer.status(id).getState());
+
+		when(client.getApplicationEnvironment("ticktock-log1")).thenReturn(Collections.<String, Object>singletonMap(
+				"environment_json", Collections.singletonMap(ApplicationModuleDeployer.MARKER_ENVIRONMENT_VAR_NAME,
+						"ticktock:log1")));
+		deployer.undeploy(id);
+		verify(client).deleteApplication("ticktock-log1");
+
+		when(client.getApplication("ticktock-log1")).thenThrow(new CloudFoundryException(HttpStatus.NOT_FOUND));
+		assertEquals(0, deployer.status(id).getInstances().size());
+	}
+
+	@Test
+	public void launcherIsPreparedOnceAndReused() throws IOException {
+		File launcher = folder.newFile("launcher.jar");
+		writeJar(launcher, "first");
+		properties.setModuleLauncherLocation(new FileSystemResource(launcher));
+
+		deployer.deploy(request("ticktock", "time"));
+		deployer.deploy(request("ticktock", "log"));
+		ArgumentCaptor<ApplicationArchive> captor = ArgumentCaptor.forClass(ApplicationArchive.class);
+		verify(client, timeout(5000).times(2)).uploadApplication(any(String.class), captor.capture(),
+				any(UploadStatusCallback.class));
+		assertSame(captor.getAllValues().get(0), captor.getAllValues().get(1));
+		String checksum = ((LauncherArchive) captor.getValue()).getChecksum();
+		int entries = 0;
+		for (ApplicationArchive.Entry entry : captor.getValue().getEntries()) {
+			assertEquals(20, entry.getSha1Digest().length);
+			entries++;
+		}
+		assertEquals(1, entries);
+
+		writeJar(launcher, "second, and longer");
+		deployer.deploy(request("other", "log"));
+		verify(client, timeout(5000)).uploadApplication(eq("other-log"), captor.capture(), any(UploadStatusCallback.class));
+		assertNotEquals(checksum, ((LauncherArchive) captor.getValue()).getChecksum());
+	}
+
+	@Test
+	public void replacedLauncherIsClosedOnceUnused() throws IOException {
+		File launcher = folder.newFile("launcher.jar");
+		writeJar(launcher, "first");
+		LauncherArchive first = LauncherArchive.prepare(new FileSystemResource(launcher), null).acquire();
+
+		writeJar(launcher, "second, and longer");
+		LauncherArchive second = LauncherArchive.prepare(new FileSystemResource(launcher), first);
+		assertNotSame(first, second);
+		ApplicationArchive.Entry entry = first.getEntries().iterator().next();
+		// Still in use by an upload
+		entry.getInputStream().close();
+
+		first.release();
+		try {
+			entry.getInputStream();
+			fail("Replaced launcher archive should have been closed");
+		}
+		catch (IllegalStateException e) {
+			// ZipFile is closed
+		}
+		second.retire();
+	}
+
+	@Test
+	public void unchangedLauncherIsNotHashedAgain() throws IOException {
+		File launcher = folder.newFile("launcher.jar");
+		writeJar(launcher, "first");
+		LauncherArchive first = LauncherArchive.prepare(new FileSystemResource(launcher), null);
+
+		// Touched, hashed once more to find out it has not changed
+		launcher.setLastModified(launcher.lastModified() - 10000);
+		assertSame(first, LauncherArchive.prepare(new FileSystemResource(launcher), first));
+		assertSame(first, LauncherArchive.prepare(new FileSystemResource(launcher) {
+
+			@Override
+			public InputStream getInputStream() throws IOException {
+				throw new IOException("Should not be read again");
+			}
+		}, first));
+
+		// Without metadata, the same resource is not read again
+		byte[] contents = Files.readAllBytes(launcher.toPath());
+		first.retire();
+		LauncherArchive second = LauncherArchive.prepare(new ByteArrayResource(contents), null);
+		assertSame(second, LauncherArchive.prepare(new ByteArrayResource(contents) {
+
+			@Override
+			public InputStream getInputStream() throws IOException {
+				throw new IOException("Should not be read again");
+			}
+		}, second));
+		second.retire();
+	}
+
+	@Test
+	public void failedDeploymentIsRolledBack() throws IOException {
+		File launcher = folder.newFile("launcher.jar");
+		writeJar(launcher, "launcher");
+		properties.setModuleLauncherLocation(new FileSystemResource(launcher));
+		doThrow(new CloudFoundryException(HttpStatus.INTERNAL_SERVER_ERROR)).when(client).startApplication("ticktock-log");
+
+		deployer.deploy(request("ticktock", "log"));
+		verify(client, timeout(5000)).deleteApplication("ticktock-log");
+		// Waits for the deployment to complete
+		deployer.undeploy(new ModuleDeploymentId("ticktock", "log"));
+
+		Map<String, DeployStepStatistics.StepStatistics> steps = deployer.getDeployStepStatistics().getSteps();
+		for (String step : Arrays.asList("create", "env", "upload", "start", "rollback")) {
+			assertTrue(step, steps.containsKey(step));
+			assertEquals(1, steps.get(step).getCount());
+		}
+	}
+
+	@Test
+	public void failedDeploymentIsReported() throws IOException {
+		File launcher = folder.newFile("launcher.jar");
+		writeJar(launcher, "launcher");
+		properties.setModuleLauncherLocation(new FileSystemResource(launcher));
+		doThrow(new CloudFoundryException(HttpStatus.INTERNAL_SERVER_ERROR)).when(client).startApplication("ticktock-log");
+		when(client.getApplication("ticktock-log")).thenThrow(new CloudFoundryException(HttpStatus.NOT_FOUND));
+
+		ModuleDeploymentId id = deployer.deploy(request("ticktock", "log"));
+		verify(client, timeout(5000)).deleteApplication("ticktock-log");
+		assertEquals(ModuleStatus.State.failed, deployer.status(id).getState());
+
+		deployer.undeploy(id);
+		assertEquals(0, deployer.status(id).getInstances().size());
+	}
+
+	@Test
+	public void failedModuleRollsBackTheOthers() throws IOException {
+		File launcher = folder.newFile("launcher.jar");
+		writeJar(launcher, "launcher");
+		properties.setModuleLauncherLocation(new FileSystemResource(launcher));
+		doThrow(new CloudFoundryException(HttpStatus.INTERNAL_SERVER_ERROR)).when(client).startApplication("ticktock-log");
+		// One at a time, so that time is deployed by the time log fails
+		properties.setDeployConcurrency(1);
+		deployer = new ApplicationModuleDeployer(properties, client);
+
+		deployer.deployAll(Arrays.asList(request("ticktock", "time"), request("ticktock", "log")));
+		verify(client, timeout(5000)).deleteApplication("ticktock-log");
+		verify(client, timeout(5000)).deleteApplication("ticktock-time");
+	}
+
+	private ModuleDeploymentRequest request(String group, String name) {
+		ModuleDefinition definition = new ModuleDefinition.Builder()
+				.setGroup(group)
+				.setName(name)
+				.build();
+		ArtifactCoordinates coordinates = new ArtifactCoordinates.Builder()
+				.setGroupId("org.springframework.cloud.stream.module")
+				.setArtifactId(name)
+				.setVersion("1.0.0.BUILD-SNAPSHOT")
+				.build();
+		return new ModuleDeploymentRequest(definition, coordinates);
+	}
+
+	private void writeJar(File file, String contents) throws IOException {
+		try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+			zip.putNextEntry(new ZipEntry("contents.txt"));
+			zip.write(contents.getBytes("UTF-8"));
+			zip.closeEntry();
+		}
+	}
+
+	private CloudApplication runningApplication(String group, String label) {
+		CloudApplication application = application(group, label);
+		InstanceInfo instanceInfo = mock(InstanceInfo.class);
+		when(instanceInfo.getIndex()).thenReturn(0);
+		when(instanceInfo.getState()).thenReturn(InstanceState.RUNNING);
+		InstancesInfo instancesInfo = mock(InstancesInfo.class);
+		when(instancesInfo.getInstances()).thenReturn(Collections.singletonList(instanceInfo));
+		InstanceStats instanceStats = mock(InstanceStats.class);
+		when(instanceStats.getId()).thenReturn("0");
+		ApplicationStats applicationStats = mock(ApplicationStats.class);
+		when(applicationStats.getRecords()).thenReturn(Collections.singletonList(instanceStats));
+		when(client.getApplicationInstances(application)).thenReturn(instancesInfo);
+		when(client.getApplicationStats(group + "-" + label)).thenReturn(applicationStats);
+		return application;
+	}
+
+	private CloudApplication stoppedApplication(String group, String label) {
+		CloudApplication application = application(group, label);
+		when(client.getApplicationStats(group + "-" + label)).thenThrow(new CloudFoundryException(HttpStatus.BAD_REQUEST));
+		return application;
+	}
+
+	private CloudApplication application(String group, String label) {
+		CloudApplication application = mock(CloudApplication.class);
+		when(application.getEnvAsMap()).thenReturn(Collections.singletonMap(
+				ApplicationModuleDeployer.MARKER_ENVIRONMENT_VAR_NAME, group + ":" + label));
+		return application;
+	}
+
+}
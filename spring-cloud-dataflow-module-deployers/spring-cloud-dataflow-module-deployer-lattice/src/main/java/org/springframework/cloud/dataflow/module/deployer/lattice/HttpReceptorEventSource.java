@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.lattice;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.cloudfoundry.receptor.commands.ActualLRPResponse;
+
+/**
+ * A {@link ReceptorEventSource} that reads the server-sent events published by the
+ * Receptor at {@literal /v1/events}.
+ *
+ * <p>Reading times out once nothing has been received for the {@link #setReadTimeout(int)
+ * read timeout}, so that a connection that silently went away is noticed, and
+ * {@link EventStream#next()} then throws a {@link java.net.SocketTimeoutException}.</p>
+ */
+public class HttpReceptorEventSource implements ReceptorEventSource {
+
+	private final String receptorHost;
+
+	private final ObjectMapper objectMapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private int connectTimeout = 5000;
+
+	private int readTimeout = 60000;
+
+	public HttpReceptorEventSource(String receptorHost) {
+		this.receptorHost = receptorHost;
+	}
+
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * Set how long (in milliseconds) to wait for the next event, or any other data, before
+	 * considering the connection lost. Zero means waiting forever.
+	 */
+	public void setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	@Override
+	public EventStream connect() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://" + receptorHost + "/v1/events")
+				.openConnection();
+		connection.setConnectTimeout(connectTimeout);
+		connection.setReadTimeout(readTimeout);
+		connection.setRequestProperty("Accept", "text/event-stream");
+		if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+			connection.disconnect();
+			throw new IOException("Unexpected response " + connection.getResponseCode() + " from " + connection.getURL());
+		}
+		return new HttpEventStream(connection);
+	}
+
+	private class HttpEventStream implements EventStream {
+
+		private final HttpURLConnection connection;
+
+		private final BufferedReader reader;
+
+		private HttpEventStream(HttpURLConnection connection) throws IOException {
+			this.connection = connection;
+			this.reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8"));
+		}
+
+		@Override
+		public Event next() throws IOException {
+			String type = null;
+			StringBuilder data = new StringBuilder();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					// End of an event
+					Event event = toEvent(type, data.toString());
+					if (event != null) {
+						return event;
+					}
+					type = null;
+					data.setLength(0);
+				}
+				else if (line.startsWith("event:")) {
+					type = line.substring("event:".length()).trim();
+				}
+				else if (line.startsWith("data:")) {
+					data.append(line.substring("data:".length()).trim());
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Return the event for the given type and data, or {@code null} if it is not about
+		 * actual LRPs.
+		 */
+		private Event toEvent(String type, String data) throws IOException {
+			String field;
+			if (ACTUAL_LRP_CREATED.equals(type) || ACTUAL_LRP_REMOVED.equals(type)) {
+				field = "actual_lrp";
+			}
+			else if (ACTUAL_LRP_CHANGED.equals(type)) {
+				field = "actual_lrp_after";
+			}
+			else {
+				return null;
+			}
+			JsonNode node = objectMapper.readTree(data).get(field);
+			if (node == null) {
+				return null;
+			}
+			return new Event(type, objectMapper.treeToValue(node, ActualLRPResponse.class));
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				reader.close();
+			}
+			finally {
+				connection.disconnect();
+			}
+		}
+	}
+
+}
@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.cloudfoundry.receptor.client.ReceptorClient;
 import org.cloudfoundry.receptor.commands.ActualLRPResponse;
@@ -37,6 +38,18 @@ import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
 import org.springframework.util.StringUtils;
 
 /**
+ * {@link ModuleDeployer} that deploys modules as Lattice long running processes (LRPs).
+ *
+ * <p>Status queries are answered from a snapshot of all the actual LRPs, fetched with a
+ * single Receptor call and reused for a short while, so that the cost of computing the
+ * status of a stream does not grow with the number of its modules. When a
+ * {@link ReceptorStateTracker} is {@link #setStateTracker(ReceptorStateTracker) set}, and as
+ * long as it is synchronized with the Receptor, its state is used instead and status
+ * queries do not involve the Receptor at all.</p>
+ *
+ * <p>LRPs are created in the {@link #DOMAIN} domain, and LRPs of other domains, which this
+ * deployer did not create, are ignored.</p>
+ *
  * @author Patrick Peralta
  * @author Mark Fisher
  */
@@ -48,17 +61,43 @@ public class LrpModuleDeployer implements ModuleDeployer {
 
 	public static final String BASE_ADDRESS = "192.168.11.11.xip.io";
 
+	/**
+	 * The Diego domain of the LRPs created by this deployer.
+	 */
+	public static final String DOMAIN = "spring-cloud-dataflow";
+
 	private final ReceptorClient receptorClient;
 
 	private final String receptorHost;
 
 	private final StatusMapper receptorProcessStatusMapper = new StatusMapper();
 
+	private long statusSnapshotTtl = 1000L;
+
+	private Snapshot snapshot;
+
+	private ReceptorStateTracker stateTracker;
+
 	public LrpModuleDeployer(ReceptorClient receptorClient, String receptorHost) {
 		this.receptorClient = receptorClient;
 		this.receptorHost = receptorHost;
 	}
 
+	/**
+	 * Set for how long (in milliseconds) a snapshot of the actual LRPs is used to answer
+	 * status queries, before being fetched again.
+	 */
+	public void setStatusSnapshotTtl(long statusSnapshotTtl) {
+		this.statusSnapshotTtl = statusSnapshotTtl;
+	}
+
+	/**
+	 * Set the tracker whose state is preferred to snapshots to answer status queries.
+	 */
+	public void setStateTracker(ReceptorStateTracker stateTracker) {
+		this.stateTracker = stateTracker;
+	}
+
 	@Override
 	public ModuleDeploymentId deploy(ModuleDeploymentRequest request) {
 		ModuleDeploymentId id = ModuleDeploymentId.fromModuleDefinition(request.getDefinition());
@@ -66,6 +105,7 @@ public class LrpModuleDeployer implements ModuleDeployer {
 
 		DesiredLRPCreateRequest lrp = new DesiredLRPCreateRequest();
 		lrp.setProcessGuid(guid);
+		lrp.setDomain(DOMAIN);
 		lrp.setInstances(request.getCount());
 		lrp.setRootfs(DOCKER_PATH);
 		lrp.runAction().setPath("java");
@@ -100,6 +140,7 @@ public class LrpModuleDeployer implements ModuleDeployer {
 		}
 
 		receptorClient.createDesiredLRP(lrp);
+		invalidateSnapshot();
 		return id;
 	}
 
@@ -114,18 +155,85 @@ public class LrpModuleDeployer implements ModuleDeployer {
 		return id.toString().replace(".", "_");
 	}
 
+	/**
+	 * Return the {@link ModuleDeploymentId} a Diego process guid was created for, or
+	 * {@code null} if it does not look like one created by {@link #guid(ModuleDeploymentId)}.
+	 * Labels are assumed not to contain underscores, while groups may.
+	 */
+	private ModuleDeploymentId moduleDeploymentId(String guid) {
+		int underscore = guid.lastIndexOf('_');
+		if (underscore <= 0 || underscore == guid.length() - 1) {
+			return null;
+		}
+		return new ModuleDeploymentId(guid.substring(0, underscore), guid.substring(underscore + 1));
+	}
+
 	@Override
 	public void undeploy(ModuleDeploymentId id) {
 		receptorClient.deleteDesiredLRP(guid(id));
+		invalidateSnapshot();
 	}
 
 	@Override
 	public ModuleStatus status(ModuleDeploymentId id) {
-		ModuleStatus.Builder builder = ModuleStatus.of(id);
-
 		// todo: if the actual LRP is not found, search for the desired LRP to verify
 		// that the LRP is known to Lattice
-		for (ActualLRPResponse lrp : receptorClient.getActualLRPsByProcessGuid(guid(id))) {
+		List<ActualLRPResponse> lrps = stateTracker != null && stateTracker.isSynchronized() ?
+				stateTracker.getActualLRPs(guid(id)) : getSnapshot().get(guid(id));
+		return buildModuleStatus(id, isDeployedHere(lrps) ? lrps : null);
+	}
+
+	@Override
+	public Map<ModuleDeploymentId, ModuleStatus> status() {
+		Map<ModuleDeploymentId, ModuleStatus> statuses = new HashMap<>();
+		Map<String, List<ActualLRPResponse>> lrps = stateTracker != null && stateTracker.isSynchronized() ?
+				stateTracker.getActualLRPs() : getSnapshot();
+		for (Map.Entry<String, List<ActualLRPResponse>> entry : lrps.entrySet()) {
+			ModuleDeploymentId id = moduleDeploymentId(entry.getKey());
+			if (id != null && isDeployedHere(entry.getValue())) {
+				statuses.put(id, buildModuleStatus(id, entry.getValue()));
+			}
+		}
+		return statuses;
+	}
+
+	/**
+	 * Return whether the given instances of an LRP belong to the domain of this deployer.
+	 */
+	private boolean isDeployedHere(List<ActualLRPResponse> lrps) {
+		return lrps != null && !lrps.isEmpty() && DOMAIN.equals(lrps.get(0).getDomain());
+	}
+
+	/**
+	 * Return the actual LRPs by process guid, fetching them all if the current snapshot
+	 * is missing or too old.
+	 */
+	private synchronized Map<String, List<ActualLRPResponse>> getSnapshot() {
+		if (snapshot == null || System.nanoTime() - snapshot.timestamp > TimeUnit.MILLISECONDS.toNanos(statusSnapshotTtl)) {
+			Map<String, List<ActualLRPResponse>> lrps = new HashMap<>();
+			for (ActualLRPResponse lrp : receptorClient.getActualLRPs()) {
+				List<ActualLRPResponse> instances = lrps.get(lrp.getProcessGuid());
+				if (instances == null) {
+					instances = new ArrayList<>();
+					lrps.put(lrp.getProcessGuid(), instances);
+				}
+				instances.add(lrp);
+			}
+			snapshot = new Snapshot(lrps);
+		}
+		return snapshot.lrps;
+	}
+
+	private synchronized void invalidateSnapshot() {
+		snapshot = null;
+	}
+
+	private ModuleStatus buildModuleStatus(ModuleDeploymentId id, List<ActualLRPResponse> lrps) {
+		ModuleStatus.Builder builder = ModuleStatus.of(id);
+		if (lrps == null) {
+			return builder.build();
+		}
+		for (ActualLRPResponse lrp : lrps) {
 			Map<String, String> attributes = new HashMap<>();
 			attributes.put("address", lrp.getAddress());
 			attributes.put("cellId", lrp.getCellId());
@@ -139,9 +247,18 @@ public class LrpModuleDeployer implements ModuleDeployer {
 		return builder.build();
 	}
 
-	@Override
-	public Map<ModuleDeploymentId, ModuleStatus> status() {
-		throw new UnsupportedOperationException();
+	/**
+	 * All the actual LRPs, by process guid, as fetched at some point in time.
+	 */
+	private static class Snapshot {
+
+		private final Map<String, List<ActualLRPResponse>> lrps;
+
+		private final long timestamp = System.nanoTime();
+
+		private Snapshot(Map<String, List<ActualLRPResponse>> lrps) {
+			this.lrps = lrps;
+		}
 	}
 
 	private static class StatusMapper {
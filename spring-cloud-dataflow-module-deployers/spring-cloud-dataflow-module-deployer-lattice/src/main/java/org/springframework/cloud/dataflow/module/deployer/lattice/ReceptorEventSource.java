@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.lattice;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.cloudfoundry.receptor.commands.ActualLRPResponse;
+
+/**
+ * A source of the events the Receptor publishes when actual LRPs change.
+ *
+ * @see HttpReceptorEventSource
+ * @see ReceptorStateTracker
+ */
+public interface ReceptorEventSource {
+
+	public static final String ACTUAL_LRP_CREATED = "actual_lrp_created";
+
+	public static final String ACTUAL_LRP_CHANGED = "actual_lrp_changed";
+
+	public static final String ACTUAL_LRP_REMOVED = "actual_lrp_removed";
+
+	/**
+	 * Connect to the event stream. Only the events that happen after this returns are
+	 * guaranteed to be received.
+	 */
+	EventStream connect() throws IOException;
+
+	/**
+	 * A connection to the event stream, which should be closed once done with.
+	 */
+	interface EventStream extends Closeable {
+
+		/**
+		 * Block until the next event about an actual LRP is received, and return it, or
+		 * return {@code null} if the stream ended.
+		 *
+		 * @throws java.net.SocketTimeoutException if nothing was received for a while,
+		 * which may mean that the connection silently went away
+		 */
+		Event next() throws IOException;
+	}
+
+	/**
+	 * An event about an actual LRP: its creation, a change (in which case the LRP is the
+	 * one after the change), or its removal.
+	 */
+	class Event {
+
+		private final String type;
+
+		private final ActualLRPResponse actualLRP;
+
+		public Event(String type, ActualLRPResponse actualLRP) {
+			this.type = type;
+			this.actualLRP = actualLRP;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		public ActualLRPResponse getActualLRP() {
+			return actualLRP;
+		}
+
+		@Override
+		public String toString() {
+			return type + "[" + actualLRP.getProcessGuid() + "/" + actualLRP.getIndex() + "]";
+		}
+	}
+
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.lattice;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudfoundry.receptor.client.ReceptorClient;
+import org.cloudfoundry.receptor.commands.ActualLRPResponse;
+import org.cloudfoundry.receptor.commands.TaskResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Keeps an in-memory copy of the state of the actual LRPs known to the Receptor, up to
+ * date by subscribing to its event stream, so that status queries do not cost a call to
+ * the Receptor each. On every (re)connection to the event stream, the state is
+ * re-synchronized with a full sweep of the actual LRPs. As events received while sweeping
+ * may be older than the sweep, an event is only applied to an instance if it is at least
+ * as recent as the state already known of it.
+ *
+ * <p>When the event stream has been quiet for so long that reading it timed out, which
+ * is how a half-open connection shows, the tracker reconnects and re-synchronizes right
+ * away.</p>
+ *
+ * <p>The Receptor does not publish events about tasks: those are fetched with a single
+ * sweep, at most once per {@link #setTaskSnapshotTtl(long) configured period}.</p>
+ */
+public class ReceptorStateTracker implements InitializingBean, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReceptorStateTracker.class);
+
+	private final ReceptorClient receptorClient;
+
+	private final ReceptorEventSource eventSource;
+
+	/**
+	 * Actual LRPs by process guid, then by index.
+	 */
+	private volatile ConcurrentMap<String, ConcurrentMap<Integer, ActualLRPResponse>> actualLRPs = new ConcurrentHashMap<>();
+
+	private volatile boolean synchronizedWithReceptor;
+
+	private volatile boolean running;
+
+	private volatile ReceptorEventSource.EventStream currentStream;
+
+	private Thread thread;
+
+	private long reconnectDelay = 5000L;
+
+	private long taskSnapshotTtl = 1000L;
+
+	private Map<String, TaskResponse> tasks;
+
+	private long tasksTimestamp;
+
+	public ReceptorStateTracker(ReceptorClient receptorClient, ReceptorEventSource eventSource) {
+		this.receptorClient = receptorClient;
+		this.eventSource = eventSource;
+	}
+
+	/**
+	 * Set how long to wait (in milliseconds) before reconnecting to the event stream once
+	 * the connection has been lost.
+	 */
+	public void setReconnectDelay(long reconnectDelay) {
+		this.reconnectDelay = reconnectDelay;
+	}
+
+	/**
+	 * Set for how long (in milliseconds) a sweep of the tasks is used before being fetched again.
+	 */
+	public void setTaskSnapshotTtl(long taskSnapshotTtl) {
+		this.taskSnapshotTtl = taskSnapshotTtl;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		running = true;
+		thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				track();
+			}
+		}, "receptor-state-tracker");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		running = false;
+		closeCurrentStream();
+		if (thread != null) {
+			thread.interrupt();
+			thread.join(reconnectDelay);
+		}
+	}
+
+	/**
+	 * Whether the state is currently kept up to date from the event stream. If not, callers
+	 * should query the Receptor themselves.
+	 */
+	public boolean isSynchronized() {
+		return synchronizedWithReceptor;
+	}
+
+	/**
+	 * Return the actual LRPs of the given process, which may be empty.
+	 */
+	public List<ActualLRPResponse> getActualLRPs(String processGuid) {
+		Map<Integer, ActualLRPResponse> instances = actualLRPs.get(processGuid);
+		return instances == null ? Collections.<ActualLRPResponse>emptyList() : new ArrayList<>(instances.values());
+	}
+
+	/**
+	 * Return all the actual LRPs, by process guid.
+	 */
+	public Map<String, List<ActualLRPResponse>> getActualLRPs() {
+		Map<String, List<ActualLRPResponse>> result = new HashMap<>();
+		for (Map.Entry<String, ConcurrentMap<Integer, ActualLRPResponse>> entry : actualLRPs.entrySet()) {
+			if (!entry.getValue().isEmpty()) {
+				result.put(entry.getKey(), new ArrayList<>(entry.getValue().values()));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the task with the given guid, or {@code null} if there is none.
+	 */
+	public synchronized TaskResponse getTask(String taskGuid) {
+		if (tasks == null || System.nanoTime() - tasksTimestamp > TimeUnit.MILLISECONDS.toNanos(taskSnapshotTtl)) {
+			Map<String, TaskResponse> sweep = new HashMap<>();
+			for (TaskResponse task : receptorClient.getTasks()) {
+				sweep.put(task.getTaskGuid(), task);
+			}
+			tasks = sweep;
+			tasksTimestamp = System.nanoTime();
+		}
+		return tasks.get(taskGuid);
+	}
+
+	/**
+	 * Connect to the event stream, re-synchronize, then apply events until the connection
+	 * is lost, and start over, until stopped.
+	 */
+	private void track() {
+		while (running) {
+			boolean quiet = false;
+			try (ReceptorEventSource.EventStream stream = eventSource.connect()) {
+				currentStream = stream;
+				// After connecting, so that no change is missed
+				resynchronize();
+				synchronizedWithReceptor = true;
+				logger.info("Tracking the state of actual LRPs from the Receptor event stream");
+				ReceptorEventSource.Event event;
+				while (running && (event = stream.next()) != null) {
+					apply(event);
+				}
+			}
+			catch (SocketTimeoutException e) {
+				quiet = true;
+				logger.debug("No event received from the Receptor for a while, reconnecting");
+			}
+			catch (IOException | RuntimeException e) {
+				if (running) {
+					logger.warn("Lost connection to the Receptor event stream, reconnecting in {}ms", reconnectDelay, e);
+				}
+			}
+			finally {
+				synchronizedWithReceptor = false;
+				currentStream = null;
+			}
+			if (running && !quiet) {
+				try {
+					Thread.sleep(reconnectDelay);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	private void resynchronize() {
+		ConcurrentMap<String, ConcurrentMap<Integer, ActualLRPResponse>> sweep = new ConcurrentHashMap<>();
+		for (ActualLRPResponse lrp : receptorClient.getActualLRPs()) {
+			instancesOf(sweep, lrp.getProcessGuid()).put(lrp.getIndex(), lrp);
+		}
+		actualLRPs = sweep;
+	}
+
+	private void apply(ReceptorEventSource.Event event) {
+		ActualLRPResponse lrp = event.getActualLRP();
+		logger.debug("Received {}", event);
+		switch (event.getType()) {
+			case ReceptorEventSource.ACTUAL_LRP_CREATED:
+			case ReceptorEventSource.ACTUAL_LRP_CHANGED:
+				Map<Integer, ActualLRPResponse> instances = instancesOf(actualLRPs, lrp.getProcessGuid());
+				if (isStale(lrp, instances.get(lrp.getIndex()))) {
+					logger.debug("Ignoring {}, older than the known state", event);
+				}
+				else {
+					instances.put(lrp.getIndex(), lrp);
+				}
+				break;
+			case ReceptorEventSource.ACTUAL_LRP_REMOVED:
+				instances = actualLRPs.get(lrp.getProcessGuid());
+				if (instances != null && !isStale(lrp, instances.get(lrp.getIndex()))) {
+					instances.remove(lrp.getIndex());
+				}
+				break;
+			default:
+				// not about actual LRPs
+		}
+	}
+
+	/**
+	 * Whether the given state of an instance is older than the known one, as told by when
+	 * they were last updated.
+	 */
+	private static boolean isStale(ActualLRPResponse lrp, ActualLRPResponse known) {
+		return known != null && lrp.getSince() < known.getSince();
+	}
+
+	private static ConcurrentMap<Integer, ActualLRPResponse> instancesOf(
+			ConcurrentMap<String, ConcurrentMap<Integer, ActualLRPResponse>> lrps, String processGuid) {
+		ConcurrentMap<Integer, ActualLRPResponse> instances = lrps.get(processGuid);
+		if (instances == null) {
+			lrps.putIfAbsent(processGuid, new ConcurrentHashMap<Integer, ActualLRPResponse>());
+			instances = lrps.get(processGuid);
+		}
+		return instances;
+	}
+
+	private void closeCurrentStream() {
+		ReceptorEventSource.EventStream stream = currentStream;
+		if (stream != null) {
+			try {
+				stream.close();
+			}
+			catch (IOException e) {
+				// ignored
+			}
+		}
+	}
+
+}
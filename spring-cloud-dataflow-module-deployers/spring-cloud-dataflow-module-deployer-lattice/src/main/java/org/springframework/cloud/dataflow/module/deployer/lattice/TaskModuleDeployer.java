@@ -46,10 +46,28 @@ public class TaskModuleDeployer implements ModuleDeployer {
 
 	public static final String DOCKER_PATH = "docker:///springcloud/stream-module-launcher";
 
-	private final ReceptorClient receptorClient = new ReceptorClient();
+	private final ReceptorClient receptorClient;
 
 	private final StatusMapper statusMapper = new StatusMapper();
 
+	private ReceptorStateTracker stateTracker;
+
+	public TaskModuleDeployer() {
+		this(new ReceptorClient());
+	}
+
+	public TaskModuleDeployer(ReceptorClient receptorClient) {
+		this.receptorClient = receptorClient;
+	}
+
+	/**
+	 * Set the tracker used to answer status queries, instead of fetching each task from
+	 * the Receptor.
+	 */
+	public void setStateTracker(ReceptorStateTracker stateTracker) {
+		this.stateTracker = stateTracker;
+	}
+
 	@Override
 	public ModuleDeploymentId deploy(ModuleDeploymentRequest request) {
 		ModuleDeploymentId id =
@@ -111,7 +129,7 @@ public class TaskModuleDeployer implements ModuleDeployer {
 
 		// todo: if the actual Task is not found, search for the desired Task to verify
 		// that the Task is known to Lattice
-		TaskResponse task = receptorClient.getTask(guid(id));
+		TaskResponse task = stateTracker != null ? stateTracker.getTask(guid(id)) : receptorClient.getTask(guid(id));
 
 		if(task != null) {
 			Map<String, String> attributes = new HashMap<>();
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.lattice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.cloudfoundry.receptor.client.ReceptorClient;
+import org.cloudfoundry.receptor.commands.ActualLRPResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
+import org.springframework.cloud.dataflow.module.ModuleStatus;
+
+/**
+ * Tests for the status operations of {@link LrpModuleDeployer}, against a stubbed
+ * {@link ReceptorClient}.
+ */
+public class LrpModuleDeployerTests {
+
+	private ReceptorClient receptorClient = mock(ReceptorClient.class);
+
+	private LrpModuleDeployer deployer = new LrpModuleDeployer(receptorClient, "receptor.example.com");
+
+	@Before
+	public void setUp() {
+		deployer.setStatusSnapshotTtl(60000L);
+		when(receptorClient.getActualLRPs()).thenReturn(Arrays.asList(
+				lrp("ticktock_time", 0, "RUNNING"),
+				lrp("ticktock_log", 0, "RUNNING"),
+				lrp("ticktock_log", 1, "CRASHED"),
+				lrp("my_stream_log", 0, "CLAIMED"),
+				lrp("lattice-app_web", 0, "RUNNING", "lattice")));
+	}
+
+	@Test
+	public void bulkStatus() {
+		Map<ModuleDeploymentId, ModuleStatus> statuses = deployer.status();
+		assertEquals(3, statuses.size());
+		assertEquals(ModuleStatus.State.deployed, statuses.get(new ModuleDeploymentId("ticktock", "time")).getState());
+		assertEquals(2, statuses.get(new ModuleDeploymentId("ticktock", "log")).getInstances().size());
+		assertEquals(ModuleStatus.State.deploying, statuses.get(new ModuleDeploymentId("my_stream", "log")).getState());
+	}
+
+	@Test
+	public void moduleStatusesShareOneSweep() {
+		assertEquals(ModuleStatus.State.deployed, deployer.status(new ModuleDeploymentId("ticktock", "time")).getState());
+		assertEquals(2, deployer.status(new ModuleDeploymentId("ticktock", "log")).getInstances().size());
+		assertEquals(0, deployer.status(new ModuleDeploymentId("ticktock", "other")).getInstances().size());
+		verify(receptorClient, times(1)).getActualLRPs();
+		verify(receptorClient, never()).getActualLRPsByProcessGuid(any(String.class));
+
+		deployer.undeploy(new ModuleDeploymentId("ticktock", "time"));
+		deployer.status(new ModuleDeploymentId("ticktock", "time"));
+		verify(receptorClient, times(2)).getActualLRPs();
+	}
+
+	@Test
+	public void lrpsOfOtherDomainsAreIgnored() {
+		assertFalse(deployer.status().containsKey(new ModuleDeploymentId("lattice-app", "web")));
+		assertEquals(0, deployer.status(new ModuleDeploymentId("lattice-app", "web")).getInstances().size());
+	}
+
+	private ActualLRPResponse lrp(String processGuid, int index, String state) {
+		return lrp(processGuid, index, state, LrpModuleDeployer.DOMAIN);
+	}
+
+	private ActualLRPResponse lrp(String processGuid, int index, String state, String domain) {
+		ActualLRPResponse lrp = mock(ActualLRPResponse.class);
+		when(lrp.getProcessGuid()).thenReturn(processGuid);
+		when(lrp.getDomain()).thenReturn(domain);
+		when(lrp.getInstanceGuid()).thenReturn(processGuid + "-" + index);
+		when(lrp.getIndex()).thenReturn(index);
+		when(lrp.getState()).thenReturn(state);
+		return lrp;
+	}
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.lattice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.cloudfoundry.receptor.client.ReceptorClient;
+import org.cloudfoundry.receptor.commands.ActualLRPResponse;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ReceptorStateTracker}, against a local stub of the event stream.
+ */
+public class ReceptorStateTrackerTests {
+
+	private final ReceptorClient receptorClient = mock(ReceptorClient.class);
+
+	private final StubEventSource eventSource = new StubEventSource();
+
+	private final ReceptorStateTracker tracker = new ReceptorStateTracker(receptorClient, eventSource);
+
+	@After
+	public void tearDown() throws Exception {
+		tracker.destroy();
+	}
+
+	@Test
+	public void eventsAreAppliedAfterInitialSync() throws Exception {
+		when(receptorClient.getActualLRPs()).thenReturn(Arrays.asList(lrp("ticktock_log", 0, "CLAIMED")));
+		tracker.afterPropertiesSet();
+		awaitSynchronized();
+		assertEquals("CLAIMED", tracker.getActualLRPs("ticktock_log").get(0).getState());
+
+		eventSource.events.put(new ReceptorEventSource.Event(ReceptorEventSource.ACTUAL_LRP_CHANGED,
+				lrp("ticktock_log", 0, "RUNNING")));
+		eventSource.events.put(new ReceptorEventSource.Event(ReceptorEventSource.ACTUAL_LRP_CREATED,
+				lrp("ticktock_time", 0, "UNCLAIMED")));
+		awaitState("ticktock_time", "UNCLAIMED");
+		assertEquals("RUNNING", tracker.getActualLRPs("ticktock_log").get(0).getState());
+
+		eventSource.events.put(new ReceptorEventSource.Event(ReceptorEventSource.ACTUAL_LRP_REMOVED,
+				lrp("ticktock_log", 0, "RUNNING")));
+		eventSource.events.put(new ReceptorEventSource.Event(ReceptorEventSource.ACTUAL_LRP_CHANGED,
+				lrp("ticktock_time", 0, "RUNNING")));
+		awaitState("ticktock_time", "RUNNING");
+		assertTrue(tracker.getActualLRPs("ticktock_log").isEmpty());
+		assertEquals(Collections.singleton("ticktock_time"), tracker.getActualLRPs().keySet());
+		verify(receptorClient, times(1)).getActualLRPs();
+	}
+
+	@Test
+	public void resynchronizesOnReconnect() throws Exception {
+		when(receptorClient.getActualLRPs())
+				.thenReturn(Arrays.asList(lrp("ticktock_log", 0, "CLAIMED")))
+				.thenReturn(Arrays.asList(lrp("ticktock_log", 0, "CRASHED")));
+		tracker.setReconnectDelay(10L);
+		tracker.afterPropertiesSet();
+		awaitSynchronized();
+
+		eventSource.events.put(StubEventSource.DISCONNECT);
+		awaitState("ticktock_log", "CRASHED");
+		assertTrue(tracker.isSynchronized());
+		assertEquals(2, eventSource.connections);
+		verify(receptorClient, times(2)).getActualLRPs();
+	}
+
+	@Test
+	public void staleEventsDoNotOverwriteTheSweep() throws Exception {
+		when(receptorClient.getActualLRPs()).thenReturn(Arrays.asList(lrp("ticktock_log", 0, "RUNNING", 2L)));
+		tracker.afterPropertiesSet();
+		awaitSynchronized();
+
+		// Received while sweeping, but about changes the sweep already saw
+		eventSource.events.put(new ReceptorEventSource.Event(ReceptorEventSource.ACTUAL_LRP_CHANGED,
+				lrp("ticktock_log", 0, "CLAIMED", 1L)));
+		eventSource.events.put(new ReceptorEventSource.Event(ReceptorEventSource.ACTUAL_LRP_REMOVED,
+				lrp("ticktock_log", 0, "CLAIMED", 1L)));
+		eventSource.events.put(new ReceptorEventSource.Event(ReceptorEventSource.ACTUAL_LRP_CREATED,
+				lrp("ticktock_time", 0, "UNCLAIMED", 3L)));
+		awaitState("ticktock_time", "UNCLAIMED");
+		assertEquals("RUNNING", tracker.getActualLRPs("ticktock_log").get(0).getState());
+	}
+
+	@Test
+	public void resynchronizesRightAwayWhenQuiet() throws Exception {
+		when(receptorClient.getActualLRPs())
+				.thenReturn(Arrays.asList(lrp("ticktock_log", 0, "CLAIMED")))
+				.thenReturn(Arrays.asList(lrp("ticktock_log", 0, "RUNNING")));
+		tracker.setReconnectDelay(60000L);
+		tracker.afterPropertiesSet();
+		awaitSynchronized();
+
+		eventSource.events.put(StubEventSource.TIMEOUT);
+		awaitState("ticktock_log", "RUNNING");
+		assertEquals(2, eventSource.connections);
+	}
+
+	private void awaitSynchronized() throws InterruptedException {
+		for (int i = 0; i < 500 && !tracker.isSynchronized(); i++) {
+			Thread.sleep(10L);
+		}
+		assertTrue(tracker.isSynchronized());
+	}
+
+	private void awaitState(String processGuid, String state) throws InterruptedException {
+		for (int i = 0; i < 500 && !hasState(processGuid, state); i++) {
+			Thread.sleep(10L);
+		}
+		assertTrue(hasState(processGuid, state));
+	}
+
+	private boolean hasState(String processGuid, String state) {
+		for (ActualLRPResponse lrp : tracker.getActualLRPs(processGuid)) {
+			if (state.equals(lrp.getState())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private ActualLRPResponse lrp(String processGuid, int index, String state) {
+		return lrp(processGuid, index, state, 0L);
+	}
+
+	private ActualLRPResponse lrp(String processGuid, int index, String state, long since) {
+		ActualLRPResponse lrp = mock(ActualLRPResponse.class);
+		when(lrp.getProcessGuid()).thenReturn(processGuid);
+		when(lrp.getIndex()).thenReturn(index);
+		when(lrp.getState()).thenReturn(state);
+		when(lrp.getSince()).thenReturn(since);
+		return lrp;
+	}
+
+	/**
+	 * An event source whose events are the ones put in a queue, where
+	 * {@link #DISCONNECT} ends the current stream and {@link #TIMEOUT} times it out.
+	 */
+	private static class StubEventSource implements ReceptorEventSource {
+
+		private static final Event DISCONNECT = new Event("disconnect", null);
+
+		private static final Event TIMEOUT = new Event("timeout", null);
+
+		private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+
+		private volatile int connections;
+
+		@Override
+		public EventStream connect() {
+			connections++;
+			return new EventStream() {
+
+				@Override
+				public Event next() throws IOException {
+					try {
+						Event event = events.take();
+						if (event == TIMEOUT) {
+							throw new SocketTimeoutException("Read timed out");
+						}
+						return event == DISCONNECT ? null : event;
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new IOException(e);
+					}
+				}
+
+				@Override
+				public void close() {
+				}
+			};
+		}
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.local;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.loader.LaunchedURLClassLoader;
+import org.springframework.boot.loader.archive.JarFileArchive;
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.stream.module.launcher.ModuleJarLauncher;
+import org.springframework.cloud.stream.module.launcher.ModuleLaunchRequest;
+import org.springframework.cloud.stream.module.launcher.ModuleLauncher;
+import org.springframework.cloud.stream.module.resolver.Coordinates;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+
+/**
+ * A {@link ModuleLauncher} that loads the libraries of a module (the jars nested in its
+ * archive) with a class loader shared by all the instances launched from the same archive,
+ * taken from a {@link ModuleClassLoaderCache}. Only the classes at the root of the module
+ * archive are loaded by a class loader of their own.
+ *
+ * <p>Each launch holds a reference to the shared class loader, that must be given back with
+ * {@link #release(ModuleLaunchRequest)} once the launched module has stopped.</p>
+ */
+public class ClassLoaderSharingModuleLauncher extends ModuleLauncher implements ModuleLaunchReleaser {
+
+	private static final Logger logger = LoggerFactory.getLogger(ClassLoaderSharingModuleLauncher.class);
+
+	private final ModuleResolver moduleResolver;
+
+	private final ModuleClassLoaderCache classLoaderCache;
+
+	/**
+	 * Checksums of the archives of running module instances, by launch request.
+	 */
+	private final Map<ModuleLaunchRequest, String> launched = new IdentityHashMap<>();
+
+	public ClassLoaderSharingModuleLauncher(ModuleResolver moduleResolver, ModuleClassLoaderCache classLoaderCache) {
+		super(moduleResolver);
+		this.moduleResolver = moduleResolver;
+		this.classLoaderCache = classLoaderCache;
+	}
+
+	@Override
+	public void launch(List<ModuleLaunchRequest> requests) {
+		for (ModuleLaunchRequest request : requests) {
+			launch(request);
+		}
+	}
+
+	/**
+	 * Release the shared class loader reference held by the instance launched by the given request.
+	 */
+	@Override
+	public void release(ModuleLaunchRequest request) {
+		String checksum;
+		synchronized (launched) {
+			checksum = launched.remove(request);
+		}
+		if (checksum != null) {
+			classLoaderCache.release(checksum);
+		}
+	}
+
+	private void launch(ModuleLaunchRequest request) {
+		String module = request.getModule();
+		try {
+			ArtifactCoordinates coordinates = ArtifactCoordinates.parse(module);
+			File archive = moduleResolver.resolve(new Coordinates(coordinates.getGroupId(),
+					coordinates.getArtifactId(), coordinates.getExtension(), coordinates.getClassifier(),
+					coordinates.getVersion())).getFile();
+			String checksum = classLoaderCache.checksum(archive);
+			List<String> args = new ArrayList<>();
+			for (Map.Entry<String, String> entry : request.getArguments().entrySet()) {
+				args.add(String.format("--%s=%s", entry.getKey(), entry.getValue()));
+			}
+			logger.info("launching module: {} (libraries {})", module, checksum);
+			SharingModuleJarLauncher launcher = new SharingModuleJarLauncher(new JarFileArchive(archive), checksum);
+			try {
+				launcher.run(args.toArray(new String[args.size()]));
+			}
+			catch (Exception e) {
+				if (launcher.acquired) {
+					classLoaderCache.release(checksum);
+				}
+				throw e;
+			}
+			synchronized (launched) {
+				launched.put(request, checksum);
+			}
+		}
+		catch (Exception e) {
+			throw new IllegalStateException("failed to launch module: " + module, e);
+		}
+	}
+
+	/**
+	 * Launches a module with a class loader for its own classes, whose parent loads the
+	 * module libraries and is shared.
+	 */
+	private class SharingModuleJarLauncher extends ModuleJarLauncher {
+
+		private final String checksum;
+
+		private boolean acquired;
+
+		private SharingModuleJarLauncher(JarFileArchive archive, String checksum) {
+			super(archive);
+			this.checksum = checksum;
+		}
+
+		private void run(String[] args) throws Exception {
+			launch(args);
+		}
+
+		@Override
+		protected ClassLoader createClassLoader(URL[] urls) throws Exception {
+			URL root = getArchive().getUrl();
+			final List<URL> libraries = new ArrayList<>();
+			for (URL url : urls) {
+				if (!url.equals(root)) {
+					libraries.add(url);
+				}
+			}
+			ClassLoader shared = classLoaderCache.acquire(checksum, new Callable<ClassLoader>() {
+
+				@Override
+				public ClassLoader call() throws Exception {
+					return SharingModuleJarLauncher.super.createClassLoader(libraries.toArray(new URL[libraries.size()]));
+				}
+			});
+			acquired = true;
+			return new LaunchedURLClassLoader(new URL[] {root}, shared);
+		}
+	}
+
+}
@@ -16,102 +16,383 @@
 
 package org.springframework.cloud.dataflow.module.deployer.local;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.cloud.dataflow.core.BindingProperties;
 import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
 import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
 import org.springframework.cloud.dataflow.module.ModuleStatus;
+import org.springframework.cloud.dataflow.module.deployer.ColocatingModuleDeployer;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
 import org.springframework.cloud.stream.module.launcher.ModuleLaunchRequest;
 import org.springframework.cloud.stream.module.launcher.ModuleLauncher;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.util.Assert;
-import org.springframework.util.SocketUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
 /**
- * A {@link ModuleDeployer} that will launch a module in-process.
+ * A {@link ModuleDeployer} that will launch a module in-process. As many instances as
+ * requested are launched, each one listening on its own port, taken from a
+ * {@link PortAllocator}. The state of instances is the one last observed by a
+ * {@link LocalModuleStatusMonitor}.
+ *
+ * <p>Un-deployment asks all the instances of a module to shut down concurrently, and
+ * returns once they all acknowledged (or failed to within the configured timeout). The
+ * instances that are still running after a grace period are then forcibly stopped, by the
+ * launcher if it is a {@link ModuleLaunchTerminator} or else through JMX, and the time it
+ * took is recorded in {@link UndeployStatistics}.</p>
+ *
+ * <p>Co-located modules are launched as a single aggregate, in which they are bound to
+ * each other through in-memory channels. Such an aggregate is a single instance, listening
+ * on a single port, whose state is reported for each of its modules.</p>
  *
  * @author Mark Fisher
  * @author Marius Bogoevici
  * @author Eric Bottard
  */
-public class LocalModuleDeployer implements ModuleDeployer {
+public class LocalModuleDeployer implements ColocatingModuleDeployer, Closeable {
 
 	private static final Logger logger = LoggerFactory.getLogger(LocalModuleDeployer.class);
 
 	private final ModuleLauncher launcher;
 
-	private final Map<ModuleDeploymentId, URL> deployedModules = new HashMap<>();
+	private final PortAllocator portAllocator;
+
+	private final LocalModuleStatusMonitor statusMonitor;
+
+	private final ConcurrentMap<ModuleDeploymentId, List<Instance>> deployedModules = new ConcurrentHashMap<>();
+
+	private final SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+
+	private final RestTemplate restTemplate = new RestTemplate(requestFactory);
 
-	private final RestTemplate restTemplate = new RestTemplate();
+	private final ExecutorService shutdownExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "module-shutdown-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private long gracePeriod = 10000L;
+
+	private UndeployStatistics undeployStatistics = new UndeployStatistics();
 
 	public LocalModuleDeployer(ModuleLauncher launcher) {
+		this(launcher, new PortAllocator(DEFAULT_SERVER_PORT, 65535));
+	}
+
+	public LocalModuleDeployer(ModuleLauncher launcher, PortAllocator portAllocator) {
+		this(launcher, portAllocator, new LocalModuleStatusMonitor());
+	}
+
+	public LocalModuleDeployer(ModuleLauncher launcher, PortAllocator portAllocator,
+			LocalModuleStatusMonitor statusMonitor) {
 		Assert.notNull(launcher, "Module launcher cannot be null");
+		Assert.notNull(portAllocator, "Port allocator cannot be null");
+		Assert.notNull(statusMonitor, "Status monitor cannot be null");
 		this.launcher = launcher;
+		this.portAllocator = portAllocator;
+		this.statusMonitor = statusMonitor;
+		setShutdownTimeout(5000);
+	}
+
+	/**
+	 * Set the connect and read timeout of shutdown requests, in milliseconds.
+	 */
+	public void setShutdownTimeout(int shutdownTimeout) {
+		this.requestFactory.setConnectTimeout(shutdownTimeout);
+		this.requestFactory.setReadTimeout(shutdownTimeout);
+	}
+
+	/**
+	 * Set how long instances are given to stop after having been asked to, in milliseconds,
+	 * before being forcibly stopped.
+	 */
+	public void setGracePeriod(long gracePeriod) {
+		this.gracePeriod = gracePeriod;
+	}
+
+	public void setUndeployStatistics(UndeployStatistics undeployStatistics) {
+		Assert.notNull(undeployStatistics, "Undeploy statistics cannot be null");
+		this.undeployStatistics = undeployStatistics;
+	}
+
+	public UndeployStatistics getUndeployStatistics() {
+		return undeployStatistics;
 	}
 
 	@Override
 	public ModuleDeploymentId deploy(ModuleDeploymentRequest request) {
 		String module = request.getCoordinates().toString();
-		if (request.getCount() != 1) {
-			logger.warn("{} only supports a single instance per module; ignoring count={} for {}",
-					this.getClass().getSimpleName(), request.getCount(), request.getDefinition().getLabel());
+		ModuleDeploymentId id = new ModuleDeploymentId(request.getDefinition().getGroup(),
+				request.getDefinition().getLabel());
+		List<Instance> instances = new CopyOnWriteArrayList<>();
+		if (this.deployedModules.putIfAbsent(id, instances) != null) {
+			throw new IllegalStateException(String.format("Module %s is already deployed", id));
 		}
+		int count = request.getCount();
 		Map<String, String> args = new HashMap<>();
 		args.putAll(request.getDefinition().getParameters());
 		args.putAll(request.getDeploymentProperties());
+		// Not a module property, even when the module could not be co-located
+		args.remove(COLOCATE_PROPERTY);
+		args.put("endpoints.shutdown.enabled", "true");
+		args.put("spring.main.show_banner", "false");
+		args.put("endpoints.jmx.unique-names", "true");
+		args.put(BindingProperties.INSTANCE_COUNT, String.valueOf(count));
 
-		logger.info("deploying module: {}", module);
-		int port;
-		if (args.containsKey(SERVER_PORT_KEY)) {
-			port = Integer.parseInt(args.get(SERVER_PORT_KEY));
+		logger.info("deploying module: {} ({} instance(s))", module, count);
+		List<Instance> launched = new ArrayList<>(count);
+		try {
+			for (int index = 0; index < count; index++) {
+				Map<String, String> instanceArgs = new HashMap<>(args);
+				int port;
+				if (args.containsKey(SERVER_PORT_KEY)) {
+					// An explicit port is used by the first instance, the next ones are given the following ports
+					port = Integer.parseInt(args.get(SERVER_PORT_KEY)) + index;
+					if (!portAllocator.reserve(port)) {
+						throw new IllegalStateException(String.format(
+								"Port %d requested for instance %d of %s is already in use by another module",
+								port, index, id));
+					}
+				}
+				else {
+					port = portAllocator.allocate();
+				}
+				String jmxDomain = String.format("%s.%s", request.getDefinition().getGroup(),
+						request.getDefinition().getLabel());
+				if (count > 1) {
+					jmxDomain += "." + index;
+				}
+				instanceArgs.put(SERVER_PORT_KEY, String.valueOf(port));
+				instanceArgs.put(BindingProperties.INSTANCE_INDEX, String.valueOf(index));
+				instanceArgs.put(JMX_DEFAULT_DOMAIN_KEY, jmxDomain);
+				ModuleLaunchRequest launchRequest = new ModuleLaunchRequest(module, instanceArgs);
+				instances.add(new Instance(launchRequest, index, port, urlFor(port, module), jmxDomain));
+			}
+			// One instance at a time, so that a failure tells which instances are running
+			for (Instance instance : instances) {
+				launcher.launch(Collections.singletonList(instance.launchRequest));
+				launched.add(instance);
+			}
+			for (Instance instance : instances) {
+				statusMonitor.watch(instanceId(id, instance), instance.url);
+			}
 		}
-		else {
-			port = SocketUtils.findAvailableTcpPort(DEFAULT_SERVER_PORT);
-			args.put(SERVER_PORT_KEY, String.valueOf(port));
+		catch (RuntimeException e) {
+			this.deployedModules.remove(id);
+			rollback(id, instances, launched);
+			throw e;
+		}
+		return id;
+	}
+
+	/**
+	 * Stop the instances of a failed deployment that did launch, and release the resources
+	 * of the other instances right away, and of the launched ones once they have stopped
+	 * (so that their ports are not handed out while still in use).
+	 */
+	private void rollback(final ModuleDeploymentId id, List<Instance> instances, final List<Instance> launched) {
+		List<Instance> notLaunched = new ArrayList<>(instances);
+		notLaunched.removeAll(launched);
+		release(notLaunched);
+		if (launched.isEmpty()) {
+			return;
+		}
+		logger.warn("stopping the {} launched instance(s) of failed deployment {}", launched.size(), id);
+		for (Instance instance : launched) {
+			forceShutdown(instance);
 		}
-		URL moduleUrl;
+		final long start = System.nanoTime();
 		try {
-			moduleUrl = new URL("http", Inet4Address.getLocalHost().getHostAddress(), port, "");
+			shutdownExecutor.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						awaitStopped(id, launched, start);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					finally {
+						release(launched);
+					}
+				}
+			});
 		}
-		catch (Exception e) {
-			throw new IllegalStateException("failed to determine URL for module: " + module, e);
+		catch (RejectedExecutionException e) {
+			// Closed meanwhile
+			release(launched);
 		}
-		args.put("endpoints.shutdown.enabled", "true");
-		args.put("spring.main.show_banner", "false");
-		args.put(JMX_DEFAULT_DOMAIN_KEY, String.format("%s.%s",
-				request.getDefinition().getGroup(), request.getDefinition().getLabel()));
-		args.put("endpoints.jmx.unique-names", "true");
-		ModuleLaunchRequest moduleLaunchRequest = new ModuleLaunchRequest(module, args);
-		launcher.launch(Collections.singletonList(moduleLaunchRequest));
-		ModuleDeploymentId id = new ModuleDeploymentId(request.getDefinition().getGroup(),
-				request.getDefinition().getLabel());
-		this.deployedModules.put(id, moduleUrl);
-		return id;
 	}
 
 	@Override
-	public void undeploy(ModuleDeploymentId id) {
-		URL url = this.deployedModules.get(id);
-		if (url != null) {
-			logger.info("undeploying module: {}", id);
-			this.restTemplate.postForObject(url + "/shutdown", null, String.class);
-			this.deployedModules.remove(id);
+	public List<ModuleDeploymentId> deploy(List<ModuleDeploymentRequest> requests) {
+		Assert.notEmpty(requests, "At least one module deployment request is required");
+		List<ModuleDeploymentId> ids = new ArrayList<>(requests.size());
+		List<String> labels = new ArrayList<>(requests.size());
+		for (ModuleDeploymentRequest request : requests) {
+			Assert.isTrue(request.getCount() == 1, "Co-located modules can only be deployed as a single instance");
+			ids.add(ModuleDeploymentId.fromModuleDefinition(request.getDefinition()));
+			labels.add(request.getDefinition().getLabel());
+		}
+		List<Instance> instances = new CopyOnWriteArrayList<>();
+		List<ModuleDeploymentId> registered = new ArrayList<>(ids.size());
+		try {
+			for (ModuleDeploymentId id : ids) {
+				if (this.deployedModules.putIfAbsent(id, instances) != null) {
+					throw new IllegalStateException(String.format("Module %s is already deployed", id));
+				}
+				registered.add(id);
+			}
+			List<ModuleLaunchRequest> launchRequests = new ArrayList<>(requests.size());
+			for (ModuleDeploymentRequest request : requests) {
+				Map<String, String> args = new HashMap<>();
+				args.putAll(request.getDefinition().getParameters());
+				args.putAll(request.getDeploymentProperties());
+				args.remove(COLOCATE_PROPERTY);
+				args.put(BindingProperties.INSTANCE_COUNT, "1");
+				args.put(BindingProperties.INSTANCE_INDEX, "0");
+				launchRequests.add(new ModuleLaunchRequest(request.getCoordinates().toString(), args));
+			}
+			String group = requests.get(0).getDefinition().getGroup();
+			String jmxDomain = String.format("%s.%s", group, StringUtils.collectionToDelimitedString(labels, "."));
+			String description = StringUtils.collectionToCommaDelimitedString(ids);
+			int port = portAllocator.allocate();
+			// The aggregate is the one process that listens, and that is asked to shut down
+			Map<String, String> aggregateArgs = new HashMap<>();
+			aggregateArgs.put(SERVER_PORT_KEY, String.valueOf(port));
+			aggregateArgs.put("endpoints.shutdown.enabled", "true");
+			aggregateArgs.put("spring.main.show_banner", "false");
+			aggregateArgs.put("endpoints.jmx.unique-names", "true");
+			aggregateArgs.put(JMX_DEFAULT_DOMAIN_KEY, jmxDomain);
+			Instance instance = new Instance(launchRequests.get(0), 0, port, urlFor(port, description), jmxDomain, ids);
+			instances.add(instance);
+
+			logger.info("deploying co-located modules: {}", description);
+			launcher.launch(launchRequests, true, aggregateArgs);
+			statusMonitor.watch(instanceId(ids.get(0), instance), instance.url);
+		}
+		catch (RuntimeException e) {
+			for (ModuleDeploymentId id : registered) {
+				this.deployedModules.remove(id, instances);
+			}
+			release(instances);
+			throw e;
+		}
+		return ids;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>If the module is part of a co-located group, the whole group is un-deployed.</p>
+	 */
+	@Override
+	public void undeploy(final ModuleDeploymentId id) {
+		final List<Instance> instances = this.deployedModules.remove(id);
+		if (instances == null) {
+			return;
 		}
+		for (Instance instance : instances) {
+			if (instance.colocated != null) {
+				for (ModuleDeploymentId member : instance.colocated) {
+					this.deployedModules.remove(member, instances);
+				}
+			}
+		}
+		logger.info("undeploying module: {}", id);
+		final long start = System.nanoTime();
+		List<Future<?>> shutdownRequests = new ArrayList<>();
+		for (final Instance instance : instances) {
+			statusMonitor.unwatch(instanceId(id, instance));
+			shutdownRequests.add(shutdownExecutor.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					restTemplate.postForObject(instance.url + "/shutdown", null, String.class);
+				}
+			}));
+		}
+		for (int i = 0; i < shutdownRequests.size(); i++) {
+			try {
+				// Already bounded by the request timeouts
+				shutdownRequests.get(i).get();
+			}
+			catch (ExecutionException e) {
+				logger.warn(String.format("Exception shutting down instance %d of module %s",
+						instances.get(i).index, id), e.getCause());
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		shutdownExecutor.submit(new Runnable() {
+
+			@Override
+			public void run() {
+				awaitTermination(id, instances, start);
+			}
+		});
 	}
 
 	@Override
 	public ModuleStatus status(ModuleDeploymentId id) {
-		boolean deployed = this.deployedModules.containsKey(id);
-		LocalModuleInstanceStatus status = new LocalModuleInstanceStatus(id.toString(), deployed, null);
-		return ModuleStatus.of(id).with(status).build();
+		List<Instance> instances = this.deployedModules.get(id);
+		ModuleStatus.Builder builder = ModuleStatus.of(id);
+		if (instances == null) {
+			builder.with(new LocalModuleInstanceStatus(id.toString(), false, null));
+		}
+		else {
+			for (Instance instance : instances) {
+				Map<String, String> attributes = new HashMap<>();
+				attributes.put("url", instance.url.toString());
+				attributes.put("port", String.valueOf(instance.port));
+				attributes.put("instanceIndex", String.valueOf(instance.index));
+				String instanceId = instanceId(id, instance);
+				long lastUpdated = statusMonitor.getLastUpdated(instanceId);
+				if (lastUpdated > 0) {
+					attributes.put("lastUpdated", String.valueOf(lastUpdated));
+				}
+				builder.with(new LocalModuleInstanceStatus(instanceId, statusMonitor.getState(instanceId), attributes));
+			}
+		}
+		return builder.build();
 	}
 
 	@Override
@@ -122,4 +403,165 @@ public class LocalModuleDeployer implements ModuleDeployer {
 		}
 		return statusMap;
 	}
+
+	/**
+	 * Wait for the given instances to stop listening, forcibly stopping the ones that have not
+	 * done so after the grace period, then release their ports and whatever the launcher
+	 * holds for them.
+	 */
+	private void awaitTermination(ModuleDeploymentId id, List<Instance> instances, long start) {
+		int forced = 0;
+		try {
+			forced = awaitStopped(id, instances, start);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			release(instances);
+			undeployStatistics.record(System.nanoTime() - start, forced);
+		}
+	}
+
+	/**
+	 * Wait for the given instances to stop listening, forcibly stopping the ones that have not
+	 * done so after the grace period.
+	 *
+	 * @return the number of instances that had to be forcibly stopped
+	 */
+	private int awaitStopped(ModuleDeploymentId id, List<Instance> instances, long start) throws InterruptedException {
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(gracePeriod);
+		int forced = 0;
+		for (Instance instance : instances) {
+			while (isListening(instance.port) && System.nanoTime() < deadline) {
+				Thread.sleep(100);
+			}
+			if (isListening(instance.port)) {
+				logger.warn("instance {} of module {} still running after {}ms, forcing shutdown",
+						instance.index, id, gracePeriod);
+				if (forceShutdown(instance)) {
+					forced++;
+				}
+			}
+		}
+		return forced;
+	}
+
+	/**
+	 * Have the launcher terminate the given instance if it can (<i>e.g.</i> by destroying
+	 * its process), or else invoke its shutdown endpoint through the platform MBean server,
+	 * which does not depend on the instance web container being responsive but only reaches
+	 * instances running in this JVM.
+	 *
+	 * @return whether the instance has actually been acted upon
+	 */
+	private boolean forceShutdown(Instance instance) {
+		try {
+			if (launcher instanceof ModuleLaunchTerminator
+					&& ((ModuleLaunchTerminator) launcher).terminate(instance.launchRequest)) {
+				return true;
+			}
+			boolean invoked = false;
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName pattern = new ObjectName(instance.jmxDomain + ":type=Endpoint,name=shutdownEndpoint,*");
+			for (ObjectName name : server.queryNames(pattern, null)) {
+				server.invoke(name, "shutdown", null, null);
+				invoked = true;
+			}
+			if (!invoked) {
+				logger.warn("Could not force shutdown of module instance at {}", instance.url);
+			}
+			return invoked;
+		}
+		catch (Exception e) {
+			logger.error("Exception forcing shutdown of module instance at " + instance.url, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Stop the threads used to shut instances down. Instances still within their grace
+	 * period are not waited for, but their ports and launcher resources are released.
+	 */
+	@Override
+	public void close() {
+		shutdownExecutor.shutdownNow();
+	}
+
+	private boolean isListening(int port) {
+		try (Socket socket = new Socket()) {
+			socket.connect(new InetSocketAddress("localhost", port), 500);
+			return true;
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	private String instanceId(ModuleDeploymentId id, Instance instance) {
+		if (instance.colocated != null) {
+			// Shared by all the modules of the group
+			id = instance.colocated.get(0);
+		}
+		return id + "-" + instance.index;
+	}
+
+	private URL urlFor(int port, String module) {
+		try {
+			return new URL("http", Inet4Address.getLocalHost().getHostAddress(), port, "");
+		}
+		catch (Exception e) {
+			throw new IllegalStateException("failed to determine URL for module: " + module, e);
+		}
+	}
+
+	/**
+	 * Release the ports of the given instances, and whatever the launcher holds for them.
+	 */
+	private void release(List<Instance> instances) {
+		for (Instance instance : instances) {
+			portAllocator.release(instance.port);
+			if (launcher instanceof ModuleLaunchReleaser) {
+				((ModuleLaunchReleaser) launcher).release(instance.launchRequest);
+			}
+		}
+	}
+
+	/**
+	 * A launched instance of a module.
+	 */
+	private static class Instance {
+
+		private final ModuleLaunchRequest launchRequest;
+
+		private final int index;
+
+		/**
+		 * The port obtained from the allocator, which should be given back.
+		 */
+		private final int port;
+
+		private final URL url;
+
+		private final String jmxDomain;
+
+		/**
+		 * The ids of the modules running in this instance, if it is a co-located group, or {@code null}.
+		 */
+		private final List<ModuleDeploymentId> colocated;
+
+		private Instance(ModuleLaunchRequest launchRequest, int index, int port, URL url, String jmxDomain) {
+			this(launchRequest, index, port, url, jmxDomain, null);
+		}
+
+		private Instance(ModuleLaunchRequest launchRequest, int index, int port, URL url, String jmxDomain,
+				List<ModuleDeploymentId> colocated) {
+			this.launchRequest = launchRequest;
+			this.index = index;
+			this.port = port;
+			this.url = url;
+			this.jmxDomain = jmxDomain;
+			this.colocated = colocated;
+		}
+	}
 }
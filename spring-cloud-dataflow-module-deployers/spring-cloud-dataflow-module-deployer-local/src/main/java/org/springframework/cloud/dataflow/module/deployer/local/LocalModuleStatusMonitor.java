@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.local;
+
+import java.io.Closeable;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.dataflow.module.ModuleStatus;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.HttpStatusCodeException;
+
+/**
+ * Periodically polls the {@literal /health} endpoint of locally launched module instances,
+ * and remembers the outcome, so that their state can be reported without making any
+ * remote call.
+ *
+ * <p>All the instances are polled at once from a single thread, through an
+ * {@link AsyncRestTemplate}: a slow or hung instance only delays its own result.</p>
+ */
+public class LocalModuleStatusMonitor implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(LocalModuleStatusMonitor.class);
+
+	private final AsyncRestTemplate restTemplate;
+
+	private final ConcurrentMap<String, Health> instances = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * Create a monitor polling every 5 seconds, with a 2 seconds timeout.
+	 */
+	public LocalModuleStatusMonitor() {
+		this(5000, 2000);
+	}
+
+	public LocalModuleStatusMonitor(long intervalMillis, int timeoutMillis) {
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(timeoutMillis);
+		requestFactory.setReadTimeout(timeoutMillis);
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("module-health-");
+		executor.setDaemon(true);
+		// Bounds the number of polls in flight, should some instances not answer
+		executor.setConcurrencyLimit(16);
+		requestFactory.setTaskExecutor(executor);
+		this.restTemplate = new AsyncRestTemplate(requestFactory);
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "module-health-poller");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.scheduler.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				poll();
+			}
+		}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Start monitoring the instance with the given id, that exposes its endpoints at the
+	 * given URL. It is reported as {@link ModuleStatus.State#deploying deploying} until it
+	 * first reports being healthy.
+	 */
+	public void watch(String instanceId, URL url) {
+		instances.put(instanceId, new Health(url.toString() + "/health"));
+	}
+
+	public void unwatch(String instanceId) {
+		instances.remove(instanceId);
+	}
+
+	/**
+	 * Return the state of the given instance, as of the last poll, or
+	 * {@link ModuleStatus.State#unknown} if it is not monitored.
+	 */
+	public ModuleStatus.State getState(String instanceId) {
+		Health health = instances.get(instanceId);
+		return health == null ? ModuleStatus.State.unknown : health.state;
+	}
+
+	/**
+	 * Return the time of the last poll result for the given instance, or 0 if there is none.
+	 */
+	public long getLastUpdated(String instanceId) {
+		Health health = instances.get(instanceId);
+		return health == null ? 0L : health.timestamp;
+	}
+
+	void poll() {
+		for (Map.Entry<String, Health> entry : instances.entrySet()) {
+			final Health health = entry.getValue();
+			if (health.inFlight) {
+				continue;
+			}
+			health.inFlight = true;
+			try {
+				restTemplate.getForEntity(health.url, String.class).addCallback(
+						new ListenableFutureCallback<ResponseEntity<String>>() {
+
+							@Override
+							public void onSuccess(ResponseEntity<String> response) {
+								health.update(ModuleStatus.State.deployed);
+							}
+
+							@Override
+							public void onFailure(Throwable t) {
+								if (t instanceof HttpStatusCodeException
+										&& ((HttpStatusCodeException) t).getStatusCode() == HttpStatus.NOT_FOUND) {
+									// No actuator health endpoint, but the module is up
+									health.update(ModuleStatus.State.deployed);
+								}
+								else if (t instanceof HttpStatusCodeException || health.up) {
+									// Either DOWN, or no longer answering after having been up
+									health.update(ModuleStatus.State.failed);
+								}
+								else {
+									// Still starting
+									health.update(ModuleStatus.State.deploying);
+								}
+							}
+						});
+			}
+			catch (RuntimeException e) {
+				health.inFlight = false;
+				logger.debug("Could not poll " + health.url, e);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * The last known health of an instance.
+	 */
+	private static class Health {
+
+		private final String url;
+
+		private volatile ModuleStatus.State state = ModuleStatus.State.deploying;
+
+		private volatile long timestamp;
+
+		private volatile boolean up;
+
+		private volatile boolean inFlight;
+
+		private Health(String url) {
+			this.url = url;
+		}
+
+		private void update(ModuleStatus.State state) {
+			this.state = state;
+			this.up |= state == ModuleStatus.State.deployed;
+			this.timestamp = System.currentTimeMillis();
+			this.inFlight = false;
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.local;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the class loaders of module libraries, so that the instances of modules launched
+ * from the same archive share them rather than each loading its own copy of every class.
+ * Class loaders are keyed by the checksum of the module archive, and reference counted:
+ * a class loader is closed once the last module instance using it has been released.
+ *
+ * @see ClassLoaderSharingModuleLauncher
+ */
+public class ModuleClassLoaderCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ModuleClassLoaderCache.class);
+
+	private final Map<String, Entry> entries = new HashMap<>();
+
+	/**
+	 * Checksums already computed, keyed by path, last modification time and length.
+	 */
+	private final ConcurrentMap<String, String> checksums = new ConcurrentHashMap<>();
+
+	/**
+	 * Return the class loader registered for the given checksum, creating it with the
+	 * given factory if there is none, and add a reference to it.
+	 */
+	public synchronized ClassLoader acquire(String checksum, Callable<ClassLoader> factory) throws Exception {
+		Entry entry = entries.get(checksum);
+		if (entry == null) {
+			entry = new Entry(factory.call());
+			entries.put(checksum, entry);
+		}
+		entry.references++;
+		return entry.classLoader;
+	}
+
+	/**
+	 * Remove a reference to the class loader registered for the given checksum, closing it
+	 * if it was the last one.
+	 */
+	public synchronized void release(String checksum) {
+		Entry entry = entries.get(checksum);
+		if (entry == null || --entry.references > 0) {
+			return;
+		}
+		entries.remove(checksum);
+		if (entry.classLoader instanceof Closeable) {
+			try {
+				((Closeable) entry.classLoader).close();
+			}
+			catch (IOException e) {
+				logger.warn("Exception closing shared module class loader", e);
+			}
+		}
+	}
+
+	/**
+	 * Return the number of class loaders currently held.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Return the SHA-1 checksum of the given file, as an hexadecimal string.
+	 */
+	public String checksum(File file) throws IOException {
+		String key = String.format("%s:%d:%d", file.getAbsolutePath(), file.lastModified(), file.length());
+		String checksum = checksums.get(key);
+		if (checksum == null) {
+			checksum = computeChecksum(file);
+			checksums.put(key, checksum);
+		}
+		return checksum;
+	}
+
+	private String computeChecksum(File file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		byte[] buffer = new byte[8192];
+		try (InputStream in = new FileInputStream(file)) {
+			for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	private static class Entry {
+
+		private final ClassLoader classLoader;
+
+		private int references;
+
+		private Entry(ClassLoader classLoader) {
+			this.classLoader = classLoader;
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.local;
+
+import org.springframework.cloud.stream.module.launcher.ModuleLaunchRequest;
+
+/**
+ * Implemented by {@link org.springframework.cloud.stream.module.launcher.ModuleLauncher}s
+ * that can forcibly stop the module instances they launched, <i>e.g.</i> by destroying the
+ * process an instance runs in.
+ */
+public interface ModuleLaunchTerminator {
+
+	/**
+	 * Forcibly stop the instance launched by the given request.
+	 *
+	 * @return whether the instance was known to this launcher, and has been stopped
+	 */
+	boolean terminate(ModuleLaunchRequest request);
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.local;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.util.Assert;
+
+/**
+ * Hands out TCP ports from a fixed range, never giving the same port twice until it has
+ * been {@link #release(int) released}, and skipping ports that are already bound. Ports are
+ * scanned sequentially (wrapping around), so that recently released ports are the last to
+ * be reused.
+ *
+ * <p>A single instance should be shared by all the deployers of a process, so that modules
+ * launched concurrently by different deployers can not be given the same port.</p>
+ */
+public class PortAllocator {
+
+	private final int minPort;
+
+	private final int maxPort;
+
+	private final Set<Integer> allocated = new HashSet<>();
+
+	private int next;
+
+	public PortAllocator(int minPort, int maxPort) {
+		Assert.isTrue(minPort > 0 && minPort <= maxPort && maxPort <= 65535,
+				String.format("Invalid port range [%d, %d]", minPort, maxPort));
+		this.minPort = minPort;
+		this.maxPort = maxPort;
+		this.next = minPort;
+	}
+
+	/**
+	 * Return a port that is neither allocated nor in use.
+	 *
+	 * @throws IllegalStateException if no such port is left in the range
+	 */
+	public synchronized int allocate() {
+		for (int i = minPort; i <= maxPort; i++) {
+			int port = next;
+			next = port == maxPort ? minPort : port + 1;
+			if (!allocated.contains(port) && isAvailable(port)) {
+				allocated.add(port);
+				return port;
+			}
+		}
+		throw new IllegalStateException(String.format("No available port in range [%d, %d]", minPort, maxPort));
+	}
+
+	/**
+	 * Mark the given port as allocated, if it is part of the range.
+	 *
+	 * @return whether the port was not already allocated
+	 */
+	public synchronized boolean reserve(int port) {
+		return port < minPort || port > maxPort || allocated.add(port);
+	}
+
+	public synchronized void release(int port) {
+		allocated.remove(port);
+	}
+
+	private boolean isAvailable(int port) {
+		try (ServerSocket socket = new ServerSocket(port)) {
+			return true;
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.local;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cumulative statistics about module un-deployments: how many happened, how long it took
+ * for all the instances of a module to stop, and how many instances had to be forcibly
+ * stopped because they did not stop by themselves in time.
+ */
+public class UndeployStatistics {
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong totalNanos = new AtomicLong();
+
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	private final AtomicLong forcedInstances = new AtomicLong();
+
+	public void record(long nanos, int forced) {
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		forcedInstances.addAndGet(forced);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public double getTotalMillis() {
+		return totalNanos.get() / 1e6d;
+	}
+
+	public double getMeanMillis() {
+		long n = count.get();
+		return n == 0 ? 0d : getTotalMillis() / n;
+	}
+
+	public double getMaxMillis() {
+		return maxNanos.get() / 1e6d;
+	}
+
+	public long getForcedInstances() {
+		return forcedInstances.get();
+	}
+
+}
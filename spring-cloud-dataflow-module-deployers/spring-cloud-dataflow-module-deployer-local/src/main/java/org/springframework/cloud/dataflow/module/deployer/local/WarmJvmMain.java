@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.local;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+
+import org.springframework.boot.loader.archive.JarFileArchive;
+import org.springframework.cloud.stream.module.launcher.ModuleJarLauncher;
+
+/**
+ * Entry point of the JVMs kept by a {@link WarmJvmPool}. Once started, waits for the
+ * description of a module to launch on its standard input: the path of the module
+ * archive, followed by the number of arguments and the arguments themselves, all written
+ * with {@link java.io.DataOutput#writeUTF(String)}.
+ *
+ * <p>Only depends on the Spring Boot loader and the module launcher, which are the only
+ * libraries on the class path of pooled JVMs: the module classes are loaded from its
+ * archive.</p>
+ */
+public final class WarmJvmMain {
+
+	private WarmJvmMain() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		// Load and initialize what every launch needs while waiting
+		Class.forName(ModuleJarLauncher.class.getName());
+		Class.forName(JarFileArchive.class.getName());
+
+		DataInputStream in = new DataInputStream(System.in);
+		String archive;
+		String[] moduleArgs;
+		try {
+			archive = in.readUTF();
+			moduleArgs = new String[in.readInt()];
+			for (int i = 0; i < moduleArgs.length; i++) {
+				moduleArgs[i] = in.readUTF();
+			}
+		}
+		catch (EOFException e) {
+			// The pool is being shut down
+			return;
+		}
+		new Launcher(new File(archive)).run(moduleArgs);
+	}
+
+	private static class Launcher extends ModuleJarLauncher {
+
+		private Launcher(File archive) throws Exception {
+			super(new JarFileArchive(archive));
+		}
+
+		private void run(String[] args) throws Exception {
+			launch(args);
+		}
+	}
+
+}
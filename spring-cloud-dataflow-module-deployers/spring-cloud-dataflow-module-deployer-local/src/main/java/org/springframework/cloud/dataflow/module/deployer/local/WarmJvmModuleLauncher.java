@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.local;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.stream.module.launcher.ModuleLaunchRequest;
+import org.springframework.cloud.stream.module.launcher.ModuleLauncher;
+import org.springframework.cloud.stream.module.resolver.Coordinates;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+
+/**
+ * A {@link ModuleLauncher} that launches each module instance in a process of its own,
+ * taken from a {@link WarmJvmPool}. Processes are not reused: releasing an instance
+ * destroys its process, should it still be running, and the pool starts fresh ones.
+ */
+public class WarmJvmModuleLauncher extends ModuleLauncher implements ModuleLaunchReleaser, ModuleLaunchTerminator {
+
+	private static final Logger logger = LoggerFactory.getLogger(WarmJvmModuleLauncher.class);
+
+	private final ModuleResolver moduleResolver;
+
+	private final WarmJvmPool pool;
+
+	private final Map<ModuleLaunchRequest, Process> processes = new IdentityHashMap<>();
+
+	public WarmJvmModuleLauncher(ModuleResolver moduleResolver, WarmJvmPool pool) {
+		super(moduleResolver);
+		this.moduleResolver = moduleResolver;
+		this.pool = pool;
+	}
+
+	@Override
+	public void launch(List<ModuleLaunchRequest> requests) {
+		for (ModuleLaunchRequest request : requests) {
+			launch(request);
+		}
+	}
+
+	@Override
+	public void release(ModuleLaunchRequest request) {
+		Process process;
+		synchronized (processes) {
+			process = processes.remove(request);
+		}
+		if (process != null) {
+			process.destroy();
+		}
+	}
+
+	/**
+	 * Destroy the process of the instance launched by the given request, which is still
+	 * to be released.
+	 */
+	@Override
+	public boolean terminate(ModuleLaunchRequest request) {
+		Process process;
+		synchronized (processes) {
+			process = processes.get(request);
+		}
+		if (process == null) {
+			return false;
+		}
+		process.destroy();
+		return true;
+	}
+
+	private void launch(ModuleLaunchRequest request) {
+		String module = request.getModule();
+		Process process = null;
+		try {
+			ArtifactCoordinates coordinates = ArtifactCoordinates.parse(module);
+			File archive = moduleResolver.resolve(new Coordinates(coordinates.getGroupId(),
+					coordinates.getArtifactId(), coordinates.getExtension(), coordinates.getClassifier(),
+					coordinates.getVersion())).getFile();
+			process = pool.take();
+			DataOutputStream out = new DataOutputStream(process.getOutputStream());
+			out.writeUTF(archive.getAbsolutePath());
+			out.writeInt(request.getArguments().size());
+			for (Map.Entry<String, String> entry : request.getArguments().entrySet()) {
+				out.writeUTF(String.format("--%s=%s", entry.getKey(), entry.getValue()));
+			}
+			out.close();
+			logger.info("launched module: {} in a pooled JVM", module);
+			synchronized (processes) {
+				processes.put(request, process);
+			}
+		}
+		catch (Exception e) {
+			if (process != null) {
+				process.destroy();
+			}
+			throw new IllegalStateException("failed to launch module: " + module, e);
+		}
+	}
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.local;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.loader.archive.JarFileArchive;
+import org.springframework.cloud.stream.module.launcher.ModuleJarLauncher;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Keeps a number of JVMs started ahead of time, running {@link WarmJvmMain}, so that a
+ * module can be launched in a process of its own without paying for JVM startup. The pool
+ * is topped up in the background every time a JVM is taken from it.
+ *
+ * <p>The output of each JVM is written to a file of its own in the log directory. Closing
+ * the pool destroys every JVM it started, including the ones that have been taken.</p>
+ */
+public class WarmJvmPool implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(WarmJvmPool.class);
+
+	private final int size;
+
+	private final List<String> javaOptions;
+
+	private final File logDirectory;
+
+	private final String classPath;
+
+	private final BlockingQueue<Process> ready = new LinkedBlockingQueue<>();
+
+	/**
+	 * All the JVMs started by this pool that may still be running, ready or taken.
+	 */
+	private final Set<Process> started = Collections.newSetFromMap(new ConcurrentHashMap<Process, Boolean>());
+
+	private final AtomicInteger processCount = new AtomicInteger();
+
+	private final ExecutorService starter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "warm-jvm-starter");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private volatile boolean closed;
+
+	/**
+	 * @param size the number of JVMs to keep ready
+	 * @param javaOptions options passed to each JVM, <i>e.g.</i> heap settings
+	 * @param logDirectory where the output of each JVM is written
+	 */
+	public WarmJvmPool(int size, List<String> javaOptions, File logDirectory) {
+		Assert.isTrue(size > 0, "Pool size must be positive");
+		this.size = size;
+		this.javaOptions = new ArrayList<>(javaOptions);
+		this.logDirectory = logDirectory;
+		this.classPath = classPathOf(WarmJvmMain.class, ModuleJarLauncher.class, JarFileArchive.class);
+		for (int i = 0; i < size; i++) {
+			topUp();
+		}
+	}
+
+	/**
+	 * Return a JVM started ahead of time, or start one right away if none is ready: this
+	 * never waits for the background top-up. The caller may destroy the returned process,
+	 * which is otherwise destroyed when the pool is closed.
+	 */
+	public Process take() throws IOException {
+		Assert.state(!closed, "Pool is closed");
+		topUp();
+		Process process;
+		while ((process = ready.poll()) != null) {
+			if (isAlive(process)) {
+				return process;
+			}
+		}
+		return start();
+	}
+
+	public int getReadyCount() {
+		return ready.size();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		starter.shutdownNow();
+		ready.clear();
+		for (Process process : started) {
+			process.destroy();
+		}
+		started.clear();
+	}
+
+	private void topUp() {
+		starter.submit(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					while (!closed && ready.size() < size) {
+						ready.add(start());
+					}
+				}
+				catch (IOException e) {
+					logger.warn("Exception starting pooled JVM", e);
+				}
+			}
+		});
+	}
+
+	private Process start() throws IOException {
+		for (Iterator<Process> iterator = started.iterator(); iterator.hasNext(); ) {
+			if (!isAlive(iterator.next())) {
+				iterator.remove();
+			}
+		}
+		logDirectory.mkdirs();
+		File log = new File(logDirectory, String.format("module-jvm-%d.log", processCount.incrementAndGet()));
+		List<String> command = new ArrayList<>();
+		command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+		command.addAll(javaOptions);
+		command.add("-cp");
+		command.add(classPath);
+		command.add(WarmJvmMain.class.getName());
+		logger.debug("starting pooled JVM: {}, output in {}", command, log);
+		Process process = new ProcessBuilder(command)
+				.redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+				.start();
+		started.add(process);
+		if (closed) {
+			// Raced with close()
+			process.destroy();
+		}
+		return process;
+	}
+
+	private static boolean isAlive(Process process) {
+		try {
+			process.exitValue();
+			return false;
+		}
+		catch (IllegalThreadStateException e) {
+			return true;
+		}
+	}
+
+	private static String classPathOf(Class<?>... classes) {
+		Collection<String> entries = new LinkedHashSet<>();
+		for (Class<?> type : classes) {
+			try {
+				entries.add(locationOf(type));
+			}
+			catch (Exception e) {
+				throw new IllegalStateException("Could not locate the class path entry of " + type, e);
+			}
+		}
+		return StringUtils.collectionToDelimitedString(entries, File.pathSeparator);
+	}
+
+	private static String locationOf(Class<?> type) throws Exception {
+		URL location = type.getProtectionDomain().getCodeSource().getLocation();
+		if ("file".equals(location.getProtocol())) {
+			return new File(location.toURI()).getPath();
+		}
+		// Nested in the executable archive the admin was launched from: extract it
+		String nested = StringUtils.trimTrailingCharacter(location.toString(), '/');
+		nested = nested.endsWith("!") ? nested.substring(0, nested.length() - 1) : nested;
+		File copy = File.createTempFile(StringUtils.getFilename(nested) + "-", ".jar");
+		copy.deleteOnExit();
+		try (InputStream in = new URL(nested).openStream()) {
+			Files.copy(in, copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		return copy.getPath();
+	}
+
+}
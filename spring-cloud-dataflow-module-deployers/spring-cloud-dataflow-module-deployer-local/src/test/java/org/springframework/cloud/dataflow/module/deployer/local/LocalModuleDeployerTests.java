@@ -16,15 +16,48 @@
 
 package org.springframework.cloud.dataflow.module.deployer.local;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.SpringApplicationConfiguration;
 import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.BindingProperties;
 import org.springframework.cloud.dataflow.core.ModuleDefinition;
+import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
 import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
+import org.springframework.cloud.dataflow.module.ModuleStatus;
+import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
+import org.springframework.cloud.stream.module.launcher.ModuleLaunchRequest;
 import org.springframework.cloud.stream.module.launcher.ModuleLauncher;
 import org.springframework.cloud.stream.module.launcher.ModuleLauncherConfiguration;
 import org.springframework.test.annotation.DirtiesContext;
@@ -79,4 +112,224 @@ public class LocalModuleDeployerTests {
 		deployer.deploy(log);
 		// TODO: check status, then undeploy
 	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void multipleInstances() {
+		ModuleLauncher launcher = mock(ModuleLauncher.class);
+		LocalModuleDeployer deployer = new LocalModuleDeployer(launcher, new PortAllocator(20000, 20100));
+		ModuleDefinition logDefinition = new ModuleDefinition.Builder()
+				.setGroup("ticktock")
+				.setName("log")
+				.build();
+		ArtifactCoordinates logCoordinates = new ArtifactCoordinates.Builder()
+				.setGroupId(GROUP_ID)
+				.setArtifactId("log-sink")
+				.setVersion(VERSION)
+				.build();
+		ModuleDeploymentId id = deployer.deploy(new ModuleDeploymentRequest(logDefinition, logCoordinates,
+				Collections.singletonMap(BindingProperties.COUNT_PROPERTY, "3")));
+
+		// One instance at a time
+		ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(launcher, times(3)).launch(captor.capture());
+		List<ModuleLaunchRequest> requests = new ArrayList<>();
+		for (List<ModuleLaunchRequest> launched : captor.getAllValues()) {
+			assertEquals(1, launched.size());
+			requests.addAll(launched);
+		}
+		Set<String> ports = new HashSet<>();
+		for (int i = 0; i < 3; i++) {
+			assertEquals(String.valueOf(i), requests.get(i).getArguments().get(BindingProperties.INSTANCE_INDEX));
+			assertEquals("3", requests.get(i).getArguments().get(BindingProperties.INSTANCE_COUNT));
+			ports.add(requests.get(i).getArguments().get(ModuleDeployer.SERVER_PORT_KEY));
+		}
+		assertEquals(3, ports.size());
+
+		ModuleStatus status = deployer.status(id);
+		// Until instances first report being healthy
+		assertEquals(ModuleStatus.State.deploying, status.getState());
+		assertEquals(3, status.getInstances().size());
+		assertTrue(deployer.status().containsKey(id));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void colocatedModules() {
+		ModuleLauncher launcher = mock(ModuleLauncher.class);
+		LocalModuleDeployer deployer = new LocalModuleDeployer(launcher, new PortAllocator(20400, 20500));
+		ModuleDefinition timeDefinition = new ModuleDefinition.Builder()
+				.setGroup("ticktock")
+				.setName("time")
+				.build();
+		ModuleDefinition logDefinition = new ModuleDefinition.Builder()
+				.setGroup("ticktock")
+				.setName("log")
+				.build();
+		ArtifactCoordinates timeCoordinates = new ArtifactCoordinates.Builder()
+				.setGroupId(GROUP_ID)
+				.setArtifactId("time-source")
+				.setVersion(VERSION)
+				.build();
+		ArtifactCoordinates logCoordinates = new ArtifactCoordinates.Builder()
+				.setGroupId(GROUP_ID)
+				.setArtifactId("log-sink")
+				.setVersion(VERSION)
+				.build();
+		List<ModuleDeploymentId> ids = deployer.deploy(Arrays.asList(
+				new ModuleDeploymentRequest(timeDefinition, timeCoordinates),
+				new ModuleDeploymentRequest(logDefinition, logCoordinates)));
+
+		ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(launcher).launch(captor.capture(), eq(true), anyMap());
+		List<ModuleLaunchRequest> requests = captor.getValue();
+		assertEquals(2, requests.size());
+		assertTrue(requests.get(0).getModule().contains("time-source"));
+		assertTrue(requests.get(1).getModule().contains("log-sink"));
+
+		assertEquals(2, ids.size());
+		for (ModuleDeploymentId id : ids) {
+			assertEquals(1, deployer.status(id).getInstances().size());
+		}
+
+		deployer.undeploy(ids.get(1));
+		for (ModuleDeploymentId id : ids) {
+			assertEquals(ModuleStatus.State.unknown, deployer.status(id).getState());
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void failedLaunchStopsLaunchedInstances() {
+		ModuleLauncher launcher = mock(ModuleLauncher.class,
+				withSettings().extraInterfaces(ModuleLaunchTerminator.class, ModuleLaunchReleaser.class));
+		doNothing().doThrow(new IllegalStateException("failed to launch module"))
+				.when(launcher).launch(anyListOf(ModuleLaunchRequest.class));
+		when(((ModuleLaunchTerminator) launcher).terminate(any(ModuleLaunchRequest.class))).thenReturn(true);
+		PortAllocator portAllocator = new PortAllocator(20800, 20900);
+		LocalModuleDeployer deployer = new LocalModuleDeployer(launcher, portAllocator);
+		ModuleDefinition logDefinition = new ModuleDefinition.Builder()
+				.setGroup("ticktock")
+				.setName("log")
+				.build();
+		ArtifactCoordinates logCoordinates = new ArtifactCoordinates.Builder()
+				.setGroupId(GROUP_ID)
+				.setArtifactId("log-sink")
+				.setVersion(VERSION)
+				.build();
+		try {
+			deployer.deploy(new ModuleDeploymentRequest(logDefinition, logCoordinates,
+					Collections.singletonMap(BindingProperties.COUNT_PROPERTY, "3")));
+			fail("Expected the deployment to fail");
+		}
+		catch (IllegalStateException e) {
+			assertEquals("failed to launch module", e.getMessage());
+		}
+
+		ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(launcher, times(2)).launch(captor.capture());
+		ModuleLaunchRequest first = (ModuleLaunchRequest) captor.getAllValues().get(0).get(0);
+		// The instance that did launch is stopped, and only then released
+		verify((ModuleLaunchTerminator) launcher).terminate(first);
+		verify((ModuleLaunchReleaser) launcher, timeout(5000)).release(first);
+		verify((ModuleLaunchReleaser) launcher, times(3)).release(any(ModuleLaunchRequest.class));
+		assertEquals(ModuleStatus.State.unknown,
+				deployer.status(ModuleDeploymentId.fromModuleDefinition(logDefinition)).getState());
+		deployer.close();
+	}
+
+	@Test
+	public void explicitPortAlreadyInUseFailsDeployment() {
+		ModuleLauncher launcher = mock(ModuleLauncher.class);
+		PortAllocator portAllocator = new PortAllocator(20600, 20700);
+		LocalModuleDeployer deployer = new LocalModuleDeployer(launcher, portAllocator);
+		ArtifactCoordinates logCoordinates = new ArtifactCoordinates.Builder()
+				.setGroupId(GROUP_ID)
+				.setArtifactId("log-sink")
+				.setVersion(VERSION)
+				.build();
+		ModuleDefinition first = new ModuleDefinition.Builder()
+				.setGroup("first")
+				.setName("log")
+				.setParameter(ModuleDeployer.SERVER_PORT_KEY, "20650")
+				.build();
+		ModuleDefinition second = new ModuleDefinition.Builder()
+				.setGroup("second")
+				.setName("log")
+				.setParameter(ModuleDeployer.SERVER_PORT_KEY, "20649")
+				.build();
+		deployer.deploy(new ModuleDeploymentRequest(first, logCoordinates));
+
+		try {
+			deployer.deploy(new ModuleDeploymentRequest(second, logCoordinates,
+					Collections.singletonMap(BindingProperties.COUNT_PROPERTY, "2")));
+			fail("Expected the deployment to fail, as port 20650 is taken");
+		}
+		catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("20650"));
+		}
+		assertEquals(ModuleStatus.State.unknown,
+				deployer.status(ModuleDeploymentId.fromModuleDefinition(second)).getState());
+		// The port reserved for the first instance of the failed deployment is given back
+		assertTrue(portAllocator.reserve(20649));
+		deployer.close();
+	}
+
+	@Test
+	public void undeployDoesNotWaitForUnresponsiveInstances() throws Exception {
+		// Accepts connections, but never replies to requests
+		final ServerSocket unresponsive = new ServerSocket(0);
+		final List<Socket> accepted = new CopyOnWriteArrayList<>();
+		Thread acceptor = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						accepted.add(unresponsive.accept());
+					}
+				}
+				catch (IOException e) {
+					// Closed
+				}
+			}
+		});
+		acceptor.setDaemon(true);
+		acceptor.start();
+		try {
+			LocalModuleDeployer deployer = new LocalModuleDeployer(mock(ModuleLauncher.class),
+					new PortAllocator(20200, 20300));
+			deployer.setShutdownTimeout(500);
+			deployer.setGracePeriod(500);
+			ModuleDefinition logDefinition = new ModuleDefinition.Builder()
+					.setGroup("ticktock")
+					.setName("log")
+					.setParameter(ModuleDeployer.SERVER_PORT_KEY, String.valueOf(unresponsive.getLocalPort()))
+					.build();
+			ArtifactCoordinates logCoordinates = new ArtifactCoordinates.Builder()
+					.setGroupId(GROUP_ID)
+					.setArtifactId("log-sink")
+					.setVersion(VERSION)
+					.build();
+			ModuleDeploymentId id = deployer.deploy(new ModuleDeploymentRequest(logDefinition, logCoordinates));
+
+			long start = System.currentTimeMillis();
+			deployer.undeploy(id);
+			long elapsed = System.currentTimeMillis() - start;
+			assertTrue("undeploy took " + elapsed + "ms", elapsed < 3000);
+			assertFalse("the shutdown request should have reached the instance", accepted.isEmpty());
+			assertEquals(ModuleStatus.State.unknown, deployer.status(id).getState());
+			for (int i = 0; i < 100 && deployer.getUndeployStatistics().getCount() == 0; i++) {
+				Thread.sleep(50);
+			}
+			assertEquals(1, deployer.getUndeployStatistics().getCount());
+			deployer.close();
+		}
+		finally {
+			unresponsive.close();
+			for (Socket socket : accepted) {
+				socket.close();
+			}
+		}
+	}
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.local;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.module.ModuleStatus;
+
+/**
+ * Tests for {@link LocalModuleStatusMonitor}.
+ */
+public class LocalModuleStatusMonitorTests {
+
+	private final AtomicInteger healthStatus = new AtomicInteger(200);
+
+	private final LocalModuleStatusMonitor monitor = new LocalModuleStatusMonitor(60000, 1000);
+
+	private HttpServer server;
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/health", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] body = (healthStatus.get() == 200 ? "{\"status\":\"UP\"}" : "{\"status\":\"DOWN\"}").getBytes();
+				exchange.sendResponseHeaders(healthStatus.get(), body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void tearDown() {
+		monitor.close();
+		server.stop(0);
+	}
+
+	@Test
+	public void testStates() throws Exception {
+		monitor.watch("up", new URL("http", "localhost", server.getAddress().getPort(), ""));
+		assertEquals(ModuleStatus.State.deploying, monitor.getState("up"));
+		assertEquals(ModuleStatus.State.unknown, monitor.getState("other"));
+
+		assertEquals(ModuleStatus.State.deployed, pollAndWait("up"));
+		healthStatus.set(503);
+		assertEquals(ModuleStatus.State.failed, pollAndWait("up"));
+
+		monitor.unwatch("up");
+		assertEquals(ModuleStatus.State.unknown, monitor.getState("up"));
+	}
+
+	private ModuleStatus.State pollAndWait(String instanceId) throws InterruptedException {
+		long lastUpdated = monitor.getLastUpdated(instanceId);
+		monitor.poll();
+		for (int i = 0; i < 100 && monitor.getLastUpdated(instanceId) == lastUpdated; i++) {
+			Thread.sleep(50);
+		}
+		return monitor.getState(instanceId);
+	}
+
+}
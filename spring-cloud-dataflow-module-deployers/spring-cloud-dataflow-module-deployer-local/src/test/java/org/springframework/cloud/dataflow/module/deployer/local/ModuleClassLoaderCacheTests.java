@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link ModuleClassLoaderCache}.
+ */
+public class ModuleClassLoaderCacheTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ModuleClassLoaderCache cache = new ModuleClassLoaderCache();
+
+	private final AtomicInteger created = new AtomicInteger();
+
+	private final Callable<ClassLoader> factory = new Callable<ClassLoader>() {
+
+		@Override
+		public ClassLoader call() {
+			created.incrementAndGet();
+			return new URLClassLoader(new URL[0]);
+		}
+	};
+
+	@Test
+	public void testReferenceCounting() throws Exception {
+		ClassLoader first = cache.acquire("abc", factory);
+		assertSame(first, cache.acquire("abc", factory));
+		assertEquals(1, created.get());
+
+		cache.release("abc");
+		assertEquals(1, cache.size());
+		cache.release("abc");
+		assertEquals(0, cache.size());
+
+		cache.acquire("abc", factory);
+		assertEquals(2, created.get());
+	}
+
+	@Test
+	public void testChecksum() throws IOException {
+		File one = write("one", "contents");
+		File two = write("two", "contents");
+		File three = write("three", "other contents");
+		assertEquals(40, cache.checksum(one).length());
+		assertEquals(cache.checksum(one), cache.checksum(two));
+		assertNotEquals(cache.checksum(one), cache.checksum(three));
+	}
+
+	private File write(String name, String contents) throws IOException {
+		File file = folder.newFile(name);
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(contents.getBytes());
+		}
+		return file;
+	}
+
+}
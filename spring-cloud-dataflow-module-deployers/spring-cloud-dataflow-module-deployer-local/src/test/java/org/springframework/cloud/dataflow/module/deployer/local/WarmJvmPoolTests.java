@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link WarmJvmPool}.
+ */
+public class WarmJvmPoolTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private WarmJvmPool pool;
+
+	@After
+	public void tearDown() {
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void testPoolIsToppedUp() throws Exception {
+		pool = new WarmJvmPool(1, Collections.singletonList("-Xmx32m"), folder.getRoot());
+		Process process = pool.take();
+		// Closing its input tells a pooled JVM to exit without launching anything
+		process.getOutputStream().close();
+		assertEquals(0, process.waitFor());
+
+		for (int i = 0; i < 100 && pool.getReadyCount() < 1; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(1, pool.getReadyCount());
+	}
+
+	@Test
+	public void testCloseDestroysTakenJvms() throws Exception {
+		pool = new WarmJvmPool(1, Collections.singletonList("-Xmx32m"), folder.getRoot());
+		Process process = pool.take();
+		pool.close();
+		// A destroyed JVM does not exit normally
+		assertNotEquals(0, process.waitFor());
+	}
+
+}
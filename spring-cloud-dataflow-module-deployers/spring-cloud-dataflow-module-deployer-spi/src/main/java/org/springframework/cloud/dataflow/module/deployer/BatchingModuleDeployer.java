@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer;
+
+import java.util.List;
+
+import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
+import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
+
+/**
+ * A {@link ModuleDeployer} that is able to deploy several modules of a stream with a
+ * single request to the runtime it deploys to, which is cheaper than deploying them one
+ * by one. Each module is deployed as if by {@link #deploy(ModuleDeploymentRequest)}, and
+ * is un-deployed on its own.
+ */
+public interface BatchingModuleDeployer extends ModuleDeployer {
+
+	/**
+	 * Deploy all the given modules at once.
+	 *
+	 * @param requests requests for the modules to be deployed
+	 * @return the deployment ids of the modules, in the same order as the requests
+	 */
+	List<ModuleDeploymentId> deployAll(List<ModuleDeploymentRequest> requests);
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer;
+
+import java.util.List;
+
+import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
+import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
+
+/**
+ * A {@link ModuleDeployer} that is also able to launch several adjacent modules of a
+ * stream together, in a single process, where they are bound to each other through
+ * in-memory channels rather than through the message broker.
+ *
+ * <p>Each module of a co-located group keeps its own {@link ModuleDeploymentId}, and
+ * {@link #status(ModuleDeploymentId)} reports, for each of them, the state of the
+ * process they share. Un-deploying any module of a group un-deploys the whole group.</p>
+ */
+public interface ColocatingModuleDeployer extends ModuleDeployer {
+
+	/**
+	 * Name of the deployment property that, when set to {@code true} on adjacent modules of
+	 * a stream, asks for them to be deployed together.
+	 */
+	public static final String COLOCATE_PROPERTY = "colocate";
+
+	/**
+	 * Deploy the given modules together. Requests are given in stream order, <i>i.e.</i> the
+	 * module that produces data comes before the module that consumes it, and each of them
+	 * must ask for a single instance.
+	 *
+	 * @param requests requests for the modules to be deployed together
+	 * @return the deployment ids of the modules, in the same order as the requests
+	 * @throws IllegalStateException if any of the modules has already been deployed
+	 */
+	List<ModuleDeploymentId> deploy(List<ModuleDeploymentRequest> requests);
+
+}
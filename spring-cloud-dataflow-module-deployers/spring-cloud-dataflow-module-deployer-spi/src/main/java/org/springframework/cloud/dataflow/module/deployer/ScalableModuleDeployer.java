@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer;
+
+import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
+
+/**
+ * A {@link ModuleDeployer} that is able to change the number of instances of a deployed
+ * module in place, starting or stopping only the difference, so that the instances
+ * that keep running are not interrupted.
+ */
+public interface ScalableModuleDeployer extends ModuleDeployer {
+
+	/**
+	 * Change the number of instances of the given deployed module. Implementations
+	 * may perform this operation asynchronously; therefore the new instances may
+	 * not be running upon return.
+	 *
+	 * @param id id of the module to scale
+	 * @param count the new number of instances
+	 */
+	void scale(ModuleDeploymentId id, int count);
+
+}
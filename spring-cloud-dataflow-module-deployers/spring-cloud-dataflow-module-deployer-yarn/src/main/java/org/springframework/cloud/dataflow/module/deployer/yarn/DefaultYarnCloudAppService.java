@@ -149,6 +149,17 @@ public class DefaultYarnCloudAppService implements YarnCloudAppService {
 		logger.debug("Output from YarnContainerClusterApplication run for CLUSTERCREATE: {}", output);
 	}
 
+	@Override
+	public void createAndStartClusters(String yarnApplicationId, Collection<CloudAppClusterInfo> clusters) {
+		for (CloudAppClusterInfo cluster : clusters) {
+			createCluster(yarnApplicationId, cluster.getClusterId(), cluster.getCount(), cluster.getModule(),
+					cluster.getDefinitionParameters());
+		}
+		for (CloudAppClusterInfo cluster : clusters) {
+			startCluster(yarnApplicationId, cluster.getClusterId());
+		}
+	}
+
 	@Override
 	public void startCluster(String yarnApplicationId, String clusterId) {
 		YarnContainerClusterApplication app = new YarnContainerClusterApplication();
@@ -173,6 +184,19 @@ public class DefaultYarnCloudAppService implements YarnCloudAppService {
 		logger.debug("Output from YarnContainerClusterApplication run for CLUSTERSTOP: {}", output);
 	}
 
+	@Override
+	public void resizeCluster(String yarnApplicationId, String clusterId, int count) {
+		YarnContainerClusterApplication app = new YarnContainerClusterApplication();
+		Properties appProperties = new Properties();
+		appProperties.setProperty(PREFIX_CCA + "operation", "CLUSTERMODIFY");
+		appProperties.setProperty(PREFIX_CCA + "applicationId", yarnApplicationId);
+		appProperties.setProperty(PREFIX_CCA + "clusterId", clusterId);
+		appProperties.setProperty(PREFIX_CCA + "projectionData.any", Integer.toString(count));
+		app.appProperties(appProperties);
+		String output = runApp(app);
+		logger.debug("Output from YarnContainerClusterApplication run for CLUSTERMODIFY: {}", output);
+	}
+
 	@Override
 	public void destroyCluster(String yarnApplicationId, String clusterId) {
 		YarnContainerClusterApplication app = new YarnContainerClusterApplication();
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.yarn;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.stream.module.resolver.Coordinates;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Copies module archives into a directory of a Hadoop file system, so that
+ * they can be localized into the containers running the modules instead of
+ * being resolved from a repository by each container.
+ *
+ * <p>Archives are laid out as {@code <groupId>/<artifactId>/<version>/<archive name>}
+ * under the staging directory, see {@link #archiveName(ArtifactCoordinates)}.
+ * An archive already in the file system is not copied again. Snapshots are
+ * resolved again each time they are staged, and each resolved build goes into
+ * its own {@code <version>/<last modified>/} directory, so that staged archives
+ * are never overwritten while containers may be localizing them. Archives are
+ * copied under a temporary name first, and then renamed, so that no container
+ * ever sees a partial archive.</p>
+ */
+public class ModuleArtifactStager {
+
+	private static final Logger logger = LoggerFactory.getLogger(ModuleArtifactStager.class);
+
+	private final FileSystem fileSystem;
+
+	private final ModuleResolver moduleResolver;
+
+	private final Path stagingDirectory;
+
+	private final ConcurrentMap<String, Path> staged = new ConcurrentHashMap<String, Path>();
+
+	/**
+	 * Instantiates a new module artifact stager.
+	 *
+	 * @param fileSystem the file system to stage archives into
+	 * @param moduleResolver the resolver of the archives to stage
+	 * @param stagingDirectory the directory to stage archives into
+	 */
+	public ModuleArtifactStager(FileSystem fileSystem, ModuleResolver moduleResolver, String stagingDirectory) {
+		Assert.notNull(fileSystem, "FileSystem must be set");
+		Assert.notNull(moduleResolver, "ModuleResolver must be set");
+		Assert.hasText(stagingDirectory, "Staging directory must be set");
+		this.fileSystem = fileSystem;
+		this.moduleResolver = moduleResolver;
+		this.stagingDirectory = fileSystem.makeQualified(new Path(stagingDirectory));
+	}
+
+	/**
+	 * Stages the archive of the given module, unless already done. Snapshots
+	 * are resolved again, and staged again if the resolved archive changed.
+	 *
+	 * @param module the module coordinates
+	 * @return the fully qualified path of the staged archive
+	 * @throws IOException if the archive could not be staged
+	 */
+	public String stage(String module) throws IOException {
+		ArtifactCoordinates coordinates = ArtifactCoordinates.parse(module);
+		if (coordinates.getVersion().endsWith("-SNAPSHOT")) {
+			return stageSnapshot(module, coordinates).toString();
+		}
+		Path path = staged.get(module);
+		if (path != null) {
+			return path.toString();
+		}
+		synchronized (this) {
+			path = staged.get(module);
+			if (path == null) {
+				Path target = new Path(versionDirectory(coordinates), archiveName(coordinates));
+				if (!fileSystem.exists(target)) {
+					copy(resolve(coordinates), target);
+					logger.info("Staged {} into {}", coordinates, target);
+				}
+				path = target;
+				staged.put(module, path);
+			}
+		}
+		return path.toString();
+	}
+
+	private synchronized Path stageSnapshot(String module, ArtifactCoordinates coordinates) throws IOException {
+		File archive = resolve(coordinates);
+		Path target = new Path(new Path(versionDirectory(coordinates), Long.toString(archive.lastModified())),
+				archiveName(coordinates));
+		if (target.equals(staged.get(module))) {
+			return target;
+		}
+		if (!fileSystem.exists(target)) {
+			copy(archive, target);
+			logger.info("Staged {} built at {} into {}", coordinates, archive.lastModified(), target);
+		}
+		staged.put(module, target);
+		return target;
+	}
+
+	private File resolve(ArtifactCoordinates coordinates) throws IOException {
+		Resource archive = moduleResolver.resolve(new Coordinates(coordinates.getGroupId(),
+				coordinates.getArtifactId(), coordinates.getExtension(), coordinates.getClassifier(),
+				coordinates.getVersion()));
+		return archive.getFile();
+	}
+
+	private Path versionDirectory(ArtifactCoordinates coordinates) {
+		return new Path(stagingDirectory, coordinates.getGroupId() + Path.SEPARATOR
+				+ coordinates.getArtifactId() + Path.SEPARATOR + coordinates.getVersion());
+	}
+
+	/**
+	 * Copies an archive under a temporary name next to the target, and renames
+	 * it to the target, which is never overwritten. If another stager renamed
+	 * its own copy first, that one is kept.
+	 */
+	private void copy(File archive, Path target) throws IOException {
+		Path copy = new Path(target.getParent(), "." + target.getName() + "." + UUID.randomUUID() + ".tmp");
+		fileSystem.copyFromLocalFile(false, true, new Path(archive.getAbsolutePath()), copy);
+		if (!fileSystem.rename(copy, target)) {
+			fileSystem.delete(copy, false);
+			if (!fileSystem.exists(target)) {
+				throw new IOException("Could not rename " + copy + " to " + target);
+			}
+		}
+	}
+
+	/**
+	 * Gets the name of the archive of a module, which is also the name the
+	 * archive is localized under in containers.
+	 *
+	 * @param coordinates the module coordinates
+	 * @return the archive name, {@code <artifactId>-<version>[-<classifier>].<extension>}
+	 */
+	public static String archiveName(ArtifactCoordinates coordinates) {
+		return coordinates.getArtifactId() + "-" + coordinates.getVersion()
+				+ (StringUtils.hasLength(coordinates.getClassifier()) ? "-" + coordinates.getClassifier() : "")
+				+ "." + coordinates.getExtension();
+	}
+
+}
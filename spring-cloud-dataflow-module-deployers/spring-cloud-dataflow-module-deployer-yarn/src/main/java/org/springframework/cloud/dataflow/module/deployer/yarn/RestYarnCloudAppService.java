@@ -0,0 +1,462 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.yarn;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.yarn.api.records.ApplicationId;
+import org.apache.hadoop.yarn.api.records.ApplicationReport;
+import org.apache.hadoop.yarn.api.records.YarnApplicationState;
+import org.apache.hadoop.yarn.client.api.YarnClient;
+import org.apache.hadoop.yarn.exceptions.YarnException;
+import org.apache.hadoop.yarn.util.ConverterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * {@link YarnCloudAppService} which keeps a single YARN client and HDFS file system for
+ * its whole lifetime, and talks to the container cluster REST endpoint of the running
+ * appmasters directly, getting structured responses, instead of running a whole client
+ * application for every operation and parsing its textual output.
+ *
+ * <p>Pushing and submitting applications, which need the full client configuration and
+ * happen rarely, are delegated to another {@link YarnCloudAppService}.</p>
+ */
+public class RestYarnCloudAppService implements YarnCloudAppService, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(RestYarnCloudAppService.class);
+
+	static final String CONTAINER_CLUSTER_PATH = "/yarn_containercluster";
+
+	static final String CLUSTER_STATES_PATH = "/dataflow_clusterstates";
+
+	static final String CLUSTERS_PATH = "/dataflow_clusters";
+
+	private static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+
+	private static final int DEFAULT_READ_TIMEOUT = 30000;
+
+	private final YarnCloudAppService delegate;
+
+	private final YarnClient yarnClient;
+
+	private final FileSystem fileSystem;
+
+	private final RestTemplate restTemplate;
+
+	/**
+	 * Base urls of the appmasters, by application id.
+	 */
+	private final ConcurrentMap<String, String> appmasterUrls = new ConcurrentHashMap<String, String>();
+
+	private String applicationBaseDir = "/app/";
+
+	private String applicationType = "DATAFLOW";
+
+	private ModuleArtifactStager artifactStager;
+
+	/**
+	 * Instantiates a new yarn cloud app service, connecting to the cluster described by
+	 * the given configuration, with a 5 seconds connect timeout and a 30 seconds read
+	 * timeout for requests to the appmasters.
+	 *
+	 * @param configuration the hadoop configuration
+	 * @param delegate the service used to push and submit applications
+	 * @throws IOException if the file system could not be accessed
+	 */
+	public RestYarnCloudAppService(Configuration configuration, YarnCloudAppService delegate) throws IOException {
+		this(configuration, delegate, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+	}
+
+	/**
+	 * Instantiates a new yarn cloud app service, connecting to the cluster described by
+	 * the given configuration.
+	 *
+	 * @param configuration the hadoop configuration
+	 * @param delegate the service used to push and submit applications
+	 * @param connectTimeout the connect timeout of requests to the appmasters, in milliseconds
+	 * @param readTimeout the read timeout of requests to the appmasters, in milliseconds
+	 * @throws IOException if the file system could not be accessed
+	 */
+	public RestYarnCloudAppService(Configuration configuration, YarnCloudAppService delegate, int connectTimeout,
+			int readTimeout) throws IOException {
+		this(delegate, startedYarnClient(configuration), FileSystem.get(configuration),
+				restTemplate(connectTimeout, readTimeout));
+	}
+
+	RestYarnCloudAppService(YarnCloudAppService delegate, YarnClient yarnClient, FileSystem fileSystem,
+			RestTemplate restTemplate) {
+		Assert.notNull(delegate, "Delegate YarnCloudAppService must be set");
+		this.delegate = delegate;
+		this.yarnClient = yarnClient;
+		this.fileSystem = fileSystem;
+		this.restTemplate = restTemplate;
+	}
+
+	/**
+	 * Create a template whose requests time out, so that an appmaster that stopped
+	 * answering does not block callers forever.
+	 */
+	private static RestTemplate restTemplate(int connectTimeout, int readTimeout) {
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(connectTimeout);
+		requestFactory.setReadTimeout(readTimeout);
+		return new RestTemplate(requestFactory);
+	}
+
+	/**
+	 * Sets the hdfs directory applications are pushed into.
+	 *
+	 * @param applicationBaseDir the application base dir
+	 */
+	public void setApplicationBaseDir(String applicationBaseDir) {
+		this.applicationBaseDir = applicationBaseDir;
+	}
+
+	/**
+	 * Sets the yarn application type of the instances to look for.
+	 *
+	 * @param applicationType the application type
+	 */
+	public void setApplicationType(String applicationType) {
+		this.applicationType = applicationType;
+	}
+
+	/**
+	 * Sets the stager of module archives. When set, the archives of the modules
+	 * of a cluster are staged into hdfs and localized into its containers.
+	 *
+	 * @param artifactStager the module artifact stager
+	 */
+	public void setArtifactStager(ModuleArtifactStager artifactStager) {
+		this.artifactStager = artifactStager;
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		yarnClient.stop();
+	}
+
+	@Override
+	public Collection<CloudAppInfo> getApplications() {
+		ArrayList<CloudAppInfo> infos = new ArrayList<CloudAppInfo>();
+		try {
+			Path path = new Path(applicationBaseDir);
+			if (fileSystem.exists(path)) {
+				for (FileStatus status : fileSystem.listStatus(path)) {
+					if (status.isDirectory()) {
+						infos.add(new CloudAppInfo(status.getPath().getName()));
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Unable to list applications in " + applicationBaseDir, e);
+		}
+		return infos;
+	}
+
+	@Override
+	public Collection<CloudAppInstanceInfo> getInstances() {
+		ArrayList<CloudAppInstanceInfo> infos = new ArrayList<CloudAppInstanceInfo>();
+		for (ApplicationReport report : runningApplications()) {
+			String applicationId = report.getApplicationId().toString();
+			String url = trackingUrl(report);
+			infos.add(new CloudAppInstanceInfo(applicationId, report.getName(), url != null ? url : ""));
+			if (url != null) {
+				appmasterUrls.put(applicationId, url);
+			}
+		}
+		return infos;
+	}
+
+	@Override
+	public void pushApplication(String appVersion) {
+		delegate.pushApplication(appVersion);
+	}
+
+	@Override
+	public String submitApplication(String appVersion) {
+		return delegate.submitApplication(appVersion);
+	}
+
+	@Override
+	public void createCluster(String yarnApplicationId, String clusterId, int count, String module,
+			Map<String, String> definitionParameters) {
+		Map<String, Object> request = new HashMap<String, Object>();
+		request.put("clusterId", clusterId);
+		request.put("clusterDef", "module-template");
+		request.put("projection", "default");
+		request.put("projectionData", Collections.singletonMap("any", count));
+		request.put("extraProperties", extraProperties(module, definitionParameters));
+		restTemplate.postForObject(clustersUrl(yarnApplicationId), request, JsonNode.class);
+		logger.debug("Created cluster {} in {}", clusterId, yarnApplicationId);
+	}
+
+	@Override
+	public void startCluster(String yarnApplicationId, String clusterId) {
+		modifyCluster(yarnApplicationId, clusterId, "start");
+	}
+
+	@Override
+	public void stopCluster(String yarnApplicationId, String clusterId) {
+		modifyCluster(yarnApplicationId, clusterId, "stop");
+	}
+
+	@Override
+	public void resizeCluster(String yarnApplicationId, String clusterId, int count) {
+		restTemplate.put(clusterUrl(yarnApplicationId, clusterId),
+				Collections.singletonMap("projectionData", Collections.singletonMap("any", count)));
+		logger.debug("Resized cluster {} in {} to {}", clusterId, yarnApplicationId, count);
+	}
+
+	@Override
+	public void destroyCluster(String yarnApplicationId, String clusterId) {
+		restTemplate.delete(clusterUrl(yarnApplicationId, clusterId));
+		logger.debug("Destroyed cluster {} in {}", clusterId, yarnApplicationId);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>All the clusters are created and started with a single request, unless the
+	 * appmaster does not support it, in which case each cluster is handled separately.</p>
+	 */
+	@Override
+	public void createAndStartClusters(String yarnApplicationId, Collection<CloudAppClusterInfo> clusters) {
+		List<Map<String, Object>> requests = new ArrayList<Map<String, Object>>();
+		for (CloudAppClusterInfo cluster : clusters) {
+			Map<String, Object> request = new HashMap<String, Object>();
+			request.put("clusterId", cluster.getClusterId());
+			request.put("clusterDef", "module-template");
+			request.put("count", cluster.getCount());
+			request.put("extraProperties", extraProperties(cluster.getModule(), cluster.getDefinitionParameters()));
+			requests.add(request);
+		}
+		try {
+			restTemplate.postForLocation(appmasterUrl(yarnApplicationId) + CLUSTERS_PATH, requests);
+			logger.debug("Created and started {} clusters in {}", requests.size(), yarnApplicationId);
+			return;
+		}
+		catch (HttpClientErrorException e) {
+			if (e.getStatusCode() != HttpStatus.NOT_FOUND) {
+				throw e;
+			}
+		}
+		for (CloudAppClusterInfo cluster : clusters) {
+			createCluster(yarnApplicationId, cluster.getClusterId(), cluster.getCount(), cluster.getModule(),
+					cluster.getDefinitionParameters());
+		}
+		for (CloudAppClusterInfo cluster : clusters) {
+			startCluster(yarnApplicationId, cluster.getClusterId());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The states of all the clusters of an appmaster are fetched with a single query,
+	 * unless the appmaster does not support it, in which case each cluster is queried.</p>
+	 */
+	@Override
+	public Map<String, String> getClustersStates() {
+		HashMap<String, String> states = new HashMap<String, String>();
+		for (CloudAppInstanceInfo instanceInfo : getInstances()) {
+			String applicationId = instanceInfo.getApplicationId();
+			try {
+				JsonNode response = restTemplate.getForObject(appmasterUrl(applicationId) + CLUSTER_STATES_PATH,
+						JsonNode.class);
+				if (response != null) {
+					Iterator<Map.Entry<String, JsonNode>> fields = response.fields();
+					while (fields.hasNext()) {
+						Map.Entry<String, JsonNode> field = fields.next();
+						states.put(field.getKey(), field.getValue().asText());
+					}
+				}
+				continue;
+			}
+			catch (HttpClientErrorException e) {
+				if (e.getStatusCode() != HttpStatus.NOT_FOUND) {
+					logger.warn("Getting cluster states of " + applicationId + " resulted an error", e);
+					continue;
+				}
+			}
+			catch (RestClientException e) {
+				logger.warn("Getting cluster states of " + applicationId + " resulted an error", e);
+				appmasterUrls.remove(applicationId);
+				continue;
+			}
+			for (String cluster : getClusters(applicationId)) {
+				String state = getClusterState(applicationId, cluster);
+				if (state != null) {
+					states.put(cluster, state);
+				}
+			}
+		}
+		return states;
+	}
+
+	@Override
+	public Collection<String> getClusters(String yarnApplicationId) {
+		ArrayList<String> clusters = new ArrayList<String>();
+		try {
+			JsonNode response = restTemplate.getForObject(clustersUrl(yarnApplicationId), JsonNode.class);
+			if (response != null) {
+				for (JsonNode cluster : response.path("clusters")) {
+					clusters.add(cluster.asText());
+				}
+			}
+		}
+		catch (RestClientException e) {
+			logger.warn("Listing clusters of " + yarnApplicationId + " resulted an error", e);
+			appmasterUrls.remove(yarnApplicationId);
+		}
+		return clusters;
+	}
+
+	private Map<String, Object> extraProperties(String module, Map<String, String> definitionParameters) {
+		Map<String, Object> extraProperties = new HashMap<String, Object>();
+		extraProperties.put("containerModules", module);
+		String artifacts = stageArtifacts(module);
+		if (artifacts != null) {
+			extraProperties.put("containerArtifacts", artifacts);
+		}
+		int i = 0;
+		for (Map.Entry<String, String> entry : definitionParameters.entrySet()) {
+			extraProperties.put("containerArg" + i++, entry.getKey() + "=" + entry.getValue());
+		}
+		return extraProperties;
+	}
+
+	/**
+	 * Stage the archives of the given comma delimited modules, returning their paths
+	 * as a comma delimited list, or {@code null} if they are left for containers to
+	 * resolve.
+	 */
+	private String stageArtifacts(String module) {
+		if (artifactStager == null) {
+			return null;
+		}
+		List<String> paths = new ArrayList<String>();
+		try {
+			for (String coordinates : StringUtils.commaDelimitedListToStringArray(module)) {
+				paths.add(artifactStager.stage(coordinates));
+			}
+		}
+		catch (IOException | RuntimeException e) {
+			logger.warn("Staging archives of " + module + " failed, containers will resolve them", e);
+			return null;
+		}
+		return StringUtils.collectionToCommaDelimitedString(paths);
+	}
+
+	private String getClusterState(String yarnApplicationId, String clusterId) {
+		try {
+			JsonNode response = restTemplate.getForObject(clusterUrl(yarnApplicationId, clusterId), JsonNode.class);
+			JsonNode state = response != null ? response.path("containerClusterState").path("clusterState") : null;
+			return state != null && state.isTextual() ? state.asText() : null;
+		}
+		catch (RestClientException e) {
+			logger.warn("Getting the state of cluster " + clusterId + " resulted an error", e);
+			return null;
+		}
+	}
+
+	private void modifyCluster(String yarnApplicationId, String clusterId, String action) {
+		restTemplate.put(clusterUrl(yarnApplicationId, clusterId), Collections.singletonMap("action", action));
+		logger.debug("Applied {} to cluster {} in {}", action, clusterId, yarnApplicationId);
+	}
+
+	private String clustersUrl(String yarnApplicationId) {
+		return appmasterUrl(yarnApplicationId) + CONTAINER_CLUSTER_PATH;
+	}
+
+	private String clusterUrl(String yarnApplicationId, String clusterId) {
+		return clustersUrl(yarnApplicationId) + "/" + clusterId;
+	}
+
+	/**
+	 * Return the base url of the appmaster of the given application, asking the resource
+	 * manager only if it is not known yet.
+	 */
+	private String appmasterUrl(String yarnApplicationId) {
+		String url = appmasterUrls.get(yarnApplicationId);
+		if (url == null) {
+			url = trackingUrl(applicationReport(ConverterUtils.toApplicationId(yarnApplicationId)));
+			Assert.state(url != null, "Appmaster of " + yarnApplicationId + " has no tracking url");
+			appmasterUrls.put(yarnApplicationId, url);
+		}
+		return url;
+	}
+
+	private Collection<ApplicationReport> runningApplications() {
+		try {
+			return yarnClient.getApplications(Collections.singleton(applicationType),
+					EnumSet.of(YarnApplicationState.RUNNING));
+		}
+		catch (YarnException | IOException e) {
+			throw new IllegalStateException("Unable to list running applications", e);
+		}
+	}
+
+	private ApplicationReport applicationReport(ApplicationId applicationId) {
+		try {
+			return yarnClient.getApplicationReport(applicationId);
+		}
+		catch (YarnException | IOException e) {
+			throw new IllegalStateException("Unable to get report of application " + applicationId, e);
+		}
+	}
+
+	private static String trackingUrl(ApplicationReport report) {
+		String url = report.getOriginalTrackingUrl();
+		if (!StringUtils.hasText(url) || "N/A".equals(url)) {
+			return null;
+		}
+		return url.startsWith("http") ? url : "http://" + url;
+	}
+
+	private static YarnClient startedYarnClient(Configuration configuration) {
+		YarnClient yarnClient = YarnClient.createYarnClient();
+		yarnClient.init(configuration);
+		yarnClient.start();
+		return yarnClient;
+	}
+
+}
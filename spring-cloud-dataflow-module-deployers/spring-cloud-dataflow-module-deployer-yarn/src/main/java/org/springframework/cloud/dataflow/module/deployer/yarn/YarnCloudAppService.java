@@ -70,6 +70,14 @@ public interface YarnCloudAppService {
 	void createCluster(String yarnApplicationId, String clusterId, int count, String module,
 			Map<String, String> definitionParameters);
 
+	/**
+	 * Creates and starts several container clusters at once.
+	 *
+	 * @param yarnApplicationId the yarn application id
+	 * @param clusters the clusters
+	 */
+	void createAndStartClusters(String yarnApplicationId, Collection<CloudAppClusterInfo> clusters);
+
 	/**
 	 * Start a container cluster.
 	 *
@@ -86,6 +94,16 @@ public interface YarnCloudAppService {
 	 */
 	void stopCluster(String yarnApplicationId, String clusterId);
 
+	/**
+	 * Resize a running container cluster by changing its projection, so that
+	 * containers are added or released without the cluster being stopped.
+	 *
+	 * @param yarnApplicationId the yarn application id
+	 * @param clusterId the cluster id
+	 * @param count the new container count
+	 */
+	void resizeCluster(String yarnApplicationId, String clusterId, int count);
+
 	/**
 	 * Gets the clusters states. Returned map has a mapping between
 	 * yarn container cluster id and its state known by application master
@@ -128,6 +146,41 @@ public interface YarnCloudAppService {
 
 	}
 
+	/**
+	 * Wrapping info about a container cluster to create.
+	 */
+	public class CloudAppClusterInfo {
+
+		private final String clusterId;
+		private final int count;
+		private final String module;
+		private final Map<String, String> definitionParameters;
+
+		public CloudAppClusterInfo(String clusterId, int count, String module, Map<String, String> definitionParameters) {
+			this.clusterId = clusterId;
+			this.count = count;
+			this.module = module;
+			this.definitionParameters = definitionParameters;
+		}
+
+		public String getClusterId() {
+			return clusterId;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public String getModule() {
+			return module;
+		}
+
+		public Map<String, String> getDefinitionParameters() {
+			return definitionParameters;
+		}
+
+	}
+
 	/**
 	 * Wrapping info about running application.
 	 */
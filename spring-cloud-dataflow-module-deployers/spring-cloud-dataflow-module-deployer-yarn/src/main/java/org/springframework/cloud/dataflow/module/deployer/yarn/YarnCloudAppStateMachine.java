@@ -17,8 +17,12 @@
 package org.springframework.cloud.dataflow.module.deployer.yarn;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppService.CloudAppClusterInfo;
 import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppService.CloudAppInfo;
 import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppService.CloudAppInstanceInfo;
 import org.springframework.core.task.TaskExecutor;
@@ -36,6 +40,11 @@ import org.springframework.util.StringUtils;
  * Class keeping all {@link StateMachine} logic in one place and is used
  * to dynamically build a machine.
  *
+ * <p>Several machines built by the same instance may run concurrently, i.e.
+ * one per container cluster. Pushing the application and starting its
+ * instance are then coalesced, so that they happen only once even if
+ * several machines need them at the same time.
+ *
  * @author Janne Valkealahti
  */
 public class YarnCloudAppStateMachine {
@@ -47,10 +56,15 @@ public class YarnCloudAppStateMachine {
 	static final String HEADER_COUNT = "count";
 	static final String HEADER_MODULE = "module";
 	static final String HEADER_DEFINITION_PARAMETERS = "definitionParameters";
+	static final String HEADER_CLUSTERS = "clusters";
 	static final String HEADER_ERROR = "error";
 
 	private final YarnCloudAppService yarnCloudAppService;
 	private final TaskExecutor taskExecutor;
+	private final Set<String> pushedAppVersions = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private final Set<String> startedAppVersions = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private final Object pushLock = new Object();
+	private final Object instanceLock = new Object();
 
 	/**
 	 * Instantiates a new yarn cloud app state machine.
@@ -95,9 +109,11 @@ public class YarnCloudAppStateMachine {
 				.initial(States.READY)
 				.state(States.ERROR)
 				.state(States.DEPLOYMODULE, new ResetVariablesAction(), null)
-				.state(States.DEPLOYMODULE, Events.DEPLOY, Events.UNDEPLOY)
+				.state(States.DEPLOYMODULE, Events.DEPLOY, Events.UNDEPLOY, Events.RESIZE)
 				.state(States.UNDEPLOYMODULE, new ResetVariablesAction(), null)
-				.state(States.UNDEPLOYMODULE, Events.DEPLOY, Events.UNDEPLOY)
+				.state(States.UNDEPLOYMODULE, Events.DEPLOY, Events.UNDEPLOY, Events.RESIZE)
+				.state(States.RESIZECLUSTER, new ResizeClusterAction(), null)
+				.state(States.RESIZECLUSTER, Events.DEPLOY, Events.UNDEPLOY, Events.RESIZE)
 				.and()
 				.withStates()
 					.parent(States.DEPLOYMODULE)
@@ -130,6 +146,14 @@ public class YarnCloudAppStateMachine {
 				.source(States.UNDEPLOYMODULE).target(States.READY)
 				.event(Events.CONTINUE)
 				.and()
+			.withExternal()
+				.source(States.RESIZECLUSTER).target(States.READY)
+				.event(Events.CONTINUE)
+				.and()
+			.withExternal()
+				.source(States.RESIZECLUSTER).target(States.ERROR)
+				.event(Events.ERROR)
+				.and()
 			.withExternal()
 				.source(States.READY).target(States.DEPLOYMODULE)
 				.event(Events.DEPLOY)
@@ -138,6 +162,10 @@ public class YarnCloudAppStateMachine {
 				.source(States.READY).target(States.UNDEPLOYMODULE)
 				.event(Events.UNDEPLOY)
 				.and()
+			.withExternal()
+				.source(States.READY).target(States.RESIZECLUSTER)
+				.event(Events.RESIZE)
+				.and()
 			.withExternal()
 				.source(States.CHECKAPP).target(States.PUSHAPPCHOICE)
 				.and()
@@ -196,13 +224,9 @@ public class YarnCloudAppStateMachine {
 				context.getStateMachine().sendEvent(
 						MessageBuilder.withPayload(Events.ERROR).setHeader(HEADER_ERROR, "appVersion not defined")
 								.build());
-			} else {
-				Collection<CloudAppInfo> appInfos = yarnCloudAppService.getApplications();
-				for (CloudAppInfo appInfo : appInfos) {
-					if (appInfo.getName().equals(appVersion)) {
-						context.getExtendedState().getVariables().put(VAR_APP_VERSION, appVersion);
-					}
-				}
+			} else if (pushedAppVersions.contains(appVersion) || isPushed(appVersion)) {
+				pushedAppVersions.add(appVersion);
+				context.getExtendedState().getVariables().put(VAR_APP_VERSION, appVersion);
 			}
 		}
 	}
@@ -222,14 +246,20 @@ public class YarnCloudAppStateMachine {
 
 	/**
 	 * {@link Action} which pushes application version into hdfs found
-	 * from variable {@code appVersion}.
+	 * from variable {@code appVersion}. If another machine pushed it in
+	 * the meantime, it is not pushed again.
 	 */
 	private class PushAppAction implements Action<States, Events> {
 
 		@Override
 		public void execute(StateContext<States, Events> context) {
 			String appVersion = (String) context.getMessageHeader(HEADER_APP_VERSION);
-			yarnCloudAppService.pushApplication(appVersion);
+			synchronized (pushLock) {
+				if (!pushedAppVersions.contains(appVersion)) {
+					yarnCloudAppService.pushApplication(appVersion);
+					pushedAppVersions.add(appVersion);
+				}
+			}
 		}
 	}
 
@@ -265,12 +295,28 @@ public class YarnCloudAppStateMachine {
 	}
 
 	/**
-	 * {@link Action} which launches new application instance.
+	 * {@link Action} which launches new application instance. If another
+	 * machine started one in the meantime, that instance is used instead.
 	 */
 	private class StartInstanceAction implements Action<States, Events> {
 
 		@Override
 		public void execute(StateContext<States, Events> context) {
+			String appVersion = (String) context.getMessageHeader(HEADER_APP_VERSION);
+			synchronized (instanceLock) {
+				// only look again if another machine may have started an instance
+				String applicationId = startedAppVersions.contains(appVersion) ? runningApplicationId() : null;
+				if (applicationId != null) {
+					context.getExtendedState().getVariables().put(VAR_APPLICATION_ID, applicationId);
+				}
+				else {
+					startedAppVersions.add(appVersion);
+					startInstance(context);
+				}
+			}
+		}
+
+		private void startInstance(StateContext<States, Events> context) {
 			String appVersion = (String) context.getMessageHeader(HEADER_APP_VERSION);
 			String applicationId = yarnCloudAppService.submitApplication(appVersion);
 			context.getExtendedState().getVariables().put(VAR_APPLICATION_ID, applicationId);
@@ -306,23 +352,43 @@ public class YarnCloudAppStateMachine {
 		}
 
 		private boolean isRunning() {
-			for (CloudAppInstanceInfo instanceInfo : yarnCloudAppService.getInstances()) {
-				if (instanceInfo.getAddress().contains("http")) {
-					return true;
-				}
+			return runningApplicationId() != null;
+		}
+	}
+
+	private boolean isPushed(String appVersion) {
+		for (CloudAppInfo appInfo : yarnCloudAppService.getApplications()) {
+			if (appInfo.getName().equals(appVersion)) {
+				return true;
 			}
-			return false;
 		}
+		return false;
+	}
+
+	private String runningApplicationId() {
+		for (CloudAppInstanceInfo instanceInfo : yarnCloudAppService.getInstances()) {
+			if (instanceInfo.getAddress().contains("http")) {
+				return instanceInfo.getApplicationId();
+			}
+		}
+		return null;
 	}
 
 	/**
-	 * {@link Action} which creates a new container cluster.
+	 * {@link Action} which creates a new container cluster, or creates and
+	 * starts all the clusters found from header {@code clusters} if present.
 	 */
 	private class CreateClusterAction implements Action<States, Events> {
 
 		@SuppressWarnings("unchecked")
 		@Override
 		public void execute(StateContext<States, Events> context) {
+			Collection<CloudAppClusterInfo> clusters = context.getMessageHeaders().get(HEADER_CLUSTERS, Collection.class);
+			if (clusters != null) {
+				yarnCloudAppService.createAndStartClusters(
+						context.getExtendedState().get(VAR_APPLICATION_ID, String.class), clusters);
+				return;
+			}
 			yarnCloudAppService.createCluster(context.getExtendedState().get(VAR_APPLICATION_ID, String.class), context
 					.getMessageHeaders().get(HEADER_CLUSTER_ID, String.class),
 					context.getMessageHeaders().get(HEADER_COUNT, Integer.class),
@@ -332,14 +398,17 @@ public class YarnCloudAppStateMachine {
 	}
 
 	/**
-	 * {@link Action} which starts existing container cluster.
+	 * {@link Action} which starts existing container cluster, unless
+	 * clusters were already started together with their creation.
 	 */
 	private class StartClusterAction implements Action<States, Events> {
 
 		@Override
 		public void execute(StateContext<States, Events> context) {
-			yarnCloudAppService.startCluster(context.getExtendedState().get(VAR_APPLICATION_ID, String.class), context
-					.getMessageHeaders().get(HEADER_CLUSTER_ID, String.class));
+			if (!context.getMessageHeaders().containsKey(HEADER_CLUSTERS)) {
+				yarnCloudAppService.startCluster(context.getExtendedState().get(VAR_APPLICATION_ID, String.class),
+						context.getMessageHeaders().get(HEADER_CLUSTER_ID, String.class));
+			}
 			context.getStateMachine().sendEvent(Events.CONTINUE);
 		}
 	}
@@ -384,6 +453,36 @@ public class YarnCloudAppStateMachine {
 		}
 	}
 
+	/**
+	 * {@link Action} which changes the container count of an existing container
+	 * cluster, without stopping it. Sends {@code ERROR} event into state machine
+	 * if the cluster does not exist or could not be resized.
+	 */
+	private class ResizeClusterAction implements Action<States, Events> {
+
+		@Override
+		public void execute(StateContext<States, Events> context) {
+			String clusterId = context.getMessageHeaders().get(HEADER_CLUSTER_ID, String.class);
+			Integer count = context.getMessageHeaders().get(HEADER_COUNT, Integer.class);
+			String error = "cluster " + clusterId + " not found";
+			try {
+				for (CloudAppInstanceInfo instanceInfo : yarnCloudAppService.getInstances()) {
+					Collection<String> clusters = yarnCloudAppService.getClusters(instanceInfo.getApplicationId());
+					if (clusters != null && clusters.contains(clusterId)) {
+						yarnCloudAppService.resizeCluster(instanceInfo.getApplicationId(), clusterId, count);
+						context.getStateMachine().sendEvent(Events.CONTINUE);
+						return;
+					}
+				}
+			}
+			catch (Exception e) {
+				error = "failed resizing cluster " + clusterId + " " + e;
+			}
+			context.getStateMachine().sendEvent(
+					MessageBuilder.withPayload(Events.ERROR).setHeader(HEADER_ERROR, error).build());
+		}
+	}
+
 	/**
 	 * Enumeration of module handling states.
 	 */
@@ -429,7 +528,10 @@ public class YarnCloudAppStateMachine {
 		STOPCLUSTER,
 
 		/** State where container cluster is destroyed. */
-		DESTROYCLUSTER;
+		DESTROYCLUSTER,
+
+		/** State where the container count of a running container cluster is changed. */
+		RESIZECLUSTER;
 	}
 
 	/**
@@ -443,6 +545,9 @@ public class YarnCloudAppStateMachine {
 		/** Event indicating that machine should handle undeploy request. */
 		UNDEPLOY,
 
+		/** Event indicating that machine should handle resize request. */
+		RESIZE,
+
 		/** Event indicating that machine should move into error handling logic. */
 		ERROR,
 
@@ -16,25 +16,49 @@
 
 package org.springframework.cloud.dataflow.module.deployer.yarn;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
 import org.springframework.cloud.dataflow.core.ModuleDefinition;
 import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
 import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
 import org.springframework.cloud.dataflow.module.ModuleStatus;
+import org.springframework.cloud.dataflow.module.deployer.BatchingModuleDeployer;
+import org.springframework.cloud.dataflow.module.deployer.ColocatingModuleDeployer;
+import org.springframework.cloud.dataflow.module.deployer.ModuleArgumentQualifier;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
+import org.springframework.cloud.dataflow.module.deployer.ScalableModuleDeployer;
+import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppService.CloudAppClusterInfo;
 import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppStateMachine.Events;
 import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppStateMachine.States;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.listener.StateMachineListenerAdapter;
+import org.springframework.statemachine.state.State;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 /**
  * {@link ModuleDeployer} which communicates with a Yarn app running
@@ -44,16 +68,60 @@ import org.springframework.statemachine.StateMachine;
  * same settings and the group itself can controlled, i.e. ramp up/down
  * or shutdown/destroy a whole group.
  *
+ * <p>Co-located modules share a single group, whose id lists the labels
+ * of all its modules, and run together in each of its containers.
+ *
+ * <p>Status queries are answered from a snapshot of the states of all groups, which is
+ * refreshed periodically and whenever the state machine is done with a deployment or an
+ * un-deployment, rather than by querying YARN on every call.
+ *
+ * <p>When built with a {@link YarnCloudAppStateMachine}, each group gets its own
+ * state machine, so that independent modules are deployed and un-deployed
+ * concurrently, while events for the same group are still handled in order.
+ *
+ * <p>Several modules of a stream can be deployed at once, in which case all their
+ * groups are created and started with a single request to the application master.
+ *
  * @author Janne Valkealahti
  */
-public class YarnModuleDeployer implements ModuleDeployer {
+public class YarnModuleDeployer implements ColocatingModuleDeployer, BatchingModuleDeployer, ScalableModuleDeployer,
+		InitializingBean, DisposableBean {
 
 	private static final Logger logger = LoggerFactory.getLogger(YarnModuleDeployer.class);
+
+	/**
+	 * Marks co-located modules whose group has already been un-deployed through another module.
+	 */
+	private static final String UNDEPLOYED = "";
+
+	/**
+	 * Prefix of the ids of the clusters of pre-started containers kept by the appmaster.
+	 */
+	private static final String POOL_CLUSTER_PREFIX = "pool:";
+
+	/**
+	 * States a machine goes through while un-deploying a cluster.
+	 */
+	private static final Set<States> UNDEPLOYING = EnumSet.of(States.UNDEPLOYMODULE, States.STOPCLUSTER,
+			States.DESTROYCLUSTER);
+
 	private final YarnCloudAppService yarnCloudAppService;
 	private final StateMachine<States, Events> stateMachine;
+	private final YarnCloudAppStateMachine yarnCloudAppStateMachine;
+	private final Map<String, StateMachine<States, Events>> stateMachines = new HashMap<String, StateMachine<States, Events>>();
+	/**
+	 * Clusters each state machine has been asked to un-deploy, in order, guarded by {@link #stateMachines}.
+	 */
+	private final Map<StateMachine<States, Events>, Queue<String>> undeployingClusterIds =
+			new IdentityHashMap<StateMachine<States, Events>, Queue<String>>();
+	private final ConcurrentMap<ModuleDeploymentId, String> colocatedClusterIds = new ConcurrentHashMap<ModuleDeploymentId, String>();
+	private volatile Map<String, String> clusterStates;
+	private long statusRefreshInterval = 5000L;
+	private ScheduledExecutorService statusRefresher;
 
 	/**
-	 * Instantiates a new yarn module deployer.
+	 * Instantiates a new yarn module deployer, handling all deployments
+	 * one at a time with a single state machine.
 	 *
 	 * @param yarnCloudAppService the yarn cloud app service
 	 * @param stateMachine the state machine
@@ -61,6 +129,64 @@ public class YarnModuleDeployer implements ModuleDeployer {
 	public YarnModuleDeployer(YarnCloudAppService yarnCloudAppService, StateMachine<States, Events> stateMachine) {
 		this.yarnCloudAppService = yarnCloudAppService;
 		this.stateMachine = stateMachine;
+		this.yarnCloudAppStateMachine = null;
+		addStatusRefreshListener(stateMachine);
+	}
+
+	/**
+	 * Instantiates a new yarn module deployer, building a state machine
+	 * per container cluster. A state machine is stopped and dropped once
+	 * all the clusters it handles have been un-deployed.
+	 *
+	 * @param yarnCloudAppService the yarn cloud app service
+	 * @param yarnCloudAppStateMachine the builder of state machines
+	 */
+	public YarnModuleDeployer(YarnCloudAppService yarnCloudAppService, YarnCloudAppStateMachine yarnCloudAppStateMachine) {
+		this.yarnCloudAppService = yarnCloudAppService;
+		this.stateMachine = null;
+		this.yarnCloudAppStateMachine = yarnCloudAppStateMachine;
+	}
+
+	/**
+	 * Sets the interval, in milliseconds, at which the snapshot of cluster states
+	 * is refreshed in the background.
+	 *
+	 * @param statusRefreshInterval the status refresh interval
+	 */
+	public void setStatusRefreshInterval(long statusRefreshInterval) {
+		this.statusRefreshInterval = statusRefreshInterval;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		statusRefresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "yarn-status-refresher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		statusRefresher.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				refreshClusterStates();
+			}
+		}, 0, statusRefreshInterval, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void destroy() {
+		if (statusRefresher != null) {
+			statusRefresher.shutdownNow();
+		}
+		synchronized (stateMachines) {
+			for (StateMachine<States, Events> machine : stateMachines.values()) {
+				machine.stop();
+			}
+		}
 	}
 
 	@Override
@@ -79,61 +205,357 @@ public class YarnModuleDeployer implements ModuleDeployer {
 		logger.info("definitionParameters: " + definitionParameters);
 		logger.info("deploymentProperties: " + deploymentProperties);
 
+		colocatedClusterIds.remove(id);
+		sendDeployEvent(clusterId, count, module, definitionParameters);
+		return id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The modules are given to the containers of a single group as a comma delimited
+	 * list, and their parameters are qualified with the index of the module they belong to.</p>
+	 */
+	@Override
+	public List<ModuleDeploymentId> deploy(List<ModuleDeploymentRequest> requests) {
+		Assert.notEmpty(requests, "At least one module deployment request is required");
+		List<ModuleDeploymentId> ids = new ArrayList<ModuleDeploymentId>();
+		List<String> modules = new ArrayList<String>();
+		Map<String, String> definitionParameters = new HashMap<String, String>();
+		for (int i = 0; i < requests.size(); i++) {
+			ModuleDeploymentRequest request = requests.get(i);
+			Assert.isTrue(request.getCount() == 1, "Co-located modules can only be deployed as a single instance");
+			ids.add(ModuleDeploymentId.fromModuleDefinition(request.getDefinition()));
+			modules.add(request.getCoordinates().toString());
+			definitionParameters.putAll(ModuleArgumentQualifier.qualifyArgs(i, request.getDefinition().getParameters()));
+		}
+		String clusterId = moduleDeploymentIdsToClusterId(ids);
+
+		logger.info("deploying co-located modules: " + modules);
+		logger.info("definitionParameters: " + definitionParameters);
+
+		for (ModuleDeploymentId id : ids) {
+			colocatedClusterIds.put(id, clusterId);
+		}
+		sendDeployEvent(clusterId, 1, StringUtils.collectionToCommaDelimitedString(modules), definitionParameters);
+		return ids;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>A single state machine handles the deployment of all the groups, and
+	 * then any event about them.</p>
+	 */
+	@Override
+	public List<ModuleDeploymentId> deployAll(List<ModuleDeploymentRequest> requests) {
+		Assert.notEmpty(requests, "At least one module deployment request is required");
+		List<ModuleDeploymentId> ids = new ArrayList<ModuleDeploymentId>();
+		List<String> clusterIds = new ArrayList<String>();
+		List<CloudAppClusterInfo> clusters = new ArrayList<CloudAppClusterInfo>();
+		for (ModuleDeploymentRequest request : requests) {
+			ModuleDeploymentId id = ModuleDeploymentId.fromModuleDefinition(request.getDefinition());
+			String clusterId = moduleDeploymentIdToClusterId(id);
+			ids.add(id);
+			clusterIds.add(clusterId);
+			clusters.add(new CloudAppClusterInfo(clusterId, request.getCount(), request.getCoordinates().toString(),
+					request.getDefinition().getParameters()));
+			colocatedClusterIds.remove(id);
+		}
+
+		logger.info("deploying modules together: " + clusterIds);
+
 		// TODO: using default app name "app" until we start to customise
 		//       via deploymentProperties
 		Message<Events> message = MessageBuilder.withPayload(Events.DEPLOY)
 				.setHeader(YarnCloudAppStateMachine.HEADER_APP_VERSION, "app")
-				.setHeader(YarnCloudAppStateMachine.HEADER_CLUSTER_ID, clusterId)
-				.setHeader(YarnCloudAppStateMachine.HEADER_COUNT, count)
-				.setHeader(YarnCloudAppStateMachine.HEADER_MODULE, module)
-				.setHeader(YarnCloudAppStateMachine.HEADER_DEFINITION_PARAMETERS, definitionParameters)
+				.setHeader(YarnCloudAppStateMachine.HEADER_CLUSTERS, clusters)
 				.build();
-
-		stateMachine.sendEvent(message);
-		return id;
+		stateMachine(clusterIds).sendEvent(message);
+		return ids;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>If the module is part of a co-located group, the whole group is un-deployed.</p>
+	 */
 	@Override
 	public void undeploy(ModuleDeploymentId id) {
-		String clusterId = moduleDeploymentIdToClusterId(id);
+		String clusterId = colocatedClusterIds.remove(id);
+		if (clusterId == null) {
+			clusterId = moduleDeploymentIdToClusterId(id);
+		}
+		else if (UNDEPLOYED.equals(clusterId)) {
+			return;
+		}
+		else {
+			for (Entry<ModuleDeploymentId, String> entry : colocatedClusterIds.entrySet()) {
+				if (entry.getValue().equals(clusterId)) {
+					colocatedClusterIds.replace(entry.getKey(), clusterId, UNDEPLOYED);
+				}
+			}
+		}
 		Message<Events> message = MessageBuilder.withPayload(Events.UNDEPLOY)
 				.setHeader(YarnCloudAppStateMachine.HEADER_CLUSTER_ID, clusterId)
 				.build();
-		stateMachine.sendEvent(message);
+		if (stateMachine != null) {
+			stateMachine.sendEvent(message);
+			return;
+		}
+		synchronized (stateMachines) {
+			StateMachine<States, Events> machine = stateMachines.get(clusterId);
+			if (machine != null && machine.getState() != null && machine.getState().getId() == States.ERROR) {
+				// A machine in error does not handle events anymore
+				evict(clusterId, machine);
+			}
+			machine = stateMachine(clusterId);
+			Queue<String> clusterIds = undeployingClusterIds.get(machine);
+			if (clusterIds == null) {
+				clusterIds = new LinkedList<String>();
+				undeployingClusterIds.put(machine, clusterIds);
+			}
+			// Under the lock, so that the queue is in the order the events are sent in
+			clusterIds.add(clusterId);
+			machine.sendEvent(message);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The projection of the container cluster is changed, so that containers are added
+	 * or released without the cluster being stopped. If the module is part of a co-located
+	 * group, the whole group is scaled.</p>
+	 */
+	@Override
+	public void scale(ModuleDeploymentId id, int count) {
+		Assert.isTrue(count > 0, "Instance count must be positive");
+		String clusterId = colocatedClusterIds.get(id);
+		if (clusterId == null) {
+			clusterId = moduleDeploymentIdToClusterId(id);
+		}
+		else if (UNDEPLOYED.equals(clusterId)) {
+			throw new IllegalStateException("Module " + id + " has been un-deployed");
+		}
+		Message<Events> message = MessageBuilder.withPayload(Events.RESIZE)
+				.setHeader(YarnCloudAppStateMachine.HEADER_CLUSTER_ID, clusterId)
+				.setHeader(YarnCloudAppStateMachine.HEADER_COUNT, count)
+				.build();
+		if (stateMachine != null) {
+			stateMachine.sendEvent(message);
+			return;
+		}
+		synchronized (stateMachines) {
+			StateMachine<States, Events> machine = stateMachines.get(clusterId);
+			if (machine != null && machine.getState() != null && machine.getState().getId() == States.ERROR) {
+				// A machine left in error by a failed resize does not handle events anymore
+				evict(clusterId, machine);
+			}
+			stateMachine(clusterId).sendEvent(message);
+		}
 	}
 
 	@Override
 	public ModuleStatus status(ModuleDeploymentId id) {
-		ModuleStatus status = status().get(id);
-		if (status == null) {
-			status = ModuleStatus.of(id)
-					.with(new YarnModuleInstanceStatus(id.toString(), false,
-							Collections.<String, String>emptyMap()))
-					.build();
+		String clusterId = colocatedClusterIds.get(id);
+		if (clusterId == null || UNDEPLOYED.equals(clusterId)) {
+			clusterId = moduleDeploymentIdToClusterId(id);
 		}
-		return status;
+		String state = getClusterStates().get(clusterId);
+		return ModuleStatus.of(id)
+				.with(new YarnModuleInstanceStatus(id.toString(), "RUNNING".equals(state),
+						Collections.<String, String>emptyMap()))
+				.build();
 	}
 
 	@Override
 	public Map<ModuleDeploymentId, ModuleStatus> status() {
 		HashMap<ModuleDeploymentId, ModuleStatus> statuses = new HashMap<ModuleDeploymentId, ModuleStatus>();
-		for (Entry<String, String> entry : yarnCloudAppService.getClustersStates().entrySet()) {
-			ModuleDeploymentId id = clusterIdToModuleDeploymentId(entry.getKey());
-			YarnModuleInstanceStatus status = new YarnModuleInstanceStatus(id.toString(), entry
-					.getValue().equals("RUNNING"), null);
-			statuses.put(id, ModuleStatus.of(id).with(status).build());
+		for (Entry<String, String> entry : getClusterStates().entrySet()) {
+			if (entry.getKey().startsWith(POOL_CLUSTER_PREFIX)) {
+				// Pre-started containers, not running any module yet
+				continue;
+			}
+			for (ModuleDeploymentId id : clusterIdToModuleDeploymentIds(entry.getKey())) {
+				YarnModuleInstanceStatus status = new YarnModuleInstanceStatus(id.toString(), entry
+						.getValue().equals("RUNNING"), null);
+				statuses.put(id, ModuleStatus.of(id).with(status).build());
+			}
 		}
 		return statuses;
 	}
 
+	/**
+	 * Gets the current snapshot of cluster states, fetching it if there is none.
+	 */
+	private Map<String, String> getClusterStates() {
+		Map<String, String> states = clusterStates;
+		return states != null ? states : refreshClusterStates();
+	}
+
+	private Map<String, String> refreshClusterStates() {
+		try {
+			Map<String, String> states = Collections.unmodifiableMap(
+					new HashMap<String, String>(yarnCloudAppService.getClustersStates()));
+			clusterStates = states;
+			return states;
+		}
+		catch (RuntimeException e) {
+			logger.warn("Unable to refresh cluster states", e);
+			Map<String, String> states = clusterStates;
+			return states != null ? states : Collections.<String, String>emptyMap();
+		}
+	}
+
+	/**
+	 * Refreshes the snapshot of cluster states in the background, or drops it so that it
+	 * is fetched on next use if there is no background refresh.
+	 */
+	private void requestStatusRefresh() {
+		ScheduledExecutorService refresher = statusRefresher;
+		if (refresher != null && !refresher.isShutdown()) {
+			refresher.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					refreshClusterStates();
+				}
+			});
+		}
+		else {
+			clusterStates = null;
+		}
+	}
+
+	private void sendDeployEvent(String clusterId, int count, String module, Map<String, String> definitionParameters) {
+		// TODO: using default app name "app" until we start to customise
+		//       via deploymentProperties
+		Message<Events> message = MessageBuilder.withPayload(Events.DEPLOY)
+				.setHeader(YarnCloudAppStateMachine.HEADER_APP_VERSION, "app")
+				.setHeader(YarnCloudAppStateMachine.HEADER_CLUSTER_ID, clusterId)
+				.setHeader(YarnCloudAppStateMachine.HEADER_COUNT, count)
+				.setHeader(YarnCloudAppStateMachine.HEADER_MODULE, module)
+				.setHeader(YarnCloudAppStateMachine.HEADER_DEFINITION_PARAMETERS, definitionParameters)
+				// goes through the same appmaster endpoint as batches, which hands
+				// the cluster to pooled containers when there are any
+				.setHeader(YarnCloudAppStateMachine.HEADER_CLUSTERS, Collections.singletonList(
+						new CloudAppClusterInfo(clusterId, count, module, definitionParameters)))
+				.build();
+
+		stateMachine(clusterId).sendEvent(message);
+	}
+
+	/**
+	 * Gets the state machine handling the given container cluster, building
+	 * and starting it if needed.
+	 */
+	private StateMachine<States, Events> stateMachine(String clusterId) {
+		return stateMachine(Collections.singletonList(clusterId));
+	}
+
+	/**
+	 * Gets the state machine handling all the given container clusters. Unless
+	 * they are all handled by the same machine already, a new one is built,
+	 * started and used for them from now on.
+	 */
+	private StateMachine<States, Events> stateMachine(List<String> clusterIds) {
+		if (stateMachine != null) {
+			return stateMachine;
+		}
+		synchronized (stateMachines) {
+			StateMachine<States, Events> machine = stateMachines.get(clusterIds.get(0));
+			for (String clusterId : clusterIds) {
+				if (machine == null || stateMachines.get(clusterId) != machine) {
+					machine = null;
+					break;
+				}
+			}
+			if (machine == null) {
+				try {
+					machine = yarnCloudAppStateMachine.buildStateMachine(false);
+				}
+				catch (Exception e) {
+					throw new IllegalStateException("Unable to build state machine for clusters " + clusterIds, e);
+				}
+				addStatusRefreshListener(machine);
+				addEvictionListener(machine);
+				machine.start();
+				for (String clusterId : clusterIds) {
+					stateMachines.put(clusterId, machine);
+				}
+			}
+			return machine;
+		}
+	}
+
+	private void addStatusRefreshListener(StateMachine<States, Events> machine) {
+		machine.addStateListener(new StateMachineListenerAdapter<States, Events>() {
+
+			@Override
+			public void stateChanged(State<States, Events> from, State<States, Events> to) {
+				if (from != null && to != null && to.getId() == States.READY) {
+					requestStatusRefresh();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Evicts the clusters of the given machine once they have been un-deployed, which
+	 * happens in the order they were asked to be.
+	 */
+	private void addEvictionListener(final StateMachine<States, Events> machine) {
+		machine.addStateListener(new StateMachineListenerAdapter<States, Events>() {
+
+			@Override
+			public void stateChanged(State<States, Events> from, State<States, Events> to) {
+				if (from != null && to != null && to.getId() == States.READY && UNDEPLOYING.contains(from.getId())) {
+					synchronized (stateMachines) {
+						Queue<String> clusterIds = undeployingClusterIds.get(machine);
+						String clusterId = clusterIds != null ? clusterIds.poll() : null;
+						if (clusterId != null) {
+							if (clusterIds.isEmpty()) {
+								undeployingClusterIds.remove(machine);
+							}
+							evict(clusterId, machine);
+						}
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Stops handling the given cluster with the given machine, which is stopped if it
+	 * does not handle any other cluster. Must be called with the lock on {@link #stateMachines}.
+	 */
+	private void evict(String clusterId, StateMachine<States, Events> machine) {
+		if (stateMachines.get(clusterId) == machine) {
+			stateMachines.remove(clusterId);
+		}
+		if (!stateMachines.containsValue(machine) && !undeployingClusterIds.containsKey(machine)) {
+			logger.debug("Stopping state machine of un-deployed cluster " + clusterId);
+			machine.stop();
+		}
+	}
+
 	private static String moduleDeploymentIdToClusterId(ModuleDeploymentId id) {
 		return id.getGroup() + ":" + id.getLabel();
 	}
 
-	private static ModuleDeploymentId clusterIdToModuleDeploymentId(String clusterId) {
+	private static String moduleDeploymentIdsToClusterId(List<ModuleDeploymentId> ids) {
+		List<String> labels = new ArrayList<String>();
+		for (ModuleDeploymentId id : ids) {
+			labels.add(id.getLabel());
+		}
+		return ids.get(0).getGroup() + ":" + StringUtils.collectionToCommaDelimitedString(labels);
+	}
+
+	private static List<ModuleDeploymentId> clusterIdToModuleDeploymentIds(String clusterId) {
 		String[] split = clusterId.split(":");
 		if (split.length == 2) {
-			return new ModuleDeploymentId(split[0], split[1]);
+			List<ModuleDeploymentId> ids = new ArrayList<ModuleDeploymentId>();
+			for (String label : StringUtils.commaDelimitedListToStringArray(split[1])) {
+				ids.add(new ModuleDeploymentId(split[0], label));
+			}
+			return ids;
 		} else {
 			throw new IllegalArgumentException("Invalid clusterId=[" + clusterId + "]");
 		}
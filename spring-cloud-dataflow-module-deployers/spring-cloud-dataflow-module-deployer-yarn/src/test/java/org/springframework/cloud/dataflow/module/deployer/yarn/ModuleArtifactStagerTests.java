@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.yarn;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cloud.stream.module.resolver.Coordinates;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * Tests for {@link ModuleArtifactStager}, using the local file system as a stand-in for hdfs.
+ */
+public class ModuleArtifactStagerTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final AtomicInteger resolutions = new AtomicInteger();
+
+	private FileSystem fileSystem;
+
+	private ModuleResolver moduleResolver;
+
+	private File archive;
+
+	@Before
+	public void setUp() throws IOException {
+		fileSystem = FileSystem.getLocal(new Configuration());
+		archive = folder.newFile("resolved.jar");
+		FileCopyUtils.copy("archive".getBytes(), archive);
+		moduleResolver = new ModuleResolver() {
+
+			@Override
+			public Resource resolve(Coordinates coordinates) {
+				resolutions.incrementAndGet();
+				return new FileSystemResource(archive);
+			}
+
+			@Override
+			public Resource[] resolve(Coordinates root, Coordinates[] includes, String[] excludePatterns) {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	@Test
+	public void testStageOnce() throws IOException {
+		ModuleArtifactStager stager = new ModuleArtifactStager(fileSystem, moduleResolver, stagingDirectory());
+		String staged = stager.stage("org.example:time-source:jar:exec:1.0.0.RELEASE");
+		assertThat(stager.stage("org.example:time-source:jar:exec:1.0.0.RELEASE"), is(staged));
+		assertThat(resolutions.get(), is(1));
+		assertThat(staged, endsWith("/org.example/time-source/1.0.0.RELEASE/time-source-1.0.0.RELEASE-exec.jar"));
+		File file = new File(new Path(staged).toUri().getPath());
+		assertThat(new String(FileCopyUtils.copyToByteArray(file)), is("archive"));
+	}
+
+	@Test
+	public void testReuseStagedReleases() throws IOException {
+		new ModuleArtifactStager(fileSystem, moduleResolver, stagingDirectory()).stage("org.example:log-sink:1.0.0.RELEASE");
+		new ModuleArtifactStager(fileSystem, moduleResolver, stagingDirectory()).stage("org.example:log-sink:1.0.0.RELEASE");
+		assertThat(resolutions.get(), is(1));
+	}
+
+	@Test
+	public void testStageSnapshotsAgain() throws IOException {
+		ModuleArtifactStager stager = new ModuleArtifactStager(fileSystem, moduleResolver, stagingDirectory());
+		String staged = stager.stage("org.example:log-sink:1.0.0.BUILD-SNAPSHOT");
+		assertThat(new ModuleArtifactStager(fileSystem, moduleResolver, stagingDirectory())
+				.stage("org.example:log-sink:1.0.0.BUILD-SNAPSHOT"), is(staged));
+		assertThat(resolutions.get(), is(2));
+
+		// a newer build is staged next to the previous one, which stays untouched
+		FileCopyUtils.copy("rebuilt".getBytes(), archive);
+		assertThat(archive.setLastModified(archive.lastModified() + 60000), is(true));
+		String restaged = stager.stage("org.example:log-sink:1.0.0.BUILD-SNAPSHOT");
+		assertThat(resolutions.get(), is(3));
+		assertThat(restaged, is(not(staged)));
+		assertThat(restaged, endsWith("/log-sink-1.0.0.BUILD-SNAPSHOT.jar"));
+		assertThat(new String(FileCopyUtils.copyToByteArray(new File(new Path(restaged).toUri().getPath()))),
+				is("rebuilt"));
+		assertThat(new String(FileCopyUtils.copyToByteArray(new File(new Path(staged).toUri().getPath()))),
+				is("archive"));
+	}
+
+	private String stagingDirectory() {
+		return new File(folder.getRoot(), "staging").getAbsolutePath();
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.yarn;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.yarn.api.records.ApplicationId;
+import org.apache.hadoop.yarn.api.records.ApplicationReport;
+import org.apache.hadoop.yarn.api.records.YarnApplicationState;
+import org.apache.hadoop.yarn.client.api.YarnClient;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Tests for {@link RestYarnCloudAppService}, against a stubbed YARN client and appmaster.
+ */
+public class RestYarnCloudAppServiceTests {
+
+	private static final String APPMASTER = "http://node1:8080" + RestYarnCloudAppService.CONTAINER_CLUSTER_PATH;
+
+	private final YarnClient yarnClient = mock(YarnClient.class);
+
+	private final RestTemplate restTemplate = new RestTemplate();
+
+	private final MockRestServiceServer appmaster = MockRestServiceServer.createServer(restTemplate);
+
+	private final RestYarnCloudAppService service = new RestYarnCloudAppService(mock(YarnCloudAppService.class),
+			yarnClient, mock(FileSystem.class), restTemplate);
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		ApplicationReport report = mock(ApplicationReport.class);
+		when(report.getApplicationId()).thenReturn(ApplicationId.newInstance(1L, 1));
+		when(report.getName()).thenReturn("spring-cloud-dataflow-yarn-app_app");
+		when(report.getOriginalTrackingUrl()).thenReturn("node1:8080");
+		when(yarnClient.getApplications(any(Set.class), any(EnumSet.class))).thenReturn(Arrays.asList(report));
+	}
+
+	@Test
+	public void clustersStatesFromSingleQuery() throws Exception {
+		appmaster.expect(requestTo("http://node1:8080" + RestYarnCloudAppService.CLUSTER_STATES_PATH))
+				.andExpect(method(HttpMethod.GET))
+				.andRespond(withSuccess("{\"ticktock:time\":\"RUNNING\",\"ticktock:log\":\"INITIAL\"}",
+						MediaType.APPLICATION_JSON));
+
+		Map<String, String> states = service.getClustersStates();
+		assertThat(states.size(), is(2));
+		assertThat(states.get("ticktock:time"), is("RUNNING"));
+		assertThat(states.get("ticktock:log"), is("INITIAL"));
+		appmaster.verify();
+	}
+
+	@Test
+	public void clustersStatesFromEachClusterWithOlderAppmaster() throws Exception {
+		appmaster.expect(requestTo("http://node1:8080" + RestYarnCloudAppService.CLUSTER_STATES_PATH))
+				.andRespond(withStatus(HttpStatus.NOT_FOUND));
+		appmaster.expect(requestTo(APPMASTER)).andExpect(method(HttpMethod.GET))
+				.andRespond(withSuccess("{\"clusters\":[\"ticktock:time\",\"ticktock:log\"]}", MediaType.APPLICATION_JSON));
+		appmaster.expect(requestTo(APPMASTER + "/ticktock:time")).andExpect(method(HttpMethod.GET))
+				.andRespond(withSuccess("{\"id\":\"ticktock:time\",\"containerClusterState\":{\"clusterState\":\"RUNNING\"}}",
+						MediaType.APPLICATION_JSON));
+		appmaster.expect(requestTo(APPMASTER + "/ticktock:log")).andExpect(method(HttpMethod.GET))
+				.andRespond(withSuccess("{\"id\":\"ticktock:log\",\"containerClusterState\":{\"clusterState\":\"INITIAL\"}}",
+						MediaType.APPLICATION_JSON));
+
+		Map<String, String> states = service.getClustersStates();
+		assertThat(states.size(), is(2));
+		assertThat(states.get("ticktock:time"), is("RUNNING"));
+		assertThat(states.get("ticktock:log"), is("INITIAL"));
+		appmaster.verify();
+	}
+
+	@Test
+	public void clusterOperationsReuseAppmasterUrl() throws Exception {
+		when(yarnClient.getApplicationReport(ApplicationId.newInstance(1L, 1)))
+				.thenReturn(yarnClient.getApplications(Collections.singleton("DATAFLOW"),
+						EnumSet.of(YarnApplicationState.RUNNING)).get(0));
+		appmaster.expect(requestTo(APPMASTER)).andExpect(method(HttpMethod.POST))
+				.andExpect(content().string(allOf(containsString("\"clusterId\":\"ticktock:log\""),
+						containsString("\"any\":2"), containsString("\"containerModules\":\"org.example:log:1.0\""))))
+				.andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+		appmaster.expect(requestTo(APPMASTER + "/ticktock:log")).andExpect(method(HttpMethod.PUT))
+				.andExpect(content().string("{\"action\":\"start\"}"))
+				.andRespond(withSuccess());
+
+		String applicationId = ApplicationId.newInstance(1L, 1).toString();
+		service.createCluster(applicationId, "ticktock:log", 2, "org.example:log:1.0",
+				Collections.<String, String>emptyMap());
+		service.startCluster(applicationId, "ticktock:log");
+		appmaster.verify();
+		verify(yarnClient, times(1)).getApplicationReport(any(ApplicationId.class));
+	}
+
+}
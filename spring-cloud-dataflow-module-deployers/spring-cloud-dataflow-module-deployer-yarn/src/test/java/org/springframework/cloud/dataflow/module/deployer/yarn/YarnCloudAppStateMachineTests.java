@@ -30,6 +30,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
+import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppService.CloudAppClusterInfo;
 import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppStateMachine.Events;
 import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppStateMachine.States;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
@@ -236,6 +237,166 @@ public class YarnCloudAppStateMachineTests {
 		context.close();
 	}
 
+	@Test
+	public void testConcurrentDeploysPushAndStartOnce() throws Exception {
+		TestYarnCloudAppService yarnCloudAppService = new TestYarnCloudAppService();
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(2);
+		taskExecutor.afterPropertiesSet();
+		YarnCloudAppStateMachine ycasm = new YarnCloudAppStateMachine(yarnCloudAppService, taskExecutor);
+		List<StateMachine<States, Events>> stateMachines = new ArrayList<StateMachine<States, Events>>();
+		for (int i = 0; i < 2; i++) {
+			StateMachine<States, Events> stateMachine = ycasm.buildStateMachine(false);
+			TestStateMachineListener listener = new TestStateMachineListener();
+			stateMachine.addStateListener(listener);
+			stateMachine.start();
+			assertThat(listener.latch.await(10, TimeUnit.SECONDS), is(true));
+			stateMachines.add(stateMachine);
+		}
+
+		for (int i = 0; i < stateMachines.size(); i++) {
+			stateMachines.get(i).sendEvent(MessageBuilder.withPayload(Events.DEPLOY)
+					.setHeader(YarnCloudAppStateMachine.HEADER_APP_VERSION, "fakeApp")
+					.setHeader(YarnCloudAppStateMachine.HEADER_CLUSTER_ID, "fakeClusterId" + (i + 1))
+					.setHeader(YarnCloudAppStateMachine.HEADER_COUNT, 1)
+					.setHeader(YarnCloudAppStateMachine.HEADER_MODULE, "fakeModule")
+					.setHeader(YarnCloudAppStateMachine.HEADER_DEFINITION_PARAMETERS, new HashMap<Object, Object>())
+					.build());
+		}
+		for (int i = 0; i < 100 && yarnCloudAppService.startClusterCount.size() < 2; i++) {
+			Thread.sleep(100);
+		}
+
+		assertThat(yarnCloudAppService.startClusterCount.size(), is(2));
+		assertThat(yarnCloudAppService.pushApplicationCount.size(), is(1));
+		assertThat(yarnCloudAppService.submitApplicationCount.size(), is(1));
+		taskExecutor.shutdown();
+	}
+
+	@Test
+	public void testDeployClustersAtOnce() throws Exception {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Config.class);
+		TestYarnCloudAppService yarnCloudAppService = new TestYarnCloudAppService();
+		yarnCloudAppService.app = "fakeApp";
+		yarnCloudAppService.instance = "fakeInstance";
+		TaskExecutor taskExecutor = context.getBean(TaskExecutor.class);
+		YarnCloudAppStateMachine ycasm = new YarnCloudAppStateMachine(yarnCloudAppService, taskExecutor);
+		StateMachine<States, Events> stateMachine = ycasm.buildStateMachine(false);
+		TestStateMachineListener listener = new TestStateMachineListener();
+		stateMachine.addStateListener(listener);
+		stateMachine.start();
+		assertThat(listener.latch.await(10, TimeUnit.SECONDS), is(true));
+
+		List<CloudAppClusterInfo> clusters = new ArrayList<CloudAppClusterInfo>();
+		clusters.add(new CloudAppClusterInfo("fakeClusterId1", 1, "fakeModule1", new HashMap<String, String>()));
+		clusters.add(new CloudAppClusterInfo("fakeClusterId2", 2, "fakeModule2", new HashMap<String, String>()));
+		Message<Events> message = MessageBuilder.withPayload(Events.DEPLOY)
+				.setHeader(YarnCloudAppStateMachine.HEADER_APP_VERSION, "fakeApp")
+				.setHeader(YarnCloudAppStateMachine.HEADER_CLUSTERS, clusters)
+				.build();
+
+		StateMachineTestPlan<States, Events> plan =
+				StateMachineTestPlanBuilder.<States, Events>builder()
+					.defaultAwaitTime(10)
+					.stateMachine(stateMachine)
+					.step()
+						.expectStates(States.READY)
+						.and()
+					.step()
+						.sendEvent(message)
+						.expectStateChanged(6)
+						.expectStates(States.READY)
+						.and()
+					.build();
+		plan.test();
+
+		assertThat(yarnCloudAppService.createAndStartClustersCount.size(), is(1));
+		assertThat(yarnCloudAppService.createAndStartClustersCount.get(0).size(), is(2));
+		assertThat(yarnCloudAppService.createClusterCount.size(), is(0));
+		assertThat(yarnCloudAppService.startClusterCount.size(), is(0));
+		context.close();
+	}
+
+	@Test
+	public void testResizeCluster() throws Exception {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Config.class);
+		TestYarnCloudAppService yarnCloudAppService = new TestYarnCloudAppService();
+		yarnCloudAppService.instance = "fakeInstance";
+		yarnCloudAppService.clusters = Collections.singletonList("fakeClusterId");
+		TaskExecutor taskExecutor = context.getBean(TaskExecutor.class);
+		YarnCloudAppStateMachine ycasm = new YarnCloudAppStateMachine(yarnCloudAppService, taskExecutor);
+		StateMachine<States, Events> stateMachine = ycasm.buildStateMachine(false);
+		TestStateMachineListener listener = new TestStateMachineListener();
+		stateMachine.addStateListener(listener);
+		stateMachine.start();
+		assertThat(listener.latch.await(10, TimeUnit.SECONDS), is(true));
+
+		Message<Events> message = MessageBuilder.withPayload(Events.RESIZE)
+				.setHeader(YarnCloudAppStateMachine.HEADER_CLUSTER_ID, "fakeClusterId")
+				.setHeader(YarnCloudAppStateMachine.HEADER_COUNT, 3)
+				.build();
+
+		StateMachineTestPlan<States, Events> plan =
+				StateMachineTestPlanBuilder.<States, Events>builder()
+					.defaultAwaitTime(10)
+					.stateMachine(stateMachine)
+					.step()
+						.expectStates(States.READY)
+						.and()
+					.step()
+						.sendEvent(message)
+						.expectStateChanged(2)
+						.expectStates(States.READY)
+						.and()
+					.build();
+		plan.test();
+
+		assertThat(yarnCloudAppService.resizeClusterCount.size(), is(1));
+		assertThat(yarnCloudAppService.resizeClusterCount.get(0).yarnApplicationId, is("fakeApplicationId"));
+		assertThat(yarnCloudAppService.resizeClusterCount.get(0).clusterId, is("fakeClusterId"));
+		assertThat(yarnCloudAppService.resizeClusterCount.get(0).count, is(3));
+		assertThat(yarnCloudAppService.stopClusterCount.size(), is(0));
+		context.close();
+	}
+
+	@Test
+	public void testResizeMissingClusterFails() throws Exception {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Config.class);
+		TestYarnCloudAppService yarnCloudAppService = new TestYarnCloudAppService();
+		yarnCloudAppService.instance = "fakeInstance";
+		yarnCloudAppService.clusters = Collections.singletonList("otherClusterId");
+		TaskExecutor taskExecutor = context.getBean(TaskExecutor.class);
+		YarnCloudAppStateMachine ycasm = new YarnCloudAppStateMachine(yarnCloudAppService, taskExecutor);
+		StateMachine<States, Events> stateMachine = ycasm.buildStateMachine(false);
+		TestStateMachineListener listener = new TestStateMachineListener();
+		stateMachine.addStateListener(listener);
+		stateMachine.start();
+		assertThat(listener.latch.await(10, TimeUnit.SECONDS), is(true));
+
+		Message<Events> message = MessageBuilder.withPayload(Events.RESIZE)
+				.setHeader(YarnCloudAppStateMachine.HEADER_CLUSTER_ID, "fakeClusterId")
+				.setHeader(YarnCloudAppStateMachine.HEADER_COUNT, 3)
+				.build();
+
+		StateMachineTestPlan<States, Events> plan =
+				StateMachineTestPlanBuilder.<States, Events>builder()
+					.defaultAwaitTime(10)
+					.stateMachine(stateMachine)
+					.step()
+						.expectStates(States.READY)
+						.and()
+					.step()
+						.sendEvent(message)
+						.expectStateChanged(2)
+						.expectStates(States.ERROR)
+						.and()
+					.build();
+		plan.test();
+
+		assertThat(yarnCloudAppService.resizeClusterCount.size(), is(0));
+		context.close();
+	}
+
 	@Configuration
 	static class Config {
 
@@ -252,6 +413,7 @@ public class YarnCloudAppStateMachineTests {
 
 		volatile String app = null;
 		volatile String instance = null;
+		volatile List<String> clusters = Collections.emptyList();
 
 		final CountDownLatch getApplicationsLatch = new CountDownLatch(1);
 		final CountDownLatch getInstancesLatch = new CountDownLatch(2);
@@ -268,7 +430,9 @@ public class YarnCloudAppStateMachineTests {
 		final List<Wrapper> submitApplicationCount = Collections.synchronizedList(new ArrayList<Wrapper>());
 		final List<Wrapper> createClusterCount = Collections.synchronizedList(new ArrayList<Wrapper>());
 		final List<Wrapper> startClusterCount = Collections.synchronizedList(new ArrayList<Wrapper>());
+		final List<Collection<CloudAppClusterInfo>> createAndStartClustersCount = Collections.synchronizedList(new ArrayList<Collection<CloudAppClusterInfo>>());
 		final List<Wrapper> stopClusterCount = Collections.synchronizedList(new ArrayList<Wrapper>());
+		final List<Wrapper> resizeClusterCount = Collections.synchronizedList(new ArrayList<Wrapper>());
 
 		@Override
 		public Collection<CloudAppInfo> getApplications() {
@@ -314,6 +478,11 @@ public class YarnCloudAppStateMachineTests {
 			createClusterLatch.countDown();
 		}
 
+		@Override
+		public void createAndStartClusters(String yarnApplicationId, Collection<CloudAppClusterInfo> clusters) {
+			createAndStartClustersCount.add(clusters);
+		}
+
 		@Override
 		public void startCluster(String yarnApplicationId, String clusterId) {
 			startClusterCount.add(new Wrapper(yarnApplicationId, clusterId));
@@ -326,6 +495,11 @@ public class YarnCloudAppStateMachineTests {
 			stopClusterLatch.countDown();
 		}
 
+		@Override
+		public void resizeCluster(String yarnApplicationId, String clusterId, int count) {
+			resizeClusterCount.add(new Wrapper(yarnApplicationId, clusterId, count, null, null));
+		}
+
 		@Override
 		public Map<String, String> getClustersStates() {
 			return null;
@@ -333,7 +507,7 @@ public class YarnCloudAppStateMachineTests {
 
 		@Override
 		public Collection<String> getClusters(String yarnApplicationId) {
-			return null;
+			return clusters;
 		}
 
 		@Override
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.module.deployer.yarn;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ModuleDefinition;
+import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
+import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
+import org.springframework.cloud.dataflow.module.ModuleStatus;
+import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppStateMachine.Events;
+import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppStateMachine.States;
+import org.springframework.messaging.Message;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.listener.StateMachineListener;
+import org.springframework.statemachine.state.State;
+
+/**
+ * Tests for the status operations of {@link YarnModuleDeployer}.
+ */
+public class YarnModuleDeployerTests {
+
+	private YarnCloudAppService yarnCloudAppService = mock(YarnCloudAppService.class);
+
+	@SuppressWarnings("unchecked")
+	private StateMachine<States, Events> stateMachine = mock(StateMachine.class);
+
+	private YarnModuleDeployer deployer;
+
+	@Before
+	public void setUp() {
+		Map<String, String> states = new HashMap<String, String>();
+		states.put("ticktock:time", "RUNNING");
+		states.put("ticktock:log", "INITIAL");
+		states.put("pool:module-template", "RUNNING");
+		when(yarnCloudAppService.getClustersStates()).thenReturn(states);
+		deployer = new YarnModuleDeployer(yarnCloudAppService, stateMachine);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void statusFromSnapshot() {
+		assertThat(deployer.status(new ModuleDeploymentId("ticktock", "time")).getState(),
+				is(ModuleStatus.State.deployed));
+		assertThat(deployer.status(new ModuleDeploymentId("ticktock", "log")).getState(),
+				is(not(ModuleStatus.State.deployed)));
+		// Not counting the container pool
+		assertThat(deployer.status().size(), is(2));
+		verify(yarnCloudAppService, times(1)).getClustersStates();
+
+		ArgumentCaptor<StateMachineListener> listener = ArgumentCaptor.forClass(StateMachineListener.class);
+		verify(stateMachine).addStateListener(listener.capture());
+		State<States, Events> from = mock(State.class);
+		when(from.getId()).thenReturn(States.DEPLOYMODULE);
+		State<States, Events> to = mock(State.class);
+		when(to.getId()).thenReturn(States.READY);
+		listener.getValue().stateChanged(from, to);
+
+		deployer.status(new ModuleDeploymentId("ticktock", "time"));
+		verify(yarnCloudAppService, times(2)).getClustersStates();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void stateMachineIsStoppedOnceClusterIsUndeployed() throws Exception {
+		YarnCloudAppStateMachine builder = mock(YarnCloudAppStateMachine.class);
+		StateMachine<States, Events> first = mock(StateMachine.class);
+		StateMachine<States, Events> second = mock(StateMachine.class);
+		when(builder.buildStateMachine(false)).thenReturn(first, second);
+		deployer = new YarnModuleDeployer(yarnCloudAppService, builder);
+
+		deployer.deploy(request("ticktock", "log"));
+		deployer.undeploy(new ModuleDeploymentId("ticktock", "log"));
+		verify(first, times(2)).sendEvent(any(Message.class));
+		verify(first, never()).stop();
+
+		ArgumentCaptor<StateMachineListener> listener = ArgumentCaptor.forClass(StateMachineListener.class);
+		verify(first, times(2)).addStateListener(listener.capture());
+		State<States, Events> from = mock(State.class);
+		when(from.getId()).thenReturn(States.DESTROYCLUSTER);
+		State<States, Events> to = mock(State.class);
+		when(to.getId()).thenReturn(States.READY);
+		for (StateMachineListener<States, Events> each : listener.getAllValues()) {
+			each.stateChanged(from, to);
+		}
+		verify(first).stop();
+
+		deployer.deploy(request("ticktock", "log"));
+		verify(second).sendEvent(any(Message.class));
+	}
+
+	private ModuleDeploymentRequest request(String group, String name) {
+		ModuleDefinition definition = new ModuleDefinition.Builder()
+				.setGroup(group)
+				.setName(name)
+				.build();
+		ArtifactCoordinates coordinates = new ArtifactCoordinates.Builder()
+				.setGroupId("org.springframework.cloud.stream.module")
+				.setArtifactId(name)
+				.setVersion("1.0.0.BUILD-SNAPSHOT")
+				.build();
+		return new ModuleDeploymentRequest(definition, coordinates);
+	}
+
+}
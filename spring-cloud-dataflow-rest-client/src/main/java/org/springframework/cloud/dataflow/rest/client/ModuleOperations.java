@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.dataflow.rest.client;
 
+import java.util.Properties;
+
 import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.rest.resource.DetailedModuleRegistrationResource;
 import org.springframework.cloud.dataflow.rest.resource.ModuleRegistrationResource;
@@ -67,6 +69,16 @@ public interface ModuleOperations {
 	ModuleRegistrationResource register(String name, ArtifactType type,
 			String coordinates, boolean force);
 
+	/**
+	 * Register several modules at once, from {@literal <type>.<name>=<coordinates>}
+	 * entries.
+	 *
+	 * @param modules  Maven coordinates of each module, keyed by type and name
+	 * @param force if {@code true}, overwrites pre-existing registrations
+	 * @return the registrations that have been created or overwritten
+	 */
+	PagedResources<ModuleRegistrationResource> registerAll(Properties modules, boolean force);
+
 	/**
 	 * Unregister a module name and type.
 	 *
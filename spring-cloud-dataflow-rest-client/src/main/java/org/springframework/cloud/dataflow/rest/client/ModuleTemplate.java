@@ -16,6 +16,10 @@
 
 package org.springframework.cloud.dataflow.rest.client;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Properties;
+
 import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.rest.resource.DetailedModuleRegistrationResource;
 import org.springframework.cloud.dataflow.rest.resource.ModuleRegistrationResource;
@@ -94,4 +98,20 @@ public class ModuleTemplate implements ModuleOperations {
 		return restTemplate.postForObject(uri, values, ModuleRegistrationResource.class,
 				type, name);
 	}
+
+	@Override
+	public PagedResources<ModuleRegistrationResource> registerAll(Properties modules, boolean force) {
+		StringWriter writer = new StringWriter();
+		try {
+			modules.store(writer, null);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		MultiValueMap<String, Object> values = new LinkedMultiValueMap<String, Object>();
+		values.add("modules", writer.toString());
+		values.add("force", Boolean.toString(force));
+
+		return restTemplate.postForObject(uriTemplate.toString(), values, ModuleRegistrationResource.Page.class);
+	}
 }
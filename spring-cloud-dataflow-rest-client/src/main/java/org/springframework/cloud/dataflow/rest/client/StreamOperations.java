@@ -45,6 +45,12 @@ public interface StreamOperations {
 	 */
 	public void deploy(String name, Map<String, String> properties);
 
+	/**
+	 * Change the number of instances of a module of a deployed stream. This only requests
+	 * the change, which is carried out asynchronously.
+	 */
+	public void scale(String name, String module, int count);
+
 	/**
 	 * Undeploy a deployed stream, retaining its definition.
 	 */
@@ -80,6 +80,12 @@ public class StreamTemplate implements StreamOperations {
 		restTemplate.postForObject(uriTemplate, values, Object.class, name);
 	}
 
+	@Override
+	public void scale(String name, String module, int count) {
+		String uriTemplate = deploymentsPath.toString() + "/{name}/{module}?count={count}";
+		restTemplate.put(uriTemplate, null, name, module, count);
+	}
+
 	@Override
 	public void undeploy(String name) {
 		String uriTemplate = deploymentsPath.toString() + "/{name}";
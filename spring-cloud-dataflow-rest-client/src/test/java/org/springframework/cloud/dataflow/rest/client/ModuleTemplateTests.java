@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.rest.client;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URLDecoder;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.rest.resource.ModuleRegistrationResource;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedResources;
+import org.springframework.hateoas.ResourceSupport;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.RequestMatcher;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Tests for {@link ModuleTemplate}.
+ */
+public class ModuleTemplateTests {
+
+	private MockRestServiceServer server;
+
+	private ModuleTemplate template;
+
+	@Before
+	public void setUp() {
+		RestTemplate restTemplate = new RestTemplate();
+		server = MockRestServiceServer.createServer(restTemplate);
+		ResourceSupport resourceSupport = new ResourceSupport();
+		resourceSupport.add(new Link("http://localhost:9393/modules", "modules"));
+		template = new ModuleTemplate(restTemplate, resourceSupport);
+	}
+
+	@Test
+	public void testRegisterAllPostsAllModulesInOneRequest() {
+		final Properties modules = new Properties();
+		modules.setProperty("source.time", "org.example:time-source:1.0.0");
+		modules.setProperty("sink.log", "org.example:log-sink:jar:exec:1.0.0");
+
+		server.expect(requestTo("http://localhost:9393/modules"))
+				.andExpect(method(HttpMethod.POST))
+				.andExpect(new RequestMatcher() {
+
+					@Override
+					public void match(ClientHttpRequest request) throws IOException, AssertionError {
+						String body = ((MockClientHttpRequest) request).getBodyAsString();
+						assertThat(body, containsString("force=true"));
+						String encoded = body.substring(body.indexOf("modules=") + "modules=".length());
+						if (encoded.contains("&")) {
+							encoded = encoded.substring(0, encoded.indexOf('&'));
+						}
+						Properties posted = new Properties();
+						posted.load(new StringReader(URLDecoder.decode(encoded, "UTF-8")));
+						assertEquals(modules, posted);
+					}
+				})
+				.andRespond(withSuccess("{\"links\":[],\"content\":["
+						+ "{\"name\":\"log\",\"type\":\"sink\",\"coordinates\":\"org.example:log-sink:jar:exec:1.0.0\",\"links\":[]},"
+						+ "{\"name\":\"time\",\"type\":\"source\",\"coordinates\":\"org.example:time-source:jar:1.0.0\",\"links\":[]}"
+						+ "],\"page\":{\"size\":2,\"totalElements\":2,\"totalPages\":1,\"number\":0}}",
+						MediaType.APPLICATION_JSON));
+
+		PagedResources<ModuleRegistrationResource> registered = template.registerAll(modules, true);
+
+		server.verify();
+		assertThat(registered.getContent(), hasSize(2));
+		assertThat(registered.getContent().iterator().next().getName(), is("log"));
+	}
+
+}
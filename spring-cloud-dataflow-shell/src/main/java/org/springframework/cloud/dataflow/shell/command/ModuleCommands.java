@@ -16,7 +16,12 @@
 
 package org.springframework.cloud.dataflow.shell.command;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Properties;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
@@ -57,11 +62,13 @@ public class ModuleCommands implements CommandMarker {
 
 	private static final String REGISTER_MODULE = "module register";
 
+	private static final String IMPORT_MODULES = "module import";
+
 	@Autowired
 	private DataFlowShell dataFlowShell;
 
 
-	@CliAvailabilityIndicator({LIST_MODULES, MODULE_INFO, UNREGISTER_MODULE, REGISTER_MODULE})
+	@CliAvailabilityIndicator({LIST_MODULES, MODULE_INFO, UNREGISTER_MODULE, REGISTER_MODULE, IMPORT_MODULES})
 	public boolean available() {
 		return dataFlowShell.getDataFlowOperations() != null;
 	}
@@ -141,6 +148,26 @@ public class ModuleCommands implements CommandMarker {
 		return String.format(("Successfully registered module '%s:%s'"), type, name);
 	}
 
+	@CliCommand(value = IMPORT_MODULES, help = "Register all the modules listed in a properties file")
+	public String importFromFile(
+			@CliOption(mandatory = true,
+					key = {"", "file"},
+					help = "properties file with one '<type>.<name>=<coordinates>' entry per module")
+			File file,
+			@CliOption(key = "force",
+					help = "force update of modules that already exist (only if not in use)",
+					specifiedDefaultValue = "true",
+					unspecifiedDefaultValue = "false")
+			boolean force) throws IOException {
+		Properties modules = new Properties();
+		try (InputStream inputStream = new FileInputStream(file)) {
+			modules.load(inputStream);
+		}
+		PagedResources<ModuleRegistrationResource> registered = moduleOperations().registerAll(modules, force);
+		return String.format(("Successfully registered %d modules out of %d from '%s'"),
+				registered.getContent().size(), modules.size(), file);
+	}
+
 	@CliCommand(value = UNREGISTER_MODULE, help = "Unregister a module")
 	public String unregister(
 			@CliOption(mandatory = true,
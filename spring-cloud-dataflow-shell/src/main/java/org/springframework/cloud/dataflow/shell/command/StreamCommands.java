@@ -53,6 +53,8 @@ public class StreamCommands implements CommandMarker {
 
 	private static final String DEPLOY_STREAM = "stream deploy";
 
+	private static final String SCALE_STREAM = "stream scale";
+
 	private static final String UNDEPLOY_STREAM = "stream undeploy";
 
 	private static final String UNDEPLOY_STREAM_ALL = "stream all undeploy";
@@ -71,8 +73,8 @@ public class StreamCommands implements CommandMarker {
 	@Autowired
 	private UserInput userInput;
 
-	@CliAvailabilityIndicator({ LIST_STREAM, CREATE_STREAM, DEPLOY_STREAM, UNDEPLOY_STREAM, UNDEPLOY_STREAM_ALL,
-		DESTROY_STREAM, DESTROY_STREAM_ALL })
+	@CliAvailabilityIndicator({ LIST_STREAM, CREATE_STREAM, DEPLOY_STREAM, SCALE_STREAM, UNDEPLOY_STREAM,
+		UNDEPLOY_STREAM_ALL, DESTROY_STREAM, DESTROY_STREAM_ALL })
 	public boolean available() {
 		return dataFlowShell.getDataFlowOperations() != null;
 	}
@@ -132,6 +134,16 @@ public class StreamCommands implements CommandMarker {
 		return String.format("Deployed stream '%s'", name);
 	}
 
+	@CliCommand(value = SCALE_STREAM, help = "Change the number of instances of a module of a deployed stream")
+	public String scaleStream(
+			@CliOption(key = { "", "name" }, help = "the name of the stream", mandatory = true) String name,
+			@CliOption(key = "module", help = "the label of the module to scale", mandatory = true) String module,
+			@CliOption(key = "count", help = "the new number of instances", mandatory = true) int count
+			) {
+		streamOperations().scale(name, module, count);
+		return String.format("Requested scaling module '%s' of stream '%s' to %d instances", module, name, count);
+	}
+
 	@CliCommand(value = UNDEPLOY_STREAM, help = "Un-deploy a previously deployed stream")
 	public String undeployStream(
 			@CliOption(key = { "", "name" }, help = "the name of the stream to un-deploy", mandatory = true/*, optionContext = "existing-stream deployed disable-string-converter"*/) String name
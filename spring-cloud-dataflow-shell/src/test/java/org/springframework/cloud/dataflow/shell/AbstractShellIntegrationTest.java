@@ -31,6 +31,7 @@ import org.springframework.cloud.dataflow.admin.AdminApplication;
 import org.springframework.cloud.dataflow.admin.config.AdminConfiguration;
 import org.springframework.cloud.dataflow.artifact.registry.InMemoryArtifactRegistry;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
+import org.springframework.cloud.dataflow.shell.command.ModuleCommandTemplate;
 import org.springframework.cloud.dataflow.shell.command.StreamCommandTemplate;
 import org.springframework.cloud.dataflow.shell.command.TaskCommandTemplate;
 import org.springframework.context.ApplicationContext;
@@ -157,6 +158,15 @@ public abstract class AbstractShellIntegrationTest {
 		return new TaskCommandTemplate(dataFlowShell);
 	}
 
+	/**
+	 * Return a {@link ModuleCommandTemplate} for issuing shell based module commands.
+	 *
+	 * @return template for issuing module commands
+	 */
+	protected ModuleCommandTemplate module() {
+		return new ModuleCommandTemplate(dataFlowShell);
+	}
+
 	// Util methods
 
 	/**
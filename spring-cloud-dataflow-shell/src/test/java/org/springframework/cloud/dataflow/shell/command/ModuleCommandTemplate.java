@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.shell.command;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.shell.core.CommandResult;
+import org.springframework.shell.core.JLineShellComponent;
+
+/**
+ * Helper methods for module commands to execute in the shell.
+ */
+public class ModuleCommandTemplate {
+
+	private final JLineShellComponent shell;
+
+	private List<String> modules = new ArrayList<String>();
+
+	/**
+	 * Construct a new ModuleCommandTemplate, given a spring shell.
+	 *
+	 * @param shell the spring shell to execute commands against
+	 */
+	public ModuleCommandTemplate(JLineShellComponent shell) {
+		this.shell = shell;
+	}
+
+	/**
+	 * Register the modules listed in a properties file.
+	 *
+	 * Note the modules will be remembered (as {@literal <name>:<type>}) so that they are
+	 * unregistered when the method unregisterImportedModules is called.
+	 *
+	 * @param file the properties file
+	 * @param force whether to overwrite existing registrations
+	 * @param modules the {@literal <name>:<type>} of the modules listed in the file
+	 * @return the command result
+	 */
+	public String importFromFile(File file, boolean force, String... modules) {
+		CommandResult cr = shell.executeCommand(String.format("module import --file \"%s\"%s",
+				file.getAbsolutePath(), force ? " --force" : ""));
+		for (String module : modules) {
+			this.modules.add(module);
+		}
+		assertTrue("Failure.  CommandResult = " + cr.toString(), cr.isSuccess());
+		return (String) cr.getResult();
+	}
+
+	/**
+	 * Verify the module is listed in module list.
+	 *
+	 * @param name the name of the module
+	 */
+	public void verifyExists(String name) {
+		CommandResult cr = shell.executeCommand("module list");
+		assertTrue("Failure.  CommandResult = " + cr.toString(), cr.isSuccess());
+		assertTrue("Module " + name + " not listed", cr.getResult().toString().contains(name));
+	}
+
+	/**
+	 * Unregister all modules that were imported using the 'importFromFile' method.
+	 */
+	public void unregisterImportedModules() {
+		for (String module : modules) {
+			CommandResult cr = shell.executeCommand("module unregister " + module);
+			assertTrue("Failure to unregister module " + module + ".  CommandResult = " + cr.toString(),
+					cr.isSuccess());
+		}
+		modules.clear();
+	}
+
+}
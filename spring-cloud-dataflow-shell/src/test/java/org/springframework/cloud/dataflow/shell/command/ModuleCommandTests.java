@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.shell.command;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cloud.dataflow.shell.AbstractShellIntegrationTest;
+
+/**
+ * Tests for {@link ModuleCommands}.
+ */
+public class ModuleCommandTests extends AbstractShellIntegrationTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ModuleCommandTemplate modules = module();
+
+	@After
+	public void unregisterModules() {
+		modules.unregisterImportedModules();
+	}
+
+	@Test
+	public void testImportFromFile() throws IOException {
+		String source = generateUniqueName("source");
+		String sink = generateUniqueName("sink");
+		Properties properties = new Properties();
+		properties.setProperty("source." + source, "org.example:time-source:1.0.0");
+		properties.setProperty("sink." + sink, "org.example:log-sink:jar:exec:1.0.0");
+		File file = folder.newFile("modules.properties");
+		try (OutputStream outputStream = new FileOutputStream(file)) {
+			properties.store(outputStream, null);
+		}
+
+		String result = modules.importFromFile(file, false, source + ":source", sink + ":sink");
+
+		assertThat(result, is(String.format("Successfully registered 2 modules out of 2 from '%s'", file)));
+		modules.verifyExists(source);
+		modules.verifyExists(sink);
+		assertThat(modules.importFromFile(file, false),
+				is(String.format("Successfully registered 0 modules out of 2 from '%s'", file)));
+	}
+
+}
@@ -18,6 +18,7 @@ package org.springframework.cloud.dataflow.yarn.appmaster;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 /**
  * Yarn application bootstrapping appmaster.
@@ -26,6 +27,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  *
  */
 @SpringBootApplication
+@EnableConfigurationProperties(ContainerPoolProperties.class)
 public class AppmasterApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.yarn.appmaster;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.statemachine.state.State;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.yarn.am.cluster.ContainerCluster;
+import org.springframework.yarn.am.cluster.ContainerClusterAppmaster;
+
+/**
+ * Exposes the states of all container clusters in a single response, so that
+ * clients don't need to query each cluster separately.
+ */
+@RestController
+public class ClusterStatesController {
+
+	public static final String PATH = "/dataflow_clusterstates";
+
+	@Autowired
+	private ContainerClusterAppmaster appmaster;
+
+	/**
+	 * Gets the states of all known container clusters, by cluster id.
+	 *
+	 * @return the cluster states
+	 */
+	@RequestMapping(value = PATH, method = RequestMethod.GET)
+	public Map<String, String> clusterStates() {
+		Map<String, String> states = new HashMap<String, String>();
+		for (Entry<String, ContainerCluster> entry : appmaster.getContainerClusters().entrySet()) {
+			State<?, ?> state = entry.getValue().getStateMachine().getState();
+			if (state != null) {
+				states.put(entry.getKey(), state.getId().toString());
+			}
+		}
+		return states;
+	}
+
+}
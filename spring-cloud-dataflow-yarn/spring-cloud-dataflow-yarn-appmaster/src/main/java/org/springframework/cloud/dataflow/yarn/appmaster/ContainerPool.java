@@ -0,0 +1,478 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.yarn.appmaster;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.yarn.am.cluster.ContainerClusterAppmaster;
+import org.springframework.yarn.am.grid.support.ProjectionData;
+
+/**
+ * Keeps, for each configured cluster definition, a number of idle containers
+ * running {@code ContainerApplication} without any module. Those containers
+ * belong to a dedicated container cluster, and regularly ask the appmaster
+ * (see {@link ContainerPoolController}) whether they have been assigned modules
+ * to run. Handing modules to idle containers avoids waiting for containers to
+ * be allocated and their JVM to start when creating a cluster.
+ *
+ * <p>The pool cluster grows with each assignment, so that the number of idle
+ * containers is restored. Assigned containers are told to exit once the
+ * cluster they were assigned to is destroyed. Idle containers are let go
+ * when the pool has not been used for the configured idle timeout, and the
+ * pool is warmed up again on next use.
+ *
+ * <p>The pool cluster never shrinks by itself, as the grid would then pick
+ * the containers to kill, busy ones included. Surplus idle containers are
+ * told to exit instead, and the cluster only shrinks by the containers
+ * which completed after being told so (see {@link #containerCompleted(String)}).
+ * Assigned containers which complete unexpectedly are replaced by the grid,
+ * and their assignment is handed to the next idle container.
+ *
+ * <p>As pooled containers are already running when assigned, the module
+ * archives staged in hdfs for the cluster cannot be localized by yarn.
+ * Their paths are passed along with the assignment instead, for the
+ * containers to fetch them.
+ */
+@Component
+public class ContainerPool implements InitializingBean, DisposableBean,
+		ApplicationListener<EmbeddedServletContainerInitializedEvent> {
+
+	private final static Log log = LogFactory.getLog(ContainerPool.class);
+
+	public static final String POOL_CLUSTER_PREFIX = "pool:";
+
+	public static final String POOL_URL_PROPERTY = "dataflow.pool.url";
+
+	public static final String POOL_DEFINITION_PROPERTY = "dataflow.pool.definition";
+
+	@Autowired
+	private ContainerPoolProperties properties;
+
+	@Autowired
+	private ContainerClusterAppmaster appmaster;
+
+	private final Map<String, PoolState> pools = new HashMap<String, PoolState>();
+
+	private volatile String url;
+
+	private ScheduledExecutorService maintainer;
+
+	@Override
+	public void afterPropertiesSet() {
+		if (appmaster instanceof DataFlowAppmaster) {
+			((DataFlowAppmaster) appmaster).setContainerPool(this);
+		}
+		for (Entry<String, ContainerPoolProperties.Pool> entry : properties.getClusters().entrySet()) {
+			if (entry.getValue().getSize() > 0) {
+				pools.put(entry.getKey(), new PoolState(entry.getKey(), entry.getValue()));
+			}
+		}
+		maintainer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "container-pool");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		maintainer.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					maintain();
+				}
+				catch (RuntimeException e) {
+					log.warn("Error maintaining container pools", e);
+				}
+			}
+		}, 5, 5, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public void destroy() {
+		if (maintainer != null) {
+			maintainer.shutdownNow();
+		}
+	}
+
+	@Override
+	public void onApplicationEvent(EmbeddedServletContainerInitializedEvent event) {
+		String host;
+		try {
+			host = InetAddress.getLocalHost().getCanonicalHostName();
+		}
+		catch (UnknownHostException e) {
+			host = "localhost";
+		}
+		url = "http://" + host + ":" + event.getEmbeddedServletContainer().getPort();
+	}
+
+	/**
+	 * Gets the base url pooled containers use to reach the appmaster.
+	 *
+	 * @return the url, or {@code null} if not known yet
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * Checks whether a container cluster is the one of a pool.
+	 *
+	 * @param clusterId the cluster id
+	 * @return true if the cluster is a pool
+	 */
+	public static boolean isPoolCluster(String clusterId) {
+		return clusterId != null && clusterId.startsWith(POOL_CLUSTER_PREFIX);
+	}
+
+	/**
+	 * Answers a pooled container asking for work. An idle container is handed
+	 * the assignment of a container which completed unexpectedly if any, is
+	 * registered as available if the pool needs it, and is told to exit
+	 * otherwise.
+	 *
+	 * @param clusterDef the cluster definition of the pool
+	 * @param containerId the container id
+	 * @return the assignment of the container, or {@code null} if it has none yet
+	 */
+	public synchronized Assignment poll(String clusterDef, String containerId) {
+		PoolState pool = pools.get(clusterDef);
+		if (pool == null || pool.exiting.contains(containerId)) {
+			return Assignment.EXIT;
+		}
+		Assignment assignment = pool.assignments.get(containerId);
+		if (assignment != null) {
+			return assignment;
+		}
+		if (!pool.orphaned.isEmpty()) {
+			pool.idle.remove(containerId);
+			assignment = pool.orphaned.poll();
+			log.info("Handing the assignment of a lost container of cluster " + assignment.getClusterId()
+					+ " to pooled container " + containerId);
+			pool.assignments.put(containerId, assignment);
+			return assignment;
+		}
+		pool.idle.add(containerId);
+		trim(pool);
+		return pool.exiting.contains(containerId) ? Assignment.EXIT : null;
+	}
+
+	/**
+	 * Hands the modules of a cluster to as many idle containers as possible.
+	 *
+	 * @param clusterDef the cluster definition
+	 * @param clusterId the cluster the containers are assigned to
+	 * @param count the number of containers wanted
+	 * @param extraProperties the extra properties of the cluster
+	 * @return the number of containers assigned, which may be less than wanted
+	 */
+	public synchronized int assign(String clusterDef, String clusterId, int count, Map<String, Object> extraProperties) {
+		PoolState pool = pools.get(clusterDef);
+		if (pool == null) {
+			return 0;
+		}
+		pool.lastUsed = System.currentTimeMillis();
+		if (!pool.warm) {
+			log.info("Warming up container pool " + clusterDef);
+			pool.warm = true;
+			resize(pool);
+			return 0;
+		}
+		Assignment assignment = Assignment.of(clusterId, extraProperties);
+		int assigned = 0;
+		for (Iterator<String> iterator = pool.idle.iterator(); iterator.hasNext() && assigned < count;) {
+			pool.assignments.put(iterator.next(), assignment);
+			iterator.remove();
+			assigned++;
+		}
+		if (assigned > 0) {
+			log.info("Assigned " + assigned + " pooled containers to cluster " + clusterId);
+			resize(pool);
+		}
+		return assigned;
+	}
+
+	/**
+	 * Tells the containers assigned to a cluster to exit.
+	 *
+	 * @param clusterId the cluster id
+	 */
+	public synchronized void release(String clusterId) {
+		for (PoolState pool : pools.values()) {
+			for (Iterator<Entry<String, Assignment>> iterator = pool.assignments.entrySet().iterator(); iterator.hasNext();) {
+				Entry<String, Assignment> entry = iterator.next();
+				if (entry.getValue().getClusterId().equals(clusterId)) {
+					pool.exiting.add(entry.getKey());
+					iterator.remove();
+				}
+			}
+			for (Iterator<Assignment> iterator = pool.orphaned.iterator(); iterator.hasNext();) {
+				if (iterator.next().getClusterId().equals(clusterId)) {
+					iterator.remove();
+				}
+			}
+			trim(pool);
+		}
+	}
+
+	/**
+	 * Keeps at most the given number of pooled containers assigned to a
+	 * cluster, telling the others to exit, so that the cluster only needs
+	 * its own members for the rest of its instances.
+	 *
+	 * @param clusterId the cluster id
+	 * @param count the number of instances the cluster should run
+	 * @return the number of pooled containers still assigned to the cluster
+	 */
+	public synchronized int limitAssigned(String clusterId, int count) {
+		int kept = 0;
+		for (PoolState pool : pools.values()) {
+			for (Iterator<Entry<String, Assignment>> iterator = pool.assignments.entrySet().iterator(); iterator.hasNext();) {
+				Entry<String, Assignment> entry = iterator.next();
+				if (entry.getValue().getClusterId().equals(clusterId)) {
+					if (kept < count) {
+						kept++;
+					}
+					else {
+						pool.exiting.add(entry.getKey());
+						iterator.remove();
+					}
+				}
+			}
+			for (Iterator<Assignment> iterator = pool.orphaned.iterator(); iterator.hasNext();) {
+				if (iterator.next().getClusterId().equals(clusterId)) {
+					if (kept < count) {
+						kept++;
+					}
+					else {
+						iterator.remove();
+					}
+				}
+			}
+			trim(pool);
+		}
+		return kept;
+	}
+
+	/**
+	 * Forgets a container which completed. The pool cluster shrinks by one if
+	 * the container had been told to exit, otherwise the grid replaces it and
+	 * its assignment, if any, is handed to the next idle container.
+	 *
+	 * @param containerId the container id
+	 */
+	public synchronized void containerCompleted(String containerId) {
+		for (PoolState pool : pools.values()) {
+			if (pool.exiting.remove(containerId)) {
+				pool.target--;
+				appmaster.modifyContainerCluster(POOL_CLUSTER_PREFIX + pool.clusterDef,
+						new ProjectionData(pool.target));
+				return;
+			}
+			Assignment assignment = pool.assignments.remove(containerId);
+			if (assignment != null) {
+				log.info("Pooled container " + containerId + " of cluster " + assignment.getClusterId()
+						+ " completed, its assignment goes to the next idle container");
+				pool.orphaned.add(assignment);
+				return;
+			}
+			if (pool.idle.remove(containerId)) {
+				return;
+			}
+		}
+	}
+
+	private synchronized void maintain() {
+		long now = System.currentTimeMillis();
+		for (PoolState pool : pools.values()) {
+			if (pool.warm && now - pool.lastUsed > pool.settings.getIdleTimeout()) {
+				log.info("Letting idle containers of pool " + pool.clusterDef + " go");
+				pool.warm = false;
+			}
+			resize(pool);
+		}
+	}
+
+	/**
+	 * Number of containers the pool needs, either idle or assigned.
+	 */
+	private int wanted(PoolState pool) {
+		return (pool.warm ? pool.settings.getSize() : 0) + pool.assignments.size() + pool.orphaned.size();
+	}
+
+	/**
+	 * Grows the pool cluster to the number of containers wanted, creating the
+	 * cluster if needed, or tells surplus idle containers to exit.
+	 */
+	private void resize(PoolState pool) {
+		int target = wanted(pool);
+		String clusterId = POOL_CLUSTER_PREFIX + pool.clusterDef;
+		if (!pool.created) {
+			if (url == null || target == 0) {
+				return;
+			}
+			appmaster.createContainerCluster(clusterId, pool.clusterDef, new ProjectionData(target),
+					new HashMap<String, Object>());
+			appmaster.startContainerCluster(clusterId);
+			pool.created = true;
+			pool.target = target;
+		}
+		else if (target > pool.target - pool.exiting.size()) {
+			pool.target = target + pool.exiting.size();
+			appmaster.modifyContainerCluster(clusterId, new ProjectionData(pool.target));
+		}
+		else {
+			trim(pool);
+		}
+	}
+
+	/**
+	 * Tells as many idle containers to exit as the pool cluster has members
+	 * beyond the containers wanted and the ones already exiting.
+	 */
+	private void trim(PoolState pool) {
+		int surplus = pool.target - pool.exiting.size() - wanted(pool);
+		for (Iterator<String> iterator = pool.idle.iterator(); iterator.hasNext() && surplus > 0; surplus--) {
+			pool.exiting.add(iterator.next());
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * What a pooled container is asked to do.
+	 */
+	public static class Assignment {
+
+		static final Assignment EXIT = new Assignment("exit", null, null, null, null);
+
+		private final String action;
+		private final String clusterId;
+		private final String modules;
+		private final Map<String, String> args;
+		private final List<String> artifacts;
+
+		private Assignment(String action, String clusterId, String modules, Map<String, String> args,
+				List<String> artifacts) {
+			this.action = action;
+			this.clusterId = clusterId;
+			this.modules = modules;
+			this.args = args;
+			this.artifacts = artifacts;
+		}
+
+		static Assignment of(String clusterId, Map<String, Object> extraProperties) {
+			String modules = null;
+			Map<String, String> args = new HashMap<String, String>();
+			List<String> artifacts = new ArrayList<String>();
+			if (extraProperties != null) {
+				for (Entry<String, Object> entry : extraProperties.entrySet()) {
+					if (entry.getKey().equals("containerModules")) {
+						modules = entry.getValue().toString();
+					}
+					else if (entry.getKey().equals("containerArtifacts")) {
+						artifacts.addAll(StringUtils.commaDelimitedListToSet(entry.getValue().toString()));
+					}
+					else if (entry.getKey().startsWith("containerArg")) {
+						String arg = entry.getValue().toString();
+						int equals = arg.indexOf('=');
+						if (equals > 0) {
+							args.put(arg.substring(0, equals), arg.substring(equals + 1));
+						}
+					}
+				}
+			}
+			return new Assignment("launch", clusterId, modules, args, artifacts);
+		}
+
+		public String getAction() {
+			return action;
+		}
+
+		public String getClusterId() {
+			return clusterId;
+		}
+
+		public String getModules() {
+			return modules;
+		}
+
+		public Map<String, String> getArgs() {
+			return args;
+		}
+
+		/**
+		 * Gets the hdfs paths of the module archives staged for the cluster.
+		 *
+		 * @return the paths, empty if the modules were not staged
+		 */
+		public List<String> getArtifacts() {
+			return artifacts;
+		}
+
+	}
+
+	private static class PoolState {
+
+		private final String clusterDef;
+		private final ContainerPoolProperties.Pool settings;
+		private final Set<String> idle = new LinkedHashSet<String>();
+		private final Map<String, Assignment> assignments = new LinkedHashMap<String, Assignment>();
+		private final Set<String> exiting = new HashSet<String>();
+		private final Queue<Assignment> orphaned = new LinkedList<Assignment>();
+		private boolean warm = true;
+		private boolean created;
+		private int target;
+		private long lastUsed = System.currentTimeMillis();
+
+		private PoolState(String clusterDef, ContainerPoolProperties.Pool settings) {
+			this.clusterDef = clusterDef;
+			this.settings = settings;
+		}
+
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.yarn.appmaster;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Endpoint polled by pooled containers to learn which modules, if any,
+ * they should run, or whether they should exit.
+ */
+@RestController
+public class ContainerPoolController {
+
+	public static final String PATH = "/dataflow_pool";
+
+	@Autowired
+	private ContainerPool containerPool;
+
+	/**
+	 * Gets the assignment of a pooled container.
+	 *
+	 * @param clusterDef the cluster definition of the pool
+	 * @param containerId the container id
+	 * @return the assignment, or no content if the container should stay idle
+	 */
+	@RequestMapping(value = PATH + "/{clusterDef}/{containerId}", method = RequestMethod.GET)
+	public ResponseEntity<ContainerPool.Assignment> poll(@PathVariable("clusterDef") String clusterDef,
+			@PathVariable("containerId") String containerId) {
+		ContainerPool.Assignment assignment = containerPool.poll(clusterDef, containerId);
+		if (assignment == null) {
+			return new ResponseEntity<ContainerPool.Assignment>(HttpStatus.NO_CONTENT);
+		}
+		return new ResponseEntity<ContainerPool.Assignment>(assignment, HttpStatus.OK);
+	}
+
+}
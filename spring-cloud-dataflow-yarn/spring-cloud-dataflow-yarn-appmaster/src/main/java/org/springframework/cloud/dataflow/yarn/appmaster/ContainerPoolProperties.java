@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.yarn.appmaster;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the pools of idle containers, per cluster definition.
+ */
+@ConfigurationProperties(prefix = "dataflow.yarn.pool")
+public class ContainerPoolProperties {
+
+	private Map<String, Pool> clusters = new HashMap<String, Pool>();
+
+	public Map<String, Pool> getClusters() {
+		return clusters;
+	}
+
+	public void setClusters(Map<String, Pool> clusters) {
+		this.clusters = clusters;
+	}
+
+	/**
+	 * Settings of the pool of a single cluster definition.
+	 */
+	public static class Pool {
+
+		/**
+		 * Number of idle containers to keep running.
+		 */
+		private int size = 0;
+
+		/**
+		 * Time, in milliseconds, after which idle containers are let go if
+		 * none of them has been used.
+		 */
+		private long idleTimeout = 600000L;
+
+		public int getSize() {
+			return size;
+		}
+
+		public void setSize(int size) {
+			this.size = size;
+		}
+
+		public long getIdleTimeout() {
+			return idleTimeout;
+		}
+
+		public void setIdleTimeout(long idleTimeout) {
+			this.idleTimeout = idleTimeout;
+		}
+
+	}
+
+}
@@ -16,17 +16,31 @@
 
 package org.springframework.cloud.dataflow.yarn.appmaster;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.yarn.api.records.Container;
+import org.apache.hadoop.yarn.api.records.ContainerId;
+import org.apache.hadoop.yarn.api.records.ContainerLaunchContext;
+import org.apache.hadoop.yarn.api.records.ContainerStatus;
+import org.apache.hadoop.yarn.api.records.LocalResource;
+import org.apache.hadoop.yarn.api.records.LocalResourceType;
+import org.apache.hadoop.yarn.api.records.LocalResourceVisibility;
+import org.apache.hadoop.yarn.util.ConverterUtils;
 
+import org.springframework.util.StringUtils;
 import org.springframework.yarn.am.cluster.ContainerCluster;
 import org.springframework.yarn.am.cluster.ManagedContainerClusterAppmaster;
+import org.springframework.yarn.am.grid.support.ProjectionData;
 
 /**
  * Custom yarn appmaster tweaking container launch settings.
@@ -38,16 +52,79 @@ public class DataFlowAppmaster extends ManagedContainerClusterAppmaster {
 
 	private final static Log log = LogFactory.getLog(DataFlowAppmaster.class);
 
+	private volatile ContainerPool containerPool;
+
+	/**
+	 * Clusters of the containers being launched, as seen when building their commands.
+	 * Entries are removed once the container is launched, or once it completed if it
+	 * never was.
+	 */
+	private final Map<ContainerId, ContainerCluster> launchingClusters = new ConcurrentHashMap<ContainerId, ContainerCluster>();
+
+	/**
+	 * Sets the pool of idle containers this appmaster launches pooled
+	 * containers for.
+	 *
+	 * @param containerPool the container pool
+	 */
+	public void setContainerPool(ContainerPool containerPool) {
+		this.containerPool = containerPool;
+	}
+
+	@Override
+	public void destroyContainerCluster(String id) {
+		if (containerPool != null) {
+			containerPool.release(id);
+		}
+		super.destroyContainerCluster(id);
+	}
+
+	/**
+	 * Counts the pooled containers running the modules of a cluster when its
+	 * container count changes, so that the cluster projection only covers
+	 * the instances the pool does not run.
+	 */
+	@Override
+	public void modifyContainerCluster(String id, ProjectionData data) {
+		if (containerPool != null && !ContainerPool.isPoolCluster(id) && data != null && data.getAny() != null) {
+			int pooled = containerPool.limitAssigned(id, data.getAny());
+			data.setAny(data.getAny() - pooled);
+		}
+		super.modifyContainerCluster(id, data);
+	}
+
+	/**
+	 * Forgets the cluster of a completed container which was never launched,
+	 * and lets the container pool know about completed containers once the
+	 * grid dropped them, so that shrinking the pool cluster never takes away
+	 * a live container.
+	 */
+	@Override
+	protected void onContainerCompleted(ContainerStatus status) {
+		super.onContainerCompleted(status);
+		launchingClusters.remove(status.getContainerId());
+		if (containerPool != null) {
+			containerPool.containerCompleted(status.getContainerId().toString());
+		}
+	}
+
 	@Override
 	protected List<String> onContainerLaunchCommands(Container container, ContainerCluster cluster,
 			List<String> commands) {
 
+		launchingClusters.put(container.getId(), cluster);
 		ArrayList<String> list = new ArrayList<String>(commands);
 		Map<String, Object> extraProperties = cluster.getExtraProperties();
 
 		log.info("onContainerLaunchCommands extraProperties=" + extraProperties);
 
-		if (extraProperties != null) {
+		if (containerPool != null && ContainerPool.isPoolCluster(cluster.getId())) {
+			// pooled containers get their modules later on from the pool
+			String clusterDef = cluster.getId().substring(ContainerPool.POOL_CLUSTER_PREFIX.length());
+			list.add(Math.max(list.size() - 2, 0), ContainerPool.POOL_URL_PROPERTY + "=" + containerPool.getUrl());
+			list.add(Math.max(list.size() - 2, 0), ContainerPool.POOL_DEFINITION_PROPERTY + "=" + clusterDef);
+		}
+		else if (extraProperties != null) {
 			if (extraProperties.containsKey("containerModules")) {
 				String value = "containerModules=" + cluster.getExtraProperties().get("containerModules");
 				list.add(Math.max(list.size() - 2, 0), value);
@@ -62,4 +139,35 @@ public class DataFlowAppmaster extends ManagedContainerClusterAppmaster {
 		return list;
 	}
 
+	/**
+	 * Adds the module archives staged in hdfs for the cluster of the container
+	 * to its local resources. They are localized once per node and application,
+	 * and shared by all the containers of the node.
+	 */
+	@Override
+	public ContainerLaunchContext preLaunch(Container container, ContainerLaunchContext context) {
+		ContainerLaunchContext launchContext = super.preLaunch(container, context);
+		ContainerCluster cluster = launchingClusters.remove(container.getId());
+		Object artifacts = cluster != null && cluster.getExtraProperties() != null
+				? cluster.getExtraProperties().get("containerArtifacts") : null;
+		if (artifacts == null) {
+			return launchContext;
+		}
+		Map<String, LocalResource> localResources = new HashMap<String, LocalResource>(launchContext.getLocalResources());
+		for (String artifact : StringUtils.commaDelimitedListToStringArray(artifacts.toString())) {
+			try {
+				Path path = new Path(artifact);
+				FileStatus status = path.getFileSystem(getConfiguration()).getFileStatus(path);
+				localResources.put(path.getName(), LocalResource.newInstance(
+						ConverterUtils.getYarnUrlFromPath(status.getPath()), LocalResourceType.FILE,
+						LocalResourceVisibility.APPLICATION, status.getLen(), status.getModificationTime()));
+			}
+			catch (IOException e) {
+				log.warn("Not localizing " + artifact + ", container will resolve it", e);
+			}
+		}
+		launchContext.setLocalResources(localResources);
+		return launchContext;
+	}
+
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.yarn.appmaster;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.yarn.am.cluster.ContainerClusterAppmaster;
+import org.springframework.yarn.am.grid.support.ProjectionData;
+
+/**
+ * Creates and starts the container clusters of all the modules of a stream
+ * with a single request. All the clusters are started before the appmaster
+ * next talks to the resource manager, so that containers for all of them
+ * are asked for in the same allocation round. Idle containers of the
+ * {@link ContainerPool} are handed modules first.
+ */
+@RestController
+public class StreamClustersController {
+
+	private final static Log log = LogFactory.getLog(StreamClustersController.class);
+
+	public static final String PATH = "/dataflow_clusters";
+
+	@Autowired
+	private ContainerClusterAppmaster appmaster;
+
+	@Autowired
+	private ContainerPool containerPool;
+
+	/**
+	 * Creates and starts the given container clusters.
+	 *
+	 * @param requests the cluster create requests
+	 */
+	@RequestMapping(value = PATH, method = RequestMethod.POST)
+	@ResponseStatus(HttpStatus.CREATED)
+	public void createAndStartClusters(@RequestBody List<ClusterCreateRequest> requests) {
+		for (ClusterCreateRequest request : requests) {
+			// idle pooled containers take what they can, the cluster asks for the rest
+			int pooled = containerPool.assign(request.getClusterDef(), request.getClusterId(), request.getCount(),
+					request.getExtraProperties());
+			appmaster.createContainerCluster(request.getClusterId(), request.getClusterDef(),
+					new ProjectionData(request.getCount() - pooled), request.getExtraProperties());
+		}
+		for (ClusterCreateRequest request : requests) {
+			appmaster.startContainerCluster(request.getClusterId());
+		}
+		log.info("Created and started " + requests.size() + " container clusters");
+	}
+
+	/**
+	 * Request for the creation of a single container cluster.
+	 */
+	public static class ClusterCreateRequest {
+
+		private String clusterId;
+		private String clusterDef;
+		private int count;
+		private Map<String, Object> extraProperties;
+
+		public String getClusterId() {
+			return clusterId;
+		}
+
+		public void setClusterId(String clusterId) {
+			this.clusterId = clusterId;
+		}
+
+		public String getClusterDef() {
+			return clusterDef;
+		}
+
+		public void setClusterDef(String clusterDef) {
+			this.clusterDef = clusterDef;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public void setCount(int count) {
+			this.count = count;
+		}
+
+		public Map<String, Object> getExtraProperties() {
+			return extraProperties;
+		}
+
+		public void setExtraProperties(Map<String, Object> extraProperties) {
+			this.extraProperties = extraProperties;
+		}
+
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.dataflow.yarn.appmaster;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.yarn.am.cluster.ContainerClusterAppmaster;
+import org.springframework.yarn.am.grid.support.ProjectionData;
+
+/**
+ * Tests for {@link ContainerPool}.
+ */
+public class ContainerPoolTests {
+
+	private static final String DEFINITION = "module-template";
+
+	private static final String CLUSTER = ContainerPool.POOL_CLUSTER_PREFIX + DEFINITION;
+
+	private ContainerClusterAppmaster appmaster = mock(ContainerClusterAppmaster.class);
+
+	private ContainerPoolProperties.Pool settings = new ContainerPoolProperties.Pool();
+
+	private ContainerPool pool;
+
+	@Before
+	public void setUp() {
+		settings.setSize(2);
+		ContainerPoolProperties properties = new ContainerPoolProperties();
+		properties.getClusters().put(DEFINITION, settings);
+		pool = new ContainerPool();
+		ReflectionTestUtils.setField(pool, "properties", properties);
+		ReflectionTestUtils.setField(pool, "appmaster", appmaster);
+		ReflectionTestUtils.setField(pool, "url", "http://localhost:9393");
+		pool.afterPropertiesSet();
+		ReflectionTestUtils.invokeMethod(pool, "maintain");
+		ArgumentCaptor<ProjectionData> projection = ArgumentCaptor.forClass(ProjectionData.class);
+		verify(appmaster).createContainerCluster(eq(CLUSTER), eq(DEFINITION), projection.capture(),
+				anyMapOf(String.class, Object.class));
+		assertThat(projection.getValue().getAny(), is(2));
+		assertThat(pool.poll(DEFINITION, "c1"), nullValue());
+		assertThat(pool.poll(DEFINITION, "c2"), nullValue());
+	}
+
+	@After
+	public void tearDown() {
+		pool.destroy();
+	}
+
+	@Test
+	public void poolShrinksOnceReleasedContainersCompleted() {
+		assertThat(pool.assign(DEFINITION, "ticktock:log", 1, properties("log")), is(1));
+		assertThat(lastProjection(1), is(3));
+		assertThat(pool.poll(DEFINITION, "c3"), nullValue());
+
+		pool.release("ticktock:log");
+		assertThat(pool.poll(DEFINITION, "c1").getAction(), is("exit"));
+		// still running, so the grid must not pick a member to kill yet
+		assertThat(pool.poll(DEFINITION, "c1").getAction(), is("exit"));
+		verify(appmaster, times(1)).modifyContainerCluster(eq(CLUSTER), any(ProjectionData.class));
+
+		pool.containerCompleted("c1");
+		assertThat(lastProjection(2), is(2));
+		assertThat(pool.poll(DEFINITION, "c2"), nullValue());
+		assertThat(pool.poll(DEFINITION, "c3"), nullValue());
+	}
+
+	@Test
+	public void coldPoolOnlyLetsIdleContainersGo() {
+		assertThat(pool.assign(DEFINITION, "ticktock:log", 1, properties("log")), is(1));
+		assertThat(pool.poll(DEFINITION, "c3"), nullValue());
+		settings.setIdleTimeout(-1);
+		ReflectionTestUtils.invokeMethod(pool, "maintain");
+
+		ContainerPool.Assignment assignment = pool.poll(DEFINITION, "c1");
+		assertThat(assignment.getAction(), is("launch"));
+		assertThat(assignment.getModules(), is("log"));
+		assertThat(pool.poll(DEFINITION, "c2").getAction(), is("exit"));
+		assertThat(pool.poll(DEFINITION, "c3").getAction(), is("exit"));
+		verify(appmaster, times(1)).modifyContainerCluster(eq(CLUSTER), any(ProjectionData.class));
+
+		pool.containerCompleted("c2");
+		pool.containerCompleted("c3");
+		assertThat(lastProjection(3), is(1));
+		assertThat(pool.poll(DEFINITION, "c1"), sameInstance(assignment));
+	}
+
+	@Test
+	public void assignmentOfLostContainerGoesToItsReplacement() {
+		Map<String, Object> properties = properties("log");
+		properties.put("containerArtifacts", "/dataflow/artifacts/log-1.0.jar");
+		assertThat(pool.assign(DEFINITION, "ticktock:log", 1, properties), is(1));
+		assertThat(pool.poll(DEFINITION, "c3"), nullValue());
+
+		pool.containerCompleted("c1");
+		ContainerPool.Assignment assignment = pool.poll(DEFINITION, "c4");
+		assertThat(assignment.getClusterId(), is("ticktock:log"));
+		assertThat(assignment.getModules(), is("log"));
+		assertThat(assignment.getArtifacts(), contains("/dataflow/artifacts/log-1.0.jar"));
+		assertThat(pool.poll(DEFINITION, "c4"), sameInstance(assignment));
+		assertThat(pool.poll(DEFINITION, "c2"), nullValue());
+		assertThat(pool.poll(DEFINITION, "c3"), nullValue());
+		// the grid replaces the lost container on its own
+		verify(appmaster, times(1)).modifyContainerCluster(eq(CLUSTER), any(ProjectionData.class));
+	}
+
+	@Test
+	public void scalingDownLetsSurplusAssignedContainersGo() {
+		assertThat(pool.assign(DEFINITION, "ticktock:log", 2, properties("log")), is(2));
+		assertThat(pool.limitAssigned("ticktock:log", 3), is(2));
+		assertThat(pool.limitAssigned("ticktock:log", 1), is(1));
+		assertThat(pool.poll(DEFINITION, "c1").getAction(), is("launch"));
+		assertThat(pool.poll(DEFINITION, "c2").getAction(), is("exit"));
+		assertThat(lastProjection(1), is(4));
+
+		pool.containerCompleted("c2");
+		assertThat(lastProjection(2), is(3));
+	}
+
+	private Integer lastProjection(int modifications) {
+		ArgumentCaptor<ProjectionData> projection = ArgumentCaptor.forClass(ProjectionData.class);
+		verify(appmaster, times(modifications)).modifyContainerCluster(eq(CLUSTER), projection.capture());
+		return projection.getValue().getAny();
+	}
+
+	private static Map<String, Object> properties(String modules) {
+		Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put("containerModules", modules);
+		return properties;
+	}
+
+}
@@ -16,8 +16,12 @@
 
 package org.springframework.cloud.dataflow.yarn.container;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
@@ -25,14 +29,22 @@ import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.yarn.api.ApplicationConstants;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.stream.module.launcher.ModuleLaunchRequest;
 import org.springframework.cloud.stream.module.launcher.ModuleLauncher;
 import org.springframework.cloud.stream.module.launcher.ModuleLauncherConfiguration;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.util.StringUtils;
 import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.client.RestTemplate;
 import org.springframework.yarn.annotation.OnContainerStart;
 import org.springframework.yarn.annotation.YarnComponent;
 import org.springframework.yarn.annotation.YarnParameter;
@@ -41,6 +53,12 @@ import org.springframework.yarn.container.YarnContainerSupport;
 
 /**
  * Yarn application bootstrapping container and running modules.
+ * When given several (co-located) modules, they are launched as
+ * a single aggregate, each module receiving the arguments that were
+ * qualified with its index. A container launched without modules
+ * for a pool of idle containers polls the appmaster until modules
+ * are assigned to it, and fetches the module archives staged for
+ * them itself.
  *
  * @author Janne Valkealahti
  *
@@ -52,6 +70,14 @@ public class ContainerApplication extends YarnContainerSupport {
 
 	private final static Log log = LogFactory.getLog(ContainerApplication.class);
 
+	static final String POOL_URL_PROPERTY = "dataflow.pool.url";
+
+	static final String POOL_DEFINITION_PROPERTY = "dataflow.pool.definition";
+
+	private static final long IDLE_POLL_INTERVAL = 1000;
+
+	private static final long LAUNCHED_POLL_INTERVAL = 5000;
+
 	@Autowired
 	private ModuleLauncher moduleLauncher;
 
@@ -69,7 +95,7 @@ public class ContainerApplication extends YarnContainerSupport {
 		for (Entry<Object, Object> entry : properties.entrySet()) {
 			String key = entry.getKey().toString();
 			String value = entry.getValue().toString();
-			if (!key.startsWith("containerModules")) {
+			if (!key.startsWith("containerModules") && !key.startsWith("dataflow.pool.")) {
 				args.put(key, value);
 			}
 		}
@@ -83,10 +109,163 @@ public class ContainerApplication extends YarnContainerSupport {
 		// indicating we're done. Naturally exception will
 		// terminate execution chain and container will exit.
 		SettableListenableFuture<Boolean> status = new SettableListenableFuture<>();
-		moduleLauncher.launch(Arrays.asList(new ModuleLaunchRequest(module, args)));
+		String poolUrl = properties.getProperty(POOL_URL_PROPERTY);
+		if (!StringUtils.hasText(module) && poolUrl != null) {
+			pollForModules(poolUrl + "/dataflow_pool/" + properties.getProperty(POOL_DEFINITION_PROPERTY) + "/"
+					+ System.getenv(ApplicationConstants.Environment.CONTAINER_ID.name()), args, status);
+		}
+		else {
+			launch(module, args);
+		}
 		return status;
 	}
 
+	private void launch(String module, Map<String, String> args) {
+		String[] modules = StringUtils.commaDelimitedListToStringArray(module);
+		if (modules.length > 1) {
+			launchAggregate(modules, args);
+		}
+		else {
+			moduleLauncher.launch(Arrays.asList(new ModuleLaunchRequest(module, args)));
+		}
+	}
+
+	/**
+	 * Polls the appmaster until this pooled container is assigned modules,
+	 * which are then launched, and keeps polling afterwards to know when
+	 * the container should exit.
+	 */
+	private void pollForModules(final String url, final Map<String, String> args,
+			final SettableListenableFuture<Boolean> status) {
+		log.info("Waiting in container pool, polling " + url);
+		Thread poller = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				RestTemplate restTemplate = new RestTemplate();
+				boolean launched = false;
+				while (!status.isDone()) {
+					try {
+						Map<?, ?> assignment = restTemplate.getForObject(url, Map.class);
+						if (assignment != null && "exit".equals(assignment.get("action"))) {
+							log.info("Container pool asked this container to exit");
+							status.set(true);
+						}
+						else if (assignment != null && !launched && "launch".equals(assignment.get("action"))) {
+							Map<String, String> moduleArgs = new HashMap<>(args);
+							if (assignment.get("args") instanceof Map) {
+								for (Entry<?, ?> entry : ((Map<?, ?>) assignment.get("args")).entrySet()) {
+									moduleArgs.put(entry.getKey().toString(), String.valueOf(entry.getValue()));
+								}
+							}
+							fetchArtifacts(assignment.get("artifacts"));
+							log.info("Launching pooled modules " + assignment.get("modules") + " with args " + moduleArgs);
+							launch((String) assignment.get("modules"), moduleArgs);
+							launched = true;
+						}
+					}
+					catch (RuntimeException e) {
+						log.warn("Error polling container pool at " + url, e);
+					}
+					try {
+						Thread.sleep(launched ? LAUNCHED_POLL_INTERVAL : IDLE_POLL_INTERVAL);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		}, "container-pool-poller");
+		poller.setDaemon(true);
+		poller.start();
+	}
+
+	/**
+	 * Copies the module archives staged in hdfs into the working directory,
+	 * where they are served by {@link LocalizedModuleResolver}, as yarn only
+	 * localizes them for containers launched for a cluster.
+	 */
+	private void fetchArtifacts(Object artifacts) {
+		if (!(artifacts instanceof List)) {
+			return;
+		}
+		Configuration configuration = getConfiguration() != null ? getConfiguration() : new Configuration();
+		for (Object artifact : (List<?>) artifacts) {
+			Path path = new Path(artifact.toString());
+			File archive = new File(path.getName());
+			if (archive.isFile()) {
+				continue;
+			}
+			// not visible to the resolver until complete
+			File temp = new File("." + path.getName() + ".tmp");
+			try {
+				path.getFileSystem(configuration).copyToLocalFile(false, path, new Path(temp.getAbsolutePath()), true);
+				if (!temp.renameTo(archive)) {
+					throw new IOException("Could not rename " + temp + " to " + archive);
+				}
+			}
+			catch (IOException e) {
+				log.warn("Not fetching " + artifact + ", container will resolve it", e);
+				temp.delete();
+			}
+		}
+	}
+
+	private void launchAggregate(String[] modules, Map<String, String> args) {
+		List<Map<String, String>> moduleArgs = new ArrayList<>();
+		for (int i = 0; i < modules.length; i++) {
+			moduleArgs.add(new HashMap<String, String>());
+		}
+		Map<String, String> aggregateArgs = new HashMap<>();
+		for (Entry<String, String> entry : args.entrySet()) {
+			String key = entry.getKey();
+			int index = -1;
+			if (key.startsWith("args.") && key.indexOf('.', 5) > 5) {
+				try {
+					index = Integer.parseInt(key.substring(5, key.indexOf('.', 5)));
+				}
+				catch (NumberFormatException e) {
+					// not a qualified module argument
+				}
+			}
+			if (index >= 0 && index < modules.length) {
+				moduleArgs.get(index).put(key.substring(key.indexOf('.', 5) + 1), entry.getValue());
+			}
+			else {
+				aggregateArgs.put(key, entry.getValue());
+			}
+		}
+		List<ModuleLaunchRequest> requests = new ArrayList<>();
+		for (int i = 0; i < modules.length; i++) {
+			requests.add(new ModuleLaunchRequest(modules[i], moduleArgs.get(i)));
+		}
+		if (log.isInfoEnabled()) {
+			log.info("Launching aggregate of modules " + Arrays.asList(modules) + " with args " + aggregateArgs);
+		}
+		moduleLauncher.launch(requests, true, aggregateArgs);
+	}
+
+	@Bean
+	public static BeanPostProcessor localizedModuleResolverPostProcessor() {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				return bean;
+			}
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof ModuleResolver && !(bean instanceof LocalizedModuleResolver)) {
+					// archives staged by the deployer are localized into the working directory
+					return new LocalizedModuleResolver((ModuleResolver) bean, new File("."));
+				}
+				return bean;
+			}
+		};
+	}
+
 	public static void main(String[] args) {
 		SpringApplication.run(ContainerApplication.class, args);
 	}
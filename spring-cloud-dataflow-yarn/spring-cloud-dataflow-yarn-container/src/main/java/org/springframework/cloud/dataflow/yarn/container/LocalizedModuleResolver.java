@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.yarn.container;
+
+import java.io.File;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.stream.module.resolver.Coordinates;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StringUtils;
+
+/**
+ * A {@link ModuleResolver} serving module archives that yarn localized into
+ * the working directory of the container, under the name
+ * {@code <artifactId>-<version>[-<classifier>].<extension>}, and only falling
+ * back to another resolver for archives that were not localized.
+ */
+public class LocalizedModuleResolver implements ModuleResolver {
+
+	private final static Log log = LogFactory.getLog(LocalizedModuleResolver.class);
+
+	private final ModuleResolver delegate;
+
+	private final File directory;
+
+	public LocalizedModuleResolver(ModuleResolver delegate, File directory) {
+		this.delegate = delegate;
+		this.directory = directory;
+	}
+
+	@Override
+	public Resource resolve(Coordinates coordinates) {
+		File archive = new File(directory, coordinates.getArtifactId() + "-" + coordinates.getVersion()
+				+ (StringUtils.hasLength(coordinates.getClassifier()) ? "-" + coordinates.getClassifier() : "")
+				+ "." + coordinates.getExtension());
+		if (archive.isFile()) {
+			log.info("Using localized archive " + archive);
+			return new FileSystemResource(archive);
+		}
+		return delegate.resolve(coordinates);
+	}
+
+	/**
+	 * Archives resolved with their dependencies are never localized.
+	 */
+	@Override
+	public Resource[] resolve(Coordinates root, Coordinates[] includes, String[] excludePatterns) {
+		return delegate.resolve(root, includes, excludePatterns);
+	}
+
+}